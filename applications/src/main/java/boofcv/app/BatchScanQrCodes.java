@@ -18,26 +18,21 @@
 
 package boofcv.app;
 
-import boofcv.abst.fiducial.QrCodeDetector;
-import boofcv.alg.fiducial.qrcode.QrCode;
 import boofcv.app.batch.BatchControlPanel;
-import boofcv.factory.fiducial.FactoryFiducial;
 import boofcv.io.UtilIO;
-import boofcv.io.image.ConvertBufferedImage;
-import boofcv.io.image.UtilImageIO;
-import boofcv.struct.image.GrayU8;
+import boofcv.io.fiducial.BatchScanMarkerMessages;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
  * Scans all images in a directory for QR codes and outputs the results
  *
@@ -58,8 +53,10 @@ public class BatchScanQrCodes {
 	@Option(name = "--GUI", usage = "Ignore all other command line arguments and switch to GUI mode")
 	boolean guiMode = false;
 
-	QrCodeDetector<GrayU8> scanner = FactoryFiducial.qrcode(null, GrayU8.class);
-	GrayU8 gray = new GrayU8(1, 1);
+	@Option(name = "--Threads", usage = "Number of images processed at the same time. 0 means system default.")
+	int numThreads = 0;
+
+	BatchScanMarkerMessages scanner = BatchScanMarkerMessages.qrcode(null);
 
 	PrintStream output;
 
@@ -72,7 +69,7 @@ public class BatchScanQrCodes {
 
 	void finishParsing() {}
 
-	void process() throws FileNotFoundException, UnsupportedEncodingException {
+	void process() throws FileNotFoundException {
 		total = 0;
 		output = new PrintStream(pathOutput);
 		output.println("# Found QR Codes inside of images");
@@ -88,36 +85,34 @@ public class BatchScanQrCodes {
 			return;
 		}
 
-		for (String path : inputs) {
-			processFile(new File(path));
-		}
-		if (verbose)
-			System.out.println("\n\nDone! Images Count = " + total);
-	}
+		scanner.setMaxThreads(numThreads);
 
-	private void processFile( File f ) throws UnsupportedEncodingException {
-		BufferedImage buffered = UtilImageIO.loadImage(f.getAbsolutePath());
-		if (buffered == null) {
-			System.err.println("Can't open " + f.getPath());
-			return;
-		}
-		if (listener != null) {
-			listener.batchUpdate(f.getName());
-		}
-
-		ConvertBufferedImage.convertFrom(buffered, gray);
+		// Results are passed to the listener in the same order as the inputs
+		scanner.process(inputs, ( index, result ) -> {
+			if (!result.loaded) {
+				System.err.println("Can't open " + result.path);
+				return;
+			}
+			if (listener != null) {
+				listener.batchUpdate(new File(result.path).getName());
+			}
 
-		scanner.process(gray);
-		output.printf("%d %s\n", scanner.getDetections().size(), f.getPath());
+			output.printf("%d %s\n", result.messages.size(), result.path);
+			for (String message : result.messages) {
+				output.println(URLEncoder.encode(message, UTF_8));
+			}
 
-		for (QrCode qr : scanner.getDetections()) {
-			output.println(URLEncoder.encode(qr.message, "UTF-8"));
-		}
+			total++;
+			if (total%50 == 0) {
+				if (verbose)
+					System.out.println("processed " + total);
+			}
+		});
+		output.close();
 
-		total++;
-		if (total%50 == 0) {
-			if (verbose)
-				System.out.println("processed " + total);
+		if (verbose) {
+			System.out.println("\n\nDone! Images Count = " + total);
+			System.out.println(scanner.getSummary());
 		}
 	}
 
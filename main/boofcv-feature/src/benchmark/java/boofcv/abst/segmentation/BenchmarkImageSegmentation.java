@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.segmentation;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.segmentation.ConfigFh04;
+import boofcv.factory.segmentation.ConfigSegmentMeanShift;
+import boofcv.factory.segmentation.ConfigSlic;
+import boofcv.factory.segmentation.FactoryImageSegmentation;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.Planar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks superpixel segmentation algorithms on a color image
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkImageSegmentation {
+	@Param({"true", "false"})
+	public boolean concurrent;
+
+	@Param({"640"})
+	public int width;
+
+	ImageType<Planar<GrayU8>> imageType = ImageType.pl(3, GrayU8.class);
+	Planar<GrayU8> image = imageType.createImage(1, 1);
+	GrayS32 output = new GrayS32(1, 1);
+
+	ImageSuperpixels<Planar<GrayU8>> meanShift;
+	ImageSuperpixels<Planar<GrayU8>> slic;
+	ImageSuperpixels<Planar<GrayU8>> fh04;
+	ImageSuperpixels<Planar<GrayU8>> watershed;
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var rand = new Random(234);
+
+		int height = width*3/4;
+		image.reshape(width, height);
+		output.reshape(width, height);
+
+		// Blocks of color with noise so there are regions to find
+		GImageMiscOps.fillUniform(image, rand, 0, 30);
+		for (int i = 0; i < 40; i++) {
+			int x0 = rand.nextInt(width - 20);
+			int y0 = rand.nextInt(height - 20);
+			int x1 = x0 + 20 + rand.nextInt(width - x0 - 20 + 1);
+			int y1 = y0 + 20 + rand.nextInt(height - y0 - 20 + 1);
+			GImageMiscOps.fillRectangle(image, rand.nextInt(200), x0, y0, x1 - x0, y1 - y0);
+		}
+
+		meanShift = FactoryImageSegmentation.meanShift(new ConfigSegmentMeanShift(), imageType);
+		slic = FactoryImageSegmentation.slic(new ConfigSlic(400), imageType);
+		fh04 = FactoryImageSegmentation.fh04(new ConfigFh04(), imageType);
+		watershed = FactoryImageSegmentation.watershed(null, imageType);
+	}
+
+	@Benchmark public void meanShift() {meanShift.segment(image, output);}
+
+	@Benchmark public void slic() {slic.segment(image, output);}
+
+	@Benchmark public void fh04() {fh04.segment(image, output);}
+
+	@Benchmark public void watershed() {watershed.segment(image, output);}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkImageSegmentation.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.abst.feature.detect.interest.ConfigPointDetector;
+import boofcv.abst.feature.detect.interest.PointDetectorTypes;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.tracker.klt.ConfigPKlt;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.tracker.FactoryPointTracker;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.pyramid.ConfigDiscreteLevels;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the KLT tracker. The pyramid update is benchmarked on its own since it's done every frame
+ * no matter how many tracks there are.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkPointTrackerKlt {
+	@Param({"true", "false"})
+	public boolean concurrent;
+
+	@Param({"1280"})
+	public int width;
+
+	GrayU8[] frames = new GrayU8[4];
+	int frameIdx;
+
+	PointTrackerKltPyramid<GrayU8, GrayF32> tracker;
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var rand = new Random(234);
+
+		int height = width*3/4;
+		frames[0] = new GrayU8(width, height);
+		for (int y = 0; y < height; y += 20) {
+			for (int x = 0; x < width; x += 20) {
+				ImageMiscOps.fillRectangle(frames[0], rand.nextInt(255), x, y, 20, 20);
+			}
+		}
+		// Other frames are shifted by a pixel so there's motion to track
+		for (int i = 1; i < frames.length; i++) {
+			frames[i] = frames[0].createSameShape();
+			frames[i].subimage(i, i, width, height).setTo(frames[0].subimage(0, 0, width - i, height - i));
+		}
+
+		var config = new ConfigPKlt();
+		config.pyramidLevels = ConfigDiscreteLevels.levels(4);
+		var configDetect = new ConfigPointDetector();
+		configDetect.type = PointDetectorTypes.SHI_TOMASI;
+		configDetect.general.maxFeatures = 800;
+		configDetect.general.radius = 5;
+		tracker = FactoryPointTracker.klt(config, configDetect, GrayU8.class, GrayF32.class);
+
+		tracker.process(frames[0]);
+		tracker.spawnTracks();
+	}
+
+	@Benchmark public void pyramid() {
+		tracker.updatePyramid(tracker.currPyr, nextFrame());
+	}
+
+	@Benchmark public void track() {
+		tracker.process(nextFrame());
+	}
+
+	GrayU8 nextFrame() {
+		frameIdx = (frameIdx + 1)%frames.length;
+		return frames[frameIdx];
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkPointTrackerKlt.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
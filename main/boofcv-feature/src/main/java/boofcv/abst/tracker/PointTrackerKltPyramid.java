@@ -327,7 +327,7 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 		dropped.clear();
 
 		// update image pyramids
-		currPyr.update(image);
+		updatePyramid(currPyr, image);
 
 		// track features
 		trackFeatures(image);
@@ -337,7 +337,7 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 			if (activeTracks) {
 				backwardsTrackValidate();
 			} else {
-				this.prevPyr.update(image);
+				updatePyramid(prevPyr, image);
 			}
 		}
 
@@ -347,6 +347,13 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 		}
 	}
 
+	/**
+	 * Computes the image pyramid and its gradient from the input image
+	 */
+	protected void updatePyramid( ImageStruct pyr, I image ) {
+		pyr.update(image);
+	}
+
 	/**
 	 * Tracks features in the forward direction
 	 */
@@ -525,6 +532,15 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 
 		public void update( I image ) {
 			basePyramid.process(image);
+			declareGradient();
+			PyramidOps.gradient(basePyramid, gradient, derivX, derivY);
+		}
+
+		/**
+		 * Declares the gradient images to match the shape of the pyramid. Memory is only allocated when
+		 * the number of layers or the image shape changes.
+		 */
+		public void declareGradient() {
 			if (derivX == null || derivX.length != basePyramid.layers.length) {
 				derivX = PyramidOps.declareOutput(basePyramid, derivType);
 				derivY = PyramidOps.declareOutput(basePyramid, derivType);
@@ -535,7 +551,6 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 				PyramidOps.reshapeOutput(basePyramid, derivX);
 				PyramidOps.reshapeOutput(basePyramid, derivY);
 			}
-			PyramidOps.gradient(basePyramid, gradient, derivX, derivY);
 		}
 	}
 }
@@ -25,6 +25,7 @@ import boofcv.alg.tracker.klt.ConfigKlt;
 import boofcv.alg.tracker.klt.KltTrackFault;
 import boofcv.alg.tracker.klt.PyramidKltFeature;
 import boofcv.alg.tracker.klt.PyramidKltTracker;
+import boofcv.alg.transform.pyramid.PyramidDiscreteSampleBlur;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.QueueCorner;
 import boofcv.struct.image.ImageGray;
@@ -37,7 +38,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Concurrent extension of {@link PointTrackerKltPyramid}
+ * Concurrent extension of {@link PointTrackerKltPyramid}. Tracks are processed in parallel and the gradient of
+ * each pyramid layer is computed while the next layer is being computed.
  *
  * @author Peter Abeles
  */
@@ -63,6 +65,37 @@ public class PointTrackerKltPyramid_MT<I extends ImageGray<I>, D extends ImageGr
 		workspace = new GrowArray<>(Helper::new, Helper::reset);
 	}
 
+	/**
+	 * Computes the gradient of each layer at the same time as the next layer in the pyramid is being computed,
+	 * since both only read from the previous layer. If the pyramid can't be computed one layer at a time then
+	 * the single threaded approach is used.
+	 */
+	@Override protected void updatePyramid( ImageStruct pyr, I image ) {
+		if (!(pyr.basePyramid instanceof PyramidDiscreteSampleBlur)) {
+			super.updatePyramid(pyr, image);
+			return;
+		}
+
+		var pyramid = (PyramidDiscreteSampleBlur<I>)pyr.basePyramid;
+		pyramid.processFirstLayer(image);
+		pyr.declareGradient();
+
+		for (int layer = 1; layer < pyramid.getNumLayers(); layer++) {
+			final int prevLayer = layer - 1;
+			final int currLayer = layer;
+			BoofConcurrency.loopFor(0, 2, task -> {
+				if (task == 0) {
+					pyramid.processLayer(currLayer);
+				} else {
+					gradient.process(pyramid.getLayer(prevLayer), pyr.derivX[prevLayer], pyr.derivY[prevLayer]);
+				}
+			});
+		}
+
+		int lastLayer = pyramid.getNumLayers() - 1;
+		gradient.process(pyramid.getLayer(lastLayer), pyr.derivX[lastLayer], pyr.derivY[lastLayer]);
+	}
+
 	@Override protected void addToTracks( float scaleBottom, QueueCorner found ) {
 		// threads will be slower if there aren't enough tracks
 		if (found.size() < minimumTracksConcurrent) {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -110,9 +110,7 @@ public class DetectChessboardCornersX {
 	@Getter GrayF32 blurred = new GrayF32(1, 1);
 	BlurFilter<GrayF32> blurFilter;
 
-	SearchLocalPeak<GrayF32> meanShift;
-
-	private final DogArray<ChessboardCorner> corners = new DogArray<>(ChessboardCorner::new);
+	final DogArray<ChessboardCorner> corners = new DogArray<>(ChessboardCorner::new);
 	List<ChessboardCorner> filtered = new ArrayList<>();
 
 	// storage for corner detector output
@@ -131,36 +129,26 @@ public class DetectChessboardCornersX {
 	 */
 	public float considerMaxIntensityImage = 0;
 
-	// Used to compute line integrals of spokes around a corner
-	final ImageBorder<GrayF32> borderInput = FactoryImageBorder.generic(BorderType.EXTENDED, ImageType.SB_F32);
-	final ImageLineIntegral integral = new ImageLineIntegral();
-
-	// for mean-shift
-	final ImageBorder_F32 borderBlur = (ImageBorder_F32)FactoryImageBorder.generic(BorderType.EXTENDED, ImageType.SB_F32);
-	final InterpolatePixelS<GrayF32> inputInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.ZERO);
 	public boolean useMeanShift = true;
 
 	// Find corners in intensity image
 	NonMaxSuppression nonmax;
 	QueueCorner foundNonmax = new QueueCorner();
 
-	// predeclare memory for compute a feature's orientation
+	// number of spokes used to compute a feature's orientation
 	private final int numSpokes = 32;
 	private final int numSpokeDiam = numSpokes/2;
-	private final double[] spokesRadi = new double[numSpokes];
-	private final double[] spokesDiam = new double[numSpokeDiam];
-	private final double[] smoothedDiam = new double[numSpokeDiam];
-	private final double[] scoreDiam = new double[numSpokeDiam];
 	private final Kernel1D_F64 kernelSmooth = FactoryKernelGaussian.gaussian(1, true, 64, -1, numSpokeDiam/4);
 
 	// used to check up and down patterns of intensity image
 	DogArray<Point2D_I32> outsideCircle4 = new DogArray<>(Point2D_I32::new);
 	DogArray<Point2D_I32> outsideCircle3 = new DogArray<>(Point2D_I32::new);
-	private final float[] outsideCircleValues;
 
 	// Workspace
 	GrayF32 tmp = new GrayF32(1, 1);
 	GrowArray<DogArray_F32> fwork = new GrowArray<>(DogArray_F32::new);
+	// Workspace used when refining corners
+	Workspace workspace;
 
 	/**
 	 * Declares internal data structures
@@ -178,23 +166,10 @@ public class DetectChessboardCornersX {
 
 		blurFilter = FactoryBlurFilter.gaussian(ImageType.SB_F32, -1, blurRadius);
 
-		// just give it something. this will be changed later
-		borderInput.setImage(new GrayF32(1, 1));
-		integral.setImage(FactoryGImageGray.wrap(borderInput));
-
-		{
-			ConfigMeanShiftSearch config = new ConfigMeanShiftSearch(5, 1e-6);
-			config.positiveOnly = true;
-			config.odd = false;
-			meanShift = FactorySearchLocalPeak.meanShiftGaussian(config, GrayF32.class);
-			meanShift.setSearchRadius(2);
-		}
-
 		DiscretizedCircle.coordinates(4, outsideCircle4);
 		DiscretizedCircle.coordinates(3, outsideCircle3);
-		outsideCircleValues = new float[outsideCircle4.size];
 
-		borderBlur.setImage(blurred);
+		workspace = new Workspace();
 	}
 
 	/**
@@ -207,8 +182,6 @@ public class DetectChessboardCornersX {
 		filtered.clear();
 		corners.reset();
 		foundNonmax.reset();
-		borderInput.setImage(input);
-		inputInterp.setImage(input);
 
 		// The x-corner detector requires a little bit of blur to be applied ot the input image
 		blurFilter.process(input, blurred);
@@ -223,7 +196,6 @@ public class DetectChessboardCornersX {
 		this._intensity = intensityRaw;
 //		this._intensity = intensity2x2; // Don't forget to adjust means shift kernel, and add offset after mean shift
 //		double intensityOffset = _intensity==intensityRaw?0.0:0.5;
-		meanShift.setImage(_intensity);
 
 		// Compute the maximum value in the x-corner intensity image
 		// If computed as a pyramid the maximum value in another layer might be "considered"
@@ -247,85 +219,101 @@ public class DetectChessboardCornersX {
 			corner.setTo(c.x + 0.5, c.y + 0.5);
 		}
 
+		// Check each candidate and refine its location
+		refineCorners(input);
+
+		// Save the max values for the entire image for use in later pruning. Rejected corners have a value of -1
 		double maxEdge = 0;
-//		double maxIntensity = 0;
+		for (int i = 0; i < corners.size; i++) {
+			maxEdge = Math.max(maxEdge, corners.get(i).edgeIntensity);
+		}
 
-//		System.out.println("  * features.size = "+packed.size());
-		for (int i = 0; i < corners.size(); i++) {
+		// Filter corners based on edge intensity of found corners
+		for (int i = corners.size - 1; i >= 0; i--) {
 			ChessboardCorner c = corners.get(i);
-
-			int xx = (int)(c.x + 0.5f);
-			int yy = (int)(c.y + 0.5f);
-
-			// A bunch of code below will crash if it's near the border
-			if (xx < 3 || yy < 3 || xx >= input.width - 3 || yy >= input.height - 3)
-				continue;
-
-			// Very crude checks to remove situations where there was a little bit of noise that caused a corner
-			// They work by seeing if there's a consistent pattern of x-corner like pixels near the center
-			// and non-x-corner like pixels in the outside
-			if (!checkPositiveInside(xx, yy, 4)) {
-				continue;
+			if (c.edgeIntensity >= edgeIntensityRatioThreshold*maxEdge) {
+				filtered.add(c);
 			}
+		}
 
-			if (!checkNegativeInside(xx, yy, 12)) {
-				continue;
-			}
+//		int dropped = corners.size-filtered.size();
+//		System.out.printf("  max-pixel %3.1f corners %4d filters %5d dropped = %4.1f%%\n",
+//				maxIntensityImage,corners.size,filtered.size(),(100*dropped/(double)corners.size));
+	}
 
-			// Check to see if there's the expected up/down pattern in the surrounding pixels in a circle around
-			if (!checkChessboardCircle((float)c.x, (float)c.y, outsideCircle4, 3, 6, symmetricTol)) {
-				continue;
-			}
+	/**
+	 * Checks each candidate corner to see if it's really an x-corner and refines its location. Corners which are
+	 * rejected will have an edge intensity of -1.
+	 */
+	protected void refineCorners( GrayF32 input ) {
+		workspace.setImages(input);
+		for (int i = 0; i < corners.size(); i++) {
+			refineCorner(corners.get(i), input.width, input.height, workspace);
+		}
+	}
 
-			if (!checkChessboardCircle((float)c.x, (float)c.y, outsideCircle3, 3, 4, symmetricTol)) {
-				continue;
-			}
+	/**
+	 * Checks a single candidate corner and refines its location.
+	 *
+	 * @return true if the corner was accepted
+	 */
+	boolean refineCorner( ChessboardCorner c, int width, int height, Workspace work ) {
+		int xx = (int)(c.x + 0.5f);
+		int yy = (int)(c.y + 0.5f);
+
+		// A bunch of code below will crash if it's near the border
+		if (xx < 3 || yy < 3 || xx >= width - 3 || yy >= height - 3)
+			return false;
+
+		// Very crude checks to remove situations where there was a little bit of noise that caused a corner
+		// They work by seeing if there's a consistent pattern of x-corner like pixels near the center
+		// and non-x-corner like pixels in the outside
+		if (!checkPositiveInside(xx, yy, 4)) {
+			return false;
+		}
 
-			// Refines the corner location estimate using mean-shift
-			if (useMeanShift) {
-				meanShift.search((float)c.x, (float)c.y);
-				c.x = meanShift.getPeakX(); // No shift here since mean-shift is run on RAW
-				c.y = meanShift.getPeakY();
-			}
+		if (!checkNegativeInside(xx, yy, 12)) {
+			return false;
+		}
 
-			// tighter tolerance now that the center is known
-			if (!checkChessboardCircle((float)c.x, (float)c.y, outsideCircle4, 4, 4, symmetricTol - 1)) {
-				c.edgeIntensity = -1;
-				continue;
-			}
+		// Check to see if there's the expected up/down pattern in the surrounding pixels in a circle around
+		if (!checkChessboardCircle(work, (float)c.x, (float)c.y, outsideCircle4, 3, 6, symmetricTol)) {
+			return false;
+		}
 
-			// See if it's a corner also using the eigen value definition
-			if (!checkEigenCorner(c)) {
-				c.edgeIntensity = -1;
-				continue;
-			}
+		if (!checkChessboardCircle(work, (float)c.x, (float)c.y, outsideCircle3, 3, 4, symmetricTol)) {
+			return false;
+		}
 
-			// Computes features like orientation
-			if (!computeFeatures(c)) {
-				c.edgeIntensity = -1;
-				continue;
-			}
+		// Refines the corner location estimate using mean-shift
+		if (useMeanShift) {
+			work.meanShift.search((float)c.x, (float)c.y);
+			c.x = work.meanShift.getPeakX(); // No shift here since mean-shift is run on RAW
+			c.y = work.meanShift.getPeakY();
+		}
 
-			// account for bias due to discretion
-			c.x += 0.5f;
-			c.y += 0.5f;
+		// tighter tolerance now that the center is known
+		if (!checkChessboardCircle(work, (float)c.x, (float)c.y, outsideCircle4, 4, 4, symmetricTol - 1)) {
+			c.edgeIntensity = -1;
+			return false;
+		}
 
-			// Save the max values for the entire image for use in later pruning
-			maxEdge = Math.max(maxEdge, c.edgeIntensity);
-//			maxIntensity = Math.max(c.intensity, maxIntensity);
+		// See if it's a corner also using the eigen value definition
+		if (!checkEigenCorner(work, c)) {
+			c.edgeIntensity = -1;
+			return false;
 		}
 
-		// Filter corners based on edge intensity of found corners
-		for (int i = corners.size - 1; i >= 0; i--) {
-			ChessboardCorner c = corners.get(i);
-			if (c.edgeIntensity >= edgeIntensityRatioThreshold*maxEdge) {
-				filtered.add(c);
-			}
+		// Computes features like orientation
+		if (!computeFeatures(work, c)) {
+			c.edgeIntensity = -1;
+			return false;
 		}
 
-//		int dropped = corners.size-filtered.size();
-//		System.out.printf("  max-pixel %3.1f corners %4d filters %5d dropped = %4.1f%%\n",
-//				maxIntensityImage,corners.size,filtered.size(),(100*dropped/(double)corners.size));
+		// account for bias due to discretion
+		c.x += 0.5f;
+		c.y += 0.5f;
+		return true;
 	}
 
 	/**
@@ -374,14 +362,17 @@ public class DetectChessboardCornersX {
 	/**
 	 * Looks for an up down pattern in a circle around the corner
 	 */
-	private boolean checkChessboardCircle( float cx, float cy, DogArray<Point2D_I32> outside, int min, int max, int symmetric ) {
+	private boolean checkChessboardCircle( Workspace work, float cx, float cy, DogArray<Point2D_I32> outside,
+										   int min, int max, int symmetric ) {
+		final float[] outsideCircleValues = work.outsideCircleValues;
+
 		// NOTE: using `mean = (max(:) + min(:))/2` produced slightly better results, but that might have been
 		//       over fitting to the dataset
 
 		float mean = 0;
 		for (int i = 0; i < outside.size; i++) {
 			Point2D_I32 p = outside.get(i);
-			float v = inputInterp.get(cx + p.x, cy + p.y);
+			float v = work.inputInterp.get(cx + p.x, cy + p.y);
 			outsideCircleValues[i] = v;
 			mean += v;
 		}
@@ -419,7 +410,8 @@ public class DetectChessboardCornersX {
 	 * near the chessboard corner, but even with a very forgiving threshold this eliminates a lot of the false
 	 * positives
 	 */
-	private boolean checkEigenCorner( ChessboardCorner c ) {
+	private boolean checkEigenCorner( Workspace work, ChessboardCorner c ) {
+		final ImageBorder_F32 borderBlur = work.borderBlur;
 		int radius = 3;
 
 		int cx = (int)(c.x + 0.5f);
@@ -474,7 +466,12 @@ public class DetectChessboardCornersX {
 	 * Intensity is found by subtracting bright lines from the dark line on the other side. dark/light lines are
 	 * offset by 90 degrees.
 	 */
-	private boolean computeFeatures( ChessboardCorner corner ) {
+	private boolean computeFeatures( Workspace work, ChessboardCorner corner ) {
+		final double[] spokesRadi = work.spokesRadi;
+		final double[] spokesDiam = work.spokesDiam;
+		final double[] smoothedDiam = work.smoothedDiam;
+		final double[] scoreDiam = work.scoreDiam;
+
 		// Sample radius for the spokes
 		final double r = 4;
 		// magnitude of the difference is used remove false chessboard corners caused by the corners on black
@@ -488,15 +485,15 @@ public class DetectChessboardCornersX {
 			double c = Math.cos(angle);
 			double s = Math.sin(angle);
 
-			double valA = spokesRadi[i] = integral.compute(cx, cy, cx + r*c, cy + r*s)/r;
-			double valB = spokesRadi[j] = integral.compute(cx, cy, cx - r*c, cy - r*s)/r;
+			double valA = spokesRadi[i] = work.integral.compute(cx, cy, cx + r*c, cy + r*s)/r;
+			double valB = spokesRadi[j] = work.integral.compute(cx, cy, cx - r*c, cy - r*s)/r;
 
 			spokesDiam[i] = valA + valB;
 		}
 		// NOTE: There used to be a check to see if there are 4 transitions between high and low. It used the mean
 		//       as the dividing point. It worked, but in highly skewed scenarios it degraded results a lot.
 
-		smoothSpokeDiam();
+		smoothSpokeDiam(spokesDiam, smoothedDiam);
 		// Select the orientation
 		int bestSpoke = -1;
 		double bestScore = Double.MAX_VALUE;
@@ -530,7 +527,7 @@ public class DetectChessboardCornersX {
 		return corner.intensity >= refinedXCornerThreshold;
 	}
 
-	private void smoothSpokeDiam() {
+	private void smoothSpokeDiam( double[] spokesDiam, double[] smoothedDiam ) {
 		// smooth by applying a block filter. This will ensure it doesn't point towards an edge which just happens
 		// to be slightly darker than the center
 		int r_smooth = kernelSmooth.getRadius();
@@ -558,4 +555,49 @@ public class DetectChessboardCornersX {
 	public void setNonmaxRadius( int nonmaxRadius ) {
 		nonmax.setSearchRadius(nonmaxRadius);
 	}
+
+	/**
+	 * Storage and image samplers used when refining a corner. Each thread needs its own copy.
+	 */
+	public class Workspace {
+		// Used to compute line integrals of spokes around a corner
+		final ImageBorder<GrayF32> borderInput = FactoryImageBorder.generic(BorderType.EXTENDED, ImageType.SB_F32);
+		final ImageLineIntegral integral = new ImageLineIntegral();
+
+		// for mean-shift
+		final ImageBorder_F32 borderBlur = (ImageBorder_F32)FactoryImageBorder.generic(BorderType.EXTENDED, ImageType.SB_F32);
+		final InterpolatePixelS<GrayF32> inputInterp = FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.ZERO);
+		final SearchLocalPeak<GrayF32> meanShift;
+
+		// predeclare memory for compute a feature's orientation
+		final double[] spokesRadi = new double[numSpokes];
+		final double[] spokesDiam = new double[numSpokeDiam];
+		final double[] smoothedDiam = new double[numSpokeDiam];
+		final double[] scoreDiam = new double[numSpokeDiam];
+
+		// used to check up and down patterns of intensity image
+		final float[] outsideCircleValues = new float[outsideCircle4.size];
+
+		public Workspace() {
+			// just give it something. this will be changed later
+			borderInput.setImage(new GrayF32(1, 1));
+			integral.setImage(FactoryGImageGray.wrap(borderInput));
+
+			ConfigMeanShiftSearch config = new ConfigMeanShiftSearch(5, 1e-6);
+			config.positiveOnly = true;
+			config.odd = false;
+			meanShift = FactorySearchLocalPeak.meanShiftGaussian(config, GrayF32.class);
+			meanShift.setSearchRadius(2);
+		}
+
+		/**
+		 * Specifies the input image. Derived images are taken from the detector.
+		 */
+		public void setImages( GrayF32 input ) {
+			borderInput.setImage(input);
+			inputInterp.setImage(input);
+			borderBlur.setImage(blurred);
+			meanShift.setImage(_intensity);
+		}
+	}
 }
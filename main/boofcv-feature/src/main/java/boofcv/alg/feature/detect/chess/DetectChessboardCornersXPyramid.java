@@ -20,6 +20,7 @@ package boofcv.alg.feature.detect.chess;
 
 import boofcv.alg.filter.misc.AverageDownSampleOps;
 import boofcv.alg.misc.ImageNormalization;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
@@ -81,7 +82,7 @@ public class DetectChessboardCornersXPyramid<T extends ImageGray<T>> {
 	}
 
 	public DetectChessboardCornersXPyramid( ImageType<T> imageType ) {
-		this(new DetectChessboardCornersX(), imageType);
+		this(BoofConcurrency.USE_CONCURRENT ? new DetectChessboardCornersX_MT() : new DetectChessboardCornersX(), imageType);
 	}
 
 	/**
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.chess;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayF32;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link DetectChessboardCornersX}. Candidate corners are checked and refined in
+ * parallel, with each thread using its own {@link Workspace}. Results are identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class DetectChessboardCornersX_MT extends DetectChessboardCornersX {
+	// Workspace for each thread
+	final GrowArray<Workspace> workspaces = new GrowArray<>(Workspace::new);
+
+	@Override protected void refineCorners( GrayF32 input ) {
+		final int width = input.width;
+		final int height = input.height;
+
+		// Each corner is processed independently of all the other corners
+		BoofConcurrency.loopBlocks(0, corners.size, workspaces, ( work, idx0, idx1 ) -> {
+			work.setImages(input);
+			for (int i = idx0; i < idx1; i++) {
+				refineCorner(corners.get(i), width, height, work);
+			}
+		});
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.fh04.impl;
+
+import boofcv.alg.segmentation.fh04.FhEdgeWeights;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+import static boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04.Edge;
+
+/**
+ * <p>Concurrent wrapper around any {@link FhEdgeWeights}. The image is split into blocks of rows with a fixed
+ * height and edges are computed for each block in parallel by its own instance of the single threaded algorithm.
+ * Adjacent blocks overlap by one row so that edges crossing block boundaries are found, with edges contained
+ * entirely inside the shared row only being kept by the block below.</p>
+ *
+ * <p>Edges are copied into the output in block order. The set of edges is the same as the single threaded
+ * algorithm and the order only depends on the block height, not the number of threads.</p>
+ *
+ * @author Peter Abeles
+ */
+public class FhEdgeWeights_MT<T extends ImageBase<T>> implements FhEdgeWeights<T> {
+	/** Number of rows in each block */
+	@Getter @Setter int blockHeight = 32;
+
+	// Creates a new single threaded instance for each block
+	final GrowArray<BlockWork> workers;
+	// Edges computed in each block
+	final DogArray<DogArray<Edge>> blockEdges = new DogArray<>(() -> new DogArray<>(Edge::new), DogArray::reset);
+
+	final ImageType<T> imageType;
+
+	/**
+	 * @param factory Creates instances of the single threaded algorithm
+	 */
+	public FhEdgeWeights_MT( BoofLambdas.Factory<FhEdgeWeights<T>> factory ) {
+		this.workers = new GrowArray<>(() -> new BlockWork(factory.newInstance()));
+		this.imageType = factory.newInstance().getInputType();
+	}
+
+	@Override
+	public void process( T input, DogArray<Edge> edges ) {
+		edges.reset();
+		if (input.height <= 0 || input.width <= 0)
+			return;
+
+		final int numBlocks = (input.height + blockHeight - 1)/blockHeight;
+		blockEdges.resize(numBlocks);
+
+		BoofConcurrency.loopBlocks(0, numBlocks, workers, ( work, idx0, idx1 ) -> {
+			for (int blockIdx = idx0; blockIdx < idx1; blockIdx++) {
+				computeBlock(input, blockIdx, work, blockEdges.get(blockIdx));
+			}
+		});
+
+		// Merge results in a deterministic order
+		for (int blockIdx = 0; blockIdx < numBlocks; blockIdx++) {
+			DogArray<Edge> found = blockEdges.get(blockIdx);
+			edges.reserve(edges.size + found.size);
+			for (int i = 0; i < found.size; i++) {
+				Edge src = found.data[i];
+				Edge dst = edges.grow();
+				dst.indexA = src.indexA;
+				dst.indexB = src.indexB;
+				dst.sortValue = src.sortValue;
+			}
+		}
+	}
+
+	/**
+	 * Computes the edges inside a single block and converts them into the input image's pixel indexes
+	 */
+	void computeBlock( T input, int blockIdx, BlockWork work, DogArray<Edge> found ) {
+		int y0 = blockIdx*blockHeight;
+		int y1 = Math.min(input.height, y0 + blockHeight);
+		// Include the first row in the next block so that edges between the two blocks are found
+		boolean lastBlock = y1 == input.height;
+		int y1Overlap = lastBlock ? y1 : y1 + 1;
+
+		work.sub = input.subimage(0, y0, input.width, y1Overlap, work.sub);
+		work.edges.reset();
+		work.alg.process(work.sub, work.edges);
+
+		// Edges which are entirely inside the overlap row belong to the next block
+		int overlapIndex = lastBlock ? Integer.MAX_VALUE : (y1 - y0)*input.width;
+		int offset = y0*input.width;
+
+		found.reset();
+		for (int i = 0; i < work.edges.size; i++) {
+			Edge e = work.edges.data[i];
+			if (e.indexA >= overlapIndex && e.indexB >= overlapIndex)
+				continue;
+			Edge dst = found.grow();
+			dst.indexA = e.indexA + offset;
+			dst.indexB = e.indexB + offset;
+			dst.sortValue = e.sortValue;
+		}
+	}
+
+	@Override
+	public ImageType<T> getInputType() {
+		return imageType;
+	}
+
+	/** Storage used when processing a block */
+	class BlockWork {
+		final FhEdgeWeights<T> alg;
+		final DogArray<Edge> edges = new DogArray<>(Edge::new);
+		@Nullable T sub;
+
+		public BlockWork( FhEdgeWeights<T> alg ) {
+			this.alg = alg;
+		}
+	}
+}
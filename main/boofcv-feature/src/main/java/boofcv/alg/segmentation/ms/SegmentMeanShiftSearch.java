@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -18,13 +18,19 @@
 
 package boofcv.alg.segmentation.ms;
 
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayS32;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
+import georegression.struct.point.Point2D_F32;
 import georegression.struct.point.Point2D_I32;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_F32;
 import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.Stoppable;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
 
 /**
  * <p>
@@ -84,6 +90,7 @@ public abstract class SegmentMeanShiftSearch<T extends ImageBase<T>>
 	protected int widthX, widthY;
 	// specifies the maximum Euclidean distance squared for the color components
 	protected float maxColorDistanceSq;
+	protected float maxColorDistance;
 
 	// converts a pixel location into the index of the mode that mean-shift converged to
 	protected GrayS32 pixelToMode = new GrayS32(1, 1);
@@ -116,8 +123,18 @@ public abstract class SegmentMeanShiftSearch<T extends ImageBase<T>>
 	// mode of mean-shift
 	protected float modeX, modeY;
 
+	// Mean-shift trajectory history
+	protected DogArray<Point2D_F32> history = new DogArray<>(Point2D_F32::new);
+
+	// Used by the concurrent implementation. If not null it contains the pixel index of each pixel's mode and
+	// only rows from blockY0 to blockY1-1 can be read from or written to
+	@Nullable GrayS32 blockModes;
+	int blockY0, blockY1;
+	// storage for the color of a peak
+	float[] peakColor = new float[0];
+
 	// if a stop was requested
-	protected boolean stopRequested = false;
+	protected volatile boolean stopRequested = false;
 
 	/**
 	 * Configures mean-shift segmentation
@@ -141,6 +158,7 @@ public abstract class SegmentMeanShiftSearch<T extends ImageBase<T>>
 		this.widthX = radiusX*2 + 1;
 		this.widthY = radiusY*2 + 1;
 
+		this.maxColorDistance = maxColorDistance;
 		this.maxColorDistanceSq = maxColorDistance*maxColorDistance;
 
 		// precompute the distance each pixel is from the sample point
@@ -165,7 +183,235 @@ public abstract class SegmentMeanShiftSearch<T extends ImageBase<T>>
 	 *
 	 * @param image Input image
 	 */
-	public abstract void process( T image );
+	public void process( T image ) {
+		initialize(image);
+
+		// use mean shift to find the peak of each pixel in the image
+		int indexImg = 0;
+		for (int y = 0; y < image.height && !stopRequested; y++) {
+			for (int x = 0; x < image.width; x++, indexImg++) {
+				if (pixelToMode.data[indexImg] != -1) {
+					int peakIndex = pixelToMode.data[indexImg];
+					modeMemberCount.data[peakIndex]++;
+					continue;
+				}
+
+				findPixelPeak(x, y);
+
+				// convert mean-shift location into pixel index
+				int modeX = (int)(this.modeX + 0.5f);
+				int modeY = (int)(this.modeY + 0.5f);
+
+				int modePixelIndex = modeY*image.width + modeX;
+
+				// get index in the list of peaks
+				int modeIndex = quickMode.data[modePixelIndex];
+				// If the mode is new add it to the list
+				if (modeIndex < 0) {
+					modeIndex = this.modeLocation.size();
+					this.modeLocation.grow().setTo(modeX, modeY);
+					// Save the peak's color
+					savePeakColor(modeColor.grow());
+					// Mark the mode in the segment image
+					quickMode.data[modePixelIndex] = modeIndex;
+					// Set the initial count to zero. This will be incremented when it is traversed later on
+					modeMemberCount.add(0);
+				}
+
+				// add this pixel to the membership list
+				modeMemberCount.data[modeIndex]++;
+
+				// Add all pixels it traversed through to the membership of this mode
+				// This is an approximate of mean-shift
+				for (int i = 0; i < history.size; i++) {
+					Point2D_F32 p = history.get(i);
+					int px = (int)(p.x + 0.5f);
+					int py = (int)(p.y + 0.5f);
+
+					int index = pixelToMode.getIndex(px, py);
+					if (pixelToMode.data[index] == -1) {
+						pixelToMode.data[index] = modeIndex;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Concurrent version of {@link #process}. The image is broken up into blocks of rows with a fixed height and
+	 * each block is searched independently by a worker. Modes are then assigned indexes in the same order as
+	 * {@link #process}. Without the fast approximation the results are identical to {@link #process}. With the
+	 * fast approximation, trajectories are only shared inside a block so the results depend on the block height,
+	 * but not on the number of threads.
+	 *
+	 * @param image Input image
+	 * @param blockHeight Number of rows in each block
+	 * @param workers Creates a copy of this algorithm for each thread
+	 * @param blockModes Storage for the pixel index of each pixel's mode
+	 * @param blockColors Storage for the color of the mode found when starting at each pixel
+	 */
+	protected void processConcurrent( T image, int blockHeight, GrowArray<SegmentMeanShiftSearch<T>> workers,
+									  GrayS32 blockModes, DogArray_F32 blockColors ) {
+		initialize(image);
+
+		final int width = image.width;
+		final int numBands = getImageType().getNumBands();
+
+		blockModes.reshape(width, image.height);
+		ImageMiscOps.fill(blockModes, -1);
+		blockColors.resize(width*image.height*numBands);
+
+		int numBlocks = (image.height + blockHeight - 1)/blockHeight;
+		BoofConcurrency.loopBlocks(0, numBlocks, workers, ( worker, block0, block1 ) -> {
+			worker.image = image;
+			worker.setImage(image);
+			for (int block = block0; block < block1 && !stopRequested; block++) {
+				int y0 = block*blockHeight;
+				worker.searchBlock(y0, Math.min(image.height, y0 + blockHeight), blockModes, blockColors);
+			}
+		});
+
+		if (stopRequested)
+			return;
+
+		// Create the list of modes in the same order as the single threaded algorithm
+		for (int indexImg = 0; indexImg < blockModes.data.length; indexImg++) {
+			int modePixelIndex = blockModes.data[indexImg];
+			int modeIndex = quickMode.data[modePixelIndex];
+			if (modeIndex < 0) {
+				// The first pixel with this mode will always be a pixel which started the search
+				modeIndex = modeLocation.size();
+				modeLocation.grow().setTo(modePixelIndex%width, modePixelIndex/width);
+				System.arraycopy(blockColors.data, indexImg*numBands, modeColor.grow(), 0, numBands);
+				quickMode.data[modePixelIndex] = modeIndex;
+				modeMemberCount.add(0);
+			}
+			modeMemberCount.data[modeIndex]++;
+			pixelToMode.data[indexImg] = modeIndex;
+		}
+	}
+
+	/**
+	 * Runs mean-shift on every pixel inside a block of rows. Only pixels inside the block are read from or
+	 * written to so that blocks can be processed at the same time.
+	 *
+	 * @param y0 First row in the block
+	 * @param y1 Last row in the block, exclusive
+	 * @param blockModes (Output) Pixel index of each pixel's mode
+	 * @param blockColors (Output) Color of the mode found by pixels which started a search
+	 */
+	void searchBlock( int y0, int y1, GrayS32 blockModes, DogArray_F32 blockColors ) {
+		this.blockModes = blockModes;
+		this.blockY0 = y0;
+		this.blockY1 = y1;
+
+		final int width = image.width;
+		final int numBands = getImageType().getNumBands();
+		if (peakColor.length != numBands)
+			peakColor = new float[numBands];
+
+		for (int y = y0; y < y1; y++) {
+			int indexImg = y*width;
+			for (int x = 0; x < width; x++, indexImg++) {
+				if (blockModes.data[indexImg] != -1)
+					continue;
+
+				findPixelPeak(x, y);
+
+				// convert mean-shift location into pixel index
+				int modeX = (int)(this.modeX + 0.5f);
+				int modeY = (int)(this.modeY + 0.5f);
+				int modePixelIndex = modeY*width + modeX;
+
+				savePeakColor(peakColor);
+				System.arraycopy(peakColor, 0, blockColors.data, indexImg*numBands, numBands);
+
+				// Add all pixels it traversed through inside the block to this mode
+				for (int i = 0; i < history.size; i++) {
+					Point2D_F32 p = history.get(i);
+					int px = (int)(p.x + 0.5f);
+					int py = (int)(p.y + 0.5f);
+					if (py < y0 || py >= y1)
+						continue;
+
+					int index = py*width + px;
+					if (blockModes.data[index] == -1) {
+						blockModes.data[index] = modePixelIndex;
+					}
+				}
+			}
+		}
+		this.blockModes = null;
+	}
+
+	/**
+	 * Initializes data structures before processing an image
+	 */
+	protected void initialize( T image ) {
+		this.image = image;
+		this.stopRequested = false;
+
+		modeLocation.reset();
+		modeColor.reset();
+		modeMemberCount.reset();
+
+		setImage(image);
+
+		pixelToMode.reshape(image.width, image.height);
+		quickMode.reshape(image.width, image.height);
+		// mark as -1 so it knows which pixels have been assigned a mode already and can skip them
+		ImageMiscOps.fill(pixelToMode, -1);
+		// mark all pixels are not being a mode
+		ImageMiscOps.fill(quickMode, -1);
+	}
+
+	/**
+	 * Checks to see if the mode of a pixel along the mean-shift trajectory is already known. If it's known
+	 * then modeX and modeY are set to its location.
+	 *
+	 * @return true if the mode is known
+	 */
+	protected boolean isModeKnown( int px, int py ) {
+		if (blockModes != null) {
+			// Only pixels inside the block can be safely read
+			if (py < blockY0 || py >= blockY1)
+				return false;
+			int modePixelIndex = blockModes.data[py*blockModes.width + px];
+			if (modePixelIndex == -1)
+				return false;
+			this.modeX = modePixelIndex%blockModes.width;
+			this.modeY = modePixelIndex/blockModes.width;
+			return true;
+		}
+
+		int modeIndex = pixelToMode.data[pixelToMode.getIndex(px, py)];
+		if (modeIndex == -1)
+			return false;
+		Point2D_I32 modeP = modeLocation.get(modeIndex);
+		this.modeX = modeP.x;
+		this.modeY = modeP.y;
+		return true;
+	}
+
+	/**
+	 * Specifies the image which is to be sampled
+	 */
+	protected abstract void setImage( T image );
+
+	/**
+	 * Runs mean-shift starting at the specified pixel. The found mode is saved in modeX and modeY
+	 */
+	protected abstract void findPixelPeak( int x, int y );
+
+	/**
+	 * Copies the color of the most recently found peak into the array
+	 */
+	protected abstract void savePeakColor( float[] color );
+
+	/**
+	 * Creates a new instance with the same configuration. Used by concurrent implementations.
+	 */
+	public abstract SegmentMeanShiftSearch<T> copy();
 
 	/**
 	 * Returns the Euclidean distance squared between the two vectors
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.interpolate.InterpolatePixelMB;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.ImageMultiBand;
+import boofcv.struct.image.ImageType;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray_F32;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link SegmentMeanShiftSearchColor}. See
+ * {@link SegmentMeanShiftSearch#processConcurrent} for how the work is split up between threads.
+ *
+ * @author Peter Abeles
+ */
+public class SegmentMeanShiftSearchColor_MT<T extends ImageMultiBand<T>> extends SegmentMeanShiftSearchColor<T> {
+	/** Number of rows in each block. Trajectories are only shared inside a block in the fast approximation */
+	@Getter @Setter int blockHeight = 64;
+
+	// Copy of the search algorithm for each thread
+	GrowArray<SegmentMeanShiftSearch<T>> workers = new GrowArray<>(this::copy);
+
+	// pixel index of the mode each pixel belongs to
+	GrayS32 blockModes = new GrayS32(1, 1);
+	// color of the mode found at each pixel
+	DogArray_F32 blockColors = new DogArray_F32();
+
+	public SegmentMeanShiftSearchColor_MT( int maxIterations, float convergenceTol,
+										   InterpolatePixelMB<T> interpolate,
+										   int radiusX, int radiusY, float maxColorDistance,
+										   boolean fast, ImageType<T> imageType ) {
+		super(maxIterations, convergenceTol, interpolate, radiusX, radiusY, maxColorDistance, fast, imageType);
+	}
+
+	@Override public void process( T image ) {
+		processConcurrent(image, blockHeight, workers, blockModes, blockColors);
+	}
+}
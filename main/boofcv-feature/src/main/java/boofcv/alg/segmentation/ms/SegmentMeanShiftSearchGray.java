@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -19,13 +19,9 @@
 package boofcv.alg.segmentation.ms;
 
 import boofcv.alg.interpolate.InterpolatePixelS;
-import boofcv.alg.misc.ImageMiscOps;
 import boofcv.struct.feature.ColorQueue_F32;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
-import georegression.struct.point.Point2D_F32;
-import georegression.struct.point.Point2D_I32;
-import org.ddogleg.struct.DogArray;
 
 /**
  * <p>
@@ -41,9 +37,6 @@ public class SegmentMeanShiftSearchGray<T extends ImageGray<T>> extends SegmentM
 
 	protected float meanGray;
 
-	// Mean-shift trajectory history
-	protected DogArray<Point2D_F32> history = new DogArray<>(Point2D_F32::new);
-
 	public SegmentMeanShiftSearchGray( int maxIterations, float convergenceTol,
 									   InterpolatePixelS<T> interpolate,
 									   int radiusX, int radiusY, float maxColorDistance,
@@ -54,80 +47,21 @@ public class SegmentMeanShiftSearchGray<T extends ImageGray<T>> extends SegmentM
 		modeColor = new ColorQueue_F32(1);
 	}
 
-	/**
-	 * Performs mean-shift clustering on the input image
-	 *
-	 * @param image Input image
-	 */
-	@Override
-	public void process( T image ) {
-		// initialize data structures
-		this.image = image;
-		this.stopRequested = false;
-
-		modeLocation.reset();
-		modeColor.reset();
-		modeMemberCount.reset();
-
+	@Override protected void setImage( T image ) {
 		interpolate.setImage(image);
+	}
 
-		pixelToMode.reshape(image.width, image.height);
-		quickMode.reshape(image.width, image.height);
-		// mark as -1 so it knows which pixels have been assigned a mode already and can skip them
-		ImageMiscOps.fill(pixelToMode, -1);
-		// mark all pixels are not being a mode
-		ImageMiscOps.fill(quickMode, -1);
-
-		// use mean shift to find the peak of each pixel in the image
-		int indexImg = 0;
-		for (int y = 0; y < image.height && !stopRequested; y++) {
-			for (int x = 0; x < image.width; x++, indexImg++) {
-				if (pixelToMode.data[indexImg] != -1) {
-					int peakIndex = pixelToMode.data[indexImg];
-					modeMemberCount.data[peakIndex]++;
-					continue;
-				}
-
-				float meanColor = interpolate.get(x, y);
-				findPeak(x, y, meanColor);
-
-				// convert mean-shift location into pixel index
-				int modeX = (int)(this.modeX + 0.5f);
-				int modeY = (int)(this.modeY + 0.5f);
-
-				int modePixelIndex = modeY*image.width + modeX;
-
-				// get index in the list of peaks
-				int modeIndex = quickMode.data[modePixelIndex];
-				// If the mode is new add it to the list
-				if (modeIndex < 0) {
-					modeIndex = this.modeLocation.size();
-					this.modeLocation.grow().setTo(modeX, modeY);
-					// Save the peak's color
-					modeColor.grow()[0] = meanGray;
-					// Mark the mode in the segment image
-					quickMode.data[modePixelIndex] = modeIndex;
-					// Set the initial count to zero. This will be incremented when it is traversed later on
-					modeMemberCount.add(0);
-				}
-
-				// add this pixel to the membership list
-				modeMemberCount.data[modeIndex]++;
+	@Override protected void findPixelPeak( int x, int y ) {
+		findPeak(x, y, interpolate.get(x, y));
+	}
 
-				// Add all pixels it traversed through to the membership of this mode
-				// This is an approximate of mean-shift
-				for (int i = 0; i < history.size; i++) {
-					Point2D_F32 p = history.get(i);
-					int px = (int)(p.x + 0.5f);
-					int py = (int)(p.y + 0.5f);
+	@Override protected void savePeakColor( float[] color ) {
+		color[0] = meanGray;
+	}
 
-					int index = pixelToMode.getIndex(px, py);
-					if (pixelToMode.data[index] == -1) {
-						pixelToMode.data[index] = modeIndex;
-					}
-				}
-			}
-		}
+	@Override public SegmentMeanShiftSearchGray<T> copy() {
+		return new SegmentMeanShiftSearchGray<>(maxIterations, convergenceTol, interpolate.copy(),
+				radiusX, radiusY, maxColorDistance, fast);
 	}
 
 	@Override
@@ -211,17 +145,8 @@ public class SegmentMeanShiftSearchGray<T extends ImageGray<T>> extends SegmentM
 			if (fast) {
 				history.grow().setTo(peakX, peakY);
 
-				// see if it has already been here before
-				int px = (int)(peakX + 0.5f);
-				int py = (int)(peakY + 0.5f);
-
-				int index = pixelToMode.getIndex(px, py);
-				int modeIndex = pixelToMode.data[index];
-				if (modeIndex != -1) {
-					// it already knows the solution so stop searching
-					Point2D_I32 modeP = modeLocation.get(modeIndex);
-					this.modeX = modeP.x;
-					this.modeY = modeP.y;
+				// see if it has already been here before. If so it already knows the solution so stop searching
+				if (isModeKnown((int)(peakX + 0.5f), (int)(peakY + 0.5f))) {
 					return;
 				}
 			}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -267,7 +267,18 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	 * Computes how far away each cluster is from each pixel. Expectation step.
 	 */
 	protected void computeClusterDistance() {
-		for (int i = 0; i < pixels.size; i++) {
+		computeClusterDistance(0, input.height);
+	}
+
+	/**
+	 * Computes how far away each cluster is from pixels inside the specified rows. Clusters are added to each
+	 * pixel in the same order no matter how the rows are split up, so rows can be processed independently.
+	 *
+	 * @param rowY0 First row
+	 * @param rowY1 Last row, exclusive
+	 */
+	protected void computeClusterDistance( int rowY0, int rowY1 ) {
+		for (int i = rowY0*input.width; i < rowY1*input.width; i++) {
 			pixels.data[i].reset();
 		}
 
@@ -288,6 +299,10 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 			if (x1 > input.width) x1 = input.width;
 			if (y1 > input.height) y1 = input.height;
 
+			// only consider the requested rows
+			if (y0 < rowY0) y0 = rowY0;
+			if (y1 > rowY1) y1 = rowY1;
+
 			for (int y = y0; y < y1; y++) {
 				int indexPixel = y*input.width + x0;
 				int indexInput = input.startIndex + y*input.stride + x0;
@@ -338,6 +353,58 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 		}
 	}
 
+	/**
+	 * Converts the distance each cluster is from the pixel into weights for pixels inside the specified rows
+	 *
+	 * @param rowY0 First row
+	 * @param rowY1 Last row, exclusive
+	 */
+	protected void computePixelWeights( int rowY0, int rowY1 ) {
+		for (int i = rowY0*input.width; i < rowY1*input.width; i++) {
+			pixels.data[i].computeWeights();
+		}
+	}
+
+	/**
+	 * Recomputes the center of a single cluster from the pixels inside its search region. Pixel weights must
+	 * already be computed. Pixels are visited in the same order as {@link #updateClusters()} so the
+	 * results are identical, but each cluster can be updated independently.
+	 */
+	protected void updateCluster( Cluster c ) {
+		// search bounds. Must be the same as the ones used when computing the distance
+		int centerX = (int)(c.x + 0.5f);
+		int centerY = (int)(c.y + 0.5f);
+
+		int x0 = Math.max(0, centerX - gridInterval);
+		int x1 = Math.min(input.width, centerX + gridInterval + 1);
+		int y0 = Math.max(0, centerY - gridInterval);
+		int y1 = Math.min(input.height, centerY + gridInterval + 1);
+
+		c.reset();
+
+		for (int y = y0; y < y1; y++) {
+			int indexPixel = y*input.width + x0;
+			int indexInput = input.startIndex + y*input.stride + x0;
+
+			for (int x = x0; x < x1; x++, indexPixel++, indexInput++) {
+				Pixel p = pixels.data[indexPixel];
+
+				for (int i = 0; i < p.clusters.size; i++) {
+					ClusterDistance d = p.clusters.data[i];
+					if (d.cluster != c)
+						continue;
+					c.x += x*d.distance;
+					c.y += y*d.distance;
+					c.totalWeight += d.distance;
+					addColor(c.color, indexInput, d.distance);
+					break;
+				}
+			}
+		}
+
+		c.update();
+	}
+
 	/**
 	 * Selects which region each pixel belongs to based on which cluster it is the closest to
 	 */
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.slic;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
+
+/**
+ * Concurrent implementation of {@link SegmentSlic_PlU8}. Cluster distances are computed for blocks of rows
+ * in parallel and the center of each cluster is then updated independently.
+ * Output is identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class SegmentSlic_MT_PlU8 extends SegmentSlic_PlU8 {
+	public SegmentSlic_MT_PlU8( int numberOfRegions, float m, int totalIterations,
+							    ConnectRule connectRule, int numBands ) {
+		super(numberOfRegions, m, totalIterations, connectRule, numBands);
+	}
+
+	@Override
+	protected void computeClusterDistance() {
+		BoofConcurrency.loopBlocks(0, input.height, this::computeClusterDistance);
+	}
+
+	@Override
+	protected void updateClusters() {
+		// Check for a stop request once per block
+		BoofConcurrency.loopBlocks(0, input.height, ( y0, y1 ) -> {
+			if (!isStopRequested())
+				computePixelWeights(y0, y1);
+		});
+		if (isStopRequested())
+			return;
+		BoofConcurrency.loopFor(0, clusters.size, i -> updateCluster(clusters.data[i]));
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -41,9 +41,16 @@ public class ConfigSegmentMeanShift implements Configuration {
 	 */
 	public int minimumRegionSize = 30;
 	/**
-	 * Improve runtime by approximating running mean-shift on each pixel. Try true.
+	 * Improve runtime by approximating running mean-shift on each pixel. Try true. A concurrent implementation
+	 * is only used when this is false, unless {@link #fastConcurrent} is true.
 	 */
 	public boolean fast = true;
+	/**
+	 * If true and {@link #fast} is true, then a concurrent implementation is used when concurrency is turned on.
+	 * Trajectories are then only shared inside a block of rows, so the segmentation will be slightly different
+	 * from the single threaded version. When {@link #fast} is false the results are identical and this is ignored.
+	 */
+	public boolean fastConcurrent = false;
 	/**
 	 * Connection rule when segmenting disconnected regions. Try FOUR
 	 */
@@ -64,6 +71,7 @@ public class ConfigSegmentMeanShift implements Configuration {
 		this.colorRadius = src.colorRadius;
 		this.minimumRegionSize = src.minimumRegionSize;
 		this.fast = src.fast;
+		this.fastConcurrent = src.fastConcurrent;
 		this.connectRule = src.connectRule;
 		return this;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -28,6 +28,7 @@ import boofcv.alg.segmentation.fh04.impl.*;
 import boofcv.alg.segmentation.ms.*;
 import boofcv.alg.segmentation.slic.*;
 import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.ConnectRule;
 import boofcv.struct.border.BorderType;
@@ -92,15 +93,29 @@ public class FactorySegmentationAlg {
 
 		SegmentMeanShiftSearch<T> search;
 
+		// The fast approximation shares trajectories between pixels. The concurrent version only shares them inside
+		// a block of rows, which changes the results, so with the fast approximation it's only used if requested
+		boolean concurrent = BoofConcurrency.USE_CONCURRENT && (!config.fast || config.fastConcurrent);
+
 		if (imageType.getFamily() == ImageType.Family.GRAY) {
 			InterpolatePixelS interp = FactoryInterpolation.bilinearPixelS(imageType.getImageClass(), BorderType.EXTENDED);
-			search = new SegmentMeanShiftSearchGray(maxIterations, convergenceTol, interp,
-					spacialRadius, spacialRadius, colorRadius, config.fast);
+			if (concurrent) {
+				search = new SegmentMeanShiftSearchGray_MT(maxIterations, convergenceTol, interp,
+						spacialRadius, spacialRadius, colorRadius, config.fast);
+			} else {
+				search = new SegmentMeanShiftSearchGray(maxIterations, convergenceTol, interp,
+						spacialRadius, spacialRadius, colorRadius, config.fast);
+			}
 		} else {
 			InterpolatePixelMB interp = FactoryInterpolation.createPixelMB(0, 255,
 					InterpolationType.BILINEAR, BorderType.EXTENDED, (ImageType)imageType);
-			search = new SegmentMeanShiftSearchColor(maxIterations, convergenceTol, interp,
-					spacialRadius, spacialRadius, colorRadius, config.fast, imageType);
+			if (concurrent) {
+				search = new SegmentMeanShiftSearchColor_MT(maxIterations, convergenceTol, interp,
+						spacialRadius, spacialRadius, colorRadius, config.fast, imageType);
+			} else {
+				search = new SegmentMeanShiftSearchColor(maxIterations, convergenceTol, interp,
+						spacialRadius, spacialRadius, colorRadius, config.fast, imageType);
+			}
 		}
 
 		ComputeRegionMeanColor<T> regionColor = regionMeanColor(imageType);
@@ -114,6 +129,13 @@ public class FactorySegmentationAlg {
 
 	public static <T extends ImageBase<T>>
 	FhEdgeWeights<T> weightsFelzenszwalb04( ConnectRule rule, ImageType<T> imageType ) {
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new FhEdgeWeights_MT<>(() -> weightsFelzenszwalb04Single(rule, imageType));
+		return weightsFelzenszwalb04Single(rule, imageType);
+	}
+
+	private static <T extends ImageBase<T>>
+	FhEdgeWeights<T> weightsFelzenszwalb04Single( ConnectRule rule, ImageType<T> imageType ) {
 		if (imageType.getFamily() == ImageType.Family.GRAY) {
 			if (rule == ConnectRule.FOUR) {
 				switch (imageType.getDataType()) {
@@ -174,7 +196,28 @@ public class FactorySegmentationAlg {
 		if (config == null)
 			throw new IllegalArgumentException("No default configuration since the number of segments must be specified.");
 
-		if (imageType.getFamily() == ImageType.Family.GRAY) {
+		if (BoofConcurrency.USE_CONCURRENT) {
+			if (imageType.getFamily() == ImageType.Family.GRAY) {
+				switch (imageType.getDataType()) {
+					case U8:
+						return (SegmentSlic)new SegmentSlic_MT_U8(config.numberOfRegions,
+								config.spacialWeight, config.totalIterations, config.connectRule);
+					case F32:
+						return (SegmentSlic)new SegmentSlic_MT_F32(config.numberOfRegions,
+								config.spacialWeight, config.totalIterations, config.connectRule);
+				}
+			} else if (imageType.getFamily() == ImageType.Family.PLANAR) {
+				int N = imageType.getNumBands();
+				switch (imageType.getDataType()) {
+					case U8:
+						return (SegmentSlic)new SegmentSlic_MT_PlU8(config.numberOfRegions,
+								config.spacialWeight, config.totalIterations, config.connectRule, N);
+					case F32:
+						return (SegmentSlic)new SegmentSlic_MT_PlF32(config.numberOfRegions,
+								config.spacialWeight, config.totalIterations, config.connectRule, N);
+				}
+			}
+		} else if (imageType.getFamily() == ImageType.Family.GRAY) {
 			switch (imageType.getDataType()) {
 				case U8:
 					return (SegmentSlic)new SegmentSlic_U8(config.numberOfRegions,
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,6 +21,9 @@ package boofcv.factory.struct;
 import boofcv.abst.feature.describe.DescriptorInfo;
 import boofcv.struct.PackedArray;
 import boofcv.struct.feature.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
 
 /**
  * Factory for creating {@link TupleDesc} and related structures abstractly.
@@ -77,4 +80,30 @@ public class FactoryTupleDesc {
 		else
 			throw new IllegalArgumentException("Unknown type " + type);
 	}
+
+	/**
+	 * Creates a packed array which is stored in a temporary file instead of on the heap.
+	 * See {@link PackedTupleDiskArray}.
+	 *
+	 * @param directory Directory the file is created in. If null the system default is used.
+	 */
+	public static <TD extends TupleDesc<TD>> PackedArray<TD> createPackedDisk( DescriptorInfo<TD> info,
+																			   @Nullable File directory ) {
+		int dof = info.createDescription().size();
+		return createPackedDisk(dof, info.getDescriptionType(), directory);
+	}
+
+	public static <TD extends TupleDesc<TD>> PackedArray<TD> createPackedDisk( int dof, Class<TD> type,
+																			   @Nullable File directory ) {
+		if (type == TupleDesc_F64.class)
+			return (PackedArray<TD>)new PackedTupleDiskArray_F64(dof, directory);
+		else if (type == TupleDesc_F32.class)
+			return (PackedArray<TD>)new PackedTupleDiskArray_F32(dof, directory);
+		else if (type == TupleDesc_U8.class)
+			return (PackedArray<TD>)new PackedTupleDiskArray_U8(dof, directory);
+		else if (type == TupleDesc_B.class)
+			return (PackedArray<TD>)new PackedTupleDiskArray_B(dof, directory);
+		else
+			throw new IllegalArgumentException("Unknown type " + type);
+	}
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.struct.feature;
+
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.PackedArray;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Stores tuples in a file on disk instead of on the heap. This allows far more tuples to be stored than will fit
+ * in memory, e.g. descriptions for every image feature in a large reconstruction. The file is split into
+ * segments of equal size that are memory mapped when accessed. At most {@link #maxMappedSegments} segments are
+ * referenced at any time and the segment which was mapped first is dropped first. Tuples are never split across
+ * two segments. Since the data is memory mapped the OS decides which parts of a mapped segment are in RAM.
+ * </p>
+ *
+ * <p>
+ * NOTE: Java provides no way to explicitly unmap a buffer. A dropped segment stays mapped until its buffer is
+ * garbage collected, so the amount of address space used is not strictly bounded by {@link #maxMappedSegments}.
+ * </p>
+ *
+ * <p>
+ * Reading tuples with {@link #getCopy} is thread safe, but writing and {@link #getTemp} are not. Reading a
+ * segment which is already mapped doesn't lock, so concurrent readers only block each other while a segment is
+ * being mapped. By default the data is written to a temporary file which is deleted when {@link #close()} is
+ * called or the JVM exits.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public abstract class PackedTupleDiskArray<T extends TupleDesc<T>> implements PackedArray<T>, Closeable {
+	/** Approximate number of bytes in each segment if not specified */
+	public static final int DEFAULT_SEGMENT_BYTES = 64*1024*1024;
+
+	/** Maximum number of mapped segments which are referenced if not specified */
+	public static final int DEFAULT_MAX_MAPPED = 16;
+
+	// degree-of-freedom, number of elements in the tuple
+	public final int dof;
+	// tuple that the result is temporarily written to
+	public final T temp;
+
+	/** Number of bytes used to encode a single tuple */
+	@Getter final int tupleBytes;
+
+	/** Number of tuples in a segment */
+	@Getter final int tuplesPerSegment;
+
+	/** Maximum number of mapped segments which are referenced at once. See class description for unmapping. */
+	@Getter final int maxMappedSegments;
+
+	/** File the tuples are written to */
+	@Getter final File file;
+
+	/**
+	 * True if the file was deleted by {@link #close()}. If deletion was requested and this is false after
+	 * closing, then the file will be deleted when the JVM exits.
+	 */
+	@Getter boolean fileDeleted;
+
+	// If true the file will be deleted when closed
+	final boolean deleteOnClose;
+
+	final FileChannel channel;
+
+	// Referenced segments. Null if a segment isn't mapped. Replaced by a larger array when more segments are needed.
+	volatile AtomicReferenceArray<ByteBuffer> segments = new AtomicReferenceArray<>(0);
+
+	// Index of referenced segments, ordered from first to last mapped. Only accessed while synchronized.
+	final ArrayDeque<Integer> mappedOrder = new ArrayDeque<>();
+
+	// Number of tuples stored in the array
+	protected int numElements;
+
+	/**
+	 * Creates a temporary file which is deleted when closed
+	 *
+	 * @param temp Tuple used to store results
+	 * @param tupleBytes Number of bytes used to encode a single tuple
+	 * @param directory Directory the file is created in. If null the system default is used.
+	 * @param tuplesPerSegment Number of tuples in a segment. If &le; 0 then a default is selected.
+	 * @param maxMappedSegments Maximum number of mapped segments which are referenced at once
+	 */
+	protected PackedTupleDiskArray( T temp, int tupleBytes, @Nullable File directory,
+									int tuplesPerSegment, int maxMappedSegments ) {
+		this(temp, tupleBytes, createTempFile(directory), true, tuplesPerSegment, maxMappedSegments);
+	}
+
+	/**
+	 * @param temp Tuple used to store results
+	 * @param tupleBytes Number of bytes used to encode a single tuple
+	 * @param file File the tuples are written to. Any existing data in the file is overwritten.
+	 * @param deleteOnClose If true the file is deleted when closed
+	 * @param tuplesPerSegment Number of tuples in a segment. If &le; 0 then a default is selected.
+	 * @param maxMappedSegments Maximum number of mapped segments which are referenced at once
+	 */
+	protected PackedTupleDiskArray( T temp, int tupleBytes, File file, boolean deleteOnClose,
+									int tuplesPerSegment, int maxMappedSegments ) {
+		if (maxMappedSegments <= 0)
+			throw new IllegalArgumentException("maxMappedSegments must be positive");
+		if (tuplesPerSegment <= 0)
+			tuplesPerSegment = Math.max(1, DEFAULT_SEGMENT_BYTES/tupleBytes);
+		if ((long)tuplesPerSegment*tupleBytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Segments can't be larger than 2 GB");
+
+		this.dof = temp.size();
+		this.temp = temp;
+		this.tupleBytes = tupleBytes;
+		this.tuplesPerSegment = tuplesPerSegment;
+		this.maxMappedSegments = maxMappedSegments;
+		this.file = file;
+		this.deleteOnClose = deleteOnClose;
+
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (deleteOnClose)
+			file.deleteOnExit();
+	}
+
+	private static File createTempFile( @Nullable File directory ) {
+		try {
+			return File.createTempFile("packed_tuples", ".bin", directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the tuple into the buffer
+	 *
+	 * @param src (Input) The tuple
+	 * @param dst (Output) Buffer the tuple is written to
+	 * @param location Byte the tuple starts at
+	 */
+	protected abstract void encode( T src, ByteBuffer dst, int location );
+
+	/**
+	 * Reads the tuple from the buffer. Must not modify the buffer's state so that it's thread safe.
+	 *
+	 * @param src (Input) Buffer the tuple is read from
+	 * @param location Byte the tuple starts at
+	 * @param dst (Output) The tuple
+	 */
+	protected abstract void decode( ByteBuffer src, int location, T dst );
+
+	/**
+	 * Returns the memory mapped segment. If it's not referenced then it will be mapped and the segment which
+	 * was mapped first might be dropped. Only locks if the segment needs to be mapped.
+	 */
+	protected ByteBuffer lookupSegment( int segment ) {
+		AtomicReferenceArray<ByteBuffer> segments = this.segments;
+		if (segment < segments.length()) {
+			ByteBuffer buffer = segments.get(segment);
+			if (buffer != null)
+				return buffer;
+		}
+		return mapSegment(segment);
+	}
+
+	/**
+	 * Maps the segment and drops the oldest mapped segment if there are too many
+	 */
+	synchronized ByteBuffer mapSegment( int segment ) {
+		if (segment < segments.length()) {
+			// Another thread could have mapped it while this thread was waiting
+			ByteBuffer buffer = segments.get(segment);
+			if (buffer != null)
+				return buffer;
+		} else {
+			var larger = new AtomicReferenceArray<ByteBuffer>(Math.max(segment + 1, segments.length()*2));
+			for (int i = 0; i < segments.length(); i++) {
+				larger.set(i, segments.get(i));
+			}
+			segments = larger;
+		}
+
+		ByteBuffer buffer;
+		try {
+			// Mapping past the end of the file will cause it to grow
+			long start = (long)segment*tuplesPerSegment*tupleBytes;
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, (long)tuplesPerSegment*tupleBytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.order(ByteOrder.nativeOrder());
+		segments.set(segment, buffer);
+		mappedOrder.addLast(segment);
+
+		// Only the reference is dropped. The mapping is released once the buffer is garbage collected
+		if (mappedOrder.size() > maxMappedSegments)
+			segments.set(mappedOrder.removeFirst(), null);
+		return buffer;
+	}
+
+	/**
+	 * Discards all tuples. The file is not made smaller.
+	 */
+	@Override public void reset() {
+		numElements = 0;
+	}
+
+	/**
+	 * Does nothing. The file grows as tuples are added.
+	 */
+	@Override public void reserve( int numTuples ) {}
+
+	@Override public void append( T element ) {
+		int index = numElements;
+		encode(element, lookupSegment(index/tuplesPerSegment), (index%tuplesPerSegment)*tupleBytes);
+		numElements++;
+	}
+
+	@Override public T getTemp( int index ) {
+		getCopy(index, temp);
+		return temp;
+	}
+
+	@Override public void getCopy( int index, T dst ) {
+		if (index < 0 || index >= numElements)
+			throw new IllegalArgumentException("Index out of bounds. " + index + " size=" + numElements);
+		decode(lookupSegment(index/tuplesPerSegment), (index%tuplesPerSegment)*tupleBytes, dst);
+	}
+
+	@Override public void copy( T src, T dst ) {
+		dst.setTo(src);
+	}
+
+	@Override public int size() {
+		return numElements;
+	}
+
+	@Override public void forIdx( int idx0, int idx1, BoofLambdas.ProcessIndex<T> op ) {
+		for (int index = idx0; index < idx1; index++) {
+			ByteBuffer buffer = lookupSegment(index/tuplesPerSegment);
+			int location = (index%tuplesPerSegment)*tupleBytes;
+			decode(buffer, location, temp);
+			op.process(index, temp);
+			// Save any modifications
+			encode(temp, buffer, location);
+		}
+	}
+
+	/**
+	 * Drops all the segments, closes the file, and deletes the file if requested. The array can't be used
+	 * after this is called. Segments are unmapped once they are garbage collected. On some operating systems,
+	 * e.g. Windows, a file with mapped segments can't be deleted and it will be deleted when the JVM exits instead.
+	 * See {@link #isFileDeleted()}.
+	 */
+	@Override public synchronized void close() {
+		segments = new AtomicReferenceArray<>(0);
+		mappedOrder.clear();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		fileDeleted = deleteOnClose && (!file.exists() || file.delete());
+	}
+}
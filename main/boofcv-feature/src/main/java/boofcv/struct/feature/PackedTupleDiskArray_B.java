@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.struct.feature;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link PackedTupleDiskArray} for {@link TupleDesc_B}.
+ *
+ * @author Peter Abeles
+ */
+public class PackedTupleDiskArray_B extends PackedTupleDiskArray<TupleDesc_B> {
+	/**
+	 * Creates a temporary file in the specified directory which is deleted when closed
+	 *
+	 * @param dof Number of elements in the tuple
+	 * @param directory Directory the file is created in. If null the system default is used.
+	 * @param tuplesPerSegment Number of tuples in a segment. If &le; 0 then a default is selected.
+	 * @param maxMappedSegments Maximum number of mapped segments which are referenced at once
+	 */
+	public PackedTupleDiskArray_B( int dof, @Nullable File directory, int tuplesPerSegment, int maxMappedSegments ) {
+		super(new TupleDesc_B(dof), 4*((dof + 31)/32), directory, tuplesPerSegment, maxMappedSegments);
+	}
+
+	public PackedTupleDiskArray_B( int dof, @Nullable File directory ) {
+		this(dof, directory, -1, DEFAULT_MAX_MAPPED);
+	}
+
+	@Override protected void encode( TupleDesc_B src, ByteBuffer dst, int location ) {
+		for (int i = 0; i < src.data.length; i++) {
+			dst.putInt(location + i*4, src.data[i]);
+		}
+	}
+
+	@Override protected void decode( ByteBuffer src, int location, TupleDesc_B dst ) {
+		for (int i = 0; i < dst.data.length; i++) {
+			dst.data[i] = src.getInt(location + i*4);
+		}
+	}
+
+	@Override public Class<TupleDesc_B> getElementType() {
+		return TupleDesc_B.class;
+	}
+}
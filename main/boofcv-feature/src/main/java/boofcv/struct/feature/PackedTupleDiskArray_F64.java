@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.struct.feature;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link PackedTupleDiskArray} for {@link TupleDesc_F64}.
+ *
+ * @author Peter Abeles
+ */
+public class PackedTupleDiskArray_F64 extends PackedTupleDiskArray<TupleDesc_F64> {
+	/**
+	 * Creates a temporary file in the specified directory which is deleted when closed
+	 *
+	 * @param dof Number of elements in the tuple
+	 * @param directory Directory the file is created in. If null the system default is used.
+	 * @param tuplesPerSegment Number of tuples in a segment. If &le; 0 then a default is selected.
+	 * @param maxMappedSegments Maximum number of mapped segments which are referenced at once
+	 */
+	public PackedTupleDiskArray_F64( int dof, @Nullable File directory, int tuplesPerSegment, int maxMappedSegments ) {
+		super(new TupleDesc_F64(dof), 8*dof, directory, tuplesPerSegment, maxMappedSegments);
+	}
+
+	public PackedTupleDiskArray_F64( int dof, @Nullable File directory ) {
+		this(dof, directory, -1, DEFAULT_MAX_MAPPED);
+	}
+
+	@Override protected void encode( TupleDesc_F64 src, ByteBuffer dst, int location ) {
+		for (int i = 0; i < dof; i++) {
+			dst.putDouble(location + i*8, src.data[i]);
+		}
+	}
+
+	@Override protected void decode( ByteBuffer src, int location, TupleDesc_F64 dst ) {
+		for (int i = 0; i < dof; i++) {
+			dst.data[i] = src.getDouble(location + i*8);
+		}
+	}
+
+	@Override public Class<TupleDesc_F64> getElementType() {
+		return TupleDesc_F64.class;
+	}
+}
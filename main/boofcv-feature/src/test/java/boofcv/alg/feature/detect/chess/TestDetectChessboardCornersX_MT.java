@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.chess;
+
+import boofcv.abst.distort.FDistort;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.gui.RenderCalibrationTargetsGraphics2D;
+import boofcv.struct.image.GrayF32;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestDetectChessboardCornersX_MT extends BoofStandardJUnit {
+	/**
+	 * Compare to the single threaded version. Noise is added so that there are many rejected candidates
+	 */
+	@Test void compareToSingle() {
+		var renderer = new RenderCalibrationTargetsGraphics2D(40, 1);
+		renderer.chessboard(5, 6, 30);
+
+		GrayF32 original = renderer.getGrayF32();
+		GrayF32 input = original.createSameShape();
+
+		var single = new DetectChessboardCornersX();
+		var multi = new DetectChessboardCornersX_MT();
+
+		for (int trial = 0; trial < 4; trial++) {
+			new FDistort(original, input).rotate(trial*0.3).apply();
+			ImageMiscOps.addUniform(input, rand, -20, 20);
+
+			single.process(input);
+			multi.process(input);
+
+			List<ChessboardCorner> expected = single.getCorners();
+			List<ChessboardCorner> found = multi.getCorners();
+			assertTrue(expected.size() > 0);
+			assertEquals(expected.size(), found.size());
+			for (int i = 0; i < expected.size(); i++) {
+				ChessboardCorner e = expected.get(i);
+				ChessboardCorner f = found.get(i);
+				assertEquals(e.x, f.x);
+				assertEquals(e.y, f.y);
+				assertEquals(e.orientation, f.orientation);
+				assertEquals(e.intensity, f.intensity);
+				assertEquals(e.edgeIntensity, f.edgeIntensity);
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.fh04.impl;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.segmentation.fh04.FhEdgeWeights;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04.Edge;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestFhEdgeWeights_MT extends GenericFhEdgeWeightsChecks<GrayF32> {
+	TestFhEdgeWeights_MT() {
+		super(ImageType.single(GrayF32.class), ConnectRule.EIGHT);
+	}
+
+	@Override public FhEdgeWeights<GrayF32> createAlg() {
+		var alg = new FhEdgeWeights_MT<>(FhEdgeWeights8_F32::new);
+		alg.setBlockHeight(3);
+		return alg;
+	}
+
+	@Override public float weight( GrayF32 input, int indexA, int indexB ) {
+		return Math.abs(input.data[indexA] - input.data[indexB]);
+	}
+
+	/**
+	 * The same set of edges should be found as the single threaded algorithm for different block sizes
+	 */
+	@Test void compareToSingle() {
+		compareToSingle(FhEdgeWeights4_U8::new);
+		compareToSingle(FhEdgeWeights8_U8::new);
+	}
+
+	void compareToSingle( BoofLambdas.Factory<FhEdgeWeights<GrayU8>> factory ) {
+		var input = new GrayU8(15, 22);
+		ImageMiscOps.fillUniform(input, rand, 0, 200);
+
+		var expected = new DogArray<>(Edge::new);
+		factory.newInstance().process(input, expected);
+
+		for (int blockHeight : new int[]{1, 2, 5, 22, 30}) {
+			var alg = new FhEdgeWeights_MT<>(factory);
+			alg.setBlockHeight(blockHeight);
+			var found = new DogArray<>(Edge::new);
+			alg.process(input, found);
+
+			assertEquals(expected.size, found.size);
+			List<Edge> listExpected = sorted(expected);
+			List<Edge> listFound = sorted(found);
+			for (int i = 0; i < listExpected.size(); i++) {
+				assertEquals(listExpected.get(i).indexA, listFound.get(i).indexA);
+				assertEquals(listExpected.get(i).indexB, listFound.get(i).indexB);
+				assertEquals(listExpected.get(i).sortValue, listFound.get(i).sortValue);
+			}
+		}
+	}
+
+	List<Edge> sorted( DogArray<Edge> edges ) {
+		List<Edge> list = new ArrayList<>(edges.toList());
+		list.sort(Comparator.<Edge>comparingInt(e -> e.indexA).thenComparingInt(e -> e.indexB));
+		return list;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -67,6 +67,16 @@ public class TestSegmentMeanShiftSearch extends BoofStandardJUnit {
 		@Override
 		public void process(ImageBase image) {}
 
+		@Override protected void setImage( ImageBase image ) {}
+
+		@Override protected void findPixelPeak( int x, int y ) {}
+
+		@Override protected void savePeakColor( float[] color ) {}
+
+		@Override public SegmentMeanShiftSearch copy() {
+			return new Dummy(maxIterations, convergenceTol, radiusX, radiusY, (int)maxColorDistance);
+		}
+
 		@Override
 		public ImageType getImageType() {
 			return null;
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.interpolate.InterpolatePixelMB;
+import boofcv.alg.interpolate.InterpolationType;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestSegmentMeanShiftSearchColor_MT extends BoofStandardJUnit {
+	ImageType<Planar<GrayF32>> imageType = ImageType.pl(2, GrayF32.class);
+	Planar<GrayF32> image = imageType.createImage(30, 45);
+
+	TestSegmentMeanShiftSearchColor_MT() {
+		GImageMiscOps.fillUniform(image, rand, 0, 256);
+	}
+
+	/**
+	 * When not in fast mode the results should be identical to the single threaded algorithm
+	 */
+	@Test void compareToSingle() {
+		var single = new SegmentMeanShiftSearchColor<>(30, 0.05f, interp(), 2, 2, 200, false, imageType);
+		single.process(image);
+
+		for (int blockHeight : new int[]{1, 7, 100}) {
+			var alg = new SegmentMeanShiftSearchColor_MT<>(30, 0.05f, interp(), 2, 2, 200, false, imageType);
+			alg.setBlockHeight(blockHeight);
+			alg.process(image);
+			assertSameModes(single, alg);
+		}
+	}
+
+	/**
+	 * In fast mode results can differ from the single threaded algorithm but should be valid and repeatable
+	 */
+	@Test void fast_repeatable() {
+		var alg = new SegmentMeanShiftSearchColor_MT<>(30, 0.05f, interp(), 2, 2, 200, true, imageType);
+		alg.setBlockHeight(10);
+		alg.process(image);
+		checkMemberCounts(alg, image.width*image.height);
+
+		var copy = new SegmentMeanShiftSearchColor_MT<>(30, 0.05f, interp(), 2, 2, 200, true, imageType);
+		copy.setBlockHeight(10);
+		copy.process(image);
+		assertSameModes(alg, copy);
+	}
+
+	InterpolatePixelMB<Planar<GrayF32>> interp() {
+		return FactoryInterpolation.createPixelMB(0, 255, InterpolationType.BILINEAR, BorderType.EXTENDED, imageType);
+	}
+
+	static void assertSameModes( SegmentMeanShiftSearch<?> expected, SegmentMeanShiftSearch<?> found ) {
+		assertEquals(expected.getModeLocation().size, found.getModeLocation().size);
+		for (int i = 0; i < expected.getModeLocation().size; i++) {
+			assertEquals(expected.getModeLocation().get(i).x, found.getModeLocation().get(i).x);
+			assertEquals(expected.getModeLocation().get(i).y, found.getModeLocation().get(i).y);
+			assertEquals(expected.getRegionMemberCount().get(i), found.getRegionMemberCount().get(i));
+			assertArrayEquals(expected.getModeColor().get(i), found.getModeColor().get(i));
+		}
+		assertArrayEquals(expected.getPixelToRegion().data, found.getPixelToRegion().data);
+	}
+
+	static void checkMemberCounts( SegmentMeanShiftSearch<?> alg, int totalPixels ) {
+		int total = 0;
+		for (int i = 0; i < alg.getRegionMemberCount().size; i++) {
+			total += alg.getRegionMemberCount().get(i);
+		}
+		assertEquals(totalPixels, total);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.segmentation.ms.TestSegmentMeanShiftSearchColor_MT.assertSameModes;
+import static boofcv.alg.segmentation.ms.TestSegmentMeanShiftSearchColor_MT.checkMemberCounts;
+
+class TestSegmentMeanShiftSearchGray_MT extends BoofStandardJUnit {
+	GrayF32 image = new GrayF32(30, 45);
+
+	TestSegmentMeanShiftSearchGray_MT() {
+		ImageMiscOps.fillUniform(image, rand, 0, 256);
+	}
+
+	/**
+	 * When not in fast mode the results should be identical to the single threaded algorithm
+	 */
+	@Test void compareToSingle() {
+		SegmentMeanShiftSearchGray<GrayF32> single = new SegmentMeanShiftSearchGray<>(30, 0.05f, interp(), 2, 2, 100, false);
+		single.process(image);
+
+		for (int blockHeight : new int[]{1, 7, 100}) {
+			var alg = new SegmentMeanShiftSearchGray_MT<>(30, 0.05f, interp(), 2, 2, 100, false);
+			alg.setBlockHeight(blockHeight);
+			alg.process(image);
+			assertSameModes(single, alg);
+		}
+	}
+
+	/**
+	 * In fast mode results can differ from the single threaded algorithm but should be valid and repeatable
+	 */
+	@Test void fast_repeatable() {
+		var alg = new SegmentMeanShiftSearchGray_MT<>(30, 0.05f, interp(), 2, 2, 100, true);
+		alg.setBlockHeight(10);
+		alg.process(image);
+		checkMemberCounts(alg, image.width*image.height);
+
+		var copy = new SegmentMeanShiftSearchGray_MT<>(30, 0.05f, interp(), 2, 2, 100, true);
+		copy.setBlockHeight(10);
+		copy.process(image);
+		assertSameModes(alg, copy);
+	}
+
+	InterpolatePixelS<GrayF32> interp() {
+		return FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+	}
+}
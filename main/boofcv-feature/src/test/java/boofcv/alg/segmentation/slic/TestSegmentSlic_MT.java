@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.slic;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.ImageBase;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the concurrent implementations of SLIC against the single threaded ones. Output should be identical.
+ */
+class TestSegmentSlic_MT extends BoofStandardJUnit {
+	@Test void F32() {
+		compare(new SegmentSlic_F32(20, 200, 10, ConnectRule.EIGHT),
+				new SegmentSlic_MT_F32(20, 200, 10, ConnectRule.EIGHT));
+	}
+
+	@Test void U8() {
+		compare(new SegmentSlic_U8(20, 200, 10, ConnectRule.FOUR),
+				new SegmentSlic_MT_U8(20, 200, 10, ConnectRule.FOUR));
+	}
+
+	@Test void PlF32() {
+		compare(new SegmentSlic_PlF32(20, 200, 10, ConnectRule.EIGHT, 3),
+				new SegmentSlic_MT_PlF32(20, 200, 10, ConnectRule.EIGHT, 3));
+	}
+
+	@Test void PlU8() {
+		compare(new SegmentSlic_PlU8(20, 200, 10, ConnectRule.FOUR, 3),
+				new SegmentSlic_MT_PlU8(20, 200, 10, ConnectRule.FOUR, 3));
+	}
+
+	<T extends ImageBase<T>> void compare( SegmentSlic<T> single, SegmentSlic<T> concurrent ) {
+		T input = single.getImageType().createImage(45, 50);
+		GImageMiscOps.fillUniform(input, rand, 0, 100);
+		GImageMiscOps.fillRectangle(input, 200, 10, 5, 20, 30);
+
+		var expected = new GrayS32(input.width, input.height);
+		var found = new GrayS32(input.width, input.height);
+
+		single.process(input, expected);
+		concurrent.process(input, found);
+
+		assertArrayEquals(expected.data, found.data);
+		assertEquals(single.getClusters().size, concurrent.getClusters().size);
+		for (int i = 0; i < single.getClusters().size; i++) {
+			SegmentSlic.Cluster a = single.getClusters().get(i);
+			SegmentSlic.Cluster b = concurrent.getClusters().get(i);
+			assertEquals(a.x, b.x);
+			assertEquals(a.y, b.y);
+			assertArrayEquals(a.color, b.color);
+		}
+		assertArrayEquals(single.getRegionMemberCount().toArray(), concurrent.getRegionMemberCount().toArray());
+	}
+}
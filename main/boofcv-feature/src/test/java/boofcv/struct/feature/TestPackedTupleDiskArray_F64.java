@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.struct.feature;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.PackedArray;
+import boofcv.struct.packed.GenericPackedArrayChecks;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestPackedTupleDiskArray_F64 extends GenericPackedArrayChecks<TupleDesc_F64> {
+	int DOF = 3;
+
+	@Override protected PackedArray<TupleDesc_F64> createAlg() {
+		// Use very small segments so that segments are mapped and released
+		return new PackedTupleDiskArray_F64(DOF, null, 4, 2);
+	}
+
+	@Override protected TupleDesc_F64 createRandomPoint() {
+		var point = new TupleDesc_F64(DOF);
+		for (int i = 0; i < DOF; i++) {
+			point.data[i] = rand.nextGaussian();
+		}
+		return point;
+	}
+
+	@Override protected void checkEquals( TupleDesc_F64 a, TupleDesc_F64 b ) {
+		for (int i = 0; i < DOF; i++) {
+			assertEquals(a.data[i], b.data[i]);
+		}
+	}
+
+	@Override protected void checkNotEquals( TupleDesc_F64 a, TupleDesc_F64 b ) {
+		for (int i = 0; i < DOF; i++) {
+			if (a.data[i] != b.data[i])
+				return;
+		}
+		fail("The tuples are identical");
+	}
+
+	/**
+	 * Randomly access tuples in many segments. Only a couple can be mapped at once.
+	 */
+	@Test void randomAccessManySegments() {
+		var alg = new PackedTupleDiskArray_F64(DOF, null, 5, 2);
+		List<TupleDesc_F64> expected = new ArrayList<>();
+		for (int i = 0; i < 103; i++) {
+			expected.add(createRandomPoint());
+			alg.append(expected.get(i));
+		}
+		assertTrue(alg.mappedOrder.size() <= 2);
+
+		var found = new TupleDesc_F64(DOF);
+		for (int trial = 0; trial < 200; trial++) {
+			int index = rand.nextInt(expected.size());
+			alg.getCopy(index, found);
+			checkEquals(expected.get(index), found);
+		}
+		assertTrue(alg.mappedOrder.size() <= 2);
+		alg.close();
+	}
+
+	/**
+	 * Read from multiple threads at the same time
+	 */
+	@Test void getCopy_concurrent() {
+		var alg = new PackedTupleDiskArray_F64(DOF, null, 5, 2);
+		List<TupleDesc_F64> expected = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			expected.add(createRandomPoint());
+			alg.append(expected.get(i));
+		}
+
+		BoofConcurrency.USE_CONCURRENT = true;
+		BoofConcurrency.loopFor(0, expected.size(), i -> {
+			var found = new TupleDesc_F64(DOF);
+			alg.getCopy(i, found);
+			checkEquals(expected.get(i), found);
+		});
+		alg.close();
+	}
+
+	@Test void getCopy_outOfBounds() {
+		PackedArray<TupleDesc_F64> alg = createAlg();
+		alg.append(createRandomPoint());
+		assertThrows(IllegalArgumentException.class, () -> alg.getCopy(1, createRandomPoint()));
+	}
+
+	@Test void close_deletesFile() {
+		var alg = new PackedTupleDiskArray_F64(DOF, null);
+		alg.append(createRandomPoint());
+		File file = alg.getFile();
+		assertTrue(file.exists());
+		alg.close();
+		assertTrue(alg.isFileDeleted());
+		assertFalse(file.exists());
+	}
+}
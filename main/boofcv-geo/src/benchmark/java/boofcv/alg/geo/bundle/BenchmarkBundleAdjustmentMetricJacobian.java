@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.alg.geo.PerspectiveOps;
+import boofcv.alg.geo.WorldToCameraToPixel;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.calib.CameraPinholeBrown;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.ejml.data.DMatrixSparseCSC;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the residuals and sparse Jacobian of a synthetic scene where cameras are arranged in a circle around
+ * a cloud of points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkBundleAdjustmentMetricJacobian {
+	@Param({"true", "false"})
+	public boolean concurrent;
+
+	@Param({"20", "200"})
+	public int numViews;
+
+	@Param({"5000"})
+	public int numPoints;
+
+	BundleAdjustmentMetricResidualFunction residuals;
+	BundleAdjustmentMetricSchurJacobian_DSCC jacobian;
+
+	double[] parameters;
+	double[] output;
+	DMatrixSparseCSC left = new DMatrixSparseCSC(1, 1);
+	DMatrixSparseCSC right = new DMatrixSparseCSC(1, 1);
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var rand = new Random(234);
+
+		var intrinsic = new CameraPinholeBrown(500, 500, 0, 320, 240, 640, 480).fsetRadial(0.02, -0.01);
+
+		var structure = new SceneStructureMetric(false);
+		structure.initialize(1, numViews, numPoints);
+		structure.setCamera(0, false, intrinsic);
+		for (int i = 0; i < numPoints; i++) {
+			structure.setPoint(i, rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian());
+		}
+
+		var observations = new SceneObservations();
+		observations.initialize(numViews);
+
+		var worldPt = new Point3D_F64();
+		var pixel = new Point2D_F64();
+		for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+			// Views are on a circle and look at the origin
+			double yaw = 2.0*Math.PI*viewIdx/numViews;
+			Se3_F64 view_to_world = SpecialEuclideanOps_F64.eulerXyz(
+					-6*Math.sin(yaw), 0, -6*Math.cos(yaw), 0, yaw, 0, null);
+			Se3_F64 world_to_view = view_to_world.invert(null);
+			structure.setView(viewIdx, 0, viewIdx == 0, world_to_view);
+
+			WorldToCameraToPixel w2p = PerspectiveOps.createWorldToPixel(intrinsic, world_to_view);
+			for (int pointIdx = 0; pointIdx < numPoints; pointIdx++) {
+				structure.points.get(pointIdx).get(worldPt);
+				if (!w2p.transform(worldPt, pixel))
+					continue;
+				if (!intrinsic.isInside(pixel.x, pixel.y))
+					continue;
+				observations.getView(viewIdx).add(pointIdx, (float)pixel.x, (float)pixel.y);
+				structure.connectPointToView(pointIdx, viewIdx);
+			}
+		}
+
+		if (concurrent) {
+			residuals = new BundleAdjustmentMetricResidualFunction_MT();
+			jacobian = new BundleAdjustmentMetricSchurJacobian_MT_DSCC();
+		} else {
+			residuals = new BundleAdjustmentMetricResidualFunction();
+			jacobian = new BundleAdjustmentMetricSchurJacobian_DSCC();
+		}
+		residuals.configure(structure, observations);
+		jacobian.configure(structure, observations);
+
+		parameters = new double[structure.getParameterCount()];
+		new CodecSceneStructureMetric().encode(structure, parameters);
+		output = new double[residuals.getNumOfOutputsM()];
+	}
+
+	@Benchmark public void residuals() {
+		residuals.process(parameters, output);
+	}
+
+	@Benchmark public void jacobian() {
+		jacobian.process(parameters, left, right);
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkBundleAdjustmentMetricJacobian.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
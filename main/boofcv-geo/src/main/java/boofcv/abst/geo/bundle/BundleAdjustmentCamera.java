@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2020, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -25,6 +25,9 @@ import org.jetbrains.annotations.Nullable;
  * Generalized camera model for bundle adjustment. By implementing this function you can swap in and out
  * arbitrary camera models.
  *
+ * {@link #project} and {@link #jacobian} must not modify the camera's state since concurrent implementations
+ * will call them from multiple threads at the same time.
+ *
  * @author Peter Abeles
  */
 public interface BundleAdjustmentCamera {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -45,6 +45,12 @@ import java.util.Objects;
  * cost(P) = (1/(m*n))*&sum;<sub>i</sub> &sum;<sub>j</sub> ||x<sub>j</sub> - (1/z)*[R<sub>i</sub>|T<sub>i</sub>]*X<sub>j</sub>||<sup>2</sup>
  * </p>
  *
+ * <p>
+ * The state of each relative view is computed before any points are projected. After that each view only reads
+ * from shared data and writes to its own elements in the output, allowing views to be processed independently
+ * by a {@link Workspace}. See {@link #projectViews}.
+ * </p>
+ *
  * @author Peter Abeles
  * @see SceneStructureMetric
  * @see SceneObservations
@@ -55,21 +61,11 @@ public class BundleAdjustmentMetricResidualFunction
 	private SceneStructureMetric structure;
 	private SceneObservations observations;
 
-	// feature location in world coordinates
-	private final Point3D_F64 worldPt = new Point3D_F64();
-
 	// number of parameters being optimised
 	private int numParameters;
 	// number of observations. 2 for each point in each view
 	private int numObservations;
 
-	// local variable which stores the predicted location of the feature in the camera frame
-	private final Point3D_F64 cameraPt = new Point3D_F64();
-
-	// Storage for rendered output
-	private final Point2D_F64 predictedPixel = new Point2D_F64();
-	private final PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
-
 	// Used to write the "unknown" parameters into the scene
 	private final CodecSceneStructureMetric codec = new CodecSceneStructureMetric();
 
@@ -78,9 +74,11 @@ public class BundleAdjustmentMetricResidualFunction
 	// Look up workspace by view ID when relative view
 	private final Map<SceneStructureMetric.View, Se3_F64> mapWorldToView = new HashMap<>();
 
-	// Storage for 3D points in Cartesian and homogenous coordinates
-	private final Point3D_F64 p3 = new Point3D_F64();
-	private final Point4D_F64 p4 = new Point4D_F64();
+	// index of the first observation in each view
+	private int[] viewFirstObservation = new int[0];
+
+	// Used when views are processed by a single thread
+	private final Workspace workspace = new Workspace();
 
 	/**
 	 * Specifies the scenes structure and observed feature locations
@@ -105,6 +103,15 @@ public class BundleAdjustmentMetricResidualFunction
 			Se3_F64 world_to_view = storageSe3.grow();
 			mapWorldToView.put(v, world_to_view);
 		}
+
+		// Observations in a view are contiguous and views are in order
+		viewFirstObservation = new int[structure.views.size];
+		for (int viewIdx = 0, index = 0; viewIdx < structure.views.size; viewIdx++) {
+			viewFirstObservation[viewIdx] = index;
+			index += observations.views.get(viewIdx).size();
+			if (observations.hasRigid())
+				index += observations.viewsRigid.get(viewIdx).size();
+		}
 	}
 
 	@Override
@@ -123,160 +130,216 @@ public class BundleAdjustmentMetricResidualFunction
 		// write the current parameters into the scene's structure
 		codec.decode(input, structure);
 
+		// Views only read from the world to view transforms after this
+		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
+			lookupWorldToView(structure.views.get(viewIndex));
+		}
+
 		// Project the general scene now
-		if (structure.isHomogenous())
-			project4(output);
-		else
-			project3(output);
+		projectViews(output, structure.views.size);
 	}
 
 	/**
-	 * projection from 3D coordinates
+	 * Computes the residuals for all observations in every view. Each view writes to its own elements in the output.
+	 *
+	 * @param numViews Number of views in the scene
 	 */
-	private void project3( double[] output ) {
-		int observationIndex = 0;
-		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
-			SceneStructureMetric.View view = structure.views.get(viewIndex);
-			SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
+	protected void projectViews( double[] output, int numViews ) {
+		workspace.projectViews(output, 0, numViews);
+	}
 
-			Se3_F64 world_to_view = lookupWorldToView(view);
+	/**
+	 * Returns the transform from world to view which was found previously by {@link #lookupWorldToView}
+	 */
+	protected Se3_F64 getWorldToView( SceneStructureMetric.View v ) {
+		if (v.parent == null)
+			return structure.getParentToView(v);
+		return Objects.requireNonNull(mapWorldToView.get(v));
+	}
 
-			//=========== Project General Points in this View
-			{
-				SceneObservations.View obsView = observations.views.get(viewIndex);
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
-					SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
-					worldPt.get(p3);
+	/**
+	 * Returns a transform from the world_to_view. If relative then the parent's world to view is look up and used
+	 * to compute this view's transform and the results are saved. Views must be passed in by order of their index.
+	 */
+	protected Se3_F64 lookupWorldToView( SceneStructureMetric.View v ) {
+		Se3_F64 parent_to_view = structure.getParentToView(v);
+		if (v.parent == null)
+			return parent_to_view;
 
-					SePointOps_F64.transform(world_to_view, p3, cameraPt);
+		Se3_F64 world_to_view = Objects.requireNonNull(mapWorldToView.get(v));
+		SceneStructureMetric.View parentView = v.parent;
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+		// See if the parent is relative to the global frame
+		if (parentView.parent == null) {
+			Se3_F64 world_to_parent = Objects.requireNonNull(structure.getParentToView(v.parent));
+			world_to_parent.concat(parent_to_view, world_to_view);
+		} else {
+			// Since the parent must have a lower index it's transform is already known
+			Se3_F64 world_to_parent = Objects.requireNonNull(mapWorldToView.get(v.parent));
+			world_to_parent.concat(parent_to_view, world_to_view);
+		}
+		return world_to_view;
+	}
 
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
+	/**
+	 * Storage for computing the residuals of the observations in a range of views. Each thread which is
+	 * computing residuals needs its own instance.
+	 */
+	protected class Workspace {
+		// feature location in world coordinates
+		final Point3D_F64 worldPt = new Point3D_F64();
+
+		// local variable which stores the predicted location of the feature in the camera frame
+		final Point3D_F64 cameraPt = new Point3D_F64();
+
+		// Storage for rendered output
+		final Point2D_F64 predictedPixel = new Point2D_F64();
+		final PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+
+		// Storage for 3D points in Cartesian and homogenous coordinates
+		final Point3D_F64 p3 = new Point3D_F64();
+		final Point4D_F64 p4 = new Point4D_F64();
+
+		/**
+		 * Computes the residuals for all the observations in views from idx0 to idx1-1.
+		 *
+		 * @param output (Output) residuals
+		 * @param idx0 First view, inclusive
+		 * @param idx1 Last view, exclusive
+		 */
+		public void projectViews( double[] output, int idx0, int idx1 ) {
+			if (idx0 >= idx1)
+				return;
+			if (structure.isHomogenous())
+				project4(output, idx0, idx1);
+			else
+				project3(output, idx0, idx1);
+		}
+
+		/**
+		 * projection from 3D coordinates
+		 */
+		void project3( double[] output, int idx0, int idx1 ) {
+			int observationIndex = viewFirstObservation[idx0];
+			for (int viewIndex = idx0; viewIndex < idx1; viewIndex++) {
+				SceneStructureMetric.View view = structure.views.get(viewIndex);
+				SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
+
+				Se3_F64 world_to_view = getWorldToView(view);
+
+				//=========== Project General Points in this View
+				{
+					SceneObservations.View obsView = observations.views.get(viewIndex);
+					for (int i = 0; i < obsView.size(); i++) {
+						obsView.getPixel(i, observedPixel);
+						SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
+						worldPt.get(p3);
+
+						SePointOps_F64.transform(world_to_view, p3, cameraPt);
+
+						camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+
+						int outputIndex = observationIndex*2;
+						output[outputIndex] = predictedPixel.x - observedPixel.p.x;
+						output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
+						observationIndex++;
+					}
 				}
-			}
 
-			//=========== Project Rigid Object Points in this View
-			if (observations.hasRigid()) {
-				SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
-
-					// Use lookup table to figure out which rigid object it belongs to
-					int rigidIndex = structure.lookupRigid[observedPixel.index];
-					SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
-					// Compute the point's index on the rigid object
-					int pointIndex = observedPixel.index - rigid.indexFirst;
-
-					// Load the 3D location of point on the rigid body
-					SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
-					objectPt.get(p3);
-
-					// Transform to world frame and from world to camera
-					SePointOps_F64.transform(rigid.object_to_world, p3, worldPt);
-					SePointOps_F64.transform(world_to_view, worldPt, cameraPt);
-
-					// Project and compute residual
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
-
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
+				//=========== Project Rigid Object Points in this View
+				if (observations.hasRigid()) {
+					SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
+					for (int i = 0; i < obsView.size(); i++) {
+						obsView.getPixel(i, observedPixel);
+
+						// Use lookup table to figure out which rigid object it belongs to
+						int rigidIndex = structure.lookupRigid[observedPixel.index];
+						SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
+						// Compute the point's index on the rigid object
+						int pointIndex = observedPixel.index - rigid.indexFirst;
+
+						// Load the 3D location of point on the rigid body
+						SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
+						objectPt.get(p3);
+
+						// Transform to world frame and from world to camera
+						SePointOps_F64.transform(rigid.object_to_world, p3, worldPt);
+						SePointOps_F64.transform(world_to_view, worldPt, cameraPt);
+
+						// Project and compute residual
+						camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+
+						int outputIndex = observationIndex*2;
+						output[outputIndex] = predictedPixel.x - observedPixel.p.x;
+						output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
+						observationIndex++;
+					}
 				}
 			}
 		}
-	}
 
-	/**
-	 * projection from homogenous coordinates
-	 */
-	private void project4( double[] output ) {
-		int observationIndex = 0;
-		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
-			SceneStructureMetric.View view = structure.views.get(viewIndex);
-			SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
+		/**
+		 * projection from homogenous coordinates
+		 */
+		void project4( double[] output, int idx0, int idx1 ) {
+			int observationIndex = viewFirstObservation[idx0];
+			for (int viewIndex = idx0; viewIndex < idx1; viewIndex++) {
+				SceneStructureMetric.View view = structure.views.get(viewIndex);
+				SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
 
-			Se3_F64 world_to_view = lookupWorldToView(view);
+				Se3_F64 world_to_view = getWorldToView(view);
 
-			//=========== Project General Points in this View
-			{
-				SceneObservations.View obsView = observations.views.get(viewIndex);
+				//=========== Project General Points in this View
+				{
+					SceneObservations.View obsView = observations.views.get(viewIndex);
 
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
-					SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
-					worldPt.get(p4);
+					for (int i = 0; i < obsView.size(); i++) {
+						obsView.getPixel(i, observedPixel);
+						SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
+						worldPt.get(p4);
 
-					// TODO Explain why this is correct. The last row is omitted when converted to 3D
-					SePointOps_F64.transformV(world_to_view, p4, cameraPt);
+						// TODO Explain why this is correct. The last row is omitted when converted to 3D
+						SePointOps_F64.transformV(world_to_view, p4, cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+						camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
 
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
+						int outputIndex = observationIndex*2;
+						output[outputIndex] = predictedPixel.x - observedPixel.p.x;
+						output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
+						observationIndex++;
+					}
 				}
-			}
 
-			//=========== Project Rigid Object Points in this View
-			if (observations.hasRigid()) {
-				SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
+				//=========== Project Rigid Object Points in this View
+				if (observations.hasRigid()) {
+					SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
 
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
+					for (int i = 0; i < obsView.size(); i++) {
+						obsView.getPixel(i, observedPixel);
 
-					// Use lookup table to figure out which rigid object it belongs to
-					int rigidIndex = structure.lookupRigid[observedPixel.index];
-					SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
-					// Compute the point's index on the rigid object
-					int pointIndex = observedPixel.index - rigid.indexFirst;
+						// Use lookup table to figure out which rigid object it belongs to
+						int rigidIndex = structure.lookupRigid[observedPixel.index];
+						SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
+						// Compute the point's index on the rigid object
+						int pointIndex = observedPixel.index - rigid.indexFirst;
 
-					// Load the 3D location of point on the rigid body
-					SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
-					objectPt.get(p4);
+						// Load the 3D location of point on the rigid body
+						SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
+						objectPt.get(p4);
 
-					// Transform to world frame and from world to camera
-					SePointOps_F64.transformV(rigid.object_to_world, p4, worldPt);
-					SePointOps_F64.transform(world_to_view, worldPt, cameraPt);
+						// Transform to world frame and from world to camera
+						SePointOps_F64.transformV(rigid.object_to_world, p4, worldPt);
+						SePointOps_F64.transform(world_to_view, worldPt, cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+						camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
 
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
+						int outputIndex = observationIndex*2;
+						output[outputIndex] = predictedPixel.x - observedPixel.p.x;
+						output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
+						observationIndex++;
+					}
 				}
 			}
 		}
 	}
-
-	/**
-	 * Returns a transform from the world_to_view. If relative then the parent's world to view is look up and used
-	 * to compute this view's transform and the results are saved.
-	 */
-	protected Se3_F64 lookupWorldToView( SceneStructureMetric.View v ) {
-		Se3_F64 parent_to_view = structure.getParentToView(v);
-		if (v.parent == null)
-			return parent_to_view;
-
-		Se3_F64 world_to_view = Objects.requireNonNull(mapWorldToView.get(v));
-		SceneStructureMetric.View parentView = v.parent;
-
-		// See if the parent is relative to the global frame
-		if (parentView.parent == null) {
-			Se3_F64 world_to_parent = Objects.requireNonNull(structure.getParentToView(v.parent));
-			world_to_parent.concat(parent_to_view, world_to_view);
-		} else {
-			// Since the parent must have a lower index it's transform is already known
-			Se3_F64 world_to_parent = Objects.requireNonNull(mapWorldToView.get(v.parent));
-			world_to_parent.concat(parent_to_view, world_to_view);
-		}
-		return world_to_view;
-	}
 }
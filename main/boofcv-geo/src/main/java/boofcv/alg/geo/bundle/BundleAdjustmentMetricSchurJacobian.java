@@ -47,6 +47,10 @@ import java.util.Objects;
  * Computes the Jacobian for bundle adjustment with a Schur implementation. This is the base class
  * for specific types of matrices
  *
+ * Before the Jacobian is computed the state of each motion, relative view, and camera is decoded. After that
+ * each view only reads from shared data and writes to its own rows in the Jacobian, allowing views to be
+ * processed independently by a {@link Workspace}. See {@link #computeViews}.
+ *
  * @author Peter Abeles
  */
 @SuppressWarnings({"NullAway.Init"})
@@ -73,24 +77,12 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	private final DogArray<DMatrixRMaj[]> storageSO3Jac = new DogArray<>(this::declareRotJacStorage);
 	// Look up workspace by view ID when relative view. Only filled in when a relative view is encountered
 	private final Map<SceneStructureMetric.View, Se3_F64> mapWorldToView = new HashMap<>();
+	// SO3 partials for every unknown motion. Look up by motion index
 	private final TIntObjectMap<DMatrixRMaj[]> mapSO3Jac = new TIntObjectHashMap<>();
-	// If only one view will use a particular motion then we don't want to store the Jacobian for future use
-
-	// Workspace for world to view transform
-	private final Se3_F64 world_to_view = new Se3_F64();
 
 	// Jacobians for rigid objects
 	private JacobianSo3[] jacRigidS03;
 
-	// feature location in world coordinates
-	private final Point3D_F64 worldPt3 = new Point3D_F64();
-	private final Point4D_F64 worldPt4 = new Point4D_F64();
-	// feature location in rigid body coordinates
-	private final Point3D_F64 rigidPt3 = new Point3D_F64();
-	private final Point4D_F64 rigidPt4 = new Point4D_F64();
-	// feature location in camera coordinates
-	private final Point3D_F64 cameraPt = new Point3D_F64();
-
 	// Number of parameters to describe SE3 (rotation + translation)
 	private int lengthSE3;
 	// first index for rigid body parameters
@@ -104,25 +96,13 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	private int[] motionParameterIndexes;
 	// first index in input/parameters vector for each camera. Right side
 	private int[] cameraParameterIndexes;
+	// Largest number of intrinsic parameters in an unknown camera
+	private int largestCameraSize;
+	// index of the first observation in each view
+	private int[] viewFirstObservation = new int[0];
 
-	// Jacobian matrix index of x and y partial
-	private int jacRowX, jacRowY;
-
-	// Storage for gradients
-	private final double[] pointGradX = new double[3];
-	private final double[] pointGradY = new double[3];
-	private double[] calibGradX = new double[0];
-	private double[] calibGradY = new double[0];
-
-	// work space for R2*R1
-	DMatrixRMaj RR = new DMatrixRMaj(3, 3);
-
-	// Storage for current view's partials of SO3
-	private DMatrixRMaj[] arraySO3 = new DMatrixRMaj[0];
-	private final DMatrixRMaj accumulatedR = new DMatrixRMaj(3, 3);
-	private final Point4D_F64 worldX = new Point4D_F64();
-	private final Point3D_F64 pt3 = new Point3D_F64();
-	private final DMatrixRMaj tmp3x3 = new DMatrixRMaj(3, 3);
+	// Used when views are processed by a single thread
+	private final Workspace workspace = new Workspace();
 
 	@Override
 	public void configure( SceneStructureMetric structure, SceneObservations observations ) {
@@ -170,7 +150,7 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 
 		// Create a lookup table for each camera. Camera ID to location in parameter vector
 		cameraParameterIndexes = new int[structure.cameras.size];
-		int largestCameraSize = 0;
+		largestCameraSize = 0;
 		for (int i = 0, index = 0; i < structure.cameras.size; i++) {
 			if (!structure.cameras.get(i).known) {
 				cameraParameterIndexes[i] = index;
@@ -180,8 +160,14 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			}
 		}
 
-		calibGradX = new double[largestCameraSize];
-		calibGradY = new double[largestCameraSize];
+		// Observations in a view are contiguous and views are in order
+		viewFirstObservation = new int[structure.views.size];
+		for (int viewIdx = 0, index = 0; viewIdx < structure.views.size; viewIdx++) {
+			viewFirstObservation[viewIdx] = index;
+			index += observations.views.get(viewIdx).size();
+			if (observations.hasRigid())
+				index += observations.viewsRigid.get(viewIdx).size();
+		}
 
 		// Storage for relative views
 		declareStorageWorldToView(structure);
@@ -204,9 +190,8 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	}
 
 	/**
-	 * Pre-declare storage for all the SO3 Jacobians that will need to be retrieved as part of a relative view
-	 * in the future. This is needed when relative views are in use. When there are no regular views then
-	 * these sparse data structures will be empty.
+	 * Pre-declare storage for the SO3 Jacobians of every unknown motion. They are computed once before the views
+	 * are processed and are then looked up by the view which uses the motion and by all of its children.
 	 */
 	private void declareStoragePartialsSE3( SceneStructureMetric structure ) {
 		int lengthParam = storageSO3Jac.grow().length;
@@ -219,21 +204,10 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		} else {
 			storageSO3Jac.reset();
 		}
-		arraySO3 = arraySO3.length != lengthParam ? new DMatrixRMaj[lengthParam] : arraySO3;
-		for (int viewIdx = 0; viewIdx < structure.views.size; viewIdx++) {
-			SceneStructureMetric.View v = structure.views.get(viewIdx);
-			if (v.parent == null)
-				continue;
-
-			// if this view is relative to another we don't need to store the Jacobian since we already have it
-			// However, the parent it refers to needs to be stored. We do not need to traverse back any more due
-			// since all potential ancestors have already been processed
-			SceneStructureMetric.View vp = v.parent;
-			SceneStructureMetric.Motion mp = structure.motions.get(vp.parent_to_view);
-			if (mp.known || mapSO3Jac.containsKey(vp.parent_to_view))
+		for (int motionIdx = 0; motionIdx < structure.motions.size; motionIdx++) {
+			if (structure.motions.get(motionIdx).known)
 				continue;
-
-			mapSO3Jac.put(vp.parent_to_view, storageSO3Jac.grow());
+			mapSO3Jac.put(motionIdx, storageSO3Jac.grow());
 		}
 	}
 
@@ -247,62 +221,6 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		return observations.getObservationCount()*2;
 	}
 
-	private int computeGeneralPoints( DMatrix leftPoint, DMatrix rightView,
-									  double[] input, int observationIndex, int viewIndex,
-									  SceneStructureCommon.Camera camera,
-									  int cameraParamStartIndex ) {
-		SceneObservations.View obsView = observations.views.get(viewIndex);
-		SceneStructureMetric.View strView = structure.views.get(viewIndex);
-
-		for (int i = 0; i < obsView.size(); i++) {
-			int featureIndex = obsView.point.get(i);
-			int columnOfPointInJac = featureIndex*lengthPoint;
-
-			if (structure.isHomogenous()) {
-				worldPt4.x = input[columnOfPointInJac];
-				worldPt4.y = input[columnOfPointInJac + 1];
-				worldPt4.z = input[columnOfPointInJac + 2];
-				worldPt4.w = input[columnOfPointInJac + 3];
-
-				SePointOps_F64.transformV(world_to_view, worldPt4, cameraPt);
-			} else {
-				worldPt3.x = input[columnOfPointInJac];
-				worldPt3.y = input[columnOfPointInJac + 1];
-				worldPt3.z = input[columnOfPointInJac + 2];
-
-				SePointOps_F64.transform(world_to_view, worldPt3, cameraPt);
-			}
-
-			jacRowX = observationIndex*2;
-			jacRowY = jacRowX + 1;
-
-			//============ Partial of camera parameters
-			if (!camera.known) {
-				int N = camera.model.getIntrinsicCount();
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
-						pointGradX, pointGradY, true, calibGradX, calibGradY);
-
-				int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
-				for (int j = 0; j < N; j++) {
-					set(rightView, jacRowX, location + j, calibGradX[j]);
-					set(rightView, jacRowY, location + j, calibGradY[j]);
-				}
-			} else {
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
-						false, null, null);
-			}
-			//============ Partial of worldPt
-			if (structure.isHomogenous()) {
-				partialPointH(leftPoint, rightView, strView, columnOfPointInJac);
-			} else {
-				partialPoint3(leftPoint, rightView, strView, columnOfPointInJac);
-			}
-
-			observationIndex++;
-		}
-		return observationIndex;
-	}
-
 	/**
 	 * Internal matrix type agnostic process function.
 	 *
@@ -329,231 +247,54 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			}
 		}
 
-		int observationIndex = 0;
-		// first decode the transformation
+		// Decode the state of every motion, relative view, and camera. Views only read from these afterwards
+		decodeMotions(input);
 		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
-			SceneStructureMetric.View view = structure.views.data[viewIndex];
-			SceneStructureCommon.Camera camera = structure.cameras.data[view.camera];
-			SceneStructureMetric.Motion motion = structure.motions.data[view.parent_to_view];
-
-			if (!motion.known) {
-				int paramIndex = motionParameterIndexes[view.parent_to_view] + indexFirstMotion;
-				jacSO3.setParameters(input, paramIndex);
-				paramIndex += jacSO3.getParameterLength();
-
-				motion.parent_to_view.T.x = input[paramIndex];
-				motion.parent_to_view.T.y = input[paramIndex + 1];
-				motion.parent_to_view.T.z = input[paramIndex + 2];
-
-				motion.parent_to_view.getR().setTo(jacSO3.getRotationMatrix());
-
-				// save the Jacobian if we need to
-				DMatrixRMaj[] savedJac = mapSO3Jac.get(view.parent_to_view);
-				if (savedJac != null) {
-					for (int i = 0; i < savedJac.length; i++) {
-						savedJac[i].setTo(jacSO3.getPartial(i));
-					}
-				}
-			}
-
-			lookupWorldToView(view, world_to_view);
-
-			int cameraParamStartIndex = cameraParameterIndexes[view.camera];
-			if (!camera.known) {
-				camera.model.setIntrinsic(input, indexLastMotion + cameraParamStartIndex);
-			}
-
-			observationIndex = computeGeneralPoints(leftPoint, rightView, input, observationIndex, viewIndex, camera, cameraParamStartIndex);
-			if (observations.hasRigid())
-				observationIndex = computeRigidPoints(leftPoint, rightView, observationIndex, viewIndex, camera, cameraParamStartIndex);
+			lookupWorldToView(structure.views.data[viewIndex]);
 		}
-	}
-
-	private int computeRigidPoints( DMatrix leftPoint, DMatrix rightView,
-									int observationIndex, int viewIndex,
-									SceneStructureCommon.Camera camera,
-									int cameraParamStartIndex ) {
-		SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
-		SceneStructureMetric.View view = structure.views.data[viewIndex];
-
-		for (int i = 0; i < obsView.size(); i++) {
-			int featureIndex = obsView.point.get(i);
-			int rigidIndex = structure.lookupRigid[featureIndex];
-			SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
-			int pointIndex = featureIndex - rigid.indexFirst; // index of point in rigid body
-
-			if (structure.isHomogenous()) {
-				rigid.getPoint(pointIndex, rigidPt4);
-				SePointOps_F64.transformV(rigid.object_to_world, rigidPt4, worldPt3);
-			} else {
-				rigid.getPoint(pointIndex, rigidPt3);
-				SePointOps_F64.transform(rigid.object_to_world, rigidPt3, worldPt3);
-			}
-			SePointOps_F64.transform(world_to_view, worldPt3, cameraPt);
-
-			jacRowX = observationIndex*2;
-			jacRowY = jacRowX + 1;
-
-			//============ Partial of camera parameters
+		for (int cameraIndex = 0; cameraIndex < structure.cameras.size; cameraIndex++) {
+			SceneStructureCommon.Camera camera = structure.cameras.data[cameraIndex];
 			if (!camera.known) {
-				int N = camera.model.getIntrinsicCount();
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
-						pointGradX, pointGradY, true, calibGradX, calibGradY);
-
-				int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
-				for (int j = 0; j < N; j++) {
-					set(rightView, jacRowX, location + j, calibGradX[j]);
-					set(rightView, jacRowY, location + j, calibGradY[j]);
-				}
-			} else {
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
-						false, null, null);
+				camera.model.setIntrinsic(input, indexLastMotion + cameraParameterIndexes[cameraIndex]);
 			}
-
-			//============ Partial of world to view
-			partialViewSE3(rightView, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
-
-			//============ Partial of body to world
-			// R2*(R1*X+T1)+T2
-			// [R1|T1] = object to world. X = fixed point in rigid body
-			// [R2|T2] = world to view
-			// partial R1 is R2*(@R1*X)
-			// partial T1 is R2*(@T1)
-			if (!rigid.known) {
-				if (structure.isHomogenous()) {
-					partialRigidSE3(leftPoint, rigidIndex, rigidPt4.x, rigidPt4.y, rigidPt4.z, rigidPt4.w);
-				} else {
-					partialRigidSE3(leftPoint, rigidIndex, rigidPt3.x, rigidPt3.y, rigidPt3.z, 1);
-				}
-			}
-
-			observationIndex++;
 		}
-		return observationIndex;
-	}
-
-	private void partialPoint3( DMatrix leftPoint, DMatrix rightView,
-								SceneStructureMetric.View view, int columnOfPointInJac ) {
-		// partial of (R*X + T) with respect to X is a 3 by 3 matrix
-		// This turns out to be just R
-		// grad F(G(X)) = 2 x 3 matrix which is then multiplied by R
-		addToJacobian(leftPoint, columnOfPointInJac, pointGradX, pointGradY, world_to_view.R);
 
-		partialViewSE3(rightView, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
-	}
-
-	private void partialPointH( DMatrix leftPoint, DMatrix rightView,
-								SceneStructureMetric.View view, int columnOfPointInJac ) {
-		// partial of (R*[x,y,z]' + T*w) with respect to X=[x,y,z,w] is a 3 by 4 matrix, [R|T]
-		//
-		// grad F(G(X)) = 2 x 4 matrix which is then multiplied by R
-		addToJacobian(leftPoint, columnOfPointInJac, pointGradX, pointGradY, world_to_view.R);
-		addToJacobian(leftPoint, columnOfPointInJac + 3, pointGradX, pointGradY, world_to_view.T);
-
-		partialViewSE3(rightView, view, worldPt4.x, worldPt4.y, worldPt4.z, worldPt4.w);
+		computeViews(input, leftPoint, rightView, structure.views.size);
 	}
 
 	/**
-	 * Computes the partial for the view's rigid body transform.
-	 *
-	 * <pre>
-	 * When views are not relative it's fairly straight forward:
-	 *
-	 * Partial of: F(rotation + translation parameters) = R[i]*X + T[i]
-	 *             dot(R[i])*X and dot(T[i]) for Jacobian of rotation matrix and translation
-	 *
-	 * It's more complex when views are relative...
+	 * Computes the partials for all observations in every view. Each view writes to its own rows in the Jacobian
+	 * and the order that elements are written in is the same as the order of the views.
 	 *
-	 * Current transform from view[i] to world (view[0]) can be written as:
-	 *      Tr(i,0) = Tr(i,i-1)*Tr(i-1,0)
-	 * where Tr = [R|T]
-	 * The Jacobian for R[i] is written as dot(R[i])*Tr(i-1,0)*X. When Generalized for any 'i' in the chain you get
-	 *      R[i]*R[i-1]*...*dot(R[j])*Tr(j-1,0)
-	 * For T[i] it's similar
-	 *       R[i]*R[i-1]*...*dot(T[j])
-	 * </pre>
-	 * The chained view can be writen as a recursive formula where a rotation matrix is updated each iteration.
+	 * @param numViews Number of views in the scene
 	 */
-	private void partialViewSE3( DMatrix rightView,
-								 SceneStructureMetric.View view,
-								 double X, double Y, double Z, double W ) {
-		{ // Abort if there is no partial derivative to compute
-			SceneStructureMetric.Motion motion = structure.motions.get(view.parent_to_view);
-			if (motion.known && view.parent == null)
-				return;
-		}
-
-		boolean firstView = true;
-		worldX.setTo(X, Y, Z, W);
-
-		// Recursively computed rotation R[i]*R[i-1] ... etc
-		CommonOps_DDRM.setIdentity(accumulatedR);
-
-		while (true) {
-			// Column in output matrix for this view
-			SceneStructureMetric.Motion motion = structure.motions.get(view.parent_to_view);
-			int col = motionParameterIndexes[view.parent_to_view];
+	protected void computeViews( double[] input, DMatrix leftPoint, DMatrix rightView, int numViews ) {
+		workspace.computeViews(input, leftPoint, rightView, 0, numViews);
+	}
 
-			if (motion.known) {
-				// Since this view is known there will be no partial derivative. However, one of it's parents
-				// might not be known and will have a Jacobian
-				view = view.parent;
-				if (view == null)
-					break;
-				CommonOps_DDRM.mult(accumulatedR, motion.parent_to_view.R, tmp3x3);
-				accumulatedR.setTo(tmp3x3);
+	/**
+	 * Writes the state of every unknown motion into the scene and saves the partials of its rotation
+	 */
+	private void decodeMotions( double[] input ) {
+		for (int motionIndex = 0; motionIndex < structure.motions.size; motionIndex++) {
+			SceneStructureMetric.Motion motion = structure.motions.data[motionIndex];
+			if (motion.known)
 				continue;
-			}
-			// look up the SO3 Jacobian
-			DMatrixRMaj[] jacobianSO3;
-			if (firstView) {
-				firstView = false;
-				// Current view isn't saved in storage and needs to have a reference copied to the array
-				for (int i = 0; i < arraySO3.length; i++) {
-					arraySO3[i] = jacSO3.getPartial(i);
-				}
-				jacobianSO3 = arraySO3;
-			} else {
-				jacobianSO3 = mapSO3Jac.get(view.parent_to_view);
-			}
 
-			//============== Partial of view rotation parameters
-			final int paramLength = jacSO3.getParameterLength();
-			if (view.parent == null) {
-				for (int i = 0; i < paramLength; i++) {
-					CommonOps_DDRM.mult(accumulatedR, jacobianSO3[i], tmp3x3);
-					addToJacobian(rightView, col + i, pointGradX, pointGradY, tmp3x3, X, Y, Z);
-				}
-			} else {
-				Se3_F64 world_to_parent = getWorldToView(view.parent);
-				for (int i = 0; i < paramLength; i++) {
-					SePointOps_F64.transformV(world_to_parent, worldX, pt3);
-					CommonOps_DDRM.mult(accumulatedR, jacobianSO3[i], tmp3x3);
-					addToJacobian(rightView, col + i, pointGradX, pointGradY, tmp3x3, pt3.x, pt3.y, pt3.z);
-				}
-			}
+			int paramIndex = motionParameterIndexes[motionIndex] + indexFirstMotion;
+			jacSO3.setParameters(input, paramIndex);
+			paramIndex += jacSO3.getParameterLength();
 
-			//============== Partial of view translation parameters
-			for (int i = 0; i < 3; i++) {
-				double sumX = 0.0;
-				double sumY = 0.0;
-				for (int j = 0; j < 3; j++) {
-					double r_ji = accumulatedR.unsafe_get(j, i);
-					sumX += r_ji*pointGradX[j];
-					sumY += r_ji*pointGradY[j];
-				}
-				add(rightView, jacRowX, col + paramLength + i, sumX*W);
-				add(rightView, jacRowY, col + paramLength + i, sumY*W);
-			}
+			motion.parent_to_view.T.x = input[paramIndex];
+			motion.parent_to_view.T.y = input[paramIndex + 1];
+			motion.parent_to_view.T.z = input[paramIndex + 2];
 
-			// If there is a parent then traverse to it next
-			view = view.parent;
-			if (view == null)
-				break;
+			motion.parent_to_view.getR().setTo(jacSO3.getRotationMatrix());
 
-			// accumulatedR = R[i,j]*R[j-1]
-			CommonOps_DDRM.mult(accumulatedR, motion.parent_to_view.R, tmp3x3);
-			accumulatedR.setTo(tmp3x3);
+			DMatrixRMaj[] savedJac = Objects.requireNonNull(mapSO3Jac.get(motionIndex));
+			for (int i = 0; i < savedJac.length; i++) {
+				savedJac[i].setTo(jacSO3.getPartial(i));
+			}
 		}
 	}
 
@@ -570,67 +311,6 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		return Objects.requireNonNull(world_to_view);
 	}
 
-	private void partialRigidSE3( DMatrix leftPoint, int rigidIndex,
-								  double X, double Y, double Z, double W ) {
-		int col = rigidParameterIndexes[rigidIndex] + indexFirstRigid;
-
-		JacobianSo3 jac = jacRigidS03[rigidIndex];
-
-		//============== Partial of view rotation parameters
-		final int N = jac.getParameterLength();
-		for (int i = 0; i < N; i++) {
-			CommonOps_DDRM.mult(world_to_view.R, jac.getPartial(i), RR);
-			addToJacobian(leftPoint, col + i, pointGradX, pointGradY, RR, X, Y, Z);
-		}
-
-		//============== Partial of view translation parameters
-		// Apply rotation matrix to gradX and gradY.
-		// RX = gradX'*R
-		double RX0 = world_to_view.R.data[0]*pointGradX[0] + world_to_view.R.data[3]*pointGradX[1] + world_to_view.R.data[6]*pointGradX[2];
-		double RX1 = world_to_view.R.data[1]*pointGradX[0] + world_to_view.R.data[4]*pointGradX[1] + world_to_view.R.data[7]*pointGradX[2];
-		double RX2 = world_to_view.R.data[2]*pointGradX[0] + world_to_view.R.data[5]*pointGradX[1] + world_to_view.R.data[8]*pointGradX[2];
-		// RY = gradY'*R
-		double RY0 = world_to_view.R.data[0]*pointGradY[0] + world_to_view.R.data[3]*pointGradY[1] + world_to_view.R.data[6]*pointGradY[2];
-		double RY1 = world_to_view.R.data[1]*pointGradY[0] + world_to_view.R.data[4]*pointGradY[1] + world_to_view.R.data[7]*pointGradY[2];
-		double RY2 = world_to_view.R.data[2]*pointGradY[0] + world_to_view.R.data[5]*pointGradY[1] + world_to_view.R.data[8]*pointGradY[2];
-
-		set(leftPoint, jacRowX, col + N, RX0*W);
-		set(leftPoint, jacRowY, col + N, RY0*W);
-		set(leftPoint, jacRowX, col + N + 1, RX1*W);
-		set(leftPoint, jacRowY, col + N + 1, RY1*W);
-		set(leftPoint, jacRowX, col + N + 2, RX2*W);
-		set(leftPoint, jacRowY, col + N + 2, RY2*W);
-	}
-
-	/**
-	 * J[rows,col:(col+3)] =  [a;b]*R
-	 */
-	private void addToJacobian( DMatrix matrix, int col, double[] a, double[] b, DMatrixRMaj R ) {
-		set(matrix, jacRowX, col + 0, a[0]*R.data[0] + a[1]*R.data[3] + a[2]*R.data[6]);
-		set(matrix, jacRowX, col + 1, a[0]*R.data[1] + a[1]*R.data[4] + a[2]*R.data[7]);
-		set(matrix, jacRowX, col + 2, a[0]*R.data[2] + a[1]*R.data[5] + a[2]*R.data[8]);
-
-		set(matrix, jacRowY, col + 0, b[0]*R.data[0] + b[1]*R.data[3] + b[2]*R.data[6]);
-		set(matrix, jacRowY, col + 1, b[0]*R.data[1] + b[1]*R.data[4] + b[2]*R.data[7]);
-		set(matrix, jacRowY, col + 2, b[0]*R.data[2] + b[1]*R.data[5] + b[2]*R.data[8]);
-	}
-
-	private void addToJacobian( DMatrix matrix, int col, double[] a, double[] b,
-								DMatrixRMaj R, double X, double Y, double Z ) {
-
-		double x = R.data[0]*X + R.data[1]*Y + R.data[2]*Z;
-		double y = R.data[3]*X + R.data[4]*Y + R.data[5]*Z;
-		double z = R.data[6]*X + R.data[7]*Y + R.data[8]*Z;
-
-		add(matrix, jacRowX, col, a[0]*x + a[1]*y + a[2]*z);
-		add(matrix, jacRowY, col, b[0]*x + b[1]*y + b[2]*z);
-	}
-
-	private void addToJacobian( DMatrix matrix, int col, double[] a, double[] b, Vector3D_F64 X ) {
-		set(matrix, jacRowX, col, a[0]*X.x + a[1]*X.y + a[2]*X.z);
-		set(matrix, jacRowY, col, b[0]*X.x + b[1]*X.y + b[2]*X.z);
-	}
-
 	/**
 	 * Abstract interface for settings the value of a matrix without knowing the type of matrix
 	 */
@@ -643,15 +323,13 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	protected abstract void add( DMatrix matrix, int row, int col, double value );
 
 	/**
-	 * Returns a transform from the world_to_view. If relative then the parent's world to view is look up and used
-	 * to compute this view's transform and the results are saved.
+	 * If the view is relative then the parent's world to view is look up and used to compute this view's transform
+	 * and the results are saved. Views must be passed in by order of their index.
 	 */
-	protected void lookupWorldToView( SceneStructureMetric.View v, Se3_F64 world_to_view ) {
-		Se3_F64 parent_to_view = structure.getParentToView(v);
-		if (v.parent == null) {
-			world_to_view.setTo(parent_to_view);
+	protected void lookupWorldToView( SceneStructureMetric.View v ) {
+		if (v.parent == null)
 			return;
-		}
+		Se3_F64 parent_to_view = structure.getParentToView(v);
 		Se3_F64 saved_world_to_view = Objects.requireNonNull(mapWorldToView.get(v));
 		SceneStructureMetric.View parentView = v.parent;
 
@@ -664,7 +342,364 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			Se3_F64 world_to_parent = Objects.requireNonNull(mapWorldToView.get(v.parent));
 			world_to_parent.concat(parent_to_view, saved_world_to_view);
 		}
-		world_to_view.setTo(saved_world_to_view);
+	}
+
+	/**
+	 * Storage for computing the partials of the observations in a range of views. Each thread which is
+	 * computing the Jacobian needs its own instance.
+	 */
+	protected class Workspace {
+		// transform from world to the view being processed
+		Se3_F64 world_to_view = new Se3_F64();
+
+		// feature location in world coordinates
+		final Point3D_F64 worldPt3 = new Point3D_F64();
+		final Point4D_F64 worldPt4 = new Point4D_F64();
+		// feature location in rigid body coordinates
+		final Point3D_F64 rigidPt3 = new Point3D_F64();
+		final Point4D_F64 rigidPt4 = new Point4D_F64();
+		// feature location in camera coordinates
+		final Point3D_F64 cameraPt = new Point3D_F64();
+
+		// Jacobian matrix index of x and y partial
+		int jacRowX, jacRowY;
+
+		// Storage for gradients
+		final double[] pointGradX = new double[3];
+		final double[] pointGradY = new double[3];
+		double[] calibGradX = new double[0];
+		double[] calibGradY = new double[0];
+
+		// work space for R2*R1
+		final DMatrixRMaj RR = new DMatrixRMaj(3, 3);
+
+		final DMatrixRMaj accumulatedR = new DMatrixRMaj(3, 3);
+		final Point4D_F64 worldX = new Point4D_F64();
+		final Point3D_F64 pt3 = new Point3D_F64();
+		final DMatrixRMaj tmp3x3 = new DMatrixRMaj(3, 3);
+
+		/**
+		 * Computes the partials for all the observations in views from idx0 to idx1-1.
+		 *
+		 * @param input Input parameters describing the current state of the optimization
+		 * @param leftPoint Storage for left Jacobian
+		 * @param rightView Storage for right Jacobian
+		 * @param idx0 First view, inclusive
+		 * @param idx1 Last view, exclusive
+		 */
+		public void computeViews( double[] input, DMatrix leftPoint, DMatrix rightView, int idx0, int idx1 ) {
+			if (calibGradX.length < largestCameraSize) {
+				calibGradX = new double[largestCameraSize];
+				calibGradY = new double[largestCameraSize];
+			}
+
+			int observationIndex = idx0 < viewFirstObservation.length ? viewFirstObservation[idx0] : 0;
+			for (int viewIndex = idx0; viewIndex < idx1; viewIndex++) {
+				SceneStructureMetric.View view = structure.views.data[viewIndex];
+				SceneStructureCommon.Camera camera = structure.cameras.data[view.camera];
+
+				world_to_view = getWorldToView(view);
+
+				int cameraParamStartIndex = cameraParameterIndexes[view.camera];
+				observationIndex = computeGeneralPoints(leftPoint, rightView, input, observationIndex, viewIndex, camera, cameraParamStartIndex);
+				if (observations.hasRigid())
+					observationIndex = computeRigidPoints(leftPoint, rightView, observationIndex, viewIndex, camera, cameraParamStartIndex);
+			}
+		}
+
+		int computeGeneralPoints( DMatrix leftPoint, DMatrix rightView,
+								  double[] input, int observationIndex, int viewIndex,
+								  SceneStructureCommon.Camera camera,
+								  int cameraParamStartIndex ) {
+			SceneObservations.View obsView = observations.views.get(viewIndex);
+			SceneStructureMetric.View strView = structure.views.get(viewIndex);
+
+			for (int i = 0; i < obsView.size(); i++) {
+				int featureIndex = obsView.point.get(i);
+				int columnOfPointInJac = featureIndex*lengthPoint;
+
+				if (structure.isHomogenous()) {
+					worldPt4.x = input[columnOfPointInJac];
+					worldPt4.y = input[columnOfPointInJac + 1];
+					worldPt4.z = input[columnOfPointInJac + 2];
+					worldPt4.w = input[columnOfPointInJac + 3];
+
+					SePointOps_F64.transformV(world_to_view, worldPt4, cameraPt);
+				} else {
+					worldPt3.x = input[columnOfPointInJac];
+					worldPt3.y = input[columnOfPointInJac + 1];
+					worldPt3.z = input[columnOfPointInJac + 2];
+
+					SePointOps_F64.transform(world_to_view, worldPt3, cameraPt);
+				}
+
+				jacRowX = observationIndex*2;
+				jacRowY = jacRowX + 1;
+
+				//============ Partial of camera parameters
+				if (!camera.known) {
+					int N = camera.model.getIntrinsicCount();
+					camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
+							pointGradX, pointGradY, true, calibGradX, calibGradY);
+
+					int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
+					for (int j = 0; j < N; j++) {
+						set(rightView, jacRowX, location + j, calibGradX[j]);
+						set(rightView, jacRowY, location + j, calibGradY[j]);
+					}
+				} else {
+					camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
+							false, null, null);
+				}
+				//============ Partial of worldPt
+				if (structure.isHomogenous()) {
+					partialPointH(leftPoint, rightView, strView, columnOfPointInJac);
+				} else {
+					partialPoint3(leftPoint, rightView, strView, columnOfPointInJac);
+				}
+
+				observationIndex++;
+			}
+			return observationIndex;
+		}
+
+		int computeRigidPoints( DMatrix leftPoint, DMatrix rightView,
+								int observationIndex, int viewIndex,
+								SceneStructureCommon.Camera camera,
+								int cameraParamStartIndex ) {
+			SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
+			SceneStructureMetric.View view = structure.views.data[viewIndex];
+
+			for (int i = 0; i < obsView.size(); i++) {
+				int featureIndex = obsView.point.get(i);
+				int rigidIndex = structure.lookupRigid[featureIndex];
+				SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
+				int pointIndex = featureIndex - rigid.indexFirst; // index of point in rigid body
+
+				if (structure.isHomogenous()) {
+					rigid.getPoint(pointIndex, rigidPt4);
+					SePointOps_F64.transformV(rigid.object_to_world, rigidPt4, worldPt3);
+				} else {
+					rigid.getPoint(pointIndex, rigidPt3);
+					SePointOps_F64.transform(rigid.object_to_world, rigidPt3, worldPt3);
+				}
+				SePointOps_F64.transform(world_to_view, worldPt3, cameraPt);
+
+				jacRowX = observationIndex*2;
+				jacRowY = jacRowX + 1;
+
+				//============ Partial of camera parameters
+				if (!camera.known) {
+					int N = camera.model.getIntrinsicCount();
+					camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
+							pointGradX, pointGradY, true, calibGradX, calibGradY);
+
+					int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
+					for (int j = 0; j < N; j++) {
+						set(rightView, jacRowX, location + j, calibGradX[j]);
+						set(rightView, jacRowY, location + j, calibGradY[j]);
+					}
+				} else {
+					camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
+							false, null, null);
+				}
+
+				//============ Partial of world to view
+				partialViewSE3(rightView, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
+
+				//============ Partial of body to world
+				// R2*(R1*X+T1)+T2
+				// [R1|T1] = object to world. X = fixed point in rigid body
+				// [R2|T2] = world to view
+				// partial R1 is R2*(@R1*X)
+				// partial T1 is R2*(@T1)
+				if (!rigid.known) {
+					if (structure.isHomogenous()) {
+						partialRigidSE3(leftPoint, rigidIndex, rigidPt4.x, rigidPt4.y, rigidPt4.z, rigidPt4.w);
+					} else {
+						partialRigidSE3(leftPoint, rigidIndex, rigidPt3.x, rigidPt3.y, rigidPt3.z, 1);
+					}
+				}
+
+				observationIndex++;
+			}
+			return observationIndex;
+		}
+
+		void partialPoint3( DMatrix leftPoint, DMatrix rightView,
+							SceneStructureMetric.View view, int columnOfPointInJac ) {
+			// partial of (R*X + T) with respect to X is a 3 by 3 matrix
+			// This turns out to be just R
+			// grad F(G(X)) = 2 x 3 matrix which is then multiplied by R
+			addToJacobian(leftPoint, columnOfPointInJac, pointGradX, pointGradY, world_to_view.R);
+
+			partialViewSE3(rightView, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
+		}
+
+		void partialPointH( DMatrix leftPoint, DMatrix rightView,
+							SceneStructureMetric.View view, int columnOfPointInJac ) {
+			// partial of (R*[x,y,z]' + T*w) with respect to X=[x,y,z,w] is a 3 by 4 matrix, [R|T]
+			//
+			// grad F(G(X)) = 2 x 4 matrix which is then multiplied by R
+			addToJacobian(leftPoint, columnOfPointInJac, pointGradX, pointGradY, world_to_view.R);
+			addToJacobian(leftPoint, columnOfPointInJac + 3, pointGradX, pointGradY, world_to_view.T);
+
+			partialViewSE3(rightView, view, worldPt4.x, worldPt4.y, worldPt4.z, worldPt4.w);
+		}
+
+		/**
+		 * Computes the partial for the view's rigid body transform.
+		 *
+		 * <pre>
+		 * When views are not relative it's fairly straight forward:
+		 *
+		 * Partial of: F(rotation + translation parameters) = R[i]*X + T[i]
+		 *             dot(R[i])*X and dot(T[i]) for Jacobian of rotation matrix and translation
+		 *
+		 * It's more complex when views are relative...
+		 *
+		 * Current transform from view[i] to world (view[0]) can be written as:
+		 *      Tr(i,0) = Tr(i,i-1)*Tr(i-1,0)
+		 * where Tr = [R|T]
+		 * The Jacobian for R[i] is written as dot(R[i])*Tr(i-1,0)*X. When Generalized for any 'i' in the chain you get
+		 *      R[i]*R[i-1]*...*dot(R[j])*Tr(j-1,0)
+		 * For T[i] it's similar
+		 *       R[i]*R[i-1]*...*dot(T[j])
+		 * </pre>
+		 * The chained view can be writen as a recursive formula where a rotation matrix is updated each iteration.
+		 */
+		void partialViewSE3( DMatrix rightView,
+							 SceneStructureMetric.View view,
+							 double X, double Y, double Z, double W ) {
+			{ // Abort if there is no partial derivative to compute
+				SceneStructureMetric.Motion motion = structure.motions.get(view.parent_to_view);
+				if (motion.known && view.parent == null)
+					return;
+			}
+
+			worldX.setTo(X, Y, Z, W);
+
+			// Recursively computed rotation R[i]*R[i-1] ... etc
+			CommonOps_DDRM.setIdentity(accumulatedR);
+
+			while (true) {
+				// Column in output matrix for this view
+				SceneStructureMetric.Motion motion = structure.motions.get(view.parent_to_view);
+				int col = motionParameterIndexes[view.parent_to_view];
+
+				if (motion.known) {
+					// Since this view is known there will be no partial derivative. However, one of it's parents
+					// might not be known and will have a Jacobian
+					view = view.parent;
+					if (view == null)
+						break;
+					CommonOps_DDRM.mult(accumulatedR, motion.parent_to_view.R, tmp3x3);
+					accumulatedR.setTo(tmp3x3);
+					continue;
+				}
+				// look up the SO3 Jacobian
+				DMatrixRMaj[] jacobianSO3 = Objects.requireNonNull(mapSO3Jac.get(view.parent_to_view));
+
+				//============== Partial of view rotation parameters
+				final int paramLength = jacSO3.getParameterLength();
+				if (view.parent == null) {
+					for (int i = 0; i < paramLength; i++) {
+						CommonOps_DDRM.mult(accumulatedR, jacobianSO3[i], tmp3x3);
+						addToJacobian(rightView, col + i, pointGradX, pointGradY, tmp3x3, X, Y, Z);
+					}
+				} else {
+					Se3_F64 world_to_parent = getWorldToView(view.parent);
+					for (int i = 0; i < paramLength; i++) {
+						SePointOps_F64.transformV(world_to_parent, worldX, pt3);
+						CommonOps_DDRM.mult(accumulatedR, jacobianSO3[i], tmp3x3);
+						addToJacobian(rightView, col + i, pointGradX, pointGradY, tmp3x3, pt3.x, pt3.y, pt3.z);
+					}
+				}
+
+				//============== Partial of view translation parameters
+				for (int i = 0; i < 3; i++) {
+					double sumX = 0.0;
+					double sumY = 0.0;
+					for (int j = 0; j < 3; j++) {
+						double r_ji = accumulatedR.unsafe_get(j, i);
+						sumX += r_ji*pointGradX[j];
+						sumY += r_ji*pointGradY[j];
+					}
+					add(rightView, jacRowX, col + paramLength + i, sumX*W);
+					add(rightView, jacRowY, col + paramLength + i, sumY*W);
+				}
+
+				// If there is a parent then traverse to it next
+				view = view.parent;
+				if (view == null)
+					break;
+
+				// accumulatedR = R[i,j]*R[j-1]
+				CommonOps_DDRM.mult(accumulatedR, motion.parent_to_view.R, tmp3x3);
+				accumulatedR.setTo(tmp3x3);
+			}
+		}
+
+		void partialRigidSE3( DMatrix leftPoint, int rigidIndex,
+							  double X, double Y, double Z, double W ) {
+			int col = rigidParameterIndexes[rigidIndex] + indexFirstRigid;
+
+			JacobianSo3 jac = jacRigidS03[rigidIndex];
+
+			//============== Partial of view rotation parameters
+			final int N = jac.getParameterLength();
+			for (int i = 0; i < N; i++) {
+				CommonOps_DDRM.mult(world_to_view.R, jac.getPartial(i), RR);
+				addToJacobian(leftPoint, col + i, pointGradX, pointGradY, RR, X, Y, Z);
+			}
+
+			//============== Partial of view translation parameters
+			// Apply rotation matrix to gradX and gradY.
+			// RX = gradX'*R
+			double RX0 = world_to_view.R.data[0]*pointGradX[0] + world_to_view.R.data[3]*pointGradX[1] + world_to_view.R.data[6]*pointGradX[2];
+			double RX1 = world_to_view.R.data[1]*pointGradX[0] + world_to_view.R.data[4]*pointGradX[1] + world_to_view.R.data[7]*pointGradX[2];
+			double RX2 = world_to_view.R.data[2]*pointGradX[0] + world_to_view.R.data[5]*pointGradX[1] + world_to_view.R.data[8]*pointGradX[2];
+			// RY = gradY'*R
+			double RY0 = world_to_view.R.data[0]*pointGradY[0] + world_to_view.R.data[3]*pointGradY[1] + world_to_view.R.data[6]*pointGradY[2];
+			double RY1 = world_to_view.R.data[1]*pointGradY[0] + world_to_view.R.data[4]*pointGradY[1] + world_to_view.R.data[7]*pointGradY[2];
+			double RY2 = world_to_view.R.data[2]*pointGradY[0] + world_to_view.R.data[5]*pointGradY[1] + world_to_view.R.data[8]*pointGradY[2];
+
+			set(leftPoint, jacRowX, col + N, RX0*W);
+			set(leftPoint, jacRowY, col + N, RY0*W);
+			set(leftPoint, jacRowX, col + N + 1, RX1*W);
+			set(leftPoint, jacRowY, col + N + 1, RY1*W);
+			set(leftPoint, jacRowX, col + N + 2, RX2*W);
+			set(leftPoint, jacRowY, col + N + 2, RY2*W);
+		}
+
+		/**
+		 * J[rows,col:(col+3)] =  [a;b]*R
+		 */
+		void addToJacobian( DMatrix matrix, int col, double[] a, double[] b, DMatrixRMaj R ) {
+			set(matrix, jacRowX, col + 0, a[0]*R.data[0] + a[1]*R.data[3] + a[2]*R.data[6]);
+			set(matrix, jacRowX, col + 1, a[0]*R.data[1] + a[1]*R.data[4] + a[2]*R.data[7]);
+			set(matrix, jacRowX, col + 2, a[0]*R.data[2] + a[1]*R.data[5] + a[2]*R.data[8]);
+
+			set(matrix, jacRowY, col + 0, b[0]*R.data[0] + b[1]*R.data[3] + b[2]*R.data[6]);
+			set(matrix, jacRowY, col + 1, b[0]*R.data[1] + b[1]*R.data[4] + b[2]*R.data[7]);
+			set(matrix, jacRowY, col + 2, b[0]*R.data[2] + b[1]*R.data[5] + b[2]*R.data[8]);
+		}
+
+		void addToJacobian( DMatrix matrix, int col, double[] a, double[] b,
+							DMatrixRMaj R, double X, double Y, double Z ) {
+
+			double x = R.data[0]*X + R.data[1]*Y + R.data[2]*Z;
+			double y = R.data[3]*X + R.data[4]*Y + R.data[5]*Z;
+			double z = R.data[6]*X + R.data[7]*Y + R.data[8]*Z;
+
+			add(matrix, jacRowX, col, a[0]*x + a[1]*y + a[2]*z);
+			add(matrix, jacRowY, col, b[0]*x + b[1]*y + b[2]*z);
+		}
+
+		void addToJacobian( DMatrix matrix, int col, double[] a, double[] b, Vector3D_F64 X ) {
+			set(matrix, jacRowX, col, a[0]*X.x + a[1]*X.y + a[2]*X.z);
+			set(matrix, jacRowY, col, b[0]*X.x + b[1]*X.y + b[2]*X.z);
+		}
 	}
 
 	/**
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ejml.data.DMatrix;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link BundleAdjustmentMetricSchurJacobian_DDRM}. Views are split into blocks
+ * which are processed in parallel. Each view writes to its own rows in the dense Jacobian so the results are
+ * identical to the single threaded implementation.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentMetricSchurJacobian_MT_DDRM extends BundleAdjustmentMetricSchurJacobian_DDRM {
+	// Storage for each thread
+	final GrowArray<Workspace> workspaces = new GrowArray<>(() -> new Workspace());
+
+	@Override
+	protected void computeViews( double[] input, DMatrix leftPoint, DMatrix rightView, int numViews ) {
+		BoofConcurrency.loopBlocks(0, numViews, workspaces, ( work, idx0, idx1 ) ->
+				work.computeViews(input, leftPoint, rightView, idx0, idx1));
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ejml.data.DMatrix;
+import org.ejml.data.DMatrixSparseTriplet;
+import pabeles.concurrency.GrowArray;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link BundleAdjustmentMetricSchurJacobian_DSCC}. Views are split into blocks
+ * which are processed in parallel, with each block writing its partials into its own triplet matrices. The
+ * triplets are then merged in view order so that the elements are in the same order as the single threaded
+ * implementation, which makes the resulting sparse matrices identical.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentMetricSchurJacobian_MT_DSCC extends BundleAdjustmentMetricSchurJacobian_DSCC {
+	// Storage for each thread
+	final GrowArray<BlockWork> blocks = new GrowArray<>(() -> new BlockWork(), BlockWork::reset);
+	// Blocks which were used, sorted by the first view in the block
+	final List<BlockWork> sorted = new ArrayList<>();
+
+	@Override
+	protected void computeViews( double[] input, DMatrix leftPoint, DMatrix rightView, int numViews ) {
+		DMatrixSparseTriplet left = (DMatrixSparseTriplet)leftPoint;
+		DMatrixSparseTriplet right = (DMatrixSparseTriplet)rightView;
+
+		BoofConcurrency.loopBlocks(0, numViews, blocks, ( block, idx0, idx1 ) -> {
+			block.firstView = idx0;
+			block.left.reshape(left.numRows, left.numCols);
+			block.right.reshape(right.numRows, right.numCols);
+			block.work.computeViews(input, block.left, block.right, idx0, idx1);
+		});
+
+		// Merge the results in a deterministic order
+		sorted.clear();
+		for (int i = 0; i < blocks.size(); i++) {
+			if (blocks.get(i).firstView >= 0)
+				sorted.add(blocks.get(i));
+		}
+		sorted.sort(Comparator.comparingInt(b -> b.firstView));
+		for (int i = 0; i < sorted.size(); i++) {
+			append(sorted.get(i).left, left);
+			append(sorted.get(i).right, right);
+		}
+	}
+
+	/**
+	 * Adds all the elements in src to the end of dst
+	 */
+	static void append( DMatrixSparseTriplet src, DMatrixSparseTriplet dst ) {
+		int[] rowcol = src.nz_rowcol.data;
+		double[] values = src.nz_value.data;
+		for (int i = 0; i < src.nz_length; i++) {
+			dst.addItem(rowcol[i*2], rowcol[i*2 + 1], values[i]);
+		}
+	}
+
+	/** Storage used when processing a block of views */
+	class BlockWork {
+		final Workspace work = new Workspace();
+		final DMatrixSparseTriplet left = new DMatrixSparseTriplet(1, 1, 1);
+		final DMatrixSparseTriplet right = new DMatrixSparseTriplet(1, 1, 1);
+		// Index of the first view in this block. -1 if not used
+		int firstView = -1;
+
+		void reset() {
+			firstView = -1;
+		}
+	}
+}
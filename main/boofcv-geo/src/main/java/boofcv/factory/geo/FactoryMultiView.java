@@ -40,6 +40,7 @@ import boofcv.alg.geo.selfcalib.*;
 import boofcv.alg.geo.triangulate.*;
 import boofcv.alg.geo.trifocal.RefineThreeViewProjectiveGeometric;
 import boofcv.alg.geo.trifocal.TrifocalAlgebraicPoint7;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.misc.ConfigConverge;
 import boofcv.struct.calib.ElevateViewInfo;
 import boofcv.struct.geo.AssociatedPair;
@@ -85,6 +86,13 @@ public class FactoryMultiView {
 		else
 			minimizer = FactoryOptimizationSparse.levenbergMarquardtSchur((ConfigLevenbergMarquardt)config.configOptimizer);
 
+		if (BoofConcurrency.USE_CONCURRENT) {
+			return new BundleAdjustmentSchur_DSCC<>(minimizer,
+					new BundleAdjustmentMetricResidualFunction_MT(),
+					new BundleAdjustmentMetricSchurJacobian_MT_DSCC(),
+					new CodecSceneStructureMetric());
+		}
+
 		return new BundleAdjustmentSchur_DSCC<>(minimizer,
 				new BundleAdjustmentMetricResidualFunction(),
 				new BundleAdjustmentMetricSchurJacobian_DSCC(),
@@ -135,6 +143,13 @@ public class FactoryMultiView {
 		else
 			minimizer = FactoryOptimization.levenbergMarquardtSchur(robust, (ConfigLevenbergMarquardt)config.configOptimizer);
 
+		if (BoofConcurrency.USE_CONCURRENT) {
+			return new BundleAdjustmentSchur_DDRM<>(minimizer,
+					new BundleAdjustmentMetricResidualFunction_MT(),
+					new BundleAdjustmentMetricSchurJacobian_MT_DDRM(),
+					new CodecSceneStructureMetric());
+		}
+
 		return new BundleAdjustmentSchur_DDRM<>(minimizer,
 				new BundleAdjustmentMetricResidualFunction(),
 				new BundleAdjustmentMetricSchurJacobian_DDRM(),
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.geo.bundle.TestBundleAdjustmentMetricResidualFunction.createObservations;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.createScene;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.replaceWithOmni;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestBundleAdjustmentMetricResidualFunction_MT extends BoofStandardJUnit {
+	/**
+	 * Results should be identical to the single threaded implementation
+	 */
+	@Test void compareToSingleThread() {
+		for (boolean omni : new boolean[]{false, true}) {
+			for (boolean homogenous : new boolean[]{false, true}) {
+				compareToSingleThread(homogenous, false, false, omni);
+				compareToSingleThread(homogenous, true, false, omni);
+				compareToSingleThread(homogenous, false, true, omni);
+				compareToSingleThread(homogenous, true, true, omni);
+			}
+		}
+	}
+
+	/**
+	 * @param omni If true then universal omni cameras are used
+	 */
+	void compareToSingleThread( boolean homogenous, boolean hasRigid, boolean hasRelative, boolean omni ) {
+		SceneStructureMetric structure = createScene(rand, homogenous, hasRigid, hasRelative);
+		if (omni)
+			replaceWithOmni(rand, structure);
+		SceneObservations obs = createObservations(rand, structure);
+
+		var param = new double[structure.getParameterCount()];
+		new CodecSceneStructureMetric().encode(structure, param);
+
+		var single = new BundleAdjustmentMetricResidualFunction();
+		var alg = new BundleAdjustmentMetricResidualFunction_MT();
+		single.configure(structure, obs);
+		alg.configure(structure, obs);
+
+		var expected = new double[single.getNumOfOutputsM()];
+		var found = new double[alg.getNumOfOutputsM()];
+
+		single.process(param, expected);
+		alg.process(param, found);
+
+		assertArrayEquals(expected, found, 0.0);
+	}
+}
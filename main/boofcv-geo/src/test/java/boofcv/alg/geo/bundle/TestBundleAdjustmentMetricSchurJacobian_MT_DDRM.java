@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import org.ddogleg.optimization.wrap.SchurJacobian_to_NtoMxN;
+import org.ejml.data.DMatrixRMaj;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.geo.bundle.TestBundleAdjustmentMetricResidualFunction.createObservations;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.createScene;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.replaceWithOmni;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestBundleAdjustmentMetricSchurJacobian_MT_DDRM
+		extends CommonBundleAdjustmentMetricSchurJacobian<DMatrixRMaj> {
+
+	@Override
+	protected BundleAdjustmentMetricSchurJacobian<DMatrixRMaj> createAlg() {
+		return new BundleAdjustmentMetricSchurJacobian_MT_DDRM();
+	}
+
+	@Override
+	protected SchurJacobian_to_NtoMxN<DMatrixRMaj>
+	createJacobian( BundleAdjustmentMetricSchurJacobian<DMatrixRMaj> alg ) {
+		return new SchurJacobian_to_NtoMxN.DDRM(alg);
+	}
+
+	/**
+	 * Results should be identical to the single threaded implementation
+	 */
+	@Test void compareToSingleThread() {
+		for (boolean omni : new boolean[]{false, true}) {
+			for (boolean homogenous : new boolean[]{false, true}) {
+				compareToSingleThread(homogenous, false, false, omni);
+				compareToSingleThread(homogenous, true, false, omni);
+				compareToSingleThread(homogenous, false, true, omni);
+				compareToSingleThread(homogenous, true, true, omni);
+			}
+		}
+	}
+
+	/**
+	 * @param omni If true then universal omni cameras are used
+	 */
+	void compareToSingleThread( boolean homogenous, boolean hasRigid, boolean hasRelative, boolean omni ) {
+		SceneStructureMetric structure = createScene(rand, homogenous, hasRigid, hasRelative);
+		if (omni)
+			replaceWithOmni(rand, structure);
+		SceneObservations observations = createObservations(rand, structure);
+
+		var param = new double[structure.getParameterCount()];
+		new CodecSceneStructureMetric().encode(structure, param);
+
+		var single = new BundleAdjustmentMetricSchurJacobian_DDRM();
+		var alg = new BundleAdjustmentMetricSchurJacobian_MT_DDRM();
+		single.configure(structure, observations);
+		alg.configure(structure, observations);
+
+		var expectedLeft = new DMatrixRMaj(1, 1);
+		var expectedRight = new DMatrixRMaj(1, 1);
+		var foundLeft = new DMatrixRMaj(1, 1);
+		var foundRight = new DMatrixRMaj(1, 1);
+
+		single.process(param, expectedLeft, expectedRight);
+		alg.process(param, foundLeft, foundRight);
+
+		assertArrayEquals(expectedLeft.data, foundLeft.data, 0.0);
+		assertArrayEquals(expectedRight.data, foundRight.data, 0.0);
+	}
+}
@@ -20,6 +20,7 @@ package boofcv.alg.geo.bundle;
 
 import boofcv.abst.geo.bundle.SceneStructureCommon;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.alg.geo.bundle.cameras.BundleUniversalOmni;
 import boofcv.struct.calib.CameraPinhole;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.geometry.ConvertRotation3D_F64;
@@ -191,6 +192,26 @@ class TestCodecSceneStructureMetric extends BoofStandardJUnit {
 		return out;
 	}
 
+	/**
+	 * Replaces the cameras with universal omni models. Their Jacobian has more intermediate terms than the pinhole
+	 */
+	static void replaceWithOmni( Random rand, SceneStructureMetric scene ) {
+		for (int i = 0; i < scene.cameras.size; i++) {
+			var omni = new BundleUniversalOmni(false, 2, true, false);
+			omni.fx = 300 + rand.nextGaussian();
+			omni.fy = 200 + rand.nextGaussian();
+			omni.cx = 400;
+			omni.cy = 450;
+			omni.skew = 0.01;
+			omni.radial[0] = 0.01;
+			omni.radial[1] = -0.02;
+			omni.t1 = 0.001;
+			omni.t2 = -0.002;
+			omni.mirrorOffset = 0.9;
+			scene.setCamera(i, i == 0, omni);
+		}
+	}
+
 	/**
 	 * Create a scene where a "stereo" camera is created that moves. The right to left transform is fixed and common
 	 * across all views
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.fiducial;
+
+import boofcv.abst.fiducial.AztecCodeDetector;
+import boofcv.abst.fiducial.MicroQrCodeDetector;
+import boofcv.abst.fiducial.QrCodeDetector;
+import boofcv.alg.fiducial.aztec.AztecCode;
+import boofcv.alg.fiducial.microqr.MicroQrCode;
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.fiducial.ConfigAztecCode;
+import boofcv.factory.fiducial.ConfigMicroQrCode;
+import boofcv.factory.fiducial.ConfigQrCode;
+import boofcv.factory.fiducial.FactoryFiducial;
+import boofcv.io.image.ConvertBufferedImage;
+import boofcv.io.image.UtilImageIO;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.image.GrayU8;
+import lombok.Getter;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Scans a list of image files for markers which encode a message, e.g. QR Codes, and reports the found messages.
+ * Images are processed concurrently when {@link BoofConcurrency#USE_CONCURRENT} is true. Each thread has
+ * its own detector and image, and loads the images it processes, so decoding images from disk is concurrent too.
+ * Results are passed to the listener in the same order as the input list, no matter which order the images
+ * finished in.
+ * </p>
+ *
+ * <p>
+ * To run on a specific thread pool call {@link #process} inside of {@link BoofConcurrency#runUsing}. If
+ * {@link #maxThreads} is more than the active pool's parallelism then a temporary pool with that many threads
+ * is used instead.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class BatchScanMarkerMessages {
+	/** Creates a new detector. One is created for each thread. */
+	final BoofLambdas.Factory<DetectMessages> factoryDetector;
+
+	/** Used to load an image from disk */
+	@Getter @Setter LoadImage loader = BatchScanMarkerMessages::loadGray;
+
+	/**
+	 * Maximum number of threads. If &le; 0 then it's the number of threads in the active thread pool. If larger
+	 * than the active pool then a pool of this size is created for each call to {@link #process}.
+	 */
+	@Getter @Setter int maxThreads = 0;
+
+	/** Timing and throughput summary from the most recent call to {@link #process} */
+	@Getter final Summary summary = new Summary();
+
+	// One for each thread
+	final List<Worker> workers = new ArrayList<>();
+
+	// Index of the next image a worker should process
+	final AtomicInteger nextImage = new AtomicInteger();
+
+	// Results which finished out of order and are waiting for earlier images to finish
+	@Nullable Result[] waiting;
+	// Index of the next result which should be passed to the listener
+	int nextReport;
+
+	public BatchScanMarkerMessages( BoofLambdas.Factory<DetectMessages> factoryDetector ) {
+		this.factoryDetector = factoryDetector;
+	}
+
+	/** Scans for QR Codes */
+	public static BatchScanMarkerMessages qrcode( @Nullable ConfigQrCode config ) {
+		return new BatchScanMarkerMessages(() -> {
+			QrCodeDetector<GrayU8> detector = FactoryFiducial.qrcode(config, GrayU8.class);
+			return ( image, messages ) -> {
+				detector.process(image);
+				for (QrCode qr : detector.getDetections()) {
+					messages.add(qr.message);
+				}
+			};
+		});
+	}
+
+	/** Scans for Micro QR Codes */
+	public static BatchScanMarkerMessages microqr( @Nullable ConfigMicroQrCode config ) {
+		return new BatchScanMarkerMessages(() -> {
+			MicroQrCodeDetector<GrayU8> detector = FactoryFiducial.microqr(config, GrayU8.class);
+			return ( image, messages ) -> {
+				detector.process(image);
+				for (MicroQrCode qr : detector.getDetections()) {
+					messages.add(qr.message);
+				}
+			};
+		});
+	}
+
+	/** Scans for Aztec Codes */
+	public static BatchScanMarkerMessages aztec( @Nullable ConfigAztecCode config ) {
+		return new BatchScanMarkerMessages(() -> {
+			AztecCodeDetector<GrayU8> detector = FactoryFiducial.aztec(config, GrayU8.class);
+			return ( image, messages ) -> {
+				detector.process(image);
+				for (AztecCode marker : detector.getDetections()) {
+					messages.add(marker.message);
+				}
+			};
+		});
+	}
+
+	/**
+	 * Processes all the images and passes the results to the listener in the same order as the input list.
+	 * The listener is only called by one thread at a time.
+	 *
+	 * @param paths Paths to images which are to be scanned
+	 * @param listener Receives results
+	 */
+	public void process( List<String> paths, Listener listener ) {
+		long time0 = System.nanoTime();
+		summary.reset();
+		nextImage.set(0);
+		nextReport = 0;
+		waiting = new Result[paths.size()];
+
+		int numThreads = 1;
+		if (BoofConcurrency.USE_CONCURRENT) {
+			numThreads = maxThreads > 0 ? maxThreads : BoofConcurrency.getActivePool().getParallelism();
+			numThreads = Math.max(1, Math.min(numThreads, paths.size()));
+		}
+
+		// Create detectors for each thread. These are saved between calls
+		while (workers.size() < numThreads) {
+			workers.add(new Worker(factoryDetector.newInstance()));
+		}
+
+		final int _numThreads = numThreads;
+		if (numThreads == 1) {
+			workers.get(0).process(paths, listener);
+		} else if (numThreads > BoofConcurrency.getActivePool().getParallelism()) {
+			// The active pool would cap the number of workers running at once, so give each worker its own thread
+			ForkJoinPool pool = BoofConcurrency.newThreadPool("BatchScan", numThreads, Thread.NORM_PRIORITY);
+			try {
+				BoofConcurrency.runUsing(pool, () ->
+						BoofConcurrency.loopFor(0, _numThreads, i -> workers.get(i).process(paths, listener)));
+			} finally {
+				pool.shutdown();
+			}
+		} else {
+			BoofConcurrency.loopFor(0, numThreads, i -> workers.get(i).process(paths, listener));
+		}
+
+		for (int i = 0; i < numThreads; i++) {
+			Worker w = workers.get(i);
+			summary.decodeNano += w.decodeNano;
+			summary.detectNano += w.detectNano;
+		}
+		summary.threads = numThreads;
+		summary.elapsedNano = System.nanoTime() - time0;
+		waiting = null;
+	}
+
+	/**
+	 * Saves the result then passes all the results which are next in order to the listener.
+	 */
+	synchronized void report( int index, Result result, Listener listener ) {
+		Result[] waiting = this.waiting;
+		if (waiting == null)
+			throw new IllegalStateException("BUG: process() is not running");
+		waiting[index] = result;
+		while (nextReport < waiting.length) {
+			Result r = waiting[nextReport];
+			if (r == null)
+				break;
+			// Discard the reference so that memory doesn't grow with the number of images
+			waiting[nextReport] = null;
+			if (r.loaded)
+				summary.images++;
+			else
+				summary.failed++;
+			summary.markers += r.messages.size();
+			listener.processed(nextReport, r);
+			nextReport++;
+		}
+	}
+
+	/**
+	 * Default approach for loading images. Uses Java's ImageIO
+	 */
+	public static boolean loadGray( String path, GrayU8 output ) {
+		BufferedImage buffered = UtilImageIO.loadImage(path);
+		if (buffered == null)
+			return false;
+		ConvertBufferedImage.convertFrom(buffered, output);
+		return true;
+	}
+
+	/**
+	 * Processes images one at a time until there are no more images left
+	 */
+	class Worker {
+		final DetectMessages detector;
+		final GrayU8 gray = new GrayU8(1, 1);
+		long decodeNano, detectNano;
+
+		Worker( DetectMessages detector ) {
+			this.detector = detector;
+		}
+
+		void process( List<String> paths, Listener listener ) {
+			decodeNano = 0;
+			detectNano = 0;
+			while (true) {
+				int index = nextImage.getAndIncrement();
+				if (index >= paths.size())
+					break;
+
+				var result = new Result(paths.get(index));
+				long time0 = System.nanoTime();
+				result.loaded = loader.load(result.path, gray);
+				long time1 = System.nanoTime();
+				if (result.loaded)
+					detector.process(gray, result.messages);
+				long time2 = System.nanoTime();
+
+				result.decodeNano = time1 - time0;
+				result.detectNano = time2 - time1;
+				decodeNano += result.decodeNano;
+				detectNano += result.detectNano;
+
+				report(index, result, listener);
+			}
+		}
+	}
+
+	/**
+	 * Results from a single image
+	 */
+	public static class Result {
+		/** Path to the image */
+		public final String path;
+		/** True if the image could be loaded */
+		public boolean loaded;
+		/** Message in each marker that was found */
+		public final List<String> messages = new ArrayList<>();
+		/** Time to load the image in nano seconds */
+		public long decodeNano;
+		/** Time to detect markers in nano seconds */
+		public long detectNano;
+
+		public Result( String path ) {
+			this.path = path;
+		}
+	}
+
+	/**
+	 * Summary of throughput across all images
+	 */
+	public static class Summary {
+		/** Number of images which were processed */
+		public int images;
+		/** Number of images which could not be loaded */
+		public int failed;
+		/** Total number of markers found */
+		public int markers;
+		/** Number of threads used */
+		public int threads;
+		/** Wall clock time to process all images */
+		public long elapsedNano;
+		/** Total time spent loading images, summed across all threads */
+		public long decodeNano;
+		/** Total time spent detecting markers, summed across all threads */
+		public long detectNano;
+
+		public void reset() {
+			images = 0;
+			failed = 0;
+			markers = 0;
+			threads = 0;
+			elapsedNano = 0;
+			decodeNano = 0;
+			detectNano = 0;
+		}
+
+		/** Number of images processed every second */
+		public double imagesPerSecond() {
+			if (elapsedNano == 0)
+				return 0.0;
+			return (images + failed)/(elapsedNano*1e-9);
+		}
+
+		@Override public String toString() {
+			return String.format("images=%d failed=%d markers=%d threads=%d images/sec=%.2f decode=%.1f ms detect=%.1f ms",
+					images, failed, markers, threads, imagesPerSecond(), decodeNano*1e-6, detectNano*1e-6);
+		}
+	}
+
+	/**
+	 * Detects markers in an image and adds their messages to the list
+	 */
+	@FunctionalInterface public interface DetectMessages {
+		void process( GrayU8 image, List<String> messages );
+	}
+
+	/**
+	 * Loads an image. Returns true if successful.
+	 */
+	@FunctionalInterface public interface LoadImage {
+		boolean load( String path, GrayU8 output );
+	}
+
+	/**
+	 * Receives the results for each image
+	 */
+	@FunctionalInterface public interface Listener {
+		void processed( int index, Result result );
+	}
+}
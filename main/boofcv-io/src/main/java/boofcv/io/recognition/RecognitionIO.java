@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -20,12 +20,14 @@ package boofcv.io.recognition;
 
 import boofcv.BoofVersion;
 import boofcv.abst.scene.ConfigFeatureToSceneRecognition;
+import boofcv.abst.scene.ImageIdList;
 import boofcv.abst.scene.SceneRecognition;
 import boofcv.abst.scene.WrapFeatureToSceneRecognition;
 import boofcv.abst.scene.ann.FeatureSceneRecognitionNearestNeighbor;
 import boofcv.abst.scene.nister2006.FeatureSceneRecognitionNister2006;
 import boofcv.alg.scene.ann.RecognitionNearestNeighborInvertedFile;
 import boofcv.alg.scene.bow.InvertedFile;
+import boofcv.alg.scene.bow.MappedInvertedFiles;
 import boofcv.alg.scene.nister2006.RecognitionVocabularyTreeNister2006;
 import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
 import boofcv.factory.scene.FactorySceneRecognition;
@@ -40,15 +42,20 @@ import boofcv.struct.kmeans.TuplePointDistanceHamming;
 import deepboof.io.DeepBoofDataBaseOps;
 import org.ddogleg.clustering.PointDistance;
 import org.ddogleg.struct.BigDogArray_I32;
+import org.ddogleg.struct.DogArray_B;
 import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.FastAccess;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Reading and writing data structures related to recognition.
@@ -90,7 +97,8 @@ public class RecognitionIO {
 	}
 
 	/**
-	 * Saves {@link WrapFeatureToSceneRecognition} to disk inside of the specified directory
+	 * Saves {@link WrapFeatureToSceneRecognition} to disk inside of the specified directory. Removed images
+	 * are skipped and the recognizer isn't modified.
 	 *
 	 * @param def What is to be saved
 	 * @param dir Direction that it is to be saved
@@ -109,18 +117,22 @@ public class RecognitionIO {
 		switch (def.getConfig().typeRecognize) {
 			case NISTER_2006 -> {
 				FeatureSceneRecognitionNister2006<TD> recognizer = def.getRecognizer();
-				saveTreeBin(recognizer.getDatabase(), new File(dir, DATABASE_NAME));
-				listImageIds = recognizer.getImageIds();
+				// Removed images leave empty elements in the list of image IDs
+				IntUnaryOperator remapIds = createIdRemap(recognizer.getImageIds());
+				saveTreeBin(recognizer.getDatabase(), remapIds, new File(dir, DATABASE_NAME));
+				listImageIds = recognizer.getImageIds(null);
 			}
 
 			case NEAREST_NEIGHBOR -> {
 				FeatureSceneRecognitionNearestNeighbor<TD> recognizer = def.getRecognizer();
+				// Removed images leave empty elements in the list of image IDs
+				IntUnaryOperator remapIds = createIdRemap(recognizer.getImageIds());
 
 				saveDictionaryBin(recognizer.getDictionary(),
 						recognizer.getTupleDOF(),
 						recognizer.getDescriptorType(), new File(dir, DICTIONARY_NAME));
-				saveNearestNeighborBin(recognizer.getDatabase(), new File(dir, INVERTED_NAME));
-				listImageIds = recognizer.getImageIds();
+				saveNearestNeighborBin(recognizer.getDatabase(), remapIds, new File(dir, INVERTED_NAME));
+				listImageIds = recognizer.getImageIds(null);
 			}
 		}
 		Objects.requireNonNull(listImageIds);
@@ -149,7 +161,7 @@ public class RecognitionIO {
 
 				loadTreeBin(new File(dir, DATABASE_NAME), recognizer.getDatabase());
 				if (loadImagesIDs)
-					recognizer.getImageIds().addAll(UtilIO.loadListStringYaml(new File(dir, IMAGE_ID_NAME)));
+					recognizer.getImageIds().getIds().addAll(UtilIO.loadListStringYaml(new File(dir, IMAGE_ID_NAME)));
 
 				// Need to do this so that the tree reference is correctly set up
 				recognizer.setDatabase(recognizer.getDatabase());
@@ -165,7 +177,7 @@ public class RecognitionIO {
 
 				// Add the images now
 				if (loadImagesIDs) {
-					recognizer.getImageIds().addAll(UtilIO.loadListStringYaml(new File(dir, IMAGE_ID_NAME)));
+					recognizer.getImageIds().getIds().addAll(UtilIO.loadListStringYaml(new File(dir, IMAGE_ID_NAME)));
 				}
 			}
 
@@ -176,7 +188,8 @@ public class RecognitionIO {
 	}
 
 	/**
-	 * Saves {@link FeatureSceneRecognitionNister2006} to disk inside of the specified directory
+	 * Saves {@link FeatureSceneRecognitionNister2006} to disk inside of the specified directory. Removed images
+	 * are skipped and the recognizer isn't modified.
 	 *
 	 * @param def What is to be saved
 	 * @param dir Direction that it is to be saved
@@ -189,8 +202,10 @@ public class RecognitionIO {
 			BoofMiscOps.checkTrue(dir.mkdirs());
 
 		UtilIO.saveConfig(def.getConfig(), new File(dir, CONFIG_NAME));
-		saveTreeBin(def.getDatabase(), new File(dir, DATABASE_NAME));
-		UtilIO.saveListStringYaml(def.getImageIds(), new File(dir, IMAGE_ID_NAME));
+		// Removed images leave empty elements in the list of image IDs
+		IntUnaryOperator remapIds = createIdRemap(def.getImageIds());
+		saveTreeBin(def.getDatabase(), remapIds, new File(dir, DATABASE_NAME));
+		UtilIO.saveListStringYaml(def.getImageIds(null), new File(dir, IMAGE_ID_NAME));
 	}
 
 	/**
@@ -207,7 +222,7 @@ public class RecognitionIO {
 			throw new IllegalArgumentException("Path is not a directory: " + dir.getPath());
 
 		loadTreeBin(new File(dir, DATABASE_NAME), recognizer.getDatabase());
-		recognizer.getImageIds().addAll(UtilIO.loadListStringYaml(new File(dir, IMAGE_ID_NAME)));
+		recognizer.getImageIds().getIds().addAll(UtilIO.loadListStringYaml(new File(dir, IMAGE_ID_NAME)));
 
 		// Need to do this so that the tree reference is correctly set up
 		recognizer.setDatabase(recognizer.getDatabase());
@@ -249,8 +264,14 @@ public class RecognitionIO {
 	}
 
 	public static void saveNearestNeighborBin( RecognitionNearestNeighborInvertedFile<?> nn, File file ) {
+		saveNearestNeighborBin(nn, id -> id, file);
+	}
+
+	private static void saveNearestNeighborBin( RecognitionNearestNeighborInvertedFile<?> nn,
+												IntUnaryOperator remapIds, File file ) {
+		checkNotMapped(nn.getMappedFiles(), file);
 		try (var out = new FileOutputStream(file)) {
-			saveNearestNeighborBin(nn, out);
+			saveNearestNeighborBin(nn, remapIds, out);
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -518,24 +539,42 @@ public class RecognitionIO {
 		}
 	}
 
+	/**
+	 * Saves {@link RecognitionNearestNeighborInvertedFile} to a binary format. Removed images are skipped
+	 * and the database isn't modified.
+	 *
+	 * @param nn (Input) Structure to be encoded
+	 * @param out Stream it's written to
+	 */
 	public static void saveNearestNeighborBin( RecognitionNearestNeighborInvertedFile<?> nn, OutputStream out ) {
+		saveNearestNeighborBin(nn, id -> id, out);
+	}
+
+	private static void saveNearestNeighborBin( RecognitionNearestNeighborInvertedFile<?> nn,
+												IntUnaryOperator remapIds, OutputStream out ) {
 		FastAccess<InvertedFile> inverted = nn.getInvertedFiles();
 		BigDogArray_I32 imageDB = nn.getImagesDB();
 
+		// Removed images are only marked, so they are skipped and indexes are shifted as it's written
+		@Nullable int[] oldToNew = createIndexOldToNew(imageDB.size, nn.getRemovedImages(), nn.getTotalRemoved());
+		CopyInvertedFile copy = skipRemoved(nn::copyInvertedFile, oldToNew);
+
 		String header = "BOOFCV_RECOGNITION_NEAREST_NEIGHBOR\n";
 		header += "# inverted files: (int=size), array [int=index, float=weights]\n";
 		header += "format_version 1\n";
 		header += "boofcv_version " + BoofVersion.VERSION + "\n";
 		header += "git_sha " + BoofVersion.GIT_SHA + "\n";
-		header += "images.size " + imageDB.size + "\n";
+		header += "images.size " + (imageDB.size - nn.getTotalRemoved()) + "\n";
 		header += "inverted.size " + inverted.size() + "\n";
 		header += "BEGIN_INVERTED\n";
 		try {
 			out.write(header.getBytes(StandardCharsets.UTF_8));
 
 			DataOutputStream dout = new DataOutputStream(out);
+			var inv = new InvertedFile();
 			for (int invertedIdx = 0; invertedIdx < inverted.size(); invertedIdx++) {
-				InvertedFile inv = inverted.get(invertedIdx);
+				// Mapped and compressed images are written with the images on the heap
+				copy.copy(invertedIdx, inv);
 				dout.writeInt(inv.size);
 				for (int imageIdx = 0; imageIdx < inv.size; imageIdx++) {
 					dout.writeInt(inv.get(imageIdx));
@@ -543,13 +582,7 @@ public class RecognitionIO {
 				}
 			}
 			dout.writeUTF("BEGIN_IMAGES");
-			imageDB.forEach(0, imageDB.size, ( index ) -> {
-				try {
-					dout.writeInt(index);
-				} catch (IOException e) {
-					throw new UncheckedIOException(e);
-				}
-			});
+			writeImagesDB(dout, imageDB, oldToNew, remapIds);
 			dout.writeUTF("END_BOOFCV_RECOGNITION_NEAREST_NEIGHBOR");
 			dout.flush();
 		} catch (IOException e) {
@@ -659,9 +692,15 @@ public class RecognitionIO {
 	}
 
 	public static <TD extends TupleDesc<TD>> void saveTreeBin( RecognitionVocabularyTreeNister2006<TD> db, File file ) {
+		saveTreeBin(db, id -> id, file);
+	}
+
+	private static <TD extends TupleDesc<TD>>
+	void saveTreeBin( RecognitionVocabularyTreeNister2006<TD> db, IntUnaryOperator remapIds, File file ) {
+		checkNotMapped(db.getMappedFiles(), file);
 		try {
 			var out = new BufferedOutputStream(new FileOutputStream(file), 1024*1024);
-			saveBin(db, out);
+			saveBin(db, remapIds, out);
 			out.close();
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
@@ -680,14 +719,23 @@ public class RecognitionIO {
 	}
 
 	/**
-	 * Saves {@link RecognitionVocabularyTreeNister2006} to a binary format.
+	 * Saves {@link RecognitionVocabularyTreeNister2006} to a binary format. Removed images are skipped and the
+	 * database isn't modified.
 	 *
 	 * @param db (Input) Structure to be encoded
 	 * @param out Stream it's written to
 	 */
 	public static <TD extends TupleDesc<TD>> void saveBin( RecognitionVocabularyTreeNister2006<TD> db, OutputStream out ) {
+		saveBin(db, id -> id, out);
+	}
+
+	private static <TD extends TupleDesc<TD>>
+	void saveBin( RecognitionVocabularyTreeNister2006<TD> db, IntUnaryOperator remapIds, OutputStream out ) {
 		HierarchicalVocabularyTree<TD> tree = db.getTree();
 		Objects.requireNonNull(tree, "Tree must be specified before it can be saved");
+		// Removed images are only marked, so they are skipped and indexes are shifted as it's written
+		@Nullable int[] oldToNew = createIndexOldToNew(db.getImagesDB().size, db.getRemovedImages(), db.getTotalRemoved());
+		CopyInvertedFile copy = skipRemoved(db::copyInvertedFile, oldToNew);
 
 		String header = "BOOFCV_RECOGNITION_NISTER_2006\n";
 		header += "# Image DB: id=int,descTermFreq.size=int,array[key=int,value=float]\n";
@@ -695,7 +743,7 @@ public class RecognitionIO {
 		header += "format_version 1\n";
 		header += "boofcv_version " + BoofVersion.VERSION + "\n";
 		header += "git_sha " + BoofVersion.GIT_SHA + "\n";
-		header += "images_db.size " + db.getImagesDB().size + "\n";
+		header += "images_db.size " + (db.getImagesDB().size - db.getTotalRemoved()) + "\n";
 		header += "BEGIN_TREE\n";
 
 		try {
@@ -706,18 +754,17 @@ public class RecognitionIO {
 
 			var dout = new DataOutputStream(out);
 			dout.writeUTF("BEGIN_IMAGE_DB");
-			BigDogArray_I32 imageDB = db.getImagesDB();
-			for (int dbIdx = 0; dbIdx < imageDB.size; dbIdx++) {
-				dout.writeInt(imageDB.get(dbIdx));
-			}
+			writeImagesDB(dout, db.getImagesDB(), oldToNew, remapIds);
 
 			dout.writeUTF("BEGIN_INVERTED_FILES");
 			BoofMiscOps.checkEq(db.invertedFiles.size(), tree.nodes.size);
+			var node = new InvertedFile();
 			for (int nodeIdx = 0; nodeIdx < db.invertedFiles.size(); nodeIdx++) {
-				InvertedFile node = db.invertedFiles.get(nodeIdx);
+				// Mapped and compressed images are written with the images on the heap
+				copy.copy(nodeIdx, node);
 				BoofMiscOps.checkEq(node.size, node.weights.size);
 
-				dout.writeInt(node.size());
+				dout.writeInt(node.size);
 				for (int i = 0; i < node.size; i++) {
 					dout.writeInt(node.get(i));
 				}
@@ -790,9 +837,442 @@ public class RecognitionIO {
 		}
 	}
 
+	/**
+	 * <p>
+	 * Saves {@link RecognitionVocabularyTreeNister2006} in a format where the inverted files can be memory mapped
+	 * instead of being copied onto the heap. See {@link #loadMappedBin(File, RecognitionVocabularyTreeNister2006)}.
+	 * The tree and image DB are stored the same as in {@link #saveBin}. Inverted files are stored using the
+	 * layout described in {@link MappedInvertedFiles}. Removed images are skipped and the database isn't modified.
+	 * It can't be saved to the file its inverted files are mapped from.
+	 * </p>
+	 *
+	 * @param db (Input) Structure to be encoded
+	 * @param file File it's written to
+	 */
+	public static <TD extends TupleDesc<TD>>
+	void saveMappedBin( RecognitionVocabularyTreeNister2006<TD> db, File file ) {
+		HierarchicalVocabularyTree<TD> tree = db.getTree();
+		Objects.requireNonNull(tree, "Tree must be specified before it can be saved");
+		checkNotMapped(db.getMappedFiles(), file);
+		BoofMiscOps.checkEq(db.invertedFiles.size(), tree.nodes.size);
+
+		// Removed images are only marked, so they are skipped and indexes are shifted as it's written
+		BigDogArray_I32 imageDB = db.getImagesDB();
+		@Nullable int[] oldToNew = createIndexOldToNew(imageDB.size, db.getRemovedImages(), db.getTotalRemoved());
+		CopyInvertedFile copy = skipRemoved(db::copyInvertedFile, oldToNew);
+		int[] sizes = new int[tree.nodes.size];
+		long numElements = 0;
+		for (int nodeIdx = 0; nodeIdx < tree.nodes.size; nodeIdx++) {
+			sizes[nodeIdx] = db.liveInvertedFileSize(nodeIdx);
+			numElements += sizes[nodeIdx];
+		}
+
+		String header = "BOOFCV_RECOGNITION_NISTER_2006_MAPPED\n";
+		header += "# Image DB: id=int\n";
+		header += "# Inverted Files: 8-byte aligned, first=long[inverted.size+1], image=int[inverted.elements], weight=float[inverted.elements]\n";
+		header += "format_version 1\n";
+		header += "boofcv_version " + BoofVersion.VERSION + "\n";
+		header += "git_sha " + BoofVersion.GIT_SHA + "\n";
+		header += "images_db.size " + (imageDB.size - db.getTotalRemoved()) + "\n";
+		header += "inverted.size " + tree.nodes.size + "\n";
+		header += "inverted.elements " + numElements + "\n";
+		header += "BEGIN_TREE\n";
+
+		try (var out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1024*1024))) {
+			out.write(header.getBytes(StandardCharsets.UTF_8));
+			saveTreeBin(tree, out);
+
+			var dout = new DataOutputStream(out);
+			dout.writeUTF("BEGIN_IMAGE_DB");
+			writeImagesDB(dout, imageDB, oldToNew, id -> id);
+
+			dout.writeUTF("BEGIN_INVERTED_FILES");
+			writeMappedInvertedFiles(out, tree.nodes.size, i -> sizes[i], copy);
+			dout.writeUTF("END_BOOFCV_RECOGNITION_NISTER_2006_MAPPED");
+			dout.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Loads {@link RecognitionVocabularyTreeNister2006} which was saved by {@link #saveMappedBin}. The inverted
+	 * files are memory mapped and are not copied onto the heap. Images which are added after it has been
+	 * loaded are stored on the heap.
+	 *
+	 * @param file File that's read
+	 * @param db (Output) Decoded structure
+	 */
+	public static <TD extends TupleDesc<TD>>
+	void loadMappedBin( File file, RecognitionVocabularyTreeNister2006<TD> db ) {
+		String endMarker = "END_BOOFCV_RECOGNITION_NISTER_2006_MAPPED";
+		MappedInvertedFiles mapped;
+		try (var in = new CountingInputStream(new BufferedInputStream(new FileInputStream(file), 1024*1024))) {
+			MappedHeader header = readMappedHeader(in, "BOOFCV_RECOGNITION_NISTER_2006_MAPPED", "BEGIN_TREE");
+			db.tree = loadTreeBin(in, null);
+
+			var input = new DataInputStream(in);
+			readCheckUTF(input, "BEGIN_IMAGE_DB");
+			BigDogArray_I32 imagesDB = db.getImagesDB();
+			imagesDB.resize(header.images);
+			for (int i = 0; i < imagesDB.size; i++) {
+				imagesDB.set(i, input.readInt());
+			}
+
+			readCheckUTF(input, "BEGIN_INVERTED_FILES");
+			mapped = mapInvertedFiles(file, in.count, header, endMarker);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		db.invertedFiles.reset();
+		db.invertedFiles.resize(db.tree.nodes.size);
+		db.setMappedFiles(mapped);
+	}
+
+	/**
+	 * Saves {@link RecognitionNearestNeighborInvertedFile} in a format where the inverted files can be memory mapped
+	 * instead of being copied onto the heap. See {@link #loadMappedBin(File, RecognitionNearestNeighborInvertedFile)}.
+	 * Removed images are skipped and the database isn't modified. It can't be saved to the file its inverted files
+	 * are mapped from.
+	 *
+	 * @param nn (Input) Structure to be encoded
+	 * @param file File it's written to
+	 */
+	public static void saveMappedBin( RecognitionNearestNeighborInvertedFile<?> nn, File file ) {
+		checkNotMapped(nn.getMappedFiles(), file);
+
+		FastAccess<InvertedFile> inverted = nn.getInvertedFiles();
+		BigDogArray_I32 imageDB = nn.getImagesDB();
+
+		// Removed images are only marked, so they are skipped and indexes are shifted as it's written
+		@Nullable int[] oldToNew = createIndexOldToNew(imageDB.size, nn.getRemovedImages(), nn.getTotalRemoved());
+		CopyInvertedFile copy = skipRemoved(nn::copyInvertedFile, oldToNew);
+		int[] sizes = new int[inverted.size];
+		long numElements = 0;
+		var work = new InvertedFile();
+		for (int invertedIdx = 0; invertedIdx < inverted.size; invertedIdx++) {
+			if (oldToNew == null) {
+				sizes[invertedIdx] = nn.invertedFileSize(invertedIdx);
+			} else {
+				copy.copy(invertedIdx, work);
+				sizes[invertedIdx] = work.size;
+			}
+			numElements += sizes[invertedIdx];
+		}
+
+		String header = "BOOFCV_RECOGNITION_NEAREST_NEIGHBOR_MAPPED\n";
+		header += "# Image DB: id=int\n";
+		header += "# Inverted Files: 8-byte aligned, first=long[inverted.size+1], image=int[inverted.elements], weight=float[inverted.elements]\n";
+		header += "format_version 1\n";
+		header += "boofcv_version " + BoofVersion.VERSION + "\n";
+		header += "git_sha " + BoofVersion.GIT_SHA + "\n";
+		header += "images_db.size " + (imageDB.size - nn.getTotalRemoved()) + "\n";
+		header += "inverted.size " + inverted.size + "\n";
+		header += "inverted.elements " + numElements + "\n";
+		header += "BEGIN_IMAGES\n";
+
+		try (var out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1024*1024))) {
+			out.write(header.getBytes(StandardCharsets.UTF_8));
+
+			var dout = new DataOutputStream(out);
+			writeImagesDB(dout, imageDB, oldToNew, id -> id);
+
+			dout.writeUTF("BEGIN_INVERTED");
+			writeMappedInvertedFiles(out, inverted.size, i -> sizes[i], copy);
+			dout.writeUTF("END_BOOFCV_RECOGNITION_NEAREST_NEIGHBOR_MAPPED");
+			dout.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Loads {@link RecognitionNearestNeighborInvertedFile} which was saved by {@link #saveMappedBin}. The inverted
+	 * files are memory mapped and are not copied onto the heap. Images which are added after it has been
+	 * loaded are stored on the heap.
+	 *
+	 * @param file File that's read
+	 * @param nn (Output) Decoded structure
+	 */
+	public static void loadMappedBin( File file, RecognitionNearestNeighborInvertedFile<?> nn ) {
+		String endMarker = "END_BOOFCV_RECOGNITION_NEAREST_NEIGHBOR_MAPPED";
+		MappedInvertedFiles mapped;
+		MappedHeader header;
+		try (var in = new CountingInputStream(new BufferedInputStream(new FileInputStream(file), 1024*1024))) {
+			header = readMappedHeader(in, "BOOFCV_RECOGNITION_NEAREST_NEIGHBOR_MAPPED", "BEGIN_IMAGES");
+
+			var input = new DataInputStream(in);
+			BigDogArray_I32 imagesDB = nn.getImagesDB();
+			imagesDB.resize(header.images);
+			for (int i = 0; i < imagesDB.size; i++) {
+				imagesDB.set(i, input.readInt());
+			}
+
+			readCheckUTF(input, "BEGIN_INVERTED");
+			mapped = mapInvertedFiles(file, in.count, header, endMarker);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		nn.getInvertedFiles().reset();
+		nn.getInvertedFiles().resize(header.invertedSize);
+		nn.setMappedFiles(mapped);
+	}
+
+	/**
+	 * Writes the inverted files using the layout in {@link MappedInvertedFiles}. Padding is added first so that
+	 * it starts on an 8-byte boundary.
+	 *
+	 * @param sizes Returns the total number of images in an inverted file
+	 * @param copy Copies all the images in an inverted file, independent of how they are stored
+	 */
+	private static void writeMappedInvertedFiles( CountingOutputStream out, int numFiles,
+												  IntUnaryOperator sizes,
+												  CopyInvertedFile copy ) throws IOException {
+		var dout = new DataOutputStream(out);
+		while (out.count%8 != 0) {
+			dout.writeByte(0);
+		}
+
+		// Index of the first element in each file
+		long first = 0;
+		for (int fileIdx = 0; fileIdx < numFiles; fileIdx++) {
+			dout.writeLong(first);
+			first += sizes.applyAsInt(fileIdx);
+		}
+		dout.writeLong(first);
+
+		var inv = new InvertedFile();
+		for (int fileIdx = 0; fileIdx < numFiles; fileIdx++) {
+			copy.copy(fileIdx, inv);
+			for (int i = 0; i < inv.size; i++) {
+				dout.writeInt(inv.get(i));
+			}
+		}
+
+		for (int fileIdx = 0; fileIdx < numFiles; fileIdx++) {
+			copy.copy(fileIdx, inv);
+			for (int i = 0; i < inv.weights.size; i++) {
+				dout.writeFloat(inv.weights.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Converts the index of an image ID in the list into its index once removed IDs have been skipped
+	 */
+	private static IntUnaryOperator createIdRemap( ImageIdList imageIds ) {
+		if (imageIds.getTotalRemoved() == 0)
+			return id -> id;
+
+		int[] oldToNew = imageIds.createOldToNew();
+		return id -> oldToNew[id];
+	}
+
+	/**
+	 * Look up table from an image's index in the DB to its index once removed images have been skipped. Removed
+	 * images are -1. Null is returned if no images have been removed.
+	 */
+	private static @Nullable int[] createIndexOldToNew( int numImages, DogArray_B removedImages, int totalRemoved ) {
+		if (totalRemoved == 0)
+			return null;
+		int[] oldToNew = new int[numImages];
+		int numKept = 0;
+		for (int imageIdx = 0; imageIdx < numImages; imageIdx++) {
+			boolean removed = imageIdx < removedImages.size && removedImages.data[imageIdx];
+			oldToNew[imageIdx] = removed ? -1 : numKept++;
+		}
+		return oldToNew;
+	}
+
+	/**
+	 * Writes the ID of every image in the DB which hasn't been removed
+	 *
+	 * @param oldToNew Look up table from {@link #createIndexOldToNew}
+	 * @param remapIds Changes the image ID before it's written
+	 */
+	private static void writeImagesDB( DataOutputStream dout, BigDogArray_I32 imageDB,
+									   @Nullable int[] oldToNew, IntUnaryOperator remapIds ) throws IOException {
+		for (int dbIdx = 0; dbIdx < imageDB.size; dbIdx++) {
+			if (oldToNew != null && oldToNew[dbIdx] == -1)
+				continue;
+			dout.writeInt(remapIds.applyAsInt(imageDB.get(dbIdx)));
+		}
+	}
+
+	/**
+	 * Wraps 'copy' so that removed images are dropped from the inverted file and the remaining image indexes
+	 * are converted using 'oldToNew'
+	 */
+	private static CopyInvertedFile skipRemoved( CopyInvertedFile copy, @Nullable int[] oldToNew ) {
+		if (oldToNew == null)
+			return copy;
+
+		return ( fileIdx, dst ) -> {
+			copy.copy(fileIdx, dst);
+			int numKept = 0;
+			for (int i = 0; i < dst.size; i++) {
+				int imageIdx = oldToNew[dst.data[i]];
+				if (imageIdx == -1)
+					continue;
+				dst.data[numKept] = imageIdx;
+				dst.weights.data[numKept++] = dst.weights.data[i];
+			}
+			dst.resize(numKept);
+			dst.weights.resize(numKept);
+		};
+	}
+
+	/**
+	 * Writing to the file which a database's inverted files are mapped from would corrupt the database
+	 */
+	private static void checkNotMapped( @Nullable MappedInvertedFiles mapped, File file ) {
+		File source = mapped == null ? null : mapped.getSource();
+		if (source == null)
+			return;
+		try {
+			if (source.getCanonicalFile().equals(file.getCanonicalFile()))
+				throw new IllegalArgumentException("Can't save to the file the database is mapped from. " +
+						file.getPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Copies an inverted file from a database into 'dst' */
+	@FunctionalInterface
+	private interface CopyInvertedFile {
+		void copy( int fileIdx, InvertedFile dst );
+	}
+
+	/**
+	 * Reads the ASCII header of a file with memory mapped inverted files
+	 */
+	private static MappedHeader readMappedHeader( InputStream in, String firstLine, String lastLine ) throws IOException {
+		var builder = new StringBuilder();
+		String line = UtilIO.readLine(in, builder);
+		if (!line.equals(firstLine))
+			throw new IOException("Unexpected first line. line.length=" + line.length());
+
+		var header = new MappedHeader();
+		int version = -1;
+		while (true) {
+			line = UtilIO.readLine(in, builder);
+			if (line.equals(lastLine))
+				break;
+			if (line.isEmpty())
+				throw new IOException("Unexpected end of header");
+			if (line.startsWith("#"))
+				continue;
+			String[] words = line.split("\\s");
+			switch (words[0]) {
+				case "format_version" -> version = Integer.parseInt(words[1]);
+				case "images_db.size" -> header.images = Integer.parseInt(words[1]);
+				case "inverted.size" -> header.invertedSize = Integer.parseInt(words[1]);
+				case "inverted.elements" -> header.invertedElements = Long.parseLong(words[1]);
+				default -> {}
+			}
+		}
+		if (version != 1)
+			throw new IOException("Unsupported format_version " + version);
+		return header;
+	}
+
+	/**
+	 * Memory maps the inverted files. The mapping remains valid after the file has been closed.
+	 *
+	 * @param location Location in the file where the padding before the inverted files starts
+	 */
+	private static MappedInvertedFiles mapInvertedFiles( File file, long location,
+														 MappedHeader header, String endMarker ) throws IOException {
+		long start = location + (8 - location%8)%8;
+		long end = start + MappedInvertedFiles.computeSizeBytes(header.invertedSize, header.invertedElements);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// Make sure the file is complete by checking for the marker at the end
+			byte[] expected = endMarker.getBytes(StandardCharsets.UTF_8);
+			if (channel.size() != end + 2 + expected.length)
+				throw new IOException("Unexpected file size. Expected " + (end + 2 + expected.length) +
+						" found " + channel.size());
+			ByteBuffer marker = ByteBuffer.allocate(2 + expected.length);
+			while (marker.hasRemaining()) {
+				if (channel.read(marker, end + marker.position()) < 0)
+					throw new EOFException("Unexpected end of file");
+			}
+			if (marker.getShort(0) != expected.length || !ByteBuffer.wrap(expected).equals(marker.position(2)))
+				throw new IOException("Expected '" + endMarker + "' at the end of the file");
+
+			// Map everything up to the end of the inverted files using fixed size pages
+			int pageBits = MappedInvertedFiles.DEFAULT_PAGE_BITS;
+			long pageSize = 1L << pageBits;
+			var pages = new ByteBuffer[(int)((end + pageSize - 1)/pageSize)];
+			for (int i = 0; i < pages.length; i++) {
+				long offset = i*pageSize;
+				pages[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(pageSize, end - offset));
+			}
+			var mapped = new MappedInvertedFiles(pages, pageBits, start, header.invertedSize, header.invertedElements);
+			mapped.setSource(file);
+			return mapped;
+		}
+	}
+
 	private static void readCheckUTF( DataInputStream input, String expected ) throws IOException {
 		String line = input.readUTF();
 		if (!line.equals(expected))
 			throw new IOException("Expected '" + expected + "' not '" + line + "'");
 	}
+
+	/** Information from the header of a file with memory mapped inverted files */
+	private static class MappedHeader {
+		int images;
+		int invertedSize;
+		long invertedElements;
+	}
+
+	/** Keeps track of the number of bytes written so that the location of data in the file is known */
+	private static class CountingOutputStream extends FilterOutputStream {
+		long count;
+
+		public CountingOutputStream( OutputStream out ) {super(out);}
+
+		@Override public void write( int b ) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override public void write( byte[] b, int off, int len ) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	/** Keeps track of the number of bytes read so that the location of data in the file is known */
+	private static class CountingInputStream extends FilterInputStream {
+		long count;
+
+		public CountingInputStream( InputStream in ) {super(in);}
+
+		@Override public int read() throws IOException {
+			int value = in.read();
+			if (value != -1)
+				count++;
+			return value;
+		}
+
+		@Override public int read( byte[] b, int off, int len ) throws IOException {
+			int found = in.read(b, off, len);
+			if (found > 0)
+				count += found;
+			return found;
+		}
+
+		@Override public long skip( long n ) throws IOException {
+			long found = in.skip(n);
+			count += found;
+			return found;
+		}
+
+		@Override public boolean markSupported() {return false;}
+	}
 }
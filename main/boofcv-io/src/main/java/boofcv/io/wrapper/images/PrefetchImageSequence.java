@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.wrapper.images;
+
+import boofcv.io.image.SimpleImageSequence;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Wraps around another {@link SimpleImageSequence} and decodes frames ahead of time in a background thread.
+ * This allows decoding of the next frame to happen at the same time the current frame is being processed.
+ * Decoded frames are copied into a fixed size pool of images which are recycled, so memory is bounded by
+ * the number of frames it's allowed to read ahead. If the consumer is slower than the decoder then the
+ * decoder will block until a frame has been released, i.e. back-pressure.
+ * </p>
+ *
+ * <p>
+ * The wrapped sequence should not be accessed directly once it has been passed to this class. The image
+ * returned by {@link #next()} is valid until the next call to {@link #next()}. The GUI image is the
+ * instance returned by the wrapped sequence when the frame was decoded and will only be valid if
+ * the wrapped sequence creates a new GUI image for each frame.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class PrefetchImageSequence<T extends ImageBase<T>> implements SimpleImageSequence<T> {
+	/** The sequence which is being read in the background */
+	@Getter final SimpleImageSequence<T> source;
+
+	/** Maximum number of frames which will be decoded ahead of time */
+	@Getter final int prefetch;
+
+	// Frames which have been decoded and are waiting to be consumed
+	final BlockingQueue<Frame<T>> ready;
+	// Frames which can be used to store newly decoded images
+	final BlockingQueue<Frame<T>> available;
+
+	// Marks the end of the sequence
+	final Frame<T> endOfSequence;
+
+	// Frame which has been returned by next()
+	@Nullable Frame<T> current;
+	// Frame which was read by hasNext() but hasn't been returned by next() yet
+	@Nullable Frame<T> pending;
+
+	// Thread which is decoding the images
+	@Nullable Thread thread;
+	volatile boolean running;
+	// If an exception was thrown while decoding it is saved here and passed to the consumer
+	volatile @Nullable RuntimeException failure;
+
+	// Image shape before the first frame has been read
+	final int initialWidth, initialHeight;
+
+	// Statistics are volatile since they are written by the decoder thread and read by the consumer. Each one is
+	// only modified by a single thread, so the non-atomic increments are safe
+
+	/** Total time spent decoding frames in nano seconds */
+	@Getter volatile long timeDecodeNano;
+	/** Total time the consumer spent waiting for a frame to be decoded in nano seconds */
+	@Getter volatile long timeWaitConsumerNano;
+	/** Total time the decoder spent blocked waiting for the consumer to release a frame in nano seconds */
+	@Getter volatile long timeWaitDecoderNano;
+	/** Number of frames which have been decoded */
+	@Getter volatile int totalDecoded;
+
+	/**
+	 * @param source The sequence which is to be read in a background thread
+	 * @param prefetch Maximum number of frames which can be decoded ahead. Must be &ge; 1.
+	 */
+	public PrefetchImageSequence( SimpleImageSequence<T> source, int prefetch ) {
+		if (prefetch < 1)
+			throw new IllegalArgumentException("prefetch must be at least 1");
+		this.source = source;
+		this.prefetch = prefetch;
+		this.initialWidth = source.getWidth();
+		this.initialHeight = source.getHeight();
+
+		// Frames which are decoded or being decoded plus one for the frame held by the consumer
+		int total = prefetch + 1;
+		ready = new ArrayBlockingQueue<>(total + 1);
+		available = new ArrayBlockingQueue<>(total);
+		for (int i = 0; i < total; i++) {
+			available.add(new Frame<>(source.getImageType().createImage(1, 1)));
+		}
+		endOfSequence = new Frame<>(source.getImageType().createImage(1, 1));
+	}
+
+	@Override public int getWidth() {
+		return current != null ? current.image.width : initialWidth;
+	}
+
+	@Override public int getHeight() {
+		return current != null ? current.image.height : initialHeight;
+	}
+
+	@Override public boolean hasNext() {
+		if (pending == null) {
+			startThread();
+			long time0 = System.nanoTime();
+			try {
+				pending = ready.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+			timeWaitConsumerNano += System.nanoTime() - time0;
+		}
+		if (pending == endOfSequence) {
+			RuntimeException failure = this.failure;
+			if (failure != null)
+				throw failure;
+			return false;
+		}
+		return true;
+	}
+
+	@Override public T next() {
+		if (!hasNext())
+			throw new IllegalStateException("There are no more images in the sequence");
+
+		// Recycle the previous frame so that the decoder can use it again
+		if (current != null)
+			available.add(current);
+		Frame<T> frame = Objects.requireNonNull(pending);
+		current = frame;
+		pending = null;
+		return frame.image;
+	}
+
+	@Override public T getImage() {
+		if (current == null)
+			throw new IllegalStateException("next() has not been called yet");
+		return current.image;
+	}
+
+	@Override public <InternalImage> InternalImage getGuiImage() {
+		if (current == null)
+			throw new IllegalStateException("next() has not been called yet");
+		return (InternalImage)current.guiImage;
+	}
+
+	@Override public void close() {
+		stopThread();
+		source.close();
+	}
+
+	@Override public int getFrameNumber() {
+		return current != null ? current.frameNumber : -1;
+	}
+
+	/**
+	 * Sets if the video loops. Frames which have already been decoded are not affected.
+	 */
+	@Override public void setLoop( boolean loop ) {
+		// Decoding is stopped first so that the source isn't modified while it's being read
+		stopThread();
+		source.setLoop(loop);
+		// If the end of the sequence has already been reached it might not be any more
+		if (pending == endOfSequence)
+			pending = null;
+		ready.remove(endOfSequence);
+	}
+
+	@Override public ImageType<T> getImageType() {
+		return source.getImageType();
+	}
+
+	/**
+	 * Discards all frames which have been decoded and starts reading the sequence from the beginning
+	 */
+	@Override public void reset() {
+		stopThread();
+		recycleAll();
+		source.reset();
+		failure = null;
+	}
+
+	/**
+	 * Number of frames which have been decoded and are waiting to be consumed
+	 */
+	public int getQueuedFrames() {
+		int size = ready.size();
+		return ready.contains(endOfSequence) ? size - 1 : size;
+	}
+
+	/**
+	 * Resets timing statistics to zero. If called while frames are being decoded then the decoder thread
+	 * might overwrite the reset with its previous value.
+	 */
+	public void resetStatistics() {
+		timeDecodeNano = 0;
+		timeWaitConsumerNano = 0;
+		timeWaitDecoderNano = 0;
+		totalDecoded = 0;
+	}
+
+	/** Moves all the frames back into the available queue */
+	void recycleAll() {
+		if (current != null)
+			available.add(current);
+		if (pending != null && pending != endOfSequence)
+			available.add(pending);
+		current = null;
+		pending = null;
+		Frame<T> f;
+		while ((f = ready.poll()) != null) {
+			if (f != endOfSequence)
+				available.add(f);
+		}
+	}
+
+	void startThread() {
+		if (running)
+			return;
+		// don't start decoding again once the end has been reached
+		if (pending == endOfSequence || ready.contains(endOfSequence))
+			return;
+		running = true;
+		thread = new Thread(this::decodeLoop, "PrefetchImageSequence");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void stopThread() {
+		Thread thread = this.thread;
+		if (thread == null)
+			return;
+		// The thread will exit once it's done with the current frame
+		running = false;
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.thread = null;
+	}
+
+	/**
+	 * Decodes frames until the end of the sequence has been reached or it's been requested to stop
+	 */
+	void decodeLoop() {
+		try {
+			while (running) {
+				// Wait for the consumer to release a frame. This is where back-pressure is applied
+				long time0 = System.nanoTime();
+				Frame<T> frame = available.poll(100, TimeUnit.MILLISECONDS);
+				long time1 = System.nanoTime();
+				timeWaitDecoderNano += time1 - time0;
+				if (frame == null)
+					continue;
+
+				if (!source.hasNext()) {
+					available.add(frame);
+					ready.add(endOfSequence);
+					break;
+				}
+
+				try {
+					T image = source.next();
+					frame.image.setTo(image);
+					frame.guiImage = source.getGuiImage();
+					frame.frameNumber = source.getFrameNumber();
+				} catch (RuntimeException e) {
+					available.add(frame);
+					throw e;
+				}
+				timeDecodeNano += System.nanoTime() - time1;
+				totalDecoded++;
+
+				// there is always space in this queue so it will never block
+				ready.add(frame);
+			}
+		} catch (InterruptedException e) {
+			failure = new RuntimeException(e);
+			ready.add(endOfSequence);
+		} catch (RuntimeException e) {
+			failure = e;
+			ready.add(endOfSequence);
+		} finally {
+			running = false;
+		}
+	}
+
+	/**
+	 * Storage for a decoded frame
+	 */
+	static class Frame<T extends ImageBase<T>> {
+		final T image;
+		@Nullable Object guiImage;
+		int frameNumber;
+
+		Frame( T image ) {
+			this.image = image;
+		}
+	}
+}
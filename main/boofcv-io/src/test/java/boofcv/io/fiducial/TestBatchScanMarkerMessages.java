@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.fiducial;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestBatchScanMarkerMessages extends BoofStandardJUnit {
+	/**
+	 * Images which finish out of order should still be reported in the order they were provided
+	 */
+	@Test void orderedOutput() {
+		List<String> paths = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			paths.add("" + i);
+		}
+
+		BatchScanMarkerMessages alg = createAlg();
+
+		for (boolean concurrent : new boolean[]{false, true}) {
+			BoofConcurrency.USE_CONCURRENT = concurrent;
+			List<Integer> found = new ArrayList<>();
+			alg.process(paths, ( index, result ) -> {
+				assertEquals(found.size(), index);
+				assertEquals(paths.get(index), result.path);
+				int value = Integer.parseInt(result.path);
+				if (value%5 == 0) {
+					assertFalse(result.loaded);
+					assertEquals(0, result.messages.size());
+				} else {
+					assertTrue(result.loaded);
+					assertEquals(value%3, result.messages.size());
+					for (String message : result.messages) {
+						assertEquals(result.path, message);
+					}
+				}
+				found.add(index);
+			});
+			assertEquals(paths.size(), found.size());
+
+			BatchScanMarkerMessages.Summary summary = alg.getSummary();
+			assertEquals(32, summary.images);
+			assertEquals(8, summary.failed);
+			assertTrue(summary.threads >= 1);
+			assertTrue(summary.imagesPerSecond() > 0.0);
+		}
+	}
+
+	/**
+	 * The maximum number of threads should be respected
+	 */
+	@Test void maxThreads() {
+		List<String> paths = List.of("1", "2", "3", "4", "6");
+		BatchScanMarkerMessages alg = createAlg();
+		alg.setMaxThreads(2);
+		alg.process(paths, ( index, result ) -> {});
+		assertTrue(alg.getSummary().threads <= 2);
+		assertEquals(5, alg.getSummary().images);
+	}
+
+	/**
+	 * Requesting more threads than the active pool has should still process that many images at the same time
+	 */
+	@Test void maxThreads_largerThanPool() {
+		BoofConcurrency.USE_CONCURRENT = true;
+		List<String> paths = List.of("1", "2", "3");
+		BatchScanMarkerMessages alg = createAlg();
+		alg.setMaxThreads(3);
+
+		// An image can only finish loading once all the images are being loaded at the same time
+		var barrier = new CyclicBarrier(paths.size());
+		alg.setLoader(( path, output ) -> {
+			try {
+				barrier.await(10, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				return false;
+			}
+			output.reshape(2, 2);
+			return true;
+		});
+
+		ForkJoinPool pool = BoofConcurrency.newThreadPool("Test", 1, Thread.NORM_PRIORITY);
+		try {
+			BoofConcurrency.runUsing(pool, () -> alg.process(paths, ( index, result ) -> {}));
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(3, alg.getSummary().threads);
+		assertEquals(3, alg.getSummary().images);
+	}
+
+	/**
+	 * Creates a scanner where the image is "loaded" by parsing the path into a number. Every 5th image
+	 * can't be loaded and the number of messages found is the value modulo 3.
+	 */
+	BatchScanMarkerMessages createAlg() {
+		var alg = new BatchScanMarkerMessages(() -> ( image, messages ) -> {
+			int value = image.get(0, 0);
+			// randomize the amount of time each image takes to process
+			try {
+				Thread.sleep((value*7)%4);
+			} catch (InterruptedException ignore) {}
+			for (int i = 0; i < value%3; i++) {
+				messages.add("" + value);
+			}
+		});
+		alg.setLoader(( path, output ) -> {
+			int value = Integer.parseInt(path);
+			if (value%5 == 0)
+				return false;
+			output.reshape(2, 2);
+			output.set(0, 0, value);
+			return true;
+		});
+		return alg;
+	}
+}
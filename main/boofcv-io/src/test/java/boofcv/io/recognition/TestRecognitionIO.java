@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -25,10 +25,12 @@ import boofcv.abst.scene.nister2006.ConfigRecognitionNister2006;
 import boofcv.abst.scene.nister2006.FeatureSceneRecognitionNister2006;
 import boofcv.alg.scene.ann.RecognitionNearestNeighborInvertedFile;
 import boofcv.alg.scene.bow.InvertedFile;
+import boofcv.alg.scene.bow.MappedInvertedFiles;
 import boofcv.alg.scene.nister2006.RecognitionVocabularyTreeNister2006;
 import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
 import boofcv.factory.scene.FactorySceneRecognition;
 import boofcv.io.UtilIO;
+import boofcv.misc.BoofMiscOps;
 import boofcv.struct.feature.PackedTupleBigArray_F64;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.feature.TupleDesc_F64;
@@ -47,9 +49,12 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TestRecognitionIO extends BoofStandardJUnit {
 	/**
@@ -248,6 +253,45 @@ public class TestRecognitionIO extends BoofStandardJUnit {
 		}
 	}
 
+	/**
+	 * Removed images should be skipped when saving, without modifying the database
+	 */
+	@Test void recognitionVocabularyTreeNister2006_stream_removed() {
+		RecognitionVocabularyTreeNister2006<TupleDesc_F64> db = createDefaultNister2006();
+		for (int i = 0; i < db.getImagesDB().size; i++) {
+			db.getImagesDB().set(i, i*10);
+		}
+		db.removeImage(30);
+		db.removeImage(70);
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		RecognitionIO.saveBin(db, stream);
+
+		// Saving must not compact the database
+		assertEquals(20, db.getImagesDB().size);
+		assertEquals(2, db.getTotalRemoved());
+
+		var found = new RecognitionVocabularyTreeNister2006<TupleDesc_F64>();
+		RecognitionIO.loadBin(new ByteArrayInputStream(stream.toByteArray()), found);
+
+		// Should be the same as what's saved after compacting
+		db.compact();
+		assertEquals(18, found.getImagesDB().size);
+		for (int i = 0; i < db.getImagesDB().size; i++) {
+			assertEquals(db.getImagesDB().get(i), found.getImagesDB().get(i));
+		}
+		assertEquals(db.invertedFiles.size(), found.invertedFiles.size());
+		for (int nodeIdx = 0; nodeIdx < db.invertedFiles.size(); nodeIdx++) {
+			InvertedFile e = db.invertedFiles.get(nodeIdx);
+			InvertedFile f = found.invertedFiles.get(nodeIdx);
+			assertEquals(e.size, f.size);
+			for (int i = 0; i < e.size; i++) {
+				assertEquals(e.get(i), f.get(i));
+				assertEquals(e.weights.get(i), f.weights.get(i));
+			}
+		}
+	}
+
 	@Test void nearestNeighborBin_stream() {
 		var expected = new RecognitionNearestNeighborInvertedFile<>();
 		expected.getImagesDB().resize(45);
@@ -273,6 +317,124 @@ public class TestRecognitionIO extends BoofStandardJUnit {
 		assertEquals(expected.getImagesDB().size, found.getImagesDB().size);
 	}
 
+	/**
+	 * Save to the memory mapped format, then see if the loaded inverted files are identical
+	 */
+	@Test void mappedBin_nister2006() {
+		File file = new File(System.getProperty("java.io.tmpdir"), "nister2006_mapped.bin");
+		try {
+			RecognitionVocabularyTreeNister2006<TupleDesc_F64> db = createDefaultNister2006();
+			RecognitionIO.saveMappedBin(db, file);
+
+			var found = new RecognitionVocabularyTreeNister2006<TupleDesc_F64>();
+			RecognitionIO.loadMappedBin(file, found);
+
+			compareTrees(db.tree, found.tree);
+			assertEquals(db.getImagesDB().size, found.getImagesDB().size);
+			for (int i = 0; i < db.getImagesDB().size; i++) {
+				assertEquals(db.getImagesDB().get(i), found.getImagesDB().get(i));
+			}
+
+			// Nothing should be on the heap
+			MappedInvertedFiles mapped = Objects.requireNonNull(found.getMappedFiles());
+			assertEquals(db.invertedFiles.size(), found.invertedFiles.size());
+			for (int i = 0; i < found.invertedFiles.size(); i++) {
+				assertEquals(0, found.invertedFiles.get(i).size);
+			}
+			compareInverted(db.invertedFiles.size(), db.invertedFiles::get, mapped);
+
+			// Add an image to the heap then save it again. The mapped and heap images should be combined
+			found.invertedFiles.get(2).addImage(20, 0.5f);
+			found.getImagesDB().append(99);
+			File file2 = new File(System.getProperty("java.io.tmpdir"), "nister2006_mapped2.bin");
+			try {
+				RecognitionIO.saveMappedBin(found, file2);
+				var found2 = new RecognitionVocabularyTreeNister2006<TupleDesc_F64>();
+				RecognitionIO.loadMappedBin(file2, found2);
+				MappedInvertedFiles mapped2 = Objects.requireNonNull(found2.getMappedFiles());
+				assertEquals(21, found2.getImagesDB().size);
+				assertEquals(2, mapped2.size(2));
+				assertEquals(20, mapped2.getImage(mapped2.first(2) + 1));
+				assertEquals(0.5f, mapped2.getWeight(mapped2.first(2) + 1));
+			} finally {
+				BoofMiscOps.checkTrue(!file2.exists() || file2.delete());
+			}
+		} finally {
+			BoofMiscOps.checkTrue(!file.exists() || file.delete());
+		}
+	}
+
+	/**
+	 * Saving over the file which a database is mapped from would corrupt the database
+	 */
+	@Test void mappedBin_saveOverSource() {
+		File file = new File(System.getProperty("java.io.tmpdir"), "nister2006_mapped.bin");
+		try {
+			RecognitionVocabularyTreeNister2006<TupleDesc_F64> db = createDefaultNister2006();
+			RecognitionIO.saveMappedBin(db, file);
+
+			var found = new RecognitionVocabularyTreeNister2006<TupleDesc_F64>();
+			RecognitionIO.loadMappedBin(file, found);
+			long length = file.length();
+
+			assertThrows(IllegalArgumentException.class, () -> RecognitionIO.saveMappedBin(found, file));
+			assertThrows(IllegalArgumentException.class, () -> RecognitionIO.saveTreeBin(found, file));
+			assertEquals(length, file.length());
+			compareInverted(db.invertedFiles.size(), db.invertedFiles::get, Objects.requireNonNull(found.getMappedFiles()));
+		} finally {
+			BoofMiscOps.checkTrue(!file.exists() || file.delete());
+		}
+	}
+
+	/**
+	 * Save to the memory mapped format, then see if the loaded inverted files are identical
+	 */
+	@Test void mappedBin_nearestNeighbor() {
+		File file = new File(System.getProperty("java.io.tmpdir"), "nearest_neighbor_mapped.bin");
+		try {
+			var expected = new RecognitionNearestNeighborInvertedFile<>();
+			expected.getImagesDB().resize(45);
+			for (int i = 0; i < 20; i++) {
+				InvertedFile iv = expected.getInvertedFiles().grow();
+				int N = rand.nextInt(10);
+				for (int j = 0; j < N; j++) {
+					iv.addImage(rand.nextInt(45), rand.nextFloat());
+				}
+			}
+			RecognitionIO.saveMappedBin(expected, file);
+
+			var found = new RecognitionNearestNeighborInvertedFile<>();
+			RecognitionIO.loadMappedBin(file, found);
+
+			assertEquals(expected.getImagesDB().size, found.getImagesDB().size);
+			assertEquals(expected.getInvertedFiles().size, found.getInvertedFiles().size);
+			MappedInvertedFiles mapped = Objects.requireNonNull(found.getMappedFiles());
+			compareInverted(expected.getInvertedFiles().size, expected.getInvertedFiles()::get, mapped);
+
+			// The legacy format should include the mapped images
+			var stream = new ByteArrayOutputStream();
+			RecognitionIO.saveNearestNeighborBin(found, stream);
+			var copy = new RecognitionNearestNeighborInvertedFile<>();
+			RecognitionIO.loadNearestNeighborBin(new ByteArrayInputStream(stream.toByteArray()), copy);
+			compareInverted(expected.getInvertedFiles(), copy.getInvertedFiles());
+		} finally {
+			BoofMiscOps.checkTrue(!file.exists() || file.delete());
+		}
+	}
+
+	private void compareInverted( int size, IntFunction<InvertedFile> expected, MappedInvertedFiles found ) {
+		assertEquals(size, found.getNumFiles());
+		for (int invIdx = 0; invIdx < size; invIdx++) {
+			InvertedFile e = expected.apply(invIdx);
+			assertEquals(e.size, found.size(invIdx));
+			long first = found.first(invIdx);
+			for (int i = 0; i < e.size; i++) {
+				assertEquals(e.get(i), found.getImage(first + i));
+				assertEquals(e.weights.get(i), found.getWeight(first + i));
+			}
+		}
+	}
+
 	private void compareInverted( FastAccess<InvertedFile> expected, FastAccess<InvertedFile> found ) {
 		assertEquals(expected.size(), found.size());
 		for (int invIdx = 0; invIdx < expected.size(); invIdx++) {
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.wrapper.images;
+
+import boofcv.io.image.SimpleImageSequence;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestPrefetchImageSequence extends BoofStandardJUnit {
+	/**
+	 * Reads every image and makes sure they are returned in order with the correct content
+	 */
+	@Test void readAll() {
+		var source = new DummySequence(10);
+		var alg = new PrefetchImageSequence<>(source, 3);
+
+		int count = 0;
+		while (alg.hasNext()) {
+			GrayU8 image = alg.next();
+			assertEquals(count, alg.getFrameNumber());
+			assertEquals(count, image.get(0, 0));
+			assertEquals(count, (int)(Integer)alg.getGuiImage());
+			assertSame(image, alg.getImage());
+			count++;
+		}
+		assertEquals(10, count);
+		assertEquals(10, alg.getTotalDecoded());
+		assertFalse(alg.hasNext());
+		alg.close();
+		assertTrue(source.closed);
+	}
+
+	/**
+	 * The decoder should not get more than 'prefetch' frames ahead of the consumer
+	 */
+	@Test void backPressure() throws InterruptedException {
+		var source = new DummySequence(20);
+		var alg = new PrefetchImageSequence<>(source, 2);
+
+		assertTrue(alg.hasNext());
+		alg.next();
+		// Give the decoder time to fill up the queue
+		Thread.sleep(200);
+		// Only the frame held by the consumer and the prefetched frames can have been read
+		assertTrue(source.frame + 1 <= 1 + 2, "frame = " + source.frame);
+		assertTrue(alg.getQueuedFrames() <= 2);
+		alg.close();
+	}
+
+	@Test void reset() {
+		var source = new DummySequence(5);
+		var alg = new PrefetchImageSequence<>(source, 2);
+
+		alg.next();
+		alg.next();
+		alg.reset();
+
+		int count = 0;
+		while (alg.hasNext()) {
+			assertEquals(count, alg.next().get(0, 0));
+			count++;
+		}
+		assertEquals(5, count);
+		alg.close();
+	}
+
+	/**
+	 * Exceptions while decoding should be passed to the consumer
+	 */
+	@Test void decodeException() {
+		var source = new DummySequence(5);
+		source.failAt = 2;
+		var alg = new PrefetchImageSequence<>(source, 2);
+
+		alg.next();
+		alg.next();
+		assertThrows(IllegalStateException.class, alg::hasNext);
+		alg.close();
+	}
+
+	/**
+	 * Creates a sequence where the value of each pixel is the frame number
+	 */
+	static class DummySequence implements SimpleImageSequence<GrayU8> {
+		int total;
+		int frame = -1;
+		int failAt = -1;
+		boolean loop;
+		boolean closed;
+		GrayU8 image = new GrayU8(4, 3);
+
+		DummySequence( int total ) {this.total = total;}
+
+		@Override public int getWidth() {return image.width;}
+
+		@Override public int getHeight() {return image.height;}
+
+		@Override public boolean hasNext() {return loop || frame + 1 < total;}
+
+		@Override public GrayU8 next() {
+			frame++;
+			if (frame == failAt)
+				throw new IllegalStateException("Failed");
+			image.data[0] = (byte)frame;
+			return image;
+		}
+
+		@Override public GrayU8 getImage() {return image;}
+
+		@Override public <InternalImage> InternalImage getGuiImage() {return (InternalImage)(Integer)frame;}
+
+		@Override public void close() {closed = true;}
+
+		@Override public int getFrameNumber() {return frame;}
+
+		@Override public void setLoop( boolean loop ) {this.loop = loop;}
+
+		@Override public ImageType<GrayU8> getImageType() {return ImageType.SB_U8;}
+
+		@Override public void reset() {frame = -1;}
+	}
+}
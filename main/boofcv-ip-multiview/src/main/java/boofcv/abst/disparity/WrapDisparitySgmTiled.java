@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.disparity;
+
+import boofcv.alg.disparity.sgm.SgmStereoDisparityTiled;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+
+/**
+ * Wrapper around {@link SgmStereoDisparityTiled} for {@link StereoDisparity}.
+ *
+ * @author Peter Abeles
+ */
+public class WrapDisparitySgmTiled<DI extends ImageGray<DI>> implements StereoDisparity<GrayU8, DI> {
+
+	SgmStereoDisparityTiled<GrayU8> tiled;
+	boolean subpixel;
+
+	public WrapDisparitySgmTiled( SgmStereoDisparityTiled<GrayU8> tiled, boolean subpixel ) {
+		this.tiled = tiled;
+		this.subpixel = subpixel;
+	}
+
+	@Override
+	public void process( GrayU8 imageLeft, GrayU8 imageRight ) {
+		tiled.process(imageLeft, imageRight, subpixel);
+	}
+
+	@Override
+	public DI getDisparity() {
+		if (subpixel) {
+			return (DI)tiled.getDisparitySubpixel();
+		} else {
+			return (DI)tiled.getDisparity();
+		}
+	}
+
+	@Override
+	public int getDisparityMin() {
+		return tiled.getSgm().getDisparityMin();
+	}
+
+	@Override
+	public int getDisparityRange() {
+		return tiled.getSgm().getDisparityRange();
+	}
+
+	@Override
+	public int getInvalidValue() {
+		return tiled.getSgm().getInvalidDisparity();
+	}
+
+	@Override
+	public int getBorderX() {
+		return 0;
+	}
+
+	@Override
+	public int getBorderY() {
+		return 0;
+	}
+
+	@Override
+	public ImageType<GrayU8> getInputType() {
+		return ImageType.SB_U8;
+	}
+
+	@Override
+	public Class<DI> getDisparityType() {
+		return (Class)(subpixel ? GrayF32.class : GrayU8.class);
+	}
+
+	public SgmStereoDisparityTiled<GrayU8> getAlgorithm() {
+		return tiled;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2020, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -18,6 +18,7 @@
 
 package boofcv.alg.disparity.sgm;
 
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.*;
 
 /**
@@ -66,28 +67,40 @@ public abstract class SgmStereoDisparity<T extends ImageBase<T>, C extends Image
 		dst.reshape(src);
 		Planar<GrayU16> aggregatedYXD = aggregation.getAggregated();
 
-		for (int y = 0; y < aggregatedYXD.getNumBands(); y++) {
-			GrayU16 costXD = aggregatedYXD.getBand(y);
-			for (int x = 0; x < disparityMin; x++) {
-				dst.unsafe_set(x, y, disparityRange); // make as invalid
+		// Each row is independent of the others
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopFor(0, aggregatedYXD.getNumBands(), y ->
+					subpixelRow(y, aggregatedYXD.getBand(y), src, dst));
+		} else {
+			for (int y = 0; y < aggregatedYXD.getNumBands(); y++) {
+				subpixelRow(y, aggregatedYXD.getBand(y), src, dst);
 			}
-			for (int x = disparityMin; x < costXD.height; x++) {
-				int localMaxRange = helper.localDisparityRangeLeft(x);
-				int d = src.unsafe_get(x, y);
-				float subpixel;
-				if (d > 0 && d < localMaxRange - 1) {
-					int adjX = x - disparityMin; // see how cost tensor is defined
-					int c0 = costXD.unsafe_get(d - 1, adjX);
-					int c1 = costXD.unsafe_get(d, adjX);
-					int c2 = costXD.unsafe_get(d + 1, adjX);
-
-					float offset = (float)(c0 - c2)/(float)(2*(c0 - 2*c1 + c2));
-					subpixel = d + offset;
-				} else {
-					subpixel = d;
-				}
-				dst.unsafe_set(x, y, subpixel);
+		}
+	}
+
+	/**
+	 * Computes sub-pixel disparity for a single row by fitting a parabola to the aggregated cost
+	 */
+	void subpixelRow( int y, GrayU16 costXD, GrayU8 src, GrayF32 dst ) {
+		for (int x = 0; x < disparityMin; x++) {
+			dst.unsafe_set(x, y, disparityRange); // make as invalid
+		}
+		for (int x = disparityMin; x < costXD.height; x++) {
+			int localMaxRange = helper.localDisparityRangeLeft(x);
+			int d = src.unsafe_get(x, y);
+			float subpixel;
+			if (d > 0 && d < localMaxRange - 1) {
+				int adjX = x - disparityMin; // see how cost tensor is defined
+				int c0 = costXD.unsafe_get(d - 1, adjX);
+				int c1 = costXD.unsafe_get(d, adjX);
+				int c2 = costXD.unsafe_get(d + 1, adjX);
+
+				float offset = (float)(c0 - c2)/(float)(2*(c0 - 2*c1 + c2));
+				subpixel = d + offset;
+			} else {
+				subpixel = d;
 			}
+			dst.unsafe_set(x, y, subpixel);
 		}
 	}
 
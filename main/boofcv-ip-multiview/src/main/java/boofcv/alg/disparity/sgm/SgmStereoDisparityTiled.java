@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.disparity.sgm;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * Computes SGM disparity while keeping memory bounded by processing the image in overlapping horizontal strips.
+ * The cost and aggregated cost tensors in {@link SgmStereoDisparity} require 4*width*height*range bytes, which
+ * for large images can be several GB. Here the strip height is selected so that the two tensors fit inside
+ * the specified memory budget. Each strip is extended above and below by {@link #overlap} rows which are
+ * processed but discarded when the results are stitched together. This way the paths which go along the
+ * y-axis have had time to accumulate cost before reaching the rows which are kept.
+ * </p>
+ *
+ * <p>
+ * If the entire image fits inside the budget then it is processed in a single pass and the results are identical
+ * to calling {@link SgmStereoDisparity} directly.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SgmStereoDisparityTiled<T extends ImageBase<T>> {
+	/** The SGM algorithm which is applied to each strip */
+	@Getter final SgmStereoDisparity<T, ?> sgm;
+
+	/**
+	 * Maximum number of bytes the cost and aggregated cost tensors can use. If &le; 0 then there is no limit
+	 * and the image is processed all at once.
+	 */
+	@Getter @Setter long memoryBudget = 0;
+
+	/** Number of rows a strip is extended above and below by. These rows are not saved. */
+	@Getter @Setter int overlap = 32;
+
+	/** Number of strips the image was split into in the most recent call to process */
+	@Getter int stripCount;
+
+	// Storage for the found disparity across the entire image
+	@Getter final GrayU8 disparity = new GrayU8(1, 1);
+	// Storage for sub-pixel disparity. Only computed if requested
+	@Getter final GrayF32 disparitySubpixel = new GrayF32(1, 1);
+
+	// Copies of the input images inside a strip
+	final T stripLeft;
+	final T stripRight;
+	// Sub-pixel disparity inside a strip
+	final GrayF32 stripSubpixel = new GrayF32(1, 1);
+
+	public SgmStereoDisparityTiled( SgmStereoDisparity<T, ?> sgm, T imageTemplate ) {
+		this.sgm = sgm;
+		this.stripLeft = imageTemplate.createNew(1, 1);
+		this.stripRight = imageTemplate.createNew(1, 1);
+	}
+
+	/**
+	 * Computes disparity one strip at a time
+	 *
+	 * @param left (Input) left rectified stereo image
+	 * @param right (Input) right rectified stereo image
+	 * @param subpixel If true then sub-pixel disparity will also be computed
+	 */
+	public void process( T left, T right, boolean subpixel ) {
+		InputSanityCheck.checkSameShape(left, right);
+		disparity.reshape(left.width, left.height);
+		if (subpixel)
+			disparitySubpixel.reshape(left.width, left.height);
+
+		int stripHeight = selectStripHeight(left.width, left.height);
+
+		// The entire image can be processed at once, so just do that
+		if (stripHeight >= left.height) {
+			stripCount = 1;
+			sgm.process(left, right);
+			disparity.setTo(sgm.getDisparity());
+			if (subpixel)
+				sgm.subpixel(sgm.getDisparity(), disparitySubpixel);
+			return;
+		}
+
+		stripCount = 0;
+		for (int y0 = 0; y0 < left.height; y0 += stripHeight) {
+			int y1 = Math.min(left.height, y0 + stripHeight);
+
+			// Rows which are processed. Includes the overlap with neighboring strips
+			int outerY0 = Math.max(0, y0 - overlap);
+			int outerY1 = Math.min(left.height, y1 + overlap);
+
+			stripLeft.setTo(left.subimage(0, outerY0, left.width, outerY1));
+			stripRight.setTo(right.subimage(0, outerY0, right.width, outerY1));
+			sgm.process(stripLeft, stripRight);
+
+			// Copy the inner rows into the output image
+			int offset = y0 - outerY0;
+			GrayU8 found = sgm.getDisparity();
+			disparity.subimage(0, y0, left.width, y1).setTo(found.subimage(0, offset, left.width, offset + y1 - y0));
+
+			if (subpixel) {
+				sgm.subpixel(found, stripSubpixel);
+				GrayF32 foundSubpixel = stripSubpixel.subimage(0, offset, left.width, offset + y1 - y0);
+				disparitySubpixel.subimage(0, y0, left.width, y1).setTo(foundSubpixel);
+			}
+			stripCount++;
+		}
+	}
+
+	/**
+	 * Selects the number of rows in each strip, not including the overlap, so that the cost tensors are
+	 * within the memory budget.
+	 *
+	 * @return Number of rows in a strip. If &ge; height then the image can be processed in a single pass.
+	 */
+	int selectStripHeight( int width, int height ) {
+		if (memoryBudget <= 0)
+			return height;
+
+		// Cost and aggregated cost are both 16-bit tensors with shape (Y,X,D)
+		long bytesPerRow = 4L*width*sgm.getDisparityRange();
+		long rows = memoryBudget/bytesPerRow;
+		if (rows >= height)
+			return height;
+
+		long innerRows = rows - 2L*overlap;
+		if (innerRows < 1)
+			throw new IllegalArgumentException("Memory budget is too small. Must be able to fit at least " +
+					(1 + 2*overlap) + " rows, which requires " + bytesPerRow*(1 + 2*overlap) + " bytes");
+		return (int)innerRows;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -20,6 +20,7 @@ package boofcv.alg.disparity.sgm.cost;
 
 import boofcv.alg.InputSanityCheck;
 import boofcv.alg.disparity.sgm.SgmDisparityCost;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayU16;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.Planar;
@@ -27,13 +28,14 @@ import boofcv.struct.image.Planar;
 /**
  * Base class for computing SGM cost using single pixel error metrics. It handles iterating through all possible
  * disparity values for all pixels in the image and any other book keeping. Only the score needs to be implemented.
+ * Each row in the cost tensor is independent of the others, so rows are computed concurrently when
+ * {@link BoofConcurrency#USE_CONCURRENT} is true.
  *
  * @author Peter Abeles
  */
 @SuppressWarnings({"NullAway.Init"})
 public abstract class SgmCostBase<T extends ImageBase<T>> implements SgmDisparityCost<T> {
 	protected T left, right;
-	protected GrayU16 costXD;
 
 	protected int disparityMin;
 	protected int disparityRange;
@@ -55,29 +57,50 @@ public abstract class SgmCostBase<T extends ImageBase<T>> implements SgmDisparit
 		// Declare the "tensor" with shape (lengthY,lengthX,lengthD)
 		costYXD.reshape(/* width= */disparityRange, /* height= */left.width, /* numberOfBands= */left.height);
 
-		for (int y = 0; y < left.height; y++) {
-			costXD = costYXD.getBand(y);
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopFor(0, left.height, y -> processRow(y, costYXD.getBand(y)));
+		} else {
+			for (int y = 0; y < left.height; y++) {
+				processRow(y, costYXD.getBand(y));
+			}
+		}
+	}
 
-			int idxLeft = left.startIndex + y*left.stride + disparityMin;
+	/**
+	 * Computes the cost for every pixel and disparity in a single row
+	 *
+	 * @param y Which row in the image is being processed
+	 * @param costXD Storage for the cost in this row
+	 */
+	protected void processRow( int y, GrayU16 costXD ) {
+		int idxLeft = left.startIndex + y*left.stride + disparityMin;
 
-			for (int x = disparityMin; x < left.width; x++, idxLeft++) {
-				int idxOut = costXD.startIndex + (x - disparityMin)*costYXD.stride;
+		for (int x = disparityMin; x < left.width; x++, idxLeft++) {
+			int idxOut = costXD.startIndex + (x - disparityMin)*costXD.stride;
 
-				// The local limits on ranges that can be examined
-				int localRange = Math.min(disparityRange, x - disparityMin + 1);
+			// The local limits on ranges that can be examined
+			int localRange = Math.min(disparityRange, x - disparityMin + 1);
 
-				// start reading the right image at the smallest disparity then increase disparity size
-				int idxRight = right.startIndex + y*right.stride + x - disparityMin;
+			// start reading the right image at the smallest disparity then increase disparity size
+			int idxRight = right.startIndex + y*right.stride + x - disparityMin;
 
-				computeDisparityErrors(idxLeft, idxRight, idxOut, localRange);
+			computeDisparityErrors(idxLeft, idxRight, costXD, idxOut, localRange);
 
-				// Fill in the disparity values outside the image with max cost
-				for (int d = localRange; d < disparityRange; d++) {
-					costXD.data[idxOut + d] = SgmDisparityCost.MAX_COST;
-				}
+			// Fill in the disparity values outside the image with max cost
+			for (int d = localRange; d < disparityRange; d++) {
+				costXD.data[idxOut + d] = SgmDisparityCost.MAX_COST;
 			}
 		}
 	}
 
-	protected abstract void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int localRange );
+	/**
+	 * Computes the cost for all disparities at a single pixel
+	 *
+	 * @param idxLeft Index of the pixel in the left image
+	 * @param idxRight Index of the pixel in the right image at the smallest disparity
+	 * @param costXD Storage for cost in the row being processed
+	 * @param idxOut Index in costXD where the cost at disparity of zero is written to
+	 * @param localRange Number of disparities which can be considered at this pixel
+	 */
+	protected abstract void computeDisparityErrors( int idxLeft, int idxRight, GrayU16 costXD, int idxOut, int localRange );
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2020, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -22,6 +22,7 @@ import boofcv.alg.descriptor.DescriptorDistance;
 import boofcv.alg.disparity.sgm.SgmDisparityCost;
 import boofcv.struct.image.GrayS32;
 import boofcv.struct.image.GrayS64;
+import boofcv.struct.image.GrayU16;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
 
@@ -33,7 +34,7 @@ import boofcv.struct.image.ImageBase;
 public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase<T> {
 	public static class U8 extends SgmCostHamming<GrayU8> {
 		@Override
-		protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+		protected void computeDisparityErrors( int idxLeft, int idxRight, GrayU16 costXD, int idxOut, int disparityRange ) {
 			int valLeft = left.data[idxLeft] & 0xFF;
 			for (int d = 0; d < disparityRange; d++) {
 				int valRight = right.data[idxRight--] & 0xFF;
@@ -44,7 +45,7 @@ public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase
 
 	public static class S32 extends SgmCostHamming<GrayS32> {
 		@Override
-		protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+		protected void computeDisparityErrors( int idxLeft, int idxRight, GrayU16 costXD, int idxOut, int disparityRange ) {
 			int valLeft = left.data[idxLeft];
 			for (int d = 0; d < disparityRange; d++) {
 				int valRight = right.data[idxRight--];
@@ -55,7 +56,7 @@ public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase
 
 	public static class S64 extends SgmCostHamming<GrayS64> {
 		@Override
-		protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+		protected void computeDisparityErrors( int idxLeft, int idxRight, GrayU16 costXD, int idxOut, int disparityRange ) {
 			long valLeft = left.data[idxLeft];
 			for (int d = 0; d < disparityRange; d++) {
 				long valRight = right.data[idxRight--];
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2020, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -18,6 +18,7 @@
 
 package boofcv.alg.disparity.sgm.cost;
 
+import boofcv.struct.image.GrayU16;
 import boofcv.struct.image.GrayU8;
 
 /**
@@ -37,7 +38,7 @@ public class SgmMutualInformation_U8 extends SgmCostBase<GrayU8> {
 	}
 
 	@Override
-	protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+	protected void computeDisparityErrors( int idxLeft, int idxRight, GrayU16 costXD, int idxOut, int disparityRange ) {
 		int valLeft = left.data[idxLeft] & 0xFF;
 		for (int d = 0; d < disparityRange; d++) {
 			int valRight = right.data[idxRight--] & 0xFF;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -75,4 +75,34 @@ public class LensDistortionOps {
 
 		return distort;
 	}
+
+	/**
+	 * Same as {@link #changeCameraModel(AdjustmentType, BorderType, CameraPinhole, CameraPinhole, CameraPinhole, ImageType)}
+	 * but the remap table is looked up in a cache, so that it's only computed once for all the distortions which
+	 * share the same camera models. The output image is assumed to have the shape specified in 'desired'.
+	 *
+	 * @param type How it should modify the image model to ensure visibility of pixels.
+	 * @param borderType How the image border is handled
+	 * @param original The original camera model
+	 * @param desired The desired camera model
+	 * @param modified (Optional) The desired camera model after being rescaled. Can be null.
+	 * @param imageType Type of image.
+	 * @param cache Cache of remap tables that's shared between the distortions
+	 * @return Image distortion from original camera model to the modified one.
+	 */
+	public static <T extends ImageBase<T>, O extends CameraPinhole, D extends CameraPinhole>
+	ImageDistort<T, T> changeCameraModel( AdjustmentType type, BorderType borderType,
+										  O original,
+										  D desired,
+										  @Nullable D modified,
+										  ImageType<T> imageType,
+										  RemapTableCache cache ) {
+		ImageDistort<T, T> distort = changeCameraModel(type, borderType, original, desired, modified, imageType);
+
+		// The table only depends on the transform and the image shape
+		RemapTableCache.Key key = RemapTableCache.createKey("changeCameraModel", type, original, desired);
+		cache.setModel(distort, key, desired.width, desired.height, distort.getModel());
+
+		return distort;
+	}
 }
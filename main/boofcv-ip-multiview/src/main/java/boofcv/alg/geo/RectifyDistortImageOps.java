@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -20,6 +20,7 @@ package boofcv.alg.geo;
 
 import boofcv.alg.distort.ImageDistort;
 import boofcv.alg.distort.PointTransformHomography_F32;
+import boofcv.alg.distort.RemapTableCache;
 import boofcv.alg.interpolate.InterpolatePixel;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.interpolate.InterpolationType;
@@ -112,6 +113,30 @@ public class RectifyDistortImageOps {
 		return ret;
 	}
 
+	/**
+	 * Same as {@link #rectifyImage(CameraPinholeBrown, FMatrixRMaj, BorderType, ImageType)} but the remap table
+	 * is looked up in a cache, so that it's only computed once for all the cameras and streams which share
+	 * the same intrinsics and rectification. The rectified image is assumed to have the same shape as the original
+	 * image, as specified in 'param'.
+	 *
+	 * @param param Intrinsic parameters.
+	 * @param rectify Transform for rectifying the image.
+	 * @param imageType Type of image the transform is to be applied to.
+	 * @param cache Cache of remap tables that's shared between the distortions
+	 * @return ImageDistort for rectifying the image.
+	 */
+	public static <T extends ImageBase<T>> ImageDistort<T,T>
+	rectifyImage( CameraPinholeBrown param, FMatrixRMaj rectify, BorderType borderType, ImageType<T> imageType,
+				  RemapTableCache cache ) {
+		ImageDistort<T,T> ret = rectifyImage(param, rectify, borderType, imageType);
+
+		// The table only depends on the transform and the image shape
+		RemapTableCache.Key key = RemapTableCache.createKey("rectify", param, rectify);
+		cache.setModel(ret, key, param.width, param.height, ret.getModel());
+
+		return ret;
+	}
+
 	/**
 	 * Applies a mask which indicates which pixels had mappings to the unrectified image. Pixels which were
 	 * outside of the original image will be set to 255. The border is extended because the sharp edge
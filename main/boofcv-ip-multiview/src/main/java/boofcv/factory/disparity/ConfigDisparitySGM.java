@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -76,6 +76,16 @@ public class ConfigDisparitySGM implements Configuration {
 	 * error to prefer a region with lots of pixels outside the image border.
 	 */
 	public BorderType border = BorderType.REFLECT;
+	/**
+	 * Maximum number of bytes that the cost tensors can use. If processing the whole image would exceed this
+	 * then it's processed in overlapping horizontal strips. If &le; 0 then there is no limit.
+	 */
+	public long memoryBudget = 0;
+	/**
+	 * When processing in strips, this is the number of rows strips overlap by. Larger values reduce artifacts
+	 * at strip boundaries but require more computation.
+	 */
+	public int stripOverlap = 32;
 
 	public ConfigDisparitySGM setTo( ConfigDisparitySGM src ) {
 		this.disparityMin = src.disparityMin;
@@ -93,6 +103,8 @@ public class ConfigDisparitySGM implements Configuration {
 		this.configHMI.setTo(src.configHMI);
 		this.configBlockMatch.setTo(src.configBlockMatch);
 		this.border = src.border;
+		this.memoryBudget = src.memoryBudget;
+		this.stripOverlap = src.stripOverlap;
 		return this;
 	}
 
@@ -131,6 +143,8 @@ public class ConfigDisparitySGM implements Configuration {
 			throw new IllegalArgumentException("Invalid value for penaltySmallChange.");
 		if (disparityMin < 0)
 			throw new IllegalArgumentException("Minimum disparity must be >= 0");
+		if (stripOverlap < 0)
+			throw new IllegalArgumentException("Strip overlap must be >= 0");
 		configBlockMatch.checkValidity();
 	}
 
@@ -27,6 +27,7 @@ import boofcv.alg.disparity.block.score.*;
 import boofcv.alg.disparity.block.select.SelectSparseCorrelationSubpixel;
 import boofcv.alg.disparity.block.select.SelectSparseCorrelationWithChecksWta_F32;
 import boofcv.alg.disparity.sgm.SgmStereoDisparity;
+import boofcv.alg.disparity.sgm.SgmStereoDisparityTiled;
 import boofcv.alg.segmentation.cc.ConnectedSpeckleFiller;
 import boofcv.alg.segmentation.cc.ConnectedTwoRowSpeckleFiller_F32;
 import boofcv.alg.segmentation.cc.ConnectedTwoRowSpeckleFiller_U8;
@@ -369,6 +370,12 @@ public class FactoryStereoDisparity {
 
 		if (imageType == GrayU8.class) {
 			SgmStereoDisparity alg = FactoryStereoDisparityAlgs.createSgm(config);
+			if (config.memoryBudget > 0) {
+				var tiled = new SgmStereoDisparityTiled<GrayU8>(alg, new GrayU8(1, 1));
+				tiled.setMemoryBudget(config.memoryBudget);
+				tiled.setOverlap(config.stripOverlap);
+				return (StereoDisparity)new WrapDisparitySgmTiled(tiled, config.subpixel);
+			}
 			return (StereoDisparity)new WrapDisparitySgm(alg, config.subpixel);
 		} else {
 			throw new IllegalArgumentException("Only U8 input supported");
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -18,6 +18,9 @@
 
 package boofcv.alg.disparity.sgm;
 
+import boofcv.BoofTesting;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageGray;
@@ -63,6 +66,31 @@ public abstract class GenericSgmStereoDisparityChecks<T extends ImageGray<T>, C
 		}
 	}
 
+	/**
+	 * Sub-pixel disparity should be the same with and without concurrency
+	 */
+	@Test void subpixel_concurrent() {
+		int rangeD = 10;
+		renderStereoRandom(0, 255, 4, rangeD);
+
+		SgmStereoDisparity<T, C> alg = createAlgorithm();
+		alg.setDisparityMin(2);
+		alg.setDisparityRange(rangeD);
+		alg.process(left, right);
+
+		var expected = new GrayF32(1, 1);
+		var found = new GrayF32(1, 1);
+		BoofConcurrency.USE_CONCURRENT = false;
+		try {
+			alg.subpixel(alg.getDisparity(), expected);
+		} finally {
+			BoofConcurrency.USE_CONCURRENT = true;
+		}
+		alg.subpixel(alg.getDisparity(), found);
+
+		BoofTesting.assertEquals(expected, found, 0.0);
+	}
+
 	/**
 	 * Adjust the disparity search and see if it succeeds and fails when it should
 	 */
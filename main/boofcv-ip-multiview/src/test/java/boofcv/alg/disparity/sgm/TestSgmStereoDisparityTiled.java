@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.disparity.sgm;
+
+import boofcv.BoofTesting;
+import boofcv.abst.filter.FilterImageInterface;
+import boofcv.alg.disparity.sgm.cost.SgmCostHamming;
+import boofcv.factory.transform.census.FactoryCensusTransform;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.factory.transform.census.CensusVariants.BLOCK_3_3;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmStereoDisparityTiled extends CommonSgmChecks<GrayU8> {
+	int rangeD = 12;
+
+	TestSgmStereoDisparityTiled() {
+		super(70, 90, ImageType.SB_U8);
+	}
+
+	SgmStereoDisparity<GrayU8, GrayU8> createSgm() {
+		FilterImageInterface censusTran = FactoryCensusTransform.variant(BLOCK_3_3, true, GrayU8.class);
+		SgmStereoDisparity<GrayU8, GrayU8> sgm =
+				new SgmStereoDisparityCensus(censusTran, new SgmCostHamming.U8(), new SgmDisparitySelector());
+		sgm.setDisparityMin(0);
+		sgm.setDisparityRange(rangeD);
+		return sgm;
+	}
+
+	/**
+	 * If there's no memory limit the results should be identical to processing the whole image
+	 */
+	@Test void noBudget_identical() {
+		renderStereoRandom(0, 255, 5, rangeD);
+
+		SgmStereoDisparity<GrayU8, GrayU8> sgm = createSgm();
+		sgm.process(left, right);
+		GrayU8 expected = sgm.getDisparity().clone();
+		var expectedSub = new GrayF32(1, 1);
+		sgm.subpixel(expected, expectedSub);
+
+		var alg = new SgmStereoDisparityTiled<>(createSgm(), new GrayU8(1, 1));
+		alg.process(left, right, true);
+
+		assertEquals(1, alg.getStripCount());
+		BoofTesting.assertEquals(expected, alg.getDisparity(), 0);
+		BoofTesting.assertEquals(expectedSub, alg.getDisparitySubpixel(), 0.0);
+	}
+
+	/**
+	 * Force it to process the image in strips. The solution should be almost the same as the full image
+	 */
+	@Test void strips() {
+		renderStereoRandom(0, 255, 5, rangeD);
+
+		SgmStereoDisparity<GrayU8, GrayU8> sgm = createSgm();
+		sgm.process(left, right);
+		GrayU8 expected = sgm.getDisparity();
+
+		var alg = new SgmStereoDisparityTiled<>(createSgm(), new GrayU8(1, 1));
+		alg.setOverlap(5);
+		// enough for 30 rows, 20 of which are inside the strip
+		alg.setMemoryBudget(4L*width*rangeD*30);
+		alg.process(left, right, true);
+
+		assertEquals(5, alg.getStripCount());
+		GrayU8 found = alg.getDisparity();
+		assertEquals(width, found.width);
+		assertEquals(height, found.height);
+		assertEquals(width, alg.getDisparitySubpixel().width);
+		assertEquals(height, alg.getDisparitySubpixel().height);
+
+		int matched = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (expected.get(x, y) == found.get(x, y))
+					matched++;
+			}
+		}
+		assertTrue(matched >= width*height*0.95, "matched = " + matched);
+	}
+
+	@Test void selectStripHeight() {
+		var alg = new SgmStereoDisparityTiled<>(createSgm(), new GrayU8(1, 1));
+		alg.setOverlap(5);
+
+		// no limit
+		assertEquals(height, alg.selectStripHeight(width, height));
+
+		// Enough memory for everything
+		alg.setMemoryBudget(4L*width*rangeD*height);
+		assertEquals(height, alg.selectStripHeight(width, height));
+
+		// Overlap is removed from the number of rows
+		alg.setMemoryBudget(4L*width*rangeD*30);
+		assertEquals(20, alg.selectStripHeight(width, height));
+
+		// Not enough to process even a single row
+		alg.setMemoryBudget(4L*width*rangeD*10);
+		assertThrows(IllegalArgumentException.class, () -> alg.selectStripHeight(width, height));
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,6 +21,7 @@ package boofcv.alg.disparity.sgm.cost;
 import boofcv.BoofTesting;
 import boofcv.alg.disparity.sgm.SgmDisparityCost;
 import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayU16;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
@@ -94,6 +95,29 @@ abstract class ChecksSgmDisparityCost<T extends ImageGray<T>> extends BoofStanda
 		BoofTesting.assertEquals(cost1, cost2, 0);
 	}
 
+	/**
+	 * Compares the results when computed with and without concurrency
+	 */
+	@Test
+	void compareConcurrent() {
+		fillRandom(5);
+
+		SgmDisparityCost<T> alg = createAlg();
+		Planar<GrayU16> expected = new Planar<>(GrayU16.class, 1, 1, 1);
+		Planar<GrayU16> found = new Planar<>(GrayU16.class, 1, 1, 1);
+		alg.configure(2, 14);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		try {
+			alg.process(left, right, expected);
+		} finally {
+			BoofConcurrency.USE_CONCURRENT = true;
+		}
+		alg.process(left, right, found);
+
+		BoofTesting.assertEquals(expected, found, 0);
+	}
+
 	private void disparityBounds( int disparity, int minDisparity, int disparityRange, boolean shouldSucceed ) {
 
 		// Set each image to a gradient that has a simple known solution
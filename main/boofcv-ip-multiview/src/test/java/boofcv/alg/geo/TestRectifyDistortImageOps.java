@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -18,11 +18,53 @@
 
 package boofcv.alg.geo;
 
+import boofcv.BoofTesting;
+import boofcv.alg.distort.ImageDistort;
+import boofcv.alg.distort.ImageDistortCache_SB;
+import boofcv.alg.distort.RemapTableCache;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
 import boofcv.testing.BoofStandardJUnit;
+import org.ejml.data.FMatrixRMaj;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * @author Peter Abeles
  */
 public class TestRectifyDistortImageOps extends BoofStandardJUnit {
+	/**
+	 * Distortions with the same camera and rectification should share a single remap table and produce the
+	 * same results as when there is no cache
+	 */
+	@Test void rectifyImage_cache() {
+		var param = new CameraPinholeBrown(300, 310, 0, 30, 25, 60, 50).fsetRadial(0.05, -0.01);
+		var rectify = new FMatrixRMaj(new float[][]{{1.1f, 0.01f, -2}, {0.02f, 0.95f, 1}, {0, 0, 1}});
+		ImageType<GrayF32> imageType = ImageType.SB_F32;
+
+		var cache = new RemapTableCache(1_000_000);
+		ImageDistort<GrayF32, GrayF32> expected = RectifyDistortImageOps.rectifyImage(param, rectify, BorderType.ZERO, imageType);
+		ImageDistort<GrayF32, GrayF32> foundA = RectifyDistortImageOps.rectifyImage(param, rectify, BorderType.ZERO, imageType, cache);
+		ImageDistort<GrayF32, GrayF32> foundB = RectifyDistortImageOps.rectifyImage(param, rectify, BorderType.ZERO, imageType, cache);
+		assertEquals(1, cache.size());
+		assertSame(((ImageDistortCache_SB<?, ?>)foundA).getMap(), ((ImageDistortCache_SB<?, ?>)foundB).getMap());
+
+		var input = new GrayF32(param.width, param.height);
+		GImageMiscOps.fillUniform(input, rand, 0, 100);
+		var outputExpected = input.createSameShape();
+		var outputFound = input.createSameShape();
+		expected.apply(input, outputExpected);
+		foundB.apply(input, outputFound);
+		BoofTesting.assertEquals(outputExpected, outputFound, 0.0);
 
+		// A different rectification should have its own table
+		rectify.set(0, 2, -1.5f);
+		RectifyDistortImageOps.rectifyImage(param, rectify, BorderType.ZERO, imageType, cache);
+		assertEquals(2, cache.size());
+	}
 }
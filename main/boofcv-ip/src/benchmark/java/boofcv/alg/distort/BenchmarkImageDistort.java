@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -26,6 +26,8 @@ import boofcv.struct.border.BorderType;
 import boofcv.struct.distort.PixelTransform;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.ImageType;
+import boofcv.struct.image.InterleavedU8;
+import boofcv.struct.image.Planar;
 import georegression.struct.affine.Affine2D_F32;
 import georegression.struct.point.Point2D_F32;
 import org.openjdk.jmh.annotations.*;
@@ -54,6 +56,16 @@ public class BenchmarkImageDistort {
 	ImageDistort<GrayF32, GrayF32> bilinear_sb;
 	ImageDistort<GrayF32, GrayF32> bilinear_cache_sb;
 
+	InterleavedU8 inputIL = new InterleavedU8(1, 1, 3);
+	InterleavedU8 outputIL = new InterleavedU8(1, 1, 3);
+	Planar<GrayF32> inputPL = new Planar<>(GrayF32.class, 1, 1, 3);
+	Planar<GrayF32> outputPL = new Planar<>(GrayF32.class, 1, 1, 3);
+
+	ImageDistort<InterleavedU8, InterleavedU8> bilinear_il;
+	ImageDistort<InterleavedU8, InterleavedU8> bilinear_cache_il;
+	ImageDistort<Planar<GrayF32>, Planar<GrayF32>> bilinear_pl;
+	ImageDistort<Planar<GrayF32>, Planar<GrayF32>> bilinear_cache_pl;
+
 	@Setup
 	public void setup() {
 		BoofConcurrency.USE_CONCURRENT = concurrent;
@@ -62,7 +74,14 @@ public class BenchmarkImageDistort {
 		inputF32.reshape(size, size);
 		outputF32.reshape(size, size);
 
+		inputIL.reshape(size, size);
+		outputIL.reshape(size, size);
+		inputPL.reshape(size, size);
+		outputPL.reshape(size, size);
+
 		GImageMiscOps.fillUniform(inputF32, rand, 0, 200);
+		GImageMiscOps.fillUniform(inputIL, rand, 0, 200);
+		GImageMiscOps.fillUniform(inputPL, rand, 0, 200);
 
 		Affine2D_F32 affine = new Affine2D_F32(
 				0.9f, 0.1f, 0.0f,
@@ -77,9 +96,26 @@ public class BenchmarkImageDistort {
 		bilinear_cache_sb = FactoryDistort.distort(true, InterpolationType.BILINEAR, BorderType.EXTENDED,
 				ImageType.single(GrayF32.class), ImageType.single(GrayF32.class));
 
+		ImageType<InterleavedU8> typeIL = ImageType.il(3, InterleavedU8.class);
+		bilinear_il = FactoryDistort.distort(false, InterpolationType.BILINEAR, BorderType.EXTENDED, typeIL, typeIL);
+		bilinear_cache_il = FactoryDistort.distort(true, InterpolationType.BILINEAR, BorderType.EXTENDED, typeIL, typeIL);
+
+		ImageType<Planar<GrayF32>> typePL = ImageType.pl(3, GrayF32.class);
+		bilinear_pl = FactoryDistort.distort(false, InterpolationType.BILINEAR, BorderType.EXTENDED, typePL, typePL);
+		bilinear_cache_pl = FactoryDistort.distort(true, InterpolationType.BILINEAR, BorderType.EXTENDED, typePL, typePL);
+
 		nearest_sb.setModel(tran);
 		bilinear_sb.setModel(tran);
 		bilinear_cache_sb.setModel(tran);
+		bilinear_il.setModel(tran);
+		bilinear_cache_il.setModel(tran);
+		bilinear_pl.setModel(tran);
+		bilinear_cache_pl.setModel(tran);
+
+		// Compute the cache here so that it isn't included in the results
+		bilinear_cache_sb.apply(inputF32, outputF32);
+		bilinear_cache_il.apply(inputIL, outputIL);
+		bilinear_cache_pl.apply(inputPL, outputPL);
 	}
 
 	@Benchmark
@@ -96,4 +132,24 @@ public class BenchmarkImageDistort {
 	public void bilinear_cache_F32() {
 		bilinear_cache_sb.apply(inputF32, outputF32, 0, 0, size, size);
 	}
+
+	@Benchmark
+	public void bilinear_IL_U8() {
+		bilinear_il.apply(inputIL, outputIL);
+	}
+
+	@Benchmark
+	public void bilinear_cache_IL_U8() {
+		bilinear_cache_il.apply(inputIL, outputIL);
+	}
+
+	@Benchmark
+	public void bilinear_PL_F32() {
+		bilinear_pl.apply(inputPL, outputPL);
+	}
+
+	@Benchmark
+	public void bilinear_cache_PL_F32() {
+		bilinear_cache_pl.apply(inputPL, outputPL);
+	}
 }
@@ -45,7 +45,7 @@ import java.util.concurrent.TimeUnit;
 @Fork(value=1)
 public class BenchmarkBinaryBlobLabeling {
 	//	@Param({"100", "500", "1000", "5000", "10000"})
-	@Param({"1000"})
+	@Param({"1000", "4000"})
 	public int size;
 
 	private final GrayU8 original = new GrayU8(size, size);
@@ -56,6 +56,10 @@ public class BenchmarkBinaryBlobLabeling {
 	LinearContourLabelChang2004 chang8 = new LinearContourLabelChang2004(ConnectRule.EIGHT);
 	LinearExternalContours external4 = new LinearExternalContours(ConnectRule.FOUR);
 	LinearExternalContours external8 = new LinearExternalContours(ConnectRule.EIGHT);
+	LinearContourLabelChang2004 chang4_MT = new LinearContourLabelChang2004_MT(ConnectRule.FOUR);
+	LinearContourLabelChang2004 chang8_MT = new LinearContourLabelChang2004_MT(ConnectRule.EIGHT);
+	LinearExternalContours external4_MT = new LinearExternalContours_MT(ConnectRule.FOUR);
+	LinearExternalContours external8_MT = new LinearExternalContours_MT(ConnectRule.EIGHT);
 
 	@Setup
 	public void setup() {
@@ -79,6 +83,10 @@ public class BenchmarkBinaryBlobLabeling {
 	@Benchmark public void Chang2004_8() { input.setTo(original); chang8.process(input, output); }
 	@Benchmark public void External_4() { input.setTo(original); external4.process(input, 0, 0); }
 	@Benchmark public void External_8() { input.setTo(original); external8.process(input, 0, 0); }
+	@Benchmark public void Chang2004_MT_4() { input.setTo(original); chang4_MT.process(input, output); }
+	@Benchmark public void Chang2004_MT_8() { input.setTo(original); chang8_MT.process(input, output); }
+	@Benchmark public void External_MT_4() { input.setTo(original); external4_MT.process(input, 0, 0); }
+	@Benchmark public void External_MT_8() { input.setTo(original); external8_MT.process(input, 0, 0); }
 
 	public static void main(String[] args) throws RunnerException {
 		Options opt = new OptionsBuilder()
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -50,6 +50,9 @@ import java.util.concurrent.TimeUnit;
 public class BenchmarkImagePyramids<T extends ImageGray<T>> {
 	static int size = 800;
 
+	@Param({"true", "false"})
+	boolean concurrent;
+
 	@Param({"SB_U8", "SB_F32"})
 	String imageTypeName;
 
@@ -74,7 +77,10 @@ public class BenchmarkImagePyramids<T extends ImageGray<T>> {
 			kernel = FactoryKernelGaussian.gaussian(Kernel1D_S32.class, -1.0, 2);
 		else
 			kernel = FactoryKernelGaussian.gaussian(Kernel1D_F32.class, -1.0, 2);
-		pyramidD = new PyramidDiscreteSampleBlur<>(kernel, 2, ImageType.single(imageType), true, configD);
+		if (concurrent)
+			pyramidD = new PyramidDiscreteSampleBlur_MT<>(kernel, 2, ImageType.single(imageType), true, configD);
+		else
+			pyramidD = new PyramidDiscreteSampleBlur<>(kernel, 2, ImageType.single(imageType), true, configD);
 		pyramidF = FactoryPyramid.scaleSpacePyramid(scalesF, imageType);
 	}
 
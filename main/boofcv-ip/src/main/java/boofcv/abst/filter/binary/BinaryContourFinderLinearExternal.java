@@ -46,8 +46,12 @@ public class BinaryContourFinderLinearExternal implements BinaryContourFinder, B
 
 	DogArray<ContourPacked> contours = new DogArray<>(ContourPacked::new);
 
+	public BinaryContourFinderLinearExternal( LinearExternalContours alg ) {
+		this.alg = alg;
+	}
+
 	public BinaryContourFinderLinearExternal() {
-		this.alg = new LinearExternalContours(ConnectRule.FOUR);
+		this(new LinearExternalContours(ConnectRule.FOUR));
 	}
 
 	@Override
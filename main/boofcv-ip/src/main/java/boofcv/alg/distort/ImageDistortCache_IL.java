@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.alg.interpolate.InterpolatePixelMB;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageInterleaved;
+import georegression.struct.point.Point2D_F32;
+
+/**
+ * Implementation of {@link ImageDistort} for {@link ImageInterleaved} which computes the distortion once
+ * and caches it. The (x,y) src coordinate of each dst pixel is packed into a single float array.
+ * See {@link ImageDistortCache_SB} for more details.
+ *
+ * @author Peter Abeles
+ */
+@SuppressWarnings({"NullAway.Init"})
+public class ImageDistortCache_IL<Input extends ImageInterleaved<Input>, Output extends ImageInterleaved<Output>>
+		implements ImageDistort<Input, Output> {
+
+	protected AssignPixelValue_MB<Output> assigner;
+
+	// size of output image
+	protected int width = -1, height = -1;
+	// Packed (x,y) source pixel coordinate for each pixel in the dst image. index = (y*width + x)*2
+	protected float[] map = new float[0];
+	// true if the map was provided externally and might be used by other instances, so it can't be modified
+	protected boolean mapShared;
+	// sub pixel interpolation
+	protected InterpolatePixelMB<Input> interp;
+
+	// transform
+	protected PixelTransform<Point2D_F32> dstToSrc;
+
+	// crop boundary
+	protected int x0, y0, x1, y1;
+
+	// should it render all pixels in the destination, even ones outside the input image
+	protected boolean renderAll = true;
+	protected Input srcImg;
+	protected Output dstImg;
+
+	protected boolean dirty;
+
+	// storage for interpolated pixel values
+	float[] values = new float[0];
+
+	/**
+	 * Specifies configuration parameters
+	 *
+	 * @param interp Interpolation algorithm
+	 */
+	public ImageDistortCache_IL( AssignPixelValue_MB<Output> assigner,
+								 InterpolatePixelMB<Input> interp ) {
+		this.assigner = assigner;
+		this.interp = interp;
+	}
+
+	@Override
+	public void setModel( PixelTransform<Point2D_F32> dstToSrc ) {
+		this.dirty = true;
+		this.dstToSrc = dstToSrc;
+	}
+
+	/**
+	 * Specifies the model and a map which has already been computed for it. This allows a single map to be
+	 * shared by multiple instances, see {@link RemapTableCache}. The map will not be modified.
+	 *
+	 * @param dstToSrc Pixel coordinate transformation that was used to compute the map
+	 * @param map Packed (x,y) source pixel coordinates. See {@link #getMap()}
+	 * @param width Width of the output image
+	 * @param height Height of the output image
+	 */
+	public void setModel( PixelTransform<Point2D_F32> dstToSrc, float[] map, int width, int height ) {
+		if (map.length < width*height*2)
+			throw new IllegalArgumentException("map is too small for the specified image shape");
+		this.dstToSrc = dstToSrc;
+		this.map = map;
+		this.width = width;
+		this.height = height;
+		this.mapShared = true;
+		this.dirty = false;
+	}
+
+	@Override
+	public void apply( Input srcImg, Output dstImg ) {
+		init(srcImg, dstImg);
+
+		x0 = 0;
+		y0 = 0;
+		x1 = dstImg.width;
+		y1 = dstImg.height;
+
+		if (renderAll)
+			renderAll();
+		else
+			applyOnlyInside();
+	}
+
+	@Override
+	public void apply( Input srcImg, Output dstImg, GrayU8 mask ) {
+		init(srcImg, dstImg);
+		mask.reshape(dstImg);
+
+		x0 = 0;
+		y0 = 0;
+		x1 = dstImg.width;
+		y1 = dstImg.height;
+
+		if (renderAll)
+			renderAll(mask);
+		else
+			applyOnlyInside(mask);
+	}
+
+	@Override
+	public void apply( Input srcImg, Output dstImg, int dstX0, int dstY0, int dstX1, int dstY1 ) {
+		init(srcImg, dstImg);
+
+		// Check that a valid region was specified. If not do nothing
+		if (dstX1 <= dstX0 || dstY1 <= dstY0)
+			return;
+
+		x0 = dstX0;
+		y0 = dstY0;
+		x1 = dstX1;
+		y1 = dstY1;
+
+		if (renderAll)
+			renderAll();
+		else
+			applyOnlyInside();
+	}
+
+	protected void init( Input srcImg, Output dstImg ) {
+		if (dirty || width != dstImg.width || height != dstImg.height) {
+			width = dstImg.width;
+			height = dstImg.height;
+			if (mapShared || map.length != width*height*2)
+				map = new float[width*height*2];
+			mapShared = false;
+			computeMap();
+			dirty = false;
+		}
+
+		this.srcImg = srcImg;
+		this.dstImg = dstImg;
+		if (values.length != srcImg.getNumBands()) {
+			values = new float[srcImg.getNumBands()];
+		}
+		interp.setImage(srcImg);
+		assigner.setImage(dstImg);
+	}
+
+	/**
+	 * Computes the location of every dst pixel in the src image and saves the results in {@link #map}
+	 */
+	protected void computeMap() {
+		var p = new Point2D_F32();
+		int index = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				dstToSrc.compute(x, y, p);
+				map[index++] = p.x;
+				map[index++] = p.y;
+			}
+		}
+	}
+
+	protected void renderAll() {
+		renderAll(y0, y1, interp, values);
+	}
+
+	protected void renderAll( GrayU8 mask ) {
+		renderAll(y0, y1, mask, interp, values);
+	}
+
+	protected void applyOnlyInside() {
+		applyOnlyInside(y0, y1, interp, values);
+	}
+
+	protected void applyOnlyInside( GrayU8 mask ) {
+		applyOnlyInside(y0, y1, mask, interp, values);
+	}
+
+	/**
+	 * Renders rows from y0 to y1. The interpolation and storage for values are passed in so that
+	 * blocks of rows can be processed concurrently.
+	 */
+	protected void renderAll( int y0, int y1, InterpolatePixelMB<Input> interp, float[] values ) {
+		final int numBands = dstImg.numBands;
+		for (int y = y0; y < y1; y++) {
+			int indexDst = dstImg.startIndex + dstImg.stride*y + x0*numBands;
+			int indexMap = (y*width + x0)*2;
+			for (int x = x0; x < x1; x++, indexDst += numBands, indexMap += 2) {
+				interp.get(map[indexMap], map[indexMap + 1], values);
+				assigner.assign(indexDst, values);
+			}
+		}
+	}
+
+	protected void renderAll( int y0, int y1, GrayU8 mask, InterpolatePixelMB<Input> interp, float[] values ) {
+		final int numBands = dstImg.numBands;
+		float maxWidth = srcImg.getWidth() - 1;
+		float maxHeight = srcImg.getHeight() - 1;
+
+		for (int y = y0; y < y1; y++) {
+			int indexDst = dstImg.startIndex + dstImg.stride*y + x0*numBands;
+			int indexMsk = mask.startIndex + mask.stride*y + x0;
+			int indexMap = (y*width + x0)*2;
+
+			for (int x = x0; x < x1; x++, indexDst += numBands, indexMsk++, indexMap += 2) {
+				float sx = map[indexMap];
+				float sy = map[indexMap + 1];
+
+				interp.get(sx, sy, values);
+				assigner.assign(indexDst, values);
+				if (sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight) {
+					mask.data[indexMsk] = 1;
+				} else {
+					mask.data[indexMsk] = 0;
+				}
+			}
+		}
+	}
+
+	protected void applyOnlyInside( int y0, int y1, InterpolatePixelMB<Input> interp, float[] values ) {
+		final int numBands = dstImg.numBands;
+		float maxWidth = srcImg.getWidth() - 1;
+		float maxHeight = srcImg.getHeight() - 1;
+
+		for (int y = y0; y < y1; y++) {
+			int indexDst = dstImg.startIndex + dstImg.stride*y + x0*numBands;
+			int indexMap = (y*width + x0)*2;
+			for (int x = x0; x < x1; x++, indexDst += numBands, indexMap += 2) {
+				float sx = map[indexMap];
+				float sy = map[indexMap + 1];
+
+				if (sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight) {
+					interp.get(sx, sy, values);
+					assigner.assign(indexDst, values);
+				}
+			}
+		}
+	}
+
+	protected void applyOnlyInside( int y0, int y1, GrayU8 mask, InterpolatePixelMB<Input> interp, float[] values ) {
+		final int numBands = dstImg.numBands;
+		float maxWidth = srcImg.getWidth() - 1;
+		float maxHeight = srcImg.getHeight() - 1;
+
+		for (int y = y0; y < y1; y++) {
+			int indexDst = dstImg.startIndex + dstImg.stride*y + x0*numBands;
+			int indexMsk = mask.startIndex + mask.stride*y + x0;
+			int indexMap = (y*width + x0)*2;
+
+			for (int x = x0; x < x1; x++, indexDst += numBands, indexMsk++, indexMap += 2) {
+				float sx = map[indexMap];
+				float sy = map[indexMap + 1];
+
+				if (sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight) {
+					interp.get(sx, sy, values);
+					assigner.assign(indexDst, values);
+					mask.data[indexMsk] = 1;
+				} else {
+					mask.data[indexMsk] = 0;
+				}
+			}
+		}
+	}
+
+	/** Packed (x,y) source pixel coordinates. See {@link #map} */
+	public float[] getMap() {
+		return map;
+	}
+
+	public InterpolatePixelMB<Input> getInterp() {
+		return interp;
+	}
+
+	@Override
+	public void setRenderAll( boolean renderAll ) {
+		this.renderAll = renderAll;
+	}
+
+	@Override
+	public boolean getRenderAll() {
+		return renderAll;
+	}
+
+	@Override
+	public PixelTransform<Point2D_F32> getModel() {
+		return dstToSrc;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.alg.interpolate.InterpolatePixelMB;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageInterleaved;
+import georegression.struct.point.Point2D_F32;
+
+import java.util.ArrayDeque;
+
+/**
+ * Concurrent implementation of {@link ImageDistortCache_IL}. Both the cache and the rendered image are computed
+ * in blocks of rows.
+ *
+ * @author Peter Abeles
+ */
+public class ImageDistortCache_IL_MT<Input extends ImageInterleaved<Input>, Output extends ImageInterleaved<Output>>
+		extends ImageDistortCache_IL<Input, Output> {
+
+	private final ArrayDeque<BlockDistort> queue = new ArrayDeque<>();
+
+	/**
+	 * Specifies configuration parameters
+	 *
+	 * @param interp Interpolation algorithm
+	 */
+	public ImageDistortCache_IL_MT( AssignPixelValue_MB<Output> assigner,
+									InterpolatePixelMB<Input> interp ) {
+		super(assigner, interp);
+	}
+
+	private BlockDistort pop() {
+		synchronized (queue) {
+			if (queue.isEmpty()) {
+				return new BlockDistort();
+			} else {
+				return queue.pop();
+			}
+		}
+	}
+
+	private void recycle( BlockDistort b ) {
+		synchronized (queue) {
+			queue.push(b);
+		}
+	}
+
+	@Override
+	protected void computeMap() {
+		BoofConcurrency.loopBlocks(0, height, ( y0, y1 ) -> {
+			PixelTransform<Point2D_F32> dstToSrc = this.dstToSrc.copyConcurrent();
+			var p = new Point2D_F32();
+			for (int y = y0; y < y1; y++) {
+				int index = y*width*2;
+				for (int x = 0; x < width; x++) {
+					dstToSrc.compute(x, y, p);
+					map[index++] = p.x;
+					map[index++] = p.y;
+				}
+			}
+		});
+	}
+
+	@Override
+	protected void renderAll() {
+		BoofConcurrency.loopBlocks(y0, y1, ( y0, y1 ) -> {
+			BlockDistort b = pop();
+			b.init();
+			renderAll(y0, y1, b.interp, b.values);
+			recycle(b);
+		});
+	}
+
+	@Override
+	protected void renderAll( GrayU8 mask ) {
+		BoofConcurrency.loopBlocks(y0, y1, ( y0, y1 ) -> {
+			BlockDistort b = pop();
+			b.init();
+			renderAll(y0, y1, mask, b.interp, b.values);
+			recycle(b);
+		});
+	}
+
+	@Override
+	protected void applyOnlyInside() {
+		BoofConcurrency.loopBlocks(y0, y1, ( y0, y1 ) -> {
+			BlockDistort b = pop();
+			b.init();
+			applyOnlyInside(y0, y1, b.interp, b.values);
+			recycle(b);
+		});
+	}
+
+	@Override
+	protected void applyOnlyInside( GrayU8 mask ) {
+		BoofConcurrency.loopBlocks(y0, y1, ( y0, y1 ) -> {
+			BlockDistort b = pop();
+			b.init();
+			applyOnlyInside(y0, y1, mask, b.interp, b.values);
+			recycle(b);
+		});
+	}
+
+	private class BlockDistort {
+		InterpolatePixelMB<Input> interp = ImageDistortCache_IL_MT.this.interp.copy();
+		float[] values = new float[0];
+
+		public void init() {
+			interp.setImage(srcImg);
+			if (values.length != srcImg.getNumBands())
+				values = new float[srcImg.getNumBands()];
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -29,6 +29,10 @@ import georegression.struct.point.Point2D_F32;
  * To overcome this problem the distortion is computed once and cached. Then when the image is distorted
  * again the save results are simply recalled and not computed again.
  *
+ * The cache is stored in a single array of floats with the (x,y) coordinate of each pixel packed next to each
+ * other. This uses 8 bytes per pixel, instead of around 30 if each pixel had its own point, and is
+ * much friendlier to the CPU's cache.
+ *
  * @author Peter Abeles
  */
 @SuppressWarnings({"NullAway.Init"})
@@ -39,7 +43,10 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 
 	// size of output image
 	protected int width = -1, height = -1;
-	protected Point2D_F32[] map;
+	// Packed (x,y) source pixel coordinate for each pixel in the dst image. index = (y*width + x)*2
+	protected float[] map = new float[0];
+	// true if the map was provided externally and might be used by other instances, so it can't be modified
+	protected boolean mapShared;
 	// sub pixel interpolation
 	protected InterpolatePixelS<Input> interp;
 
@@ -73,6 +80,26 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 		this.dstToSrc = dstToSrc;
 	}
 
+	/**
+	 * Specifies the model and a map which has already been computed for it. This allows a single map to be
+	 * shared by multiple instances, see {@link RemapTableCache}. The map will not be modified.
+	 *
+	 * @param dstToSrc Pixel coordinate transformation that was used to compute the map
+	 * @param map Packed (x,y) source pixel coordinates. See {@link #getMap()}
+	 * @param width Width of the output image
+	 * @param height Height of the output image
+	 */
+	public void setModel( PixelTransform<Point2D_F32> dstToSrc, float[] map, int width, int height ) {
+		if (map.length < width*height*2)
+			throw new IllegalArgumentException("map is too small for the specified image shape");
+		this.dstToSrc = dstToSrc;
+		this.map = map;
+		this.width = width;
+		this.height = height;
+		this.mapShared = true;
+		this.dirty = false;
+	}
+
 	@Override
 	public void apply( Input srcImg, Output dstImg ) {
 		init(srcImg, dstImg);
@@ -127,20 +154,12 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 		if (dirty || width != dstImg.width || height != dstImg.height) {
 			width = dstImg.width;
 			height = dstImg.height;
-			map = new Point2D_F32[width*height];
-			for (int i = 0; i < map.length; i++) {
-				map[i] = new Point2D_F32();
-			}
-
-			int index = 0;
-			for (int y = 0; y < height; y++) {
-				for (int x = 0; x < width; x++) {
-					dstToSrc.compute(x, y, map[index++]);
-				}
-			}
+			if (mapShared || map.length != width*height*2)
+				map = new float[width*height*2];
+			mapShared = false;
+			computeMap();
 			dirty = false;
-		} else if (dstImg.width != width || dstImg.height != height)
-			throw new IllegalArgumentException("Unexpected dstImg dimension");
+		}
 
 		this.srcImg = srcImg;
 		this.dstImg = dstImg;
@@ -148,16 +167,30 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 		assigner.setImage(dstImg);
 	}
 
+	/**
+	 * Computes the location of every dst pixel in the src image and saves the results in {@link #map}
+	 */
+	protected void computeMap() {
+		var p = new Point2D_F32();
+		int index = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				dstToSrc.compute(x, y, p);
+				map[index++] = p.x;
+				map[index++] = p.y;
+			}
+		}
+	}
+
 	protected void renderAll() {
 
 		// todo TO make this faster first apply inside the region which can process the fast border
 		// then do the slower border thingy
 		for (int y = y0; y < y1; y++) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
-			for (int x = x0; x < x1; x++, indexDst++) {
-				Point2D_F32 s = map[indexDst];
-
-				assigner.assign(indexDst, interp.get(s.x, s.y));
+			int indexMap = (y*width + x0)*2;
+			for (int x = x0; x < x1; x++, indexDst++, indexMap += 2) {
+				assigner.assign(indexDst, interp.get(map[indexMap], map[indexMap + 1]));
 			}
 		}
 	}
@@ -169,12 +202,14 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 		for (int y = y0; y < y1; y++) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
 			int indexMsk = mask.startIndex + mask.stride*y + x0;
+			int indexMap = (y*width + x0)*2;
 
-			for (int x = x0; x < x1; x++, indexDst++, indexMsk++) {
-				Point2D_F32 s = map[indexDst];
+			for (int x = x0; x < x1; x++, indexDst++, indexMsk++, indexMap += 2) {
+				float sx = map[indexMap];
+				float sy = map[indexMap + 1];
 
-				assigner.assign(indexDst, interp.get(s.x, s.y));
-				if (s.x >= 0 && s.x <= maxWidth && s.y >= 0 && s.y <= maxHeight) {
+				assigner.assign(indexDst, interp.get(sx, sy));
+				if (sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight) {
 					mask.data[indexMsk] = 1;
 				} else {
 					mask.data[indexMsk] = 0;
@@ -189,11 +224,13 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 
 		for (int y = y0; y < y1; y++) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
-			for (int x = x0; x < x1; x++, indexDst++) {
-				Point2D_F32 s = map[indexDst];
+			int indexMap = (y*width + x0)*2;
+			for (int x = x0; x < x1; x++, indexDst++, indexMap += 2) {
+				float sx = map[indexMap];
+				float sy = map[indexMap + 1];
 
-				if (s.x >= 0 && s.x <= maxWidth && s.y >= 0 && s.y <= maxHeight) {
-					assigner.assign(indexDst, interp.get(s.x, s.y));
+				if (sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight) {
+					assigner.assign(indexDst, interp.get(sx, sy));
 				}
 			}
 		}
@@ -206,12 +243,14 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 		for (int y = y0; y < y1; y++) {
 			int indexDst = dstImg.startIndex + dstImg.stride*y + x0;
 			int indexMsk = mask.startIndex + mask.stride*y + x0;
+			int indexMap = (y*width + x0)*2;
 
-			for (int x = x0; x < x1; x++, indexDst++, indexMsk++) {
-				Point2D_F32 s = map[indexDst];
+			for (int x = x0; x < x1; x++, indexDst++, indexMsk++, indexMap += 2) {
+				float sx = map[indexMap];
+				float sy = map[indexMap + 1];
 
-				if (s.x >= 0 && s.x <= maxWidth && s.y >= 0 && s.y <= maxHeight) {
-					assigner.assign(indexDst, interp.get(s.x, s.y));
+				if (sx >= 0 && sx <= maxWidth && sy >= 0 && sy <= maxHeight) {
+					assigner.assign(indexDst, interp.get(sx, sy));
 					mask.data[indexMsk] = 1;
 				} else {
 					mask.data[indexMsk] = 0;
@@ -220,7 +259,8 @@ public class ImageDistortCache_SB<Input extends ImageGray<Input>, Output extends
 		}
 	}
 
-	public Point2D_F32[] getMap() {
+	/** Packed (x,y) source pixel coordinates. See {@link #map} */
+	public float[] getMap() {
 		return map;
 	}
 
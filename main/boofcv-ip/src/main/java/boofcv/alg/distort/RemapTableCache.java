@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.alg.distort.impl.ImplImageDistort_PL;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import georegression.struct.point.Point2D_F32;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Thread safe cache of precomputed remap tables used by {@link ImageDistortCache_SB} and {@link ImageDistortCache_IL}.
+ * Computing the per pixel distortion is expensive, e.g. undistorting and rectifying a large image, and when there
+ * are many cameras, or a stream is restarted, the same table would be computed again each time a new
+ * {@link ImageDistort} is created. Instead the table is looked up using a {@link Key} which describes everything
+ * that went into computing it, plus the shape of the output image, and the same array is shared by all the
+ * distortions.
+ * </p>
+ *
+ * <p>
+ * Memory is bounded by discarding the least recently used tables once the total size exceeds
+ * {@link #maxBytes}. Discarded tables are still valid for any distortion which is already using them.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class RemapTableCache {
+	/** Maximum number of bytes used by all the tables. The most recently used table is always kept. */
+	@Getter @Setter long maxBytes;
+
+	// Tables ordered from least to most recently accessed
+	final LinkedHashMap<TableKey, float[]> tables = new LinkedHashMap<>(16, 0.75f, true);
+
+	// Number of bytes used by all the tables
+	long usedBytes;
+
+	/**
+	 * @param maxBytes Maximum number of bytes used by all the tables.
+	 */
+	public RemapTableCache( long maxBytes ) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Looks up the remap table for the key and image shape. If there is no table then one is computed and added
+	 * to the cache.
+	 *
+	 * @param key Describes everything which was used to create 'dstToSrc'
+	 * @param width Width of the output image
+	 * @param height Height of the output image
+	 * @param dstToSrc Transform from output to input pixels. Only used if the table needs to be computed.
+	 * @return Packed (x,y) source pixel coordinate for each output pixel. Do not modify.
+	 */
+	public float[] lookup( Key key, int width, int height, PixelTransform<Point2D_F32> dstToSrc ) {
+		// The shape is part of the key so that a table is never used with an image it wasn't computed for
+		var tableKey = new TableKey(key, width, height);
+		synchronized (tables) {
+			float[] map = tables.get(tableKey);
+			if (map != null)
+				return map;
+		}
+
+		// Compute it outside of the lock so that other tables can be looked up while this one is computed
+		float[] map = computeMap(width, height, dstToSrc);
+
+		synchronized (tables) {
+			// Another thread might have computed the same table while this one was
+			float[] existing = tables.get(tableKey);
+			if (existing != null)
+				return existing;
+
+			tables.put(tableKey, map);
+			usedBytes += 4L*map.length;
+			discardOldTables();
+			return map;
+		}
+	}
+
+	/**
+	 * Sets the model in the distortion using a shared remap table. If the distortion doesn't support
+	 * a precomputed table then the model is set the usual way.
+	 *
+	 * @param distort The distortion which is to be applied
+	 * @param key Describes everything which was used to create 'dstToSrc'
+	 * @param width Width of the output image
+	 * @param height Height of the output image
+	 * @param dstToSrc Transform from output to input pixels.
+	 */
+	public void setModel( ImageDistort<?, ?> distort, Key key, int width, int height,
+						  PixelTransform<Point2D_F32> dstToSrc ) {
+		if (distort instanceof ImplImageDistort_PL) {
+			setModel(((ImplImageDistort_PL<?, ?>)distort).getLayerDistort(), key, width, height, dstToSrc);
+		} else if (distort instanceof ImageDistortCache_SB) {
+			((ImageDistortCache_SB<?, ?>)distort).setModel(dstToSrc, lookup(key, width, height, dstToSrc), width, height);
+		} else if (distort instanceof ImageDistortCache_IL) {
+			((ImageDistortCache_IL<?, ?>)distort).setModel(dstToSrc, lookup(key, width, height, dstToSrc), width, height);
+		} else {
+			distort.setModel(dstToSrc);
+		}
+	}
+
+	/** Number of bytes used by all the tables */
+	public long getUsedBytes() {
+		synchronized (tables) {
+			return usedBytes;
+		}
+	}
+
+	/** Number of tables in the cache */
+	public int size() {
+		synchronized (tables) {
+			return tables.size();
+		}
+	}
+
+	/** Removes all the tables from the cache */
+	public void clear() {
+		synchronized (tables) {
+			tables.clear();
+			usedBytes = 0;
+		}
+	}
+
+	/**
+	 * Removes the least recently used tables until the memory budget is satisfied
+	 */
+	void discardOldTables() {
+		Iterator<Map.Entry<TableKey, float[]>> iter = tables.entrySet().iterator();
+		while (usedBytes > maxBytes && tables.size() > 1) {
+			float[] map = iter.next().getValue();
+			iter.remove();
+			usedBytes -= 4L*map.length;
+		}
+	}
+
+	/**
+	 * Computes the source pixel for every pixel in the output image
+	 */
+	static float[] computeMap( int width, int height, PixelTransform<Point2D_F32> dstToSrc ) {
+		var map = new float[width*height*2];
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, height, ( y0, y1 ) ->
+					computeMap(width, y0, y1, dstToSrc.copyConcurrent(), map));
+		} else {
+			computeMap(width, 0, height, dstToSrc, map);
+		}
+		return map;
+	}
+
+	static void computeMap( int width, int y0, int y1, PixelTransform<Point2D_F32> dstToSrc, float[] map ) {
+		var p = new Point2D_F32();
+		for (int y = y0; y < y1; y++) {
+			int index = y*width*2;
+			for (int x = 0; x < width; x++) {
+				dstToSrc.compute(x, y, p);
+				map[index++] = p.x;
+				map[index++] = p.y;
+			}
+		}
+	}
+
+	/**
+	 * Creates a key from everything which went into creating the transform, e.g. camera models and the rectification
+	 * matrix. Only the pixel transform is stored in a table, so interpolation and border settings don't belong in the
+	 * key, and the image shape is added by {@link #lookup}. The parts are serialized and two keys are equal if the
+	 * serialized bytes are identical.
+	 */
+	public static Key createKey( Serializable... parts ) {
+		var bytes = new ByteArrayOutputStream();
+		try (var output = new ObjectOutputStream(bytes)) {
+			for (Serializable p : parts) {
+				output.writeObject(p);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return new Key(bytes.toByteArray());
+	}
+
+	/**
+	 * Uniquely identifies a remap table. See {@link #createKey}.
+	 */
+	public static class Key {
+		final byte[] data;
+		final int hash;
+
+		Key( byte[] data ) {
+			this.data = data;
+			this.hash = Arrays.hashCode(data);
+		}
+
+		@Override public boolean equals( Object o ) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key key = (Key)o;
+			return hash == key.hash && Arrays.equals(data, key.data);
+		}
+
+		@Override public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * Key for a table in the cache. The same transform can be used with different image shapes.
+	 */
+	static class TableKey {
+		final Key key;
+		final int width, height;
+
+		TableKey( Key key, int width, int height ) {
+			this.key = key;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override public boolean equals( Object o ) {
+			if (this == o) return true;
+			if (!(o instanceof TableKey)) return false;
+			TableKey k = (TableKey)o;
+			return width == k.width && height == k.height && key.equals(k.key);
+		}
+
+		@Override public int hashCode() {
+			return 31*(31*key.hashCode() + width) + height;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -92,6 +92,11 @@ public class ImplImageDistort_PL<Input extends ImageGray<Input>,Output extends I
 		return layerDistort.getRenderAll();
 	}
 
+	/** The distortion which is applied to each band */
+	public ImageDistort<Input,Output> getLayerDistort() {
+		return layerDistort;
+	}
+
 	@Override
 	public PixelTransform<Point2D_F32> getModel() {
 		return layerDistort.getModel();
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.PackedSetsPoint2D_I32;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_I32;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * <p>
+ * Concurrent version of {@link LinearContourLabelChang2004}. The output is identical. Instead of a single pass
+ * where contours are traced as they are encountered, blobs and holes are first found using strip based
+ * connected component labeling, see {@link StripBlobLabeling}. Each blob's external contour is traced starting
+ * from its first pixel and each hole's internal contour is traced from the pixel above the hole's first pixel.
+ * Contours are traced concurrently then added to the output in the same order the single threaded algorithm
+ * would have found them.
+ * </p>
+ *
+ * <p>Input image must only contain values of 0 and 1.</p>
+ *
+ * @author Peter Abeles
+ */
+public class LinearContourLabelChang2004_MT extends LinearContourLabelChang2004 {
+	/** Contours are split into this many blocks for each thread to help with load balancing */
+	@Getter @Setter int blocksPerThread = 4;
+
+	// finds blobs and holes
+	final StripBlobLabeling labeler;
+
+	// binary image with a border of zero.
+	private final GrayU8 border = new GrayU8(1, 1);
+
+	// Pixel (x + y*width) each contour starts at
+	private final DogArray_I32 traceStart = new DogArray_I32();
+	// ID of the blob each contour belongs to. Negative for internal contours
+	private final DogArray_I32 traceLabel = new DogArray_I32();
+
+	// Each block of contours is traced into its own workspace
+	private final GrowArray<TraceWork> workspace = new GrowArray<>(TraceWork::new);
+
+	public LinearContourLabelChang2004_MT( ConnectRule rule ) {
+		super(rule);
+		labeler = new StripBlobLabeling(rule, true);
+	}
+
+	@Override
+	public void process( GrayU8 binary, GrayS32 labeled ) {
+		labeled.reshape(binary.width, binary.height);
+		final int minContourLengthPixels = getMinContourLength().computeNegMaxI(Math.sqrt(binary.width*binary.height));
+		final int maxContourLengthPixels = getMaxContourLength().computeNegMaxI(Math.sqrt(binary.width*binary.height));
+		final int maxInternalLengthPixels = isSaveInternalContours() ? maxContourLengthPixels : 0;
+		final ConnectRule rule = getConnectRule();
+
+		// ensure that the image border pixels are filled with zero by enlarging the image
+		if (border.width != binary.width + 2 || border.height != binary.height + 2) {
+			border.reshape(binary.width + 2, binary.height + 2);
+			ImageMiscOps.fillBorder(border, 0, 1);
+		}
+		BoofConcurrency.loopBlocks(0, binary.height, ( y0, y1 ) -> {
+			for (int y = y0; y < y1; y++) {
+				System.arraycopy(binary.data, binary.startIndex + y*binary.stride,
+						border.data, border.startIndex + (y + 1)*border.stride + 1, binary.width);
+			}
+		});
+
+		// Find the blobs and holes. This also creates the labeled image
+		labeler.setConnectRule(rule);
+		labeler.process(binary, labeled);
+
+		selectContours(binary.width, labeled);
+
+		// Trace the contours. Each block is traced into its own storage so that the order can be preserved
+		int numBlocks = Math.min(traceStart.size, blocksPerThread*BoofConcurrency.getActivePool().getParallelism());
+		workspace.reset();
+		for (int i = 0; i < numBlocks; i++) {
+			workspace.grow();
+		}
+		BoofConcurrency.loopFor(0, numBlocks, block -> {
+			TraceWork work = workspace.get(block);
+			if (work.tracer.getConnectRule() != rule)
+				work.tracer = new ContourTracer(rule);
+			work.points.reset();
+			// Multiple threads will mark the same background pixels in 'border' and write the same labels into
+			// 'labeled'. Since the value written is always the same and one pixels are never modified this is safe
+			work.tracer.setInputs(border, labeled, work.points);
+
+			int idx0 = block*traceStart.size/numBlocks;
+			int idx1 = (block + 1)*traceStart.size/numBlocks;
+			for (int i = idx0; i < idx1; i++) {
+				int label = traceLabel.data[i];
+				boolean external = label > 0;
+				int x = traceStart.data[i]%binary.width;
+				int y = traceStart.data[i]/binary.width;
+
+				work.points.grow();
+				work.tracer.setMaxContourSize(external ? maxContourLengthPixels : maxInternalLengthPixels);
+				work.tracer.trace(Math.abs(label), x + 1, y + 1, external);
+
+				// Keep track that this was a contour, but free up all the points used in defining it
+				if (work.points.sizeOfTail() >= maxContourLengthPixels ||
+						work.points.sizeOfTail() < minContourLengthPixels) {
+					work.points.removeTail();
+					work.points.grow();
+				}
+			}
+		});
+
+		// Create the output in the order the contours would have been found in a single pass
+		PackedSetsPoint2D_I32 packedPoints = getPackedPoints();
+		DogArray<ContourPacked> contours = getContours();
+		packedPoints.reset();
+		contours.reset();
+		int traceIdx = 0;
+		for (int block = 0; block < numBlocks; block++) {
+			TraceWork work = workspace.get(block);
+			for (int set = 0; set < work.points.size(); set++) {
+				int label = traceLabel.data[traceIdx++];
+				if (label > 0) {
+					ContourPacked c = contours.grow();
+					c.reset();
+					c.id = label;
+					c.externalIndex = packedPoints.size();
+				} else {
+					contours.get(-label - 1).internalIndexes.add(packedPoints.size());
+				}
+
+				packedPoints.grow();
+				work.iterator.setup(set);
+				while (work.iterator.hasNext()) {
+					Point2D_I32 p = work.iterator.next();
+					packedPoints.addPointToTail(p.x, p.y);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the list of contours that need to be traced in the order they are encountered in a raster scan.
+	 * A blob's external contour starts at the blob's first pixel. An internal contour starts at the pixel just
+	 * above its hole's first pixel. If both start at the same pixel then the external contour is first.
+	 */
+	void selectContours( int width, GrayS32 labeled ) {
+		DogArray_I32 blobFirst = labeler.getBlobFirstPixel();
+		DogArray_I32 holeFirst = labeler.getHoleFirstPixel();
+
+		traceStart.reset();
+		traceLabel.reset();
+		int blobIdx = 0, holeIdx = 0;
+		while (blobIdx < blobFirst.size || holeIdx < holeFirst.size) {
+			if (holeIdx == holeFirst.size ||
+					(blobIdx < blobFirst.size && blobFirst.data[blobIdx] <= holeFirst.data[holeIdx] - width)) {
+				traceStart.add(blobFirst.data[blobIdx]);
+				traceLabel.add(++blobIdx);
+			} else {
+				int pixel = holeFirst.data[holeIdx++] - width;
+				int x = pixel%width;
+				int y = pixel/width;
+				traceStart.add(pixel);
+				traceLabel.add(-labeled.data[labeled.startIndex + y*labeled.stride + x]);
+			}
+		}
+	}
+
+	@Override
+	public void setConnectRule( ConnectRule rule ) {
+		super.setConnectRule(rule);
+		labeler.setConnectRule(rule);
+	}
+
+	/**
+	 * Storage for tracing a block of contours
+	 */
+	private class TraceWork {
+		ContourTracer tracer = new ContourTracer(getConnectRule());
+		PackedSetsPoint2D_I32 points = new PackedSetsPoint2D_I32(2000);
+		PackedSetsPoint2D_I32.SetIterator iterator = points.createIterator();
+	}
+}
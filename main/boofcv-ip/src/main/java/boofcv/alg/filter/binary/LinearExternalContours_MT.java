@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.PackedSetsPoint2D_I32;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_I32;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray_I32;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent version of {@link LinearExternalContours}. The found contours are identical. Blobs are first found
+ * using strip based connected component labeling, see {@link StripBlobLabeling}, then the external contour of
+ * each blob is traced concurrently starting from its first pixel. Unlike the single threaded version, only
+ * the image border is modified.
+ *
+ * @author Peter Abeles
+ */
+public class LinearExternalContours_MT extends LinearExternalContours {
+	/** Contours are split into this many blocks for each thread to help with load balancing */
+	@Getter @Setter int blocksPerThread = 4;
+
+	// finds the blobs
+	final StripBlobLabeling labeler;
+
+	// Each block of contours is traced into its own workspace
+	private final GrowArray<TraceWork> workspace = new GrowArray<>(TraceWork::new);
+
+	public LinearExternalContours_MT( ConnectRule rule ) {
+		super(rule);
+		labeler = new StripBlobLabeling(rule, false);
+	}
+
+	@Override
+	public void process( GrayU8 binary, int adjustX, int adjustY ) {
+		final int minContourLengthPixels = getMinContourLength().computeNegMaxI(Math.sqrt(binary.width*binary.height));
+		final int maxContourLengthPixels = getMaxContourLength().computeNegMaxI(Math.sqrt(binary.width*binary.height));
+		final ConnectRule rule = getConnectRule();
+		ImageMiscOps.fillBorder(binary, 0, 1);
+
+		labeler.setConnectRule(rule);
+		labeler.process(binary, null);
+		final DogArray_I32 blobFirst = labeler.getBlobFirstPixel();
+
+		// Trace the contours. Each block is traced into its own storage so that the order can be preserved
+		int numBlocks = Math.min(blobFirst.size, blocksPerThread*BoofConcurrency.getActivePool().getParallelism());
+		workspace.reset();
+		for (int i = 0; i < numBlocks; i++) {
+			workspace.grow();
+		}
+		BoofConcurrency.loopFor(0, numBlocks, block -> {
+			TraceWork work = workspace.get(block);
+			if (work.tracer.getRule() != rule)
+				work.tracer = new ExternalTracer(rule);
+			work.points.reset();
+			work.tracer.setInputs(binary, work.points, adjustX, adjustY, maxContourLengthPixels);
+
+			int idx0 = block*blobFirst.size/numBlocks;
+			int idx1 = (block + 1)*blobFirst.size/numBlocks;
+			for (int i = idx0; i < idx1; i++) {
+				work.tracer.trace(blobFirst.data[i]%binary.width, blobFirst.data[i]/binary.width);
+				int N = work.points.sizeOfTail();
+				if (N < minContourLengthPixels || N >= maxContourLengthPixels)
+					work.points.removeTail();
+			}
+		});
+
+		// Combine the results in the same order the single threaded algorithm would have found them
+		PackedSetsPoint2D_I32 storagePoints = getExternalContours();
+		storagePoints.reset();
+		for (int block = 0; block < numBlocks; block++) {
+			TraceWork work = workspace.get(block);
+			for (int set = 0; set < work.points.size(); set++) {
+				storagePoints.grow();
+				work.iterator.setup(set);
+				while (work.iterator.hasNext()) {
+					Point2D_I32 p = work.iterator.next();
+					storagePoints.addPointToTail(p.x, p.y);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void setConnectRule( ConnectRule rule ) {
+		super.setConnectRule(rule);
+		labeler.setConnectRule(rule);
+	}
+
+	/**
+	 * Traces the external contour of a blob. The binary image is not modified so that several threads
+	 * can trace contours at the same time.
+	 */
+	@SuppressWarnings({"NullAway.Init"})
+	static class ExternalTracer extends ContourTracerBase {
+		// storage for contour points
+		PackedSetsPoint2D_I32 storagePoints;
+		// adjusts coordinate from binary to output
+		int adjustX, adjustY;
+		int maxContourLengthPixels;
+
+		public ExternalTracer( ConnectRule rule ) {
+			super(rule);
+		}
+
+		public void setInputs( GrayU8 binary, PackedSetsPoint2D_I32 storagePoints,
+							   int adjustX, int adjustY, int maxContourLengthPixels ) {
+			setInputs(binary);
+			this.storagePoints = storagePoints;
+			this.adjustX = adjustX;
+			this.adjustY = adjustY;
+			this.maxContourLengthPixels = maxContourLengthPixels;
+		}
+
+		/**
+		 * Traces the contour starting from the blob's first pixel in a raster scan
+		 */
+		public void trace( int initialX, int initialY ) {
+			storagePoints.grow();
+			dir = rule == ConnectRule.EIGHT ? 7 : 0;
+			x = initialX;
+			y = initialY;
+			indexBinary = binary.getIndex(x, y);
+			storagePoints.addPointToTail(x - adjustX, y - adjustY);
+
+			// find the next one pixel. handle case where it's an isolated point
+			if (!searchNotZero())
+				return;
+			int initialDir = dir;
+			moveToNext();
+			dir = nextDirection[dir];
+
+			while (true) {
+				searchNotZero();
+				if (x == initialX && y == initialY && dir == initialDir)
+					return;
+				if (storagePoints.sizeOfTail() <= maxContourLengthPixels)
+					storagePoints.addPointToTail(x - adjustX, y - adjustY);
+
+				moveToNext();
+				dir = nextDirection[dir];
+			}
+		}
+
+		/**
+		 * Searches in a circle around the current point in a clock-wise direction for the first not zero pixel.
+		 */
+		private boolean searchNotZero() {
+			for (int i = 0; i < ruleN; i++) {
+				if (binary.data[indexBinary + offsetsBinary[dir]] != 0)
+					return true;
+				dir = (dir + 1)%ruleN;
+			}
+			return false;
+		}
+
+		private void moveToNext() {
+			// move to the next pixel using the precomputed pixel index offsets
+			indexBinary += offsetsBinary[dir];
+			// compute the new pixel coordinate from the binary pixel index
+			int a = indexBinary - binary.startIndex;
+			x = a%binary.stride;
+			y = a/binary.stride;
+		}
+
+		public ConnectRule getRule() {
+			return rule;
+		}
+	}
+
+	/**
+	 * Storage for tracing a block of contours
+	 */
+	private class TraceWork {
+		ExternalTracer tracer = new ExternalTracer(getConnectRule());
+		PackedSetsPoint2D_I32 points = new PackedSetsPoint2D_I32();
+		PackedSetsPoint2D_I32.SetIterator iterator = points.createIterator();
+	}
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p>
+ * Concurrent connected component labeling of a binary image. The image is split into horizontal strips which
+ * are labeled independently using a disjoint set forest. Labels which touch across the seam between two strips
+ * are then merged. Blob IDs are assigned in the order that their first pixel is encountered in a raster scan,
+ * which is the same order used by {@link LinearContourLabelChang2004}. Any pixel which is not zero is
+ * considered to be part of a blob.
+ * </p>
+ *
+ * <p>
+ * Optionally holes can be found too. A hole is a region of zeros which does not touch the image border and is
+ * connected using the opposite rule from the blobs, e.g. 4-connect holes when blobs are 8-connect. A hole is
+ * surrounded by the internal contour of a blob.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+@SuppressWarnings({"NullAway.Init"})
+public class StripBlobLabeling {
+	/** Minimum number of rows in a strip. Strips which are too small will have more seams to merge */
+	@Getter @Setter int minimumStripHeight = 20;
+
+	/** Connectivity rule used by the blobs. Holes use the opposite rule */
+	@Getter @Setter ConnectRule connectRule;
+
+	/** If true then holes will be found as well as blobs */
+	@Getter @Setter boolean findHoles;
+
+	/** Index of the first pixel (x + y*width) in each blob. Blob with ID 'i' is at index 'i-1' */
+	@Getter final DogArray_I32 blobFirstPixel = new DogArray_I32();
+
+	/** Index of the first pixel (x + y*width) in each hole, in raster order */
+	@Getter final DogArray_I32 holeFirstPixel = new DogArray_I32();
+
+	// Provisional label of each pixel. Labels are local to the strip the pixel belongs to
+	final GrayS32 provisional = new GrayS32(1, 1);
+
+	// The strips that the image has been split into
+	final DogArray<Strip> strips = new DogArray<>(Strip::new, Strip::reset);
+
+	// Disjoint set forest for the provisional labels in all the strips. Global label = strip offset + local label
+	final DogArray_I32 parents = new DogArray_I32();
+	// First pixel of each global provisional label
+	final DogArray_I32 firstPixel = new DogArray_I32();
+	// Maps a global provisional label to a blob ID (greater than zero) or -1 - background region index
+	final DogArray_I32 lookup = new DogArray_I32();
+	// First pixel in each background region and if the region touches the image border
+	final DogArray_I32 backgroundFirstPixel = new DogArray_I32();
+	final DogArray_B backgroundOutside = new DogArray_B();
+
+	// Image being processed
+	GrayU8 binary;
+
+	public StripBlobLabeling( ConnectRule connectRule, boolean findHoles ) {
+		this.connectRule = connectRule;
+		this.findHoles = findHoles;
+	}
+
+	/**
+	 * Labels the binary image
+	 *
+	 * @param binary Input binary image. Not modified.
+	 * @param labeled (Output) If not null then the labeled image is written to it. Zero pixels are
+	 * assigned a value of 0 and blob pixels the ID of their blob. Must be the same shape as the binary image.
+	 */
+	public void process( GrayU8 binary, @Nullable GrayS32 labeled ) {
+		this.binary = binary;
+		provisional.reshape(binary.width, binary.height);
+		blobFirstPixel.reset();
+		holeFirstPixel.reset();
+		backgroundFirstPixel.reset();
+		backgroundOutside.reset();
+
+		declareStrips(binary.height);
+
+		// Label each strip independently
+		BoofConcurrency.loopFor(0, strips.size, i -> labelStrip(strips.get(i)));
+
+		// Combine the local labels into a single disjoint set forest then merge the labels across seams
+		parents.reset();
+		firstPixel.reset();
+		for (int stripIdx = 0; stripIdx < strips.size; stripIdx++) {
+			Strip s = strips.get(stripIdx);
+			s.offset = parents.size;
+			for (int i = 0; i < s.parents.size; i++) {
+				parents.add(s.offset + s.parents.data[i]);
+				firstPixel.add(s.firstPixel.data[i]);
+			}
+			if (stripIdx > 0)
+				mergeSeam(strips.get(stripIdx - 1), s);
+		}
+
+		assignLabels();
+
+		if (findHoles)
+			selectHoles();
+
+		if (labeled != null)
+			relabel(labeled);
+	}
+
+	/**
+	 * Writes the blob ID of every pixel into the labeled image
+	 */
+	void relabel( GrayS32 labeled ) {
+		BoofConcurrency.loopFor(0, strips.size, i -> relabelStrip(strips.get(i), labeled));
+	}
+
+	/**
+	 * Splits the image up into strips
+	 */
+	void declareStrips( int height ) {
+		int numThreads = BoofConcurrency.getActivePool().getParallelism();
+		int numStrips = Math.max(1, Math.min(numThreads, height/Math.max(1, minimumStripHeight)));
+		int stripHeight = height/numStrips;
+
+		strips.reset();
+		for (int i = 0; i < numStrips; i++) {
+			Strip s = strips.grow();
+			s.y0 = i*stripHeight;
+			s.y1 = i == numStrips - 1 ? height : s.y0 + stripHeight;
+		}
+	}
+
+	/**
+	 * Labels pixels inside the strip using the standard two neighbor rows algorithm. Only pixels inside the
+	 * strip are considered.
+	 */
+	void labelStrip( Strip s ) {
+		final byte[] data = binary.data;
+		final int[] work = provisional.data;
+		final int width = binary.width;
+		final boolean eightRule = connectRule == ConnectRule.EIGHT;
+
+		for (int y = s.y0; y < s.y1; y++) {
+			int indexBinary = binary.startIndex + y*binary.stride;
+			int indexWork = y*width;
+			for (int x = 0; x < width; x++, indexBinary++, indexWork++) {
+				boolean one = data[indexBinary] != 0;
+				if (!one && !findHoles) {
+					work[indexWork] = -1;
+					continue;
+				}
+				// Holes use the opposite connectivity rule
+				boolean eight = one == eightRule;
+
+				int label = -1;
+				if (x > 0 && one == (data[indexBinary - 1] != 0))
+					label = work[indexWork - 1];
+				if (y > s.y0) {
+					int indexAbove = indexBinary - binary.stride;
+					if (eight && x > 0 && one == (data[indexAbove - 1] != 0))
+						label = merge(s.parents, label, work[indexWork - width - 1]);
+					if (one == (data[indexAbove] != 0))
+						label = merge(s.parents, label, work[indexWork - width]);
+					if (eight && x + 1 < width && one == (data[indexAbove + 1] != 0))
+						label = merge(s.parents, label, work[indexWork - width + 1]);
+				}
+
+				if (label == -1) {
+					label = s.parents.size;
+					s.parents.add(label);
+					s.firstPixel.add(indexWork);
+				}
+				work[indexWork] = label;
+			}
+		}
+	}
+
+	/**
+	 * Merges labels in the first row of strip 'b' with the last row of strip 'a', which is just above it
+	 */
+	void mergeSeam( Strip a, Strip b ) {
+		final byte[] data = binary.data;
+		final int[] work = provisional.data;
+		final int width = binary.width;
+		final boolean eightRule = connectRule == ConnectRule.EIGHT;
+
+		int y = b.y0;
+		int indexBinary = binary.startIndex + y*binary.stride;
+		int indexAbove = indexBinary - binary.stride;
+		int indexWork = y*width;
+		for (int x = 0; x < width; x++, indexBinary++, indexAbove++, indexWork++) {
+			boolean one = data[indexBinary] != 0;
+			if (!one && !findHoles)
+				continue;
+			boolean eight = one == eightRule;
+
+			int label = b.offset + work[indexWork];
+			if (eight && x > 0 && one == (data[indexAbove - 1] != 0))
+				union(parents, label, a.offset + work[indexWork - width - 1]);
+			if (one == (data[indexAbove] != 0))
+				union(parents, label, a.offset + work[indexWork - width]);
+			if (eight && x + 1 < width && one == (data[indexAbove + 1] != 0))
+				union(parents, label, a.offset + work[indexWork - width + 1]);
+		}
+	}
+
+	/**
+	 * Assigns the final label to each provisional label. Roots are always the provisional label with the
+	 * lowest index, which is the label created at the region's first pixel. Provisional labels are created in
+	 * raster order, so traversing them in order will assign IDs in raster order too.
+	 */
+	void assignLabels() {
+		final byte[] data = binary.data;
+		final int width = binary.width;
+
+		lookup.resize(parents.size);
+		for (int label = 0; label < parents.size; label++) {
+			int parent = parents.data[label];
+			if (parent != label) {
+				// parent always has a lower index and has already been assigned its final label
+				lookup.data[label] = lookup.data[parent];
+				continue;
+			}
+
+			int pixel = firstPixel.data[label];
+			if (data[binary.startIndex + (pixel/width)*binary.stride + pixel%width] != 0) {
+				blobFirstPixel.add(pixel);
+				lookup.data[label] = blobFirstPixel.size;
+			} else {
+				backgroundFirstPixel.add(pixel);
+				backgroundOutside.add(false);
+				lookup.data[label] = -backgroundFirstPixel.size;
+			}
+		}
+	}
+
+	/**
+	 * Background regions which touch the image border are outside of every blob. All the others are holes.
+	 */
+	void selectHoles() {
+		final byte[] data = binary.data;
+		final int[] work = provisional.data;
+		final int width = binary.width;
+
+		for (int stripIdx = 0; stripIdx < strips.size; stripIdx++) {
+			Strip s = strips.get(stripIdx);
+			for (int y = s.y0; y < s.y1; y++) {
+				// Every pixel in the first and last row is on the border, otherwise just the first and last column
+				int step = (y == 0 || y == binary.height - 1) ? 1 : Math.max(1, width - 1);
+				for (int x = 0; x < width; x += step) {
+					if (data[binary.startIndex + y*binary.stride + x] != 0)
+						continue;
+					int region = -1 - lookup.data[s.offset + work[y*width + x]];
+					backgroundOutside.data[region] = true;
+				}
+			}
+		}
+
+		for (int i = 0; i < backgroundFirstPixel.size; i++) {
+			if (!backgroundOutside.data[i])
+				holeFirstPixel.add(backgroundFirstPixel.data[i]);
+		}
+	}
+
+	/**
+	 * Converts provisional labels into blob IDs inside the labeled image
+	 */
+	void relabelStrip( Strip s, GrayS32 labeled ) {
+		final byte[] data = binary.data;
+		final int[] work = provisional.data;
+		final int width = binary.width;
+
+		for (int y = s.y0; y < s.y1; y++) {
+			int indexBinary = binary.startIndex + y*binary.stride;
+			int indexLabeled = labeled.startIndex + y*labeled.stride;
+			int indexWork = y*width;
+			for (int x = 0; x < width; x++) {
+				if (data[indexBinary++] != 0)
+					labeled.data[indexLabeled++] = lookup.data[s.offset + work[indexWork]];
+				else
+					labeled.data[indexLabeled++] = 0;
+				indexWork++;
+			}
+		}
+	}
+
+	/**
+	 * Merges the two labels together if 'a' is a label, otherwise 'b' is returned.
+	 */
+	static int merge( DogArray_I32 parents, int a, int b ) {
+		if (a == -1)
+			return b;
+		union(parents, a, b);
+		return a;
+	}
+
+	/**
+	 * Merges the two sets together. The root with the lower index becomes the root of the merged set.
+	 */
+	static void union( DogArray_I32 parents, int a, int b ) {
+		int rootA = find(parents.data, a);
+		int rootB = find(parents.data, b);
+		if (rootA < rootB)
+			parents.data[rootB] = rootA;
+		else
+			parents.data[rootA] = rootB;
+	}
+
+	/**
+	 * Finds the root of the set while halving the path
+	 */
+	static int find( int[] parents, int label ) {
+		while (parents[label] != label) {
+			parents[label] = parents[parents[label]];
+			label = parents[label];
+		}
+		return label;
+	}
+
+	/**
+	 * A horizontal strip in the image
+	 */
+	static class Strip {
+		// Range of rows, exclusive upper bound
+		int y0, y1;
+		// Offset of local labels in the global label array
+		int offset;
+		// Local disjoint set forest
+		final DogArray_I32 parents = new DogArray_I32();
+		// First pixel in each local label
+		final DogArray_I32 firstPixel = new DogArray_I32();
+
+		public void reset() {
+			y0 = y1 = offset = 0;
+			parents.reset();
+			firstPixel.reset();
+		}
+	}
+}
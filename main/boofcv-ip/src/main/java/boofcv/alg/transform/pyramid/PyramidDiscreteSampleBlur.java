@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -51,7 +51,7 @@ import org.jetbrains.annotations.Nullable;
 public class PyramidDiscreteSampleBlur<T extends ImageBase<T>> extends PyramidDiscrete<T> {
 
 	// stores the results from the first convolution
-	private T temp;
+	protected T temp;
 	ConvolveDown<T,T> horizontal;
 	ConvolveDown<T,T> vertical;
 
@@ -105,6 +105,21 @@ public class PyramidDiscreteSampleBlur<T extends ImageBase<T>> extends PyramidDi
 
 	@Override
 	public void process(T input) {
+		processFirstLayer(input);
+
+		for (int index = 1; index < getNumLayers(); index++) {
+			processLayer(index);
+		}
+	}
+
+	/**
+	 * Initializes the pyramid and computes the first layer. Calling this function followed by
+	 * {@link #processLayer} for each remaining layer in order is the same as calling {@link #process}. This
+	 * allows other work to be done on a layer as soon as it has been computed.
+	 *
+	 * @param input Input image
+	 */
+	public void processFirstLayer(T input) {
 		super.initialize(input.width,input.height);
 		lazyDeclareSigmas(this.sigma);
 
@@ -120,27 +135,31 @@ public class PyramidDiscreteSampleBlur<T extends ImageBase<T>> extends PyramidDi
 				getLayer(0).setTo(input);
 			}
 		} else {
-			int skip = levelScales[0];
-
-			horizontal.setSkip(skip);
-			vertical.setSkip(skip);
-
-			temp.reshape(input.width/skip,input.height);
-			horizontal.process(input,temp);
-			vertical.process(temp,getLayer(0));
+			convolveDown(input, levelScales[0], getLayer(0));
 		}
+	}
 
-		for (int index = 1; index < getNumLayers(); index++) {
-			int skip = levelScales[index]/ levelScales[index-1];
-			T prev = getLayer(index-1);
-			temp.reshape(prev.width/skip,prev.height);
+	/**
+	 * Computes a layer from the previous layer. Layers must be computed in order.
+	 *
+	 * @param index Index of the layer being computed. Must be &ge; 1
+	 */
+	public void processLayer(int index) {
+		int skip = levelScales[index]/ levelScales[index-1];
+		convolveDown(getLayer(index-1), skip, getLayer(index));
+	}
 
-			horizontal.setSkip(skip);
-			vertical.setSkip(skip);
+	/**
+	 * Blurs the input image then down samples it into the output image
+	 */
+	protected void convolveDown(T input, int skip, T output) {
+		temp.reshape(input.width/skip,input.height);
 
-			horizontal.process(prev,temp);
-			vertical.process(temp,getLayer(index));
-		}
+		horizontal.setSkip(skip);
+		vertical.setSkip(skip);
+
+		horizontal.process(input,temp);
+		vertical.process(temp,output);
 	}
 
 	/**
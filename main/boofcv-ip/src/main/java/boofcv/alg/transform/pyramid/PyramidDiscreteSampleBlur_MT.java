@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.transform.pyramid;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.convolve.Kernel1D;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.ConfigDiscreteLevels;
+import boofcv.struct.pyramid.ImagePyramid;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link PyramidDiscreteSampleBlur}. The horizontal pass only mixes pixels in the same
+ * row so it's split up into blocks of rows. The vertical pass only mixes pixels in the same column so it's split
+ * up into blocks of columns. Border handling is not affected by how the image is split up and the output is
+ * identical to the single threaded version.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class PyramidDiscreteSampleBlur_MT<T extends ImageBase<T>> extends PyramidDiscreteSampleBlur<T> {
+
+	// Sub-images used by each thread. Recycled between calls
+	GrowArray<SubImages> workspace = new GrowArray<>(SubImages::new);
+
+	/**
+	 * See {@link PyramidDiscreteSampleBlur#PyramidDiscreteSampleBlur(Kernel1D, double, ImageType, boolean, ConfigDiscreteLevels)}
+	 */
+	public PyramidDiscreteSampleBlur_MT( Kernel1D kernel, double sigma, ImageType<T> imageType,
+										 boolean saveOriginalReference,
+										 @Nullable ConfigDiscreteLevels configLayers ) {
+		super(kernel, sigma, imageType, saveOriginalReference, configLayers);
+	}
+
+	protected PyramidDiscreteSampleBlur_MT( PyramidDiscreteSampleBlur_MT<T> orig ) {
+		super(orig);
+	}
+
+	@Override
+	protected void convolveDown( T input, int skip, T output ) {
+		temp.reshape(input.width/skip, input.height);
+
+		horizontal.setSkip(skip);
+		vertical.setSkip(skip);
+
+		final T temp = this.temp;
+		BoofConcurrency.loopBlocks(0, input.height, workspace, ( work, y0, y1 ) -> {
+			work.src = input.subimage(0, y0, input.width, y1, work.src);
+			work.dst = temp.subimage(0, y0, temp.width, y1, work.dst);
+			horizontal.process(work.src, work.dst);
+		});
+
+		BoofConcurrency.loopBlocks(0, temp.width, workspace, ( work, x0, x1 ) -> {
+			work.src = temp.subimage(x0, 0, x1, temp.height, work.src);
+			work.dst = output.subimage(x0, 0, x1, output.height, work.dst);
+			vertical.process(work.src, work.dst);
+		});
+	}
+
+	@Override
+	public ImagePyramid<T> copyStructure() {
+		return new PyramidDiscreteSampleBlur_MT<>(this);
+	}
+
+	/** Sub-images which reference part of the input and output images */
+	class SubImages {
+		@Nullable T src;
+		@Nullable T dst;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -135,25 +135,35 @@ public class FactoryDistort {
 		return new ImplImageDistort_PL<>(distortSingle);
 	}
 
+	/**
+	 * Creates a {@link boofcv.alg.distort.ImageDistort} for interleaved images, transformation
+	 * and interpolation instance.
+	 *
+	 * @param cached If true the distortion is only computed one. False for recomputed each time, but less memory.
+	 * @param interp Which interpolation algorithm should be used.
+	 * @param outputType Type of output image.
+	 */
 	public static <Input extends ImageInterleaved<Input>, Output extends ImageInterleaved<Output>>
 	ImageDistort<Input, Output>
 	distortIL( boolean cached, InterpolatePixelMB<Input> interp, ImageType<Output> outputType ) {
-		if (cached) {
-			throw new IllegalArgumentException("Cached not supported yet");
-		} else {
-			AssignPixelValue_MB<Output> assigner = switch (outputType.getDataType()) {
-				case F32 -> (AssignPixelValue_MB)new AssignPixelValue_MB.F32();
-				case S32 -> (AssignPixelValue_MB)new AssignPixelValue_MB.S32();
-				case U16, S16, I16 -> (AssignPixelValue_MB)new AssignPixelValue_MB.I16();
-				case U8, S8, I8 -> (AssignPixelValue_MB)new AssignPixelValue_MB.I8();
-				default -> throw new RuntimeException("Not yet supported " + outputType);
-			};
+		AssignPixelValue_MB<Output> assigner = switch (outputType.getDataType()) {
+			case F32 -> (AssignPixelValue_MB)new AssignPixelValue_MB.F32();
+			case S32 -> (AssignPixelValue_MB)new AssignPixelValue_MB.S32();
+			case U16, S16, I16 -> (AssignPixelValue_MB)new AssignPixelValue_MB.I16();
+			case U8, S8, I8 -> (AssignPixelValue_MB)new AssignPixelValue_MB.I8();
+			default -> throw new RuntimeException("Not yet supported " + outputType);
+		};
 
-			if (BoofConcurrency.USE_CONCURRENT) {
-				return new ImageDistortBasic_IL_MT<>(assigner, interp);
+		if (BoofConcurrency.USE_CONCURRENT) {
+			if (cached) {
+				return new ImageDistortCache_IL_MT<>(assigner, interp);
 			} else {
-				return new ImageDistortBasic_IL<>(assigner, interp);
+				return new ImageDistortBasic_IL_MT<>(assigner, interp);
 			}
+		} else if (cached) {
+			return new ImageDistortCache_IL<>(assigner, interp);
+		} else {
+			return new ImageDistortBasic_IL<>(assigner, interp);
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,6 +21,12 @@ package boofcv.factory.filter.binary;
 import boofcv.abst.filter.binary.BinaryContourFinderLinearExternal;
 import boofcv.abst.filter.binary.BinaryLabelContourFinder;
 import boofcv.abst.filter.binary.BinaryLabelContourFinderChang2004;
+import boofcv.alg.filter.binary.LinearContourLabelChang2004;
+import boofcv.alg.filter.binary.LinearContourLabelChang2004_MT;
+import boofcv.alg.filter.binary.LinearExternalContours;
+import boofcv.alg.filter.binary.LinearExternalContours_MT;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
 
 /**
  * Creates instances of {@link BinaryLabelContourFinder}
@@ -37,7 +43,9 @@ public class FactoryBinaryContourFinder {
 		if (BOverrideFactoryBinaryContourFinder.chang2004 != null) {
 			return BOverrideFactoryBinaryContourFinder.chang2004.createChang2004();
 		} else {
-			return new BinaryLabelContourFinderChang2004();
+			return new BinaryLabelContourFinderChang2004(BoofConcurrency.USE_CONCURRENT ?
+					new LinearContourLabelChang2004_MT(ConnectRule.FOUR) :
+					new LinearContourLabelChang2004(ConnectRule.FOUR));
 		}
 	}
 
@@ -45,6 +53,8 @@ public class FactoryBinaryContourFinder {
 	 * Binary contour finder for external contours only. {@link BinaryContourFinderLinearExternal}
 	 */
 	public static BinaryContourFinderLinearExternal linearExternal() {
-		return new BinaryContourFinderLinearExternal();
+		return new BinaryContourFinderLinearExternal(BoofConcurrency.USE_CONCURRENT ?
+				new LinearExternalContours_MT(ConnectRule.FOUR) :
+				new LinearExternalContours(ConnectRule.FOUR));
 	}
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.BoofTesting;
+import boofcv.alg.interpolate.InterpolatePixelMB;
+import boofcv.alg.interpolate.InterpolationType;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.InterleavedF32;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.affine.Affine2D_F32;
+import georegression.struct.point.Point2D_F32;
+import org.junit.jupiter.api.Test;
+
+class TestImageDistortCache_IL extends BoofStandardJUnit {
+	int width = 30, height = 40;
+	private static final int NUM_BANDS = 3;
+
+	InterpolatePixelMB<InterleavedF32> interp = FactoryInterpolation.createPixelMB(
+			0, 255, InterpolationType.BILINEAR, BorderType.EXTENDED, ImageType.il(NUM_BANDS, InterleavedF32.class));
+
+	/**
+	 * Results should be identical to when the distortion isn't cached
+	 */
+	@Test void compareToBasic() {
+		for (boolean renderAll : new boolean[]{true, false}) {
+			InterleavedF32 input = new InterleavedF32(width, height, NUM_BANDS);
+			GImageMiscOps.fillUniform(input, rand, 0, 150);
+
+			InterleavedF32 expected = new InterleavedF32(width, height, NUM_BANDS);
+			InterleavedF32 found = new InterleavedF32(width, height, NUM_BANDS);
+			GrayU8 maskExpected = new GrayU8(1, 1);
+			GrayU8 maskFound = new GrayU8(1, 1);
+
+			var basic = new ImageDistortBasic_IL<>(new AssignPixelValue_MB.F32(), interp.copy());
+			var alg = new ImageDistortCache_IL<>(new AssignPixelValue_MB.F32(), interp.copy());
+			basic.setRenderAll(renderAll);
+			alg.setRenderAll(renderAll);
+			basic.setModel(new Transform());
+			alg.setModel(new Transform());
+
+			basic.apply(input, expected);
+			alg.apply(input, found);
+			BoofTesting.assertEquals(expected, found, 0.0);
+
+			// Apply it twice to make sure the cache is used correctly
+			basic.apply(input, expected, maskExpected);
+			alg.apply(input, found, maskFound);
+			alg.apply(input, found, maskFound);
+			BoofTesting.assertEquals(expected, found, 0.0);
+			BoofTesting.assertEquals(maskExpected, maskFound, 0.0);
+
+			// Only render a portion of the image
+			GImageMiscOps.fill(expected, 0);
+			GImageMiscOps.fill(found, 0);
+			basic.apply(input, expected, 2, 3, 20, 30);
+			alg.apply(input, found, 2, 3, 20, 30);
+			BoofTesting.assertEquals(expected, found, 0.0);
+		}
+	}
+
+	/**
+	 * Changing the model should cause the cache to be recomputed
+	 */
+	@Test void changeModel() {
+		InterleavedF32 input = new InterleavedF32(width, height, NUM_BANDS);
+		GImageMiscOps.fillUniform(input, rand, 0, 150);
+		InterleavedF32 expected = new InterleavedF32(width, height, NUM_BANDS);
+		InterleavedF32 found = new InterleavedF32(width, height, NUM_BANDS);
+
+		var alg = new ImageDistortCache_IL<>(new AssignPixelValue_MB.F32(), interp.copy());
+		alg.setModel(new Transform());
+		alg.apply(input, found);
+
+		var affine = new PixelTransformAffine_F32(new Affine2D_F32(1, 0.1f, 0, 1, 2, 3));
+		var basic = new ImageDistortBasic_IL<>(new AssignPixelValue_MB.F32(), interp.copy());
+		basic.setModel(affine);
+		basic.apply(input, expected);
+		alg.setModel(affine);
+		alg.apply(input, found);
+		BoofTesting.assertEquals(expected, found, 0.0);
+	}
+
+	private static class Transform implements PixelTransform<Point2D_F32> {
+		@Override public void compute( int x, int y, Point2D_F32 output ) {
+			output.x = x*0.9f + y*0.1f - 1.5f;
+			output.y = y*1.1f + 0.5f;
+		}
+
+		@Override public PixelTransform<Point2D_F32> copyConcurrent() {
+			return new Transform();
+		}
+	}
+}
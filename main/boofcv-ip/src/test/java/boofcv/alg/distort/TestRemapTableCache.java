@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.distort;
+
+import boofcv.BoofTesting;
+import boofcv.alg.interpolate.InterpolationType;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.distort.FactoryDistort;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.InterleavedF32;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.affine.Affine2D_F32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRemapTableCache extends BoofStandardJUnit {
+	int width = 30, height = 25;
+	PixelTransformAffine_F32 tranA = new PixelTransformAffine_F32(new Affine2D_F32(1.1f, 0.1f, -0.05f, 0.9f, 2, -1));
+	PixelTransformAffine_F32 tranB = new PixelTransformAffine_F32(new Affine2D_F32(0.9f, 0, 0, 0.9f, 1, 2));
+
+	@Test void createKey() {
+		assertEquals(RemapTableCache.createKey("a", 2, 1.5), RemapTableCache.createKey("a", 2, 1.5));
+		assertEquals(RemapTableCache.createKey("a", 2, 1.5).hashCode(), RemapTableCache.createKey("a", 2, 1.5).hashCode());
+		assertNotEquals(RemapTableCache.createKey("a", 2, 1.5), RemapTableCache.createKey("a", 2, 1.6));
+		assertNotEquals(RemapTableCache.createKey("a", 2), RemapTableCache.createKey("b", 2));
+	}
+
+	@Test void lookup() {
+		for (boolean concurrent : new boolean[]{false, true}) {
+			BoofConcurrency.USE_CONCURRENT = concurrent;
+			var alg = new RemapTableCache(1_000_000);
+
+			float[] mapA = alg.lookup(RemapTableCache.createKey("A"), width, height, tranA);
+			float[] mapB = alg.lookup(RemapTableCache.createKey("B"), width, height, tranB);
+			assertNotSame(mapA, mapB);
+			assertSame(mapA, alg.lookup(RemapTableCache.createKey("A"), width, height, tranA));
+			assertEquals(2, alg.size());
+			assertEquals(2L*4*width*height*2, alg.getUsedBytes());
+
+			// see if the table was computed correctly
+			var distort = new ImageDistortCache_SB<GrayF32, GrayF32>(new AssignPixelValue_SB.F32(), null);
+			distort.setModel(tranA);
+			distort.width = width;
+			distort.height = height;
+			distort.map = new float[width*height*2];
+			distort.computeMap();
+			assertArrayEquals(distort.getMap(), mapA);
+		}
+		BoofConcurrency.USE_CONCURRENT = true;
+	}
+
+	/**
+	 * The same key used with images of a different shape should not return the same table
+	 */
+	@Test void lookup_differentShape() {
+		var alg = new RemapTableCache(1_000_000);
+		RemapTableCache.Key key = RemapTableCache.createKey("A");
+
+		float[] mapA = alg.lookup(key, width, height, tranA);
+		// Same number of pixels but a different shape
+		float[] mapB = alg.lookup(key, height, width, tranA);
+		float[] mapC = alg.lookup(key, width + 1, height, tranA);
+		assertNotSame(mapA, mapB);
+		assertEquals(width*height*2, mapB.length);
+		assertEquals((width + 1)*height*2, mapC.length);
+		assertEquals(3, alg.size());
+		assertSame(mapB, alg.lookup(key, height, width, tranA));
+	}
+
+	/**
+	 * Least recently used tables should be discarded when it goes over budget
+	 */
+	@Test void discardOldTables() {
+		long tableBytes = 4L*width*height*2;
+		var alg = new RemapTableCache(tableBytes*2);
+
+		float[] mapA = alg.lookup(RemapTableCache.createKey("A"), width, height, tranA);
+		alg.lookup(RemapTableCache.createKey("B"), width, height, tranB);
+		// Access A so that B is the oldest
+		assertSame(mapA, alg.lookup(RemapTableCache.createKey("A"), width, height, tranA));
+		alg.lookup(RemapTableCache.createKey("C"), width, height, tranB);
+		assertEquals(2, alg.size());
+		assertEquals(tableBytes*2, alg.getUsedBytes());
+		assertSame(mapA, alg.lookup(RemapTableCache.createKey("A"), width, height, tranA));
+		assertFalse(alg.tables.containsKey(new RemapTableCache.TableKey(RemapTableCache.createKey("B"), width, height)));
+
+		// The most recent table is always kept, even if it's over budget
+		alg.setMaxBytes(1);
+		alg.lookup(RemapTableCache.createKey("D"), width, height, tranA);
+		assertEquals(1, alg.size());
+		assertEquals(tableBytes, alg.getUsedBytes());
+
+		alg.clear();
+		assertEquals(0, alg.size());
+		assertEquals(0, alg.getUsedBytes());
+	}
+
+	/**
+	 * Distortions which use a table from the cache should produce the same results as when they compute it
+	 */
+	@Test void setModel() {
+		ImageType<GrayF32> typeSB = ImageType.SB_F32;
+		ImageType<Planar<GrayF32>> typePL = ImageType.pl(2, GrayF32.class);
+		ImageType<InterleavedF32> typeIL = ImageType.il(2, InterleavedF32.class);
+
+		var alg = new RemapTableCache(1_000_000);
+		RemapTableCache.Key key = RemapTableCache.createKey("A");
+		for (ImageType type : new ImageType[]{typeSB, typePL, typeIL}) {
+			var input = type.createImage(width + 5, height + 2);
+			var expected = type.createImage(width, height);
+			var found = type.createImage(width, height);
+			GImageMiscOps.fillUniform(input, rand, 0, 100);
+
+			ImageDistort distortExpected = FactoryDistort.distort(true,
+					InterpolationType.BILINEAR, BorderType.EXTENDED, type, type);
+			ImageDistort distortFound = FactoryDistort.distort(true,
+					InterpolationType.BILINEAR, BorderType.EXTENDED, type, type);
+
+			distortExpected.setModel(tranA);
+			alg.setModel(distortFound, key, width, height, tranA);
+
+			distortExpected.apply(input, expected);
+			distortFound.apply(input, found);
+			BoofTesting.assertEquals(expected, found, 0.0);
+
+			// A different shape should cause it to compute its own table and not modify the shared one
+			float[] shared = alg.lookup(key, width, height, tranA).clone();
+			expected.reshape(width - 2, height);
+			found.reshape(width - 2, height);
+			distortExpected.apply(input, expected);
+			distortFound.apply(input, found);
+			BoofTesting.assertEquals(expected, found, 0.0);
+			assertArrayEquals(shared, alg.lookup(key, width, height, tranA));
+		}
+		assertEquals(1, alg.size());
+	}
+}
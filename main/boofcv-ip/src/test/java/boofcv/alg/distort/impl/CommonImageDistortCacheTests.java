@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -90,6 +90,23 @@ public abstract class CommonImageDistortCacheTests<T extends ImageGray<T>> exten
 		BoofTesting.assertEquals(dst0, dst1, 1e-4);
 	}
 	
+	/**
+	 * The cache is indexed by pixel coordinate and should not be affected by the destination being a sub-image
+	 */
+	@Test void compareSubImage() {
+		ImageDistort<T,T> standard = FactoryDistort.distortSB(false, interp, imageType);
+		ImageDistortCache_SB<T,T> alg = create(interp,imageType);
+
+		standard.setModel(tran);
+		alg.setModel(tran);
+
+		T dstSub = BoofTesting.createSubImageOf(dst1);
+		standard.apply(src,dst0);
+		alg.apply(src,dstSub);
+
+		BoofTesting.assertEquals(dst0, dstSub, 1e-4);
+	}
+
 	public abstract ImageDistortCache_SB<T,T>
 	create(InterpolatePixelS<T> interp, Class<T> imageType );
 }
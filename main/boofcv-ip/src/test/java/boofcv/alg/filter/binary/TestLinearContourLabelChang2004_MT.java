@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.BoofTesting;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.ConfigLength;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.PackedSetsPoint2D_I32;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestLinearContourLabelChang2004_MT extends BoofStandardJUnit {
+	/**
+	 * Compare single threaded vs multi threaded variant on random images with lots of blobs and holes
+	 */
+	@Test void compare() {
+		for (ConnectRule rule : ConnectRule.values()) {
+			for (double fraction : new double[]{0.3, 0.5, 0.7}) {
+				GrayU8 binary = createRandom(103, 97, fraction);
+				compare(binary, rule, new LinearContourLabelChang2004(rule), new LinearContourLabelChang2004_MT(rule));
+			}
+		}
+	}
+
+	/**
+	 * The sub-image should be handled correctly
+	 */
+	@Test void compare_subimage() {
+		for (ConnectRule rule : ConnectRule.values()) {
+			GrayU8 binary = BoofTesting.createSubImageOf(createRandom(60, 71, 0.5));
+			compare(binary, rule, new LinearContourLabelChang2004(rule), new LinearContourLabelChang2004_MT(rule));
+		}
+	}
+
+	/**
+	 * Contour length constraints and not saving internal contours should produce the same results
+	 */
+	@Test void compare_settings() {
+		for (ConnectRule rule : ConnectRule.values()) {
+			GrayU8 binary = createRandom(80, 90, 0.6);
+
+			var expected = new LinearContourLabelChang2004(rule);
+			var found = new LinearContourLabelChang2004_MT(rule);
+			for (LinearContourLabelChang2004 alg : new LinearContourLabelChang2004[]{expected, found}) {
+				alg.setMinContourLength(ConfigLength.fixed(4));
+				alg.setMaxContourLength(ConfigLength.fixed(30));
+				alg.setSaveInternalContours(false);
+			}
+			compare(binary, rule, expected, found);
+		}
+	}
+
+	/**
+	 * Change the connect rule after it has been constructed
+	 */
+	@Test void changeConnectRule() {
+		GrayU8 binary = createRandom(50, 45, 0.5);
+		var found = new LinearContourLabelChang2004_MT(ConnectRule.FOUR);
+		found.setConnectRule(ConnectRule.EIGHT);
+		compare(binary, ConnectRule.EIGHT, new LinearContourLabelChang2004(ConnectRule.EIGHT), found);
+	}
+
+	GrayU8 createRandom( int width, int height, double fraction ) {
+		var binary = new GrayU8(width, height);
+		for (int i = 0; i < binary.data.length; i++) {
+			binary.data[i] = (byte)(rand.nextDouble() < fraction ? 1 : 0);
+		}
+		return binary;
+	}
+
+	void compare( GrayU8 binary, ConnectRule rule,
+				  LinearContourLabelChang2004 expected, LinearContourLabelChang2004_MT found ) {
+		// Use small strips so that there are lots of seams
+		for (int stripHeight : new int[]{1, 3, 20}) {
+			found.labeler.minimumStripHeight = stripHeight;
+
+			var labeledExpected = new GrayS32(binary.width, binary.height);
+			var labeledFound = new GrayS32(binary.width, binary.height);
+			ImageMiscOps.fillUniform(labeledFound, rand, 0, 100);
+
+			GrayU8 original = binary.clone();
+			expected.process(binary, labeledExpected);
+			found.process(binary, labeledFound);
+
+			BoofTesting.assertEquals(original, binary, 0);
+			BoofTesting.assertEquals(labeledExpected, labeledFound, 0);
+			assertEquals(rule, found.getConnectRule());
+
+			DogArray<ContourPacked> contoursExpected = expected.getContours();
+			DogArray<ContourPacked> contoursFound = found.getContours();
+			assertEquals(contoursExpected.size, contoursFound.size);
+			for (int i = 0; i < contoursExpected.size; i++) {
+				ContourPacked e = contoursExpected.get(i);
+				ContourPacked f = contoursFound.get(i);
+				assertEquals(e.id, f.id);
+				assertEquals(e.externalIndex, f.externalIndex);
+				assertEquals(e.internalIndexes.size, f.internalIndexes.size);
+				for (int j = 0; j < e.internalIndexes.size; j++) {
+					assertEquals(e.internalIndexes.get(j), f.internalIndexes.get(j));
+				}
+			}
+
+			comparePoints(expected.getPackedPoints(), found.getPackedPoints());
+		}
+	}
+
+	static void comparePoints( PackedSetsPoint2D_I32 expected, PackedSetsPoint2D_I32 found ) {
+		assertEquals(expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			List<Point2D_I32> e = expected.getSet(i);
+			List<Point2D_I32> f = found.getSet(i);
+			assertEquals(e.size(), f.size());
+			for (int j = 0; j < e.size(); j++) {
+				assertEquals(e.get(j).x, f.get(j).x);
+				assertEquals(e.get(j).y, f.get(j).y);
+			}
+		}
+	}
+}
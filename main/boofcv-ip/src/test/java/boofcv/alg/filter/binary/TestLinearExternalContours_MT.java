@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.filter.binary;
+
+import boofcv.BoofTesting;
+import boofcv.struct.ConfigLength;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.filter.binary.TestLinearContourLabelChang2004_MT.comparePoints;
+
+class TestLinearExternalContours_MT extends BoofStandardJUnit {
+	/**
+	 * Compare single threaded vs multi threaded variant on random images
+	 */
+	@Test void compare() {
+		for (ConnectRule rule : ConnectRule.values()) {
+			for (double fraction : new double[]{0.3, 0.5, 0.7}) {
+				GrayU8 binary = createRandom(103, 97, fraction);
+				compare(binary, 1, 1, new LinearExternalContours(rule), new LinearExternalContours_MT(rule));
+			}
+		}
+	}
+
+	/**
+	 * The sub-image and adjustment should be handled correctly
+	 */
+	@Test void compare_subimage() {
+		for (ConnectRule rule : ConnectRule.values()) {
+			GrayU8 binary = BoofTesting.createSubImageOf(createRandom(60, 71, 0.5));
+			compare(binary, 0, 2, new LinearExternalContours(rule), new LinearExternalContours_MT(rule));
+		}
+	}
+
+	/**
+	 * Contour length constraints should produce the same results
+	 */
+	@Test void compare_settings() {
+		for (ConnectRule rule : ConnectRule.values()) {
+			GrayU8 binary = createRandom(80, 90, 0.6);
+
+			var expected = new LinearExternalContours(rule);
+			var found = new LinearExternalContours_MT(rule);
+			for (LinearExternalContours alg : new LinearExternalContours[]{expected, found}) {
+				alg.setMinContourLength(ConfigLength.fixed(4));
+				alg.setMaxContourLength(ConfigLength.fixed(30));
+			}
+			compare(binary, 1, 1, expected, found);
+		}
+	}
+
+	GrayU8 createRandom( int width, int height, double fraction ) {
+		var binary = new GrayU8(width, height);
+		for (int i = 0; i < binary.data.length; i++) {
+			binary.data[i] = (byte)(rand.nextDouble() < fraction ? 1 : 0);
+		}
+		return binary;
+	}
+
+	void compare( GrayU8 binary, int adjustX, int adjustY,
+				  LinearExternalContours expected, LinearExternalContours_MT found ) {
+		// Use small strips so that there are lots of seams
+		for (int stripHeight : new int[]{1, 3, 20}) {
+			found.labeler.minimumStripHeight = stripHeight;
+
+			// the input image is modified
+			expected.process(copy(binary), adjustX, adjustY);
+			found.process(copy(binary), adjustX, adjustY);
+
+			comparePoints(expected.getExternalContours(), found.getExternalContours());
+		}
+	}
+
+	GrayU8 copy( GrayU8 binary ) {
+		return binary.isSubimage() ? BoofTesting.createSubImageOf(binary) : binary.clone();
+	}
+}
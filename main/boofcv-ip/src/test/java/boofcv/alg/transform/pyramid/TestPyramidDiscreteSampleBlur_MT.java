@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.transform.pyramid;
+
+import boofcv.BoofTesting;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.factory.filter.kernel.FactoryKernel;
+import boofcv.factory.filter.kernel.FactoryKernelGaussian;
+import boofcv.struct.convolve.Kernel1D;
+import boofcv.struct.convolve.Kernel1D_F32;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.ConfigDiscreteLevels;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestPyramidDiscreteSampleBlur_MT extends BoofStandardJUnit {
+	ConfigDiscreteLevels configLevels = ConfigDiscreteLevels.levels(4);
+
+	/**
+	 * The output should be identical to the single threaded version
+	 */
+	@Test void compareToSingle() {
+		compareToSingle(ImageType.single(GrayU8.class));
+		compareToSingle(ImageType.single(GrayF32.class));
+	}
+
+	<T extends ImageGray<T>> void compareToSingle( ImageType<T> imageType ) {
+		Class<Kernel1D> kernelType = FactoryKernel.getKernelType(imageType.getDataType(), 1);
+		Kernel1D kernel = FactoryKernelGaussian.gaussian(kernelType, -1, 2);
+
+		// odd shape so that there's a remainder when down sampling
+		T input = imageType.createImage(93, 61);
+		GImageMiscOps.fillUniform(input, rand, 0, 200);
+
+		var single = new PyramidDiscreteSampleBlur<>(kernel, -1, imageType, false, configLevels);
+		var alg = new PyramidDiscreteSampleBlur_MT<>(kernel, -1, imageType, false, configLevels);
+
+		single.process(input);
+		// Process twice to make sure the workspace is recycled correctly
+		alg.process(input);
+		alg.process(input);
+
+		assertEquals(single.getNumLayers(), alg.getNumLayers());
+		for (int layer = 0; layer < single.getNumLayers(); layer++) {
+			BoofTesting.assertEquals(single.getLayer(layer), alg.getLayer(layer), 0.0);
+		}
+	}
+
+	/**
+	 * Computing one layer at a time should produce the same results as processing everything at once
+	 */
+	@Test void processLayer() {
+		Kernel1D_F32 kernel = FactoryKernelGaussian.gaussian(Kernel1D_F32.class, -1, 2);
+		ImageType<GrayF32> imageType = ImageType.single(GrayF32.class);
+		GrayF32 input = imageType.createImage(80, 64);
+		GImageMiscOps.fillUniform(input, rand, 0, 200);
+
+		var expected = new PyramidDiscreteSampleBlur_MT<>(kernel, -1, imageType, true, configLevels);
+		var found = new PyramidDiscreteSampleBlur_MT<>(kernel, -1, imageType, true, configLevels);
+
+		expected.process(input);
+		found.processFirstLayer(input);
+		for (int layer = 1; layer < found.getNumLayers(); layer++) {
+			found.processLayer(layer);
+		}
+
+		for (int layer = 0; layer < expected.getNumLayers(); layer++) {
+			BoofTesting.assertEquals(expected.getLayer(layer), found.getLayer(layer), 0.0);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -19,6 +19,7 @@
 package boofcv.abst.fiducial.calib;
 
 import boofcv.abst.geo.calibration.DetectSingleFiducialCalibration;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.fiducial.FactoryFiducialCalibration;
 import boofcv.io.UtilIO;
 import boofcv.io.image.ConvertBufferedImage;
@@ -44,17 +45,27 @@ import java.util.concurrent.TimeUnit;
 @Fork(value = 1)
 public class BenchmarkCalibrationDetectors {
 
+	@Param({"true", "false"})
+	public boolean concurrent;
+
 	public static GrayF32 imageChess;
 	public static GrayF32 imageSquare;
 
-	DetectSingleFiducialCalibration chessboardB = FactoryFiducialCalibration.
-			chessboardB((ConfigChessboardBinary)null,new ConfigGridDimen(7, 5, 30));
-	DetectSingleFiducialCalibration chessboardX = FactoryFiducialCalibration.
-			chessboardX(null,new ConfigGridDimen(7, 5, 30));
-	DetectSingleFiducialCalibration squareGrid = FactoryFiducialCalibration.
-			squareGrid(new ConfigSquareGrid(),new ConfigGridDimen(4, 3, 30, 30));
+	DetectSingleFiducialCalibration chessboardB;
+	DetectSingleFiducialCalibration chessboardX;
+	DetectSingleFiducialCalibration squareGrid;
 
 	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+
+		// Concurrent implementations are selected when the detectors are created
+		chessboardB = FactoryFiducialCalibration.
+				chessboardB((ConfigChessboardBinary)null,new ConfigGridDimen(7, 5, 30));
+		chessboardX = FactoryFiducialCalibration.
+				chessboardX(null,new ConfigGridDimen(7, 5, 30));
+		squareGrid = FactoryFiducialCalibration.
+				squareGrid(new ConfigSquareGrid(),new ConfigGridDimen(4, 3, 30, 30));
+
 		String chess = UtilIO.pathExample("calibration/stereo/Bumblebee2_Chess/left01.jpg");
 		String square = UtilIO.pathExample("calibration/stereo/Bumblebee2_Square/left01.jpg");
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares query speed and memory usage of different ways to store inverted files. A synthetic database is
+ * created where each image has a fixed number of words that are randomly selected. Memory used per image
+ * is printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkInvertedFiles {
+	@Param({"HEAP", "COMPRESSED_8", "COMPRESSED_16"})
+	public String storage;
+
+	@Param({"200000"})
+	public int numImages;
+
+	public int numWords = 100_000;
+	public int wordsPerImage = 300;
+	public int numQueries = 20;
+
+	DogArray<InvertedFile> heap = new DogArray<>(InvertedFile::new, InvertedFile::reset);
+	CompressedInvertedFiles compressed;
+
+	// Words in each query
+	DogArray_I32[] queries;
+
+	// Score for each image
+	float[] scores;
+
+	@Setup public void setup() {
+		var rand = new Random(0xBEEF);
+		heap.resize(numWords);
+		for (int imageIdx = 0; imageIdx < numImages; imageIdx++) {
+			for (int i = 0; i < wordsPerImage; i++) {
+				// Skew the distribution so that some words are more common, like in real images
+				int word = (int)(numWords*Math.pow(rand.nextDouble(), 2.0));
+				InvertedFile inv = heap.get(word);
+				if (inv.size > 0 && inv.getTail() == imageIdx)
+					continue;
+				inv.addImage(imageIdx, rand.nextFloat()*0.2f);
+			}
+		}
+
+		long bytes = 0;
+		if (storage.equals("HEAP")) {
+			for (int word = 0; word < numWords; word++) {
+				bytes += 4L*heap.get(word).data.length + 4L*heap.get(word).weights.data.length;
+			}
+		} else {
+			compressed = new CompressedInvertedFiles(storage.equals("COMPRESSED_8") ? 1 : 2);
+			compressed.reset(numWords);
+			for (int word = 0; word < numWords; word++) {
+				InvertedFile inv = heap.get(word);
+				for (int i = 0; i < inv.size; i++) {
+					compressed.addImage(word, inv.get(i), inv.weights.get(i));
+				}
+				inv.releaseMemory();
+			}
+			compressed.trimToSize();
+			bytes = compressed.getAllocatedBytes();
+		}
+		System.out.printf("storage=%s bytes/image=%.1f%n", storage, bytes/(double)numImages);
+
+		queries = new DogArray_I32[numQueries];
+		for (int i = 0; i < numQueries; i++) {
+			queries[i] = new DogArray_I32();
+			for (int j = 0; j < wordsPerImage; j++) {
+				queries[i].add((int)(numWords*Math.pow(rand.nextDouble(), 2.0)));
+			}
+		}
+		scores = new float[numImages];
+	}
+
+	/**
+	 * Scores every image in the inverted files that each query word references
+	 */
+	@Benchmark public float query() {
+		float total = 0;
+		for (DogArray_I32 words : queries) {
+			for (int i = 0; i < words.size; i++) {
+				int word = words.get(i);
+				if (compressed != null) {
+					compressed.forEach(word, ( imageIdx, weight ) -> scores[imageIdx] += weight);
+				} else {
+					InvertedFile inv = heap.get(word);
+					for (int j = 0; j < inv.size; j++) {
+						scores[inv.get(j)] += inv.weights.get(j);
+					}
+				}
+			}
+			total += scores[0];
+		}
+		return total;
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkInvertedFiles.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -29,6 +29,7 @@ import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
 import lombok.Getter;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
 import org.ddogleg.struct.VerbosePrint;
 import org.jetbrains.annotations.Nullable;
 
@@ -63,6 +64,9 @@ public class AztecCodePreciseDetector<T extends ImageGray<T>> implements AztecCo
 	// Candidate markers which could not be decoded
 	final List<AztecCode> failed = new ArrayList<>();
 
+	// Indicates if each marker in allMarkers was successfully decoded
+	final DogArray_B markerSuccess = new DogArray_B();
+
 	@Nullable PrintStream verbose = null;
 
 	public AztecCodePreciseDetector( InputToBinary<T> inputToBinary,
@@ -87,18 +91,31 @@ public class AztecCodePreciseDetector<T extends ImageGray<T>> implements AztecCo
 		// Attempt to decode candidate markers
 		List<AztecPyramid> pyramids = detectorPyramids.getFound().toList();
 		if (verbose != null) verbose.println("Total pyramids found: " + pyramids.size());
+		allMarkers.resize(pyramids.size());
+		markerSuccess.resize(pyramids.size(), false);
+		decodeCandidates(pyramids, gray);
+
+		// Sort the results while preserving the order they were found in
+		for (int i = 0; i < allMarkers.size; i++) {
+			if (markerSuccess.get(i)) {
+				detected.add(allMarkers.get(i));
+			} else {
+				failed.add(allMarkers.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Attempts to decode a marker at every pyramid. Results are saved in {@link #allMarkers} and
+	 * {@link #markerSuccess}, which have already been resized.
+	 */
+	protected void decodeCandidates( List<AztecPyramid> pyramids, T gray ) {
 		for (int locatorIdx = 0; locatorIdx < pyramids.size(); locatorIdx++) {
 			AztecPyramid pyramid = pyramids.get(locatorIdx);
 
 			if (verbose != null) verbose.println("Considering pyramid at: " + pyramid.get(0).center);
 
-			AztecCode marker = allMarkers.grow();
-
-			if (decoder.process(pyramid, gray, marker)) {
-				detected.add(marker);
-			} else {
-				failed.add(marker);
-			}
+			markerSuccess.set(locatorIdx, decoder.process(pyramid, gray, allMarkers.get(locatorIdx)));
 		}
 	}
 
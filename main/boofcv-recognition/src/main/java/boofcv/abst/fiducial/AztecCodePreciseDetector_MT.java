@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.abst.filter.binary.InputToBinary;
+import boofcv.alg.fiducial.aztec.AztecDecoderImage;
+import boofcv.alg.fiducial.aztec.AztecPyramid;
+import boofcv.alg.shapes.polygon.DetectPolygonBinaryGrayRefine;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageGray;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * Concurrent version of {@link AztecCodePreciseDetector}. Candidate markers are decoded in parallel with each
+ * thread having its own {@link AztecDecoderImage}. Results are identical to the single thread version
+ * and in the same order.
+ *
+ * @author Peter Abeles
+ */
+public class AztecCodePreciseDetector_MT<T extends ImageGray<T>> extends AztecCodePreciseDetector<T> {
+	// Decoders used by each thread
+	final GrowArray<AztecDecoderImage<T>> workers;
+
+	public AztecCodePreciseDetector_MT( InputToBinary<T> inputToBinary,
+										DetectPolygonBinaryGrayRefine<T> squareDetector,
+										Class<T> imageType ) {
+		super(inputToBinary, squareDetector, imageType);
+		workers = new GrowArray<>(() -> new AztecDecoderImage<>(imageType));
+	}
+
+	@Override protected void decodeCandidates( List<AztecPyramid> pyramids, T gray ) {
+		BoofConcurrency.loopBlocks(0, pyramids.size(), workers, ( worker, idx0, idx1 ) -> {
+			// Use the same settings as the main decoder
+			worker.considerTransposed = decoder.considerTransposed;
+			worker.maxOrientationError = decoder.maxOrientationError;
+
+			for (int i = idx0; i < idx1; i++) {
+				markerSuccess.set(i, worker.process(pyramids.get(i), gray, allMarkers.get(i)));
+			}
+		});
+	}
+}
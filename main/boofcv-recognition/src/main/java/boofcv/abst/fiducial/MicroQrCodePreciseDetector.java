@@ -61,9 +61,17 @@ public class MicroQrCodePreciseDetector<T extends ImageGray<T>> implements Micro
 									   @Nullable String forceEncoding,
 									   String defaultEncoding,
 									   boolean copyBinary, Class<T> imageType ) {
+		this(inputToBinary, detectPositionPatterns,
+				new MicroQrCodeDecoderImage<>(forceEncoding, defaultEncoding, imageType), copyBinary, imageType);
+	}
+
+	protected MicroQrCodePreciseDetector( InputToBinary<T> inputToBinary,
+										  QrCodePositionPatternDetector<T> detectPositionPatterns,
+										  MicroQrCodeDecoderImage<T> decoder,
+										  boolean copyBinary, Class<T> imageType ) {
 		this.inputToBinary = inputToBinary;
 		this.detectPositionPatterns = detectPositionPatterns;
-		this.decoder = new MicroQrCodeDecoderImage<>(forceEncoding, defaultEncoding, imageType);
+		this.decoder = decoder;
 		this.imageType = imageType;
 		this.contourHelper = new BinaryContourHelper(
 				detectPositionPatterns.getSquareDetector().getDetector().getContourFinder(), copyBinary);
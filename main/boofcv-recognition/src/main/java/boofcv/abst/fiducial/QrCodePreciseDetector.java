@@ -54,9 +54,17 @@ public class QrCodePreciseDetector<T extends ImageGray<T>> implements QrCodeDete
 								  @Nullable String forceEncoding,
 								  String defaultEncoding,
 								  boolean copyBinary, Class<T> imageType ) {
+		this(inputToBinary, detectPositionPatterns,
+				new QrCodeDecoderImage<>(forceEncoding, defaultEncoding, imageType), copyBinary, imageType);
+	}
+
+	protected QrCodePreciseDetector( InputToBinary<T> inputToBinary,
+									 QrCodePositionPatternDetector<T> detectPositionPatterns,
+									 QrCodeDecoderImage<T> decoder,
+									 boolean copyBinary, Class<T> imageType ) {
 		this.inputToBinary = inputToBinary;
 		this.detectPositionPatterns = detectPositionPatterns;
-		this.decoder = new QrCodeDecoderImage<>(forceEncoding, defaultEncoding, imageType);
+		this.decoder = decoder;
 		this.imageType = imageType;
 		this.contourHelper = new BinaryContourHelper(detectPositionPatterns.getSquareDetector().getDetector().getContourFinder(), copyBinary);
 	}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.abst.filter.binary.InputToBinary;
+import boofcv.alg.fiducial.qrcode.QrCodeDecoderImage_MT;
+import boofcv.alg.fiducial.qrcode.QrCodePositionPatternDetector;
+import boofcv.struct.image.ImageGray;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Concurrent version of {@link QrCodePreciseDetector}. Candidate markers are decoded in parallel
+ * using {@link QrCodeDecoderImage_MT}.
+ *
+ * @author Peter Abeles
+ */
+public class QrCodePreciseDetector_MT<T extends ImageGray<T>> extends QrCodePreciseDetector<T> {
+	public QrCodePreciseDetector_MT( InputToBinary<T> inputToBinary,
+									 QrCodePositionPatternDetector<T> detectPositionPatterns,
+									 @Nullable String forceEncoding,
+									 String defaultEncoding,
+									 boolean copyBinary, Class<T> imageType ) {
+		super(inputToBinary, detectPositionPatterns,
+				new QrCodeDecoderImage_MT<>(forceEncoding, defaultEncoding, imageType), copyBinary, imageType);
+	}
+}
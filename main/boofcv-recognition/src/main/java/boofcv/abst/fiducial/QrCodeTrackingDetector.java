@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.alg.distort.LensDistortionNarrowFOV;
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.struct.ConfigLength;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.distort.Point2Transform2_F32;
+import boofcv.struct.distort.Point2Transform2_F64;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.homography.Homography2D_F64;
+import georegression.struct.point.Point2D_F32;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.shapes.Polygon2D_F64;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * QR Code detector for video sequences where codes move smoothly between frames. The location of each QR code
+ * found in the previous frame is predicted using a constant velocity model. The full detector is then applied
+ * only inside a region of interest around each prediction. Once every {@link #fullScanPeriod} frames, or when no
+ * codes are being tracked, the entire image is processed so that new QR codes can be found. Since regions of
+ * interest are typically much smaller than the image this is several times faster than processing every frame
+ * from scratch.
+ * </p>
+ *
+ * <p>
+ * All results are in the input image's pixel coordinates and are the same format as {@link QrCodePreciseDetector}.
+ * Codes which are not found inside their region of interest are dropped until the next full scan. Lens distortion
+ * must be specified with {@link #setLensDistortion} and not on {@link #detector} directly, since the detector
+ * sees each region of interest as its own image.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class QrCodeTrackingDetector<T extends ImageGray<T>> implements QrCodeDetector<T> {
+	/**
+	 * Detector which is applied to the full image and to each region of interest. Don't set its lens distortion
+	 * directly, see {@link #setLensDistortion}.
+	 */
+	@Getter final QrCodePreciseDetector<T> detector;
+
+	/** A full image scan is done once every this many frames. If 1 then every frame is a full scan. */
+	@Getter @Setter int fullScanPeriod;
+
+	/** How much the predicted bounding box is expanded on each side. Relative to the bounding box's largest side */
+	@Getter final ConfigLength padding;
+
+	/** True if the most recently processed frame was a full image scan */
+	@Getter boolean fullScan;
+
+	// Number of frames which have been processed since the last full scan
+	int framesSinceFullScan;
+
+	// Codes being tracked from the previous frame and the ones found in the current frame
+	DogArray<Track> tracks = new DogArray<>(Track::new, Track::reset);
+	DogArray<Track> tracksPrevious = new DogArray<>(Track::new, Track::reset);
+
+	// Found codes in input image coordinates
+	final DogArray<QrCode> detections = new DogArray<>(QrCode::new);
+	final DogArray<QrCode> failures = new DogArray<>(QrCode::new);
+
+	// Image which each region of interest is copied into. Copying avoids issues with sub-images
+	final T roiImage;
+	@Nullable T subView;
+	final ImageRectangle roi = new ImageRectangle();
+
+	// Lens distortion in the coordinates of the image being processed by the detector. Null if no distortion
+	@Nullable RoiLensDistortion roiDistortion;
+
+	// Work space
+	final Point2D_F64 center = new Point2D_F64();
+
+	/**
+	 * @param detector Detector which is applied to the full image and to each region of interest
+	 * @param fullScanPeriod A full scan is done once every this many frames
+	 * @param padding How much the predicted bounding box is expanded on each side
+	 */
+	public QrCodeTrackingDetector( QrCodePreciseDetector<T> detector, int fullScanPeriod, ConfigLength padding ) {
+		if (fullScanPeriod < 1)
+			throw new IllegalArgumentException("fullScanPeriod must be at least 1");
+		this.detector = detector;
+		this.fullScanPeriod = fullScanPeriod;
+		this.padding = padding.copy();
+		this.roiImage = GeneralizedImageOps.createSingleBand(detector.getImageType(), 1, 1);
+	}
+
+	/**
+	 * Specifies the input image's lens distortion. The model given to {@link #detector} is adjusted for each
+	 * region of interest, so lens distortion must be set here and not on the detector.
+	 *
+	 * @param width Input image width
+	 * @param height Input image height
+	 * @param model Distortion model. Null to remove a distortion model.
+	 */
+	public void setLensDistortion( int width, int height, @Nullable LensDistortionNarrowFOV model ) {
+		roiDistortion = model == null ? null : new RoiLensDistortion(model);
+		detector.setLensDistortion(width, height, roiDistortion);
+	}
+
+	/**
+	 * Discards all tracks. The next frame will be a full scan. Call when a new video sequence is started.
+	 */
+	public void reset() {
+		tracks.reset();
+		tracksPrevious.reset();
+		framesSinceFullScan = 0;
+	}
+
+	@Override public void process( T gray ) {
+		detections.reset();
+		failures.reset();
+
+		// Swap so that the old tracks are saved while new ones are created
+		DogArray<Track> tmp = tracksPrevious;
+		tracksPrevious = tracks;
+		tracks = tmp;
+		tracks.reset();
+
+		fullScan = tracksPrevious.size == 0 || framesSinceFullScan + 1 >= fullScanPeriod;
+		if (fullScan) {
+			framesSinceFullScan = 0;
+			setDistortionOffset(0, 0);
+			detector.process(gray);
+			addResults(0, 0);
+		} else {
+			framesSinceFullScan++;
+			for (int trackIdx = 0; trackIdx < tracksPrevious.size; trackIdx++) {
+				if (!predictRegion(tracksPrevious.get(trackIdx), gray.width, gray.height))
+					continue;
+
+				subView = gray.subimage(roi.x0, roi.y0, roi.x1, roi.y1, subView);
+				roiImage.setTo(subView);
+				setDistortionOffset(roi.x0, roi.y0);
+				detector.process(roiImage);
+				addResults(roi.x0, roi.y0);
+			}
+		}
+
+		createTracks();
+	}
+
+	/**
+	 * Specifies where the image being processed by the detector is inside the input image
+	 */
+	void setDistortionOffset( int x0, int y0 ) {
+		if (roiDistortion == null)
+			return;
+		roiDistortion.offsetX = x0;
+		roiDistortion.offsetY = y0;
+	}
+
+	/**
+	 * Predicts where the track will be in the current frame and computes the region of interest around it
+	 *
+	 * @return true if the region of interest is inside the image
+	 */
+	boolean predictRegion( Track track, int width, int height ) {
+		double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+		double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+		for (int i = 0; i < track.bounds.size(); i++) {
+			Point2D_F64 p = track.bounds.get(i);
+			x0 = Math.min(x0, p.x);
+			y0 = Math.min(y0, p.y);
+			x1 = Math.max(x1, p.x);
+			y1 = Math.max(y1, p.y);
+		}
+
+		int pad = padding.computeI(Math.max(x1 - x0, y1 - y0));
+
+		roi.x0 = Math.max(0, (int)Math.floor(x0 + track.velocity.x) - pad);
+		roi.y0 = Math.max(0, (int)Math.floor(y0 + track.velocity.y) - pad);
+		roi.x1 = Math.min(width, (int)Math.ceil(x1 + track.velocity.x) + pad + 1);
+		roi.y1 = Math.min(height, (int)Math.ceil(y1 + track.velocity.y) + pad + 1);
+
+		return roi.x0 < roi.x1 && roi.y0 < roi.y1;
+	}
+
+	/**
+	 * Copies results from the detector while converting them into input image coordinates
+	 */
+	void addResults( int offsetX, int offsetY ) {
+		List<QrCode> found = detector.getDetections();
+		for (int i = 0; i < found.size(); i++) {
+			QrCode qr = found.get(i);
+			if (isDuplicate(qr, offsetX, offsetY))
+				continue;
+			translate(detections.grow().setTo(qr), offsetX, offsetY);
+		}
+
+		List<QrCode> failed = detector.getFailures();
+		for (int i = 0; i < failed.size(); i++) {
+			translate(failures.grow().setTo(failed.get(i)), offsetX, offsetY);
+		}
+	}
+
+	/**
+	 * Regions of interest can overlap so the same QR code can be found more than once. It's a duplicate if
+	 * the message is the same and its center is inside the bounding box of a previously found code
+	 */
+	boolean isDuplicate( QrCode qr, int offsetX, int offsetY ) {
+		computeCenter(qr.bounds, center);
+		center.x += offsetX;
+		center.y += offsetY;
+
+		for (int i = 0; i < detections.size; i++) {
+			QrCode found = detections.get(i);
+			if (!Objects.equals(found.message, qr.message))
+				continue;
+
+			double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+			double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+			for (int j = 0; j < found.bounds.size(); j++) {
+				Point2D_F64 p = found.bounds.get(j);
+				x0 = Math.min(x0, p.x);
+				y0 = Math.min(y0, p.y);
+				x1 = Math.max(x1, p.x);
+				y1 = Math.max(y1, p.y);
+			}
+			if (center.x >= x0 && center.x <= x1 && center.y >= y0 && center.y <= y1)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a track for each detection. The velocity is found by matching it to the closest previous track
+	 * which has the same message.
+	 */
+	void createTracks() {
+		for (int i = 0; i < tracksPrevious.size; i++) {
+			tracksPrevious.get(i).matched = false;
+		}
+
+		for (int detIdx = 0; detIdx < detections.size; detIdx++) {
+			QrCode qr = detections.get(detIdx);
+			Track track = tracks.grow();
+			track.message = qr.message;
+			track.bounds.setTo(qr.bounds);
+			computeCenter(qr.bounds, track.center);
+
+			@Nullable Track best = null;
+			double bestDistance = Double.MAX_VALUE;
+			for (int i = 0; i < tracksPrevious.size; i++) {
+				Track prev = tracksPrevious.get(i);
+				if (prev.matched || !Objects.equals(prev.message, qr.message))
+					continue;
+				double d = prev.center.distance2(track.center);
+				if (d < bestDistance) {
+					bestDistance = d;
+					best = prev;
+				}
+			}
+
+			if (best != null) {
+				best.matched = true;
+				track.velocity.setTo(track.center.x - best.center.x, track.center.y - best.center.y);
+			}
+		}
+	}
+
+	static void computeCenter( Polygon2D_F64 polygon, Point2D_F64 center ) {
+		center.setTo(0, 0);
+		for (int i = 0; i < polygon.size(); i++) {
+			center.x += polygon.get(i).x;
+			center.y += polygon.get(i).y;
+		}
+		center.x /= polygon.size();
+		center.y /= polygon.size();
+	}
+
+	/**
+	 * Translates all the pixel coordinates in the QR code
+	 */
+	static void translate( QrCode qr, double dx, double dy ) {
+		if (dx == 0.0 && dy == 0.0)
+			return;
+
+		translate(qr.ppCorner, dx, dy);
+		translate(qr.ppRight, dx, dy);
+		translate(qr.ppDown, dx, dy);
+		translate(qr.bounds, dx, dy);
+		for (int i = 0; i < qr.alignment.size; i++) {
+			qr.alignment.get(i).pixel.x += dx;
+			qr.alignment.get(i).pixel.y += dy;
+		}
+
+		// Apply the translation after the homography
+		Homography2D_F64 H = qr.Hinv;
+		H.a11 += dx*H.a31;
+		H.a12 += dx*H.a32;
+		H.a13 += dx*H.a33;
+		H.a21 += dy*H.a31;
+		H.a22 += dy*H.a32;
+		H.a23 += dy*H.a33;
+	}
+
+	static void translate( Polygon2D_F64 polygon, double dx, double dy ) {
+		for (int i = 0; i < polygon.size(); i++) {
+			polygon.get(i).x += dx;
+			polygon.get(i).y += dy;
+		}
+	}
+
+	/** Number of QR codes currently being tracked */
+	public int getTotalTracks() {
+		return tracks.size;
+	}
+
+	@Override public List<QrCode> getDetections() {
+		return detections.toList();
+	}
+
+	@Override public List<QrCode> getFailures() {
+		return failures.toList();
+	}
+
+	@Override public Class<T> getImageType() {
+		return detector.getImageType();
+	}
+
+	/**
+	 * Lens distortion for a region of interest. Pixel coordinates are converted into input image coordinates
+	 * before the input image's model is applied and converted back afterwards. Undistorted pixel coordinates are
+	 * translated by the same offset, so results only need to be translated to be in the input image's coordinates.
+	 */
+	static class RoiLensDistortion implements LensDistortionNarrowFOV {
+		final LensDistortionNarrowFOV model;
+
+		// Location of the region of interest inside the input image
+		double offsetX, offsetY;
+
+		RoiLensDistortion( LensDistortionNarrowFOV model ) {
+			this.model = model;
+		}
+
+		@Override public Point2Transform2_F64 distort_F64( boolean pixelIn, boolean pixelOut ) {
+			return new Offset_F64(model.distort_F64(pixelIn, pixelOut), pixelIn, pixelOut);
+		}
+
+		@Override public Point2Transform2_F32 distort_F32( boolean pixelIn, boolean pixelOut ) {
+			return new Offset_F32(model.distort_F32(pixelIn, pixelOut), pixelIn, pixelOut);
+		}
+
+		@Override public Point2Transform2_F64 undistort_F64( boolean pixelIn, boolean pixelOut ) {
+			return new Offset_F64(model.undistort_F64(pixelIn, pixelOut), pixelIn, pixelOut);
+		}
+
+		@Override public Point2Transform2_F32 undistort_F32( boolean pixelIn, boolean pixelOut ) {
+			return new Offset_F32(model.undistort_F32(pixelIn, pixelOut), pixelIn, pixelOut);
+		}
+
+		@Override public Point2Transform2_F32 normalized_F32() {
+			return new Offset_F32(model.normalized_F32(), true, false);
+		}
+
+		@Override public Point2Transform2_F64 normalized_F64() {
+			return new Offset_F64(model.normalized_F64(), true, false);
+		}
+
+		class Offset_F64 implements Point2Transform2_F64 {
+			final Point2Transform2_F64 transform;
+			final boolean pixelIn, pixelOut;
+
+			Offset_F64( Point2Transform2_F64 transform, boolean pixelIn, boolean pixelOut ) {
+				this.transform = transform;
+				this.pixelIn = pixelIn;
+				this.pixelOut = pixelOut;
+			}
+
+			@Override public void compute( double x, double y, Point2D_F64 out ) {
+				if (pixelIn)
+					transform.compute(x + offsetX, y + offsetY, out);
+				else
+					transform.compute(x, y, out);
+				if (pixelOut) {
+					out.x -= offsetX;
+					out.y -= offsetY;
+				}
+			}
+
+			@Override public Point2Transform2_F64 copyConcurrent() {
+				return new Offset_F64(transform.copyConcurrent(), pixelIn, pixelOut);
+			}
+		}
+
+		class Offset_F32 implements Point2Transform2_F32 {
+			final Point2Transform2_F32 transform;
+			final boolean pixelIn, pixelOut;
+
+			Offset_F32( Point2Transform2_F32 transform, boolean pixelIn, boolean pixelOut ) {
+				this.transform = transform;
+				this.pixelIn = pixelIn;
+				this.pixelOut = pixelOut;
+			}
+
+			@Override public void compute( float x, float y, Point2D_F32 out ) {
+				if (pixelIn)
+					transform.compute(x + (float)offsetX, y + (float)offsetY, out);
+				else
+					transform.compute(x, y, out);
+				if (pixelOut) {
+					out.x -= (float)offsetX;
+					out.y -= (float)offsetY;
+				}
+			}
+
+			@Override public Point2Transform2_F32 copyConcurrent() {
+				return new Offset_F32(transform.copyConcurrent(), pixelIn, pixelOut);
+			}
+		}
+	}
+
+	/**
+	 * Location of a QR code in the previous frame
+	 */
+	static class Track {
+		String message = "";
+		final Polygon2D_F64 bounds = new Polygon2D_F64(4);
+		final Point2D_F64 center = new Point2D_F64();
+		// Motion of the center since the previous frame
+		final Point2D_F64 velocity = new Point2D_F64();
+		// If a new track has already been matched to this one
+		boolean matched;
+
+		void reset() {
+			message = "";
+			bounds.vertexes.resize(4);
+			center.setTo(0, 0);
+			velocity.setTo(0, 0);
+			matched = false;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.scene;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List of the String ID for every image in a {@link FeatureSceneRecognition} database. The index of an image in
+ * the list is the int ID the image has inside the low level database. When an image is removed its element is
+ * set to null, so that the index of other images doesn't change, until {@link #compact()} is called.
+ *
+ * @author Peter Abeles
+ */
+public class ImageIdList {
+	/**
+	 * ID of every image. Removed images are null. Images can be appended directly, e.g. when loading from disk.
+	 */
+	@Getter final List<String> ids = new ArrayList<>();
+
+	/** Number of removed images in {@link #ids} */
+	@Getter int totalRemoved;
+
+	// Look up table from image ID to its index in ids
+	final Map<String, Integer> idToIndex = new HashMap<>();
+	// Number of elements in ids which have been added to idToIndex
+	int numIndexed;
+
+	/** Removes all images */
+	public void reset() {
+		ids.clear();
+		idToIndex.clear();
+		numIndexed = 0;
+		totalRemoved = 0;
+	}
+
+	/**
+	 * Adds a new image to the end of the list
+	 *
+	 * @return Index of the image
+	 */
+	public int add( String id ) {
+		ids.add(id);
+		return ids.size() - 1;
+	}
+
+	/** Returns the ID of the image at the specified index */
+	public String get( int index ) {
+		return ids.get(index);
+	}
+
+	/**
+	 * Marks the image as removed by setting its element to null. If more than one image has the same ID then
+	 * only the first one is removed.
+	 *
+	 * @param id ID of the image being removed
+	 * @return Index of the removed image or -1 if no image has that ID
+	 */
+	public int remove( String id ) {
+		// Images could have been added to the list directly. Only the new elements need to be indexed
+		if (numIndexed > ids.size()) {
+			idToIndex.clear();
+			numIndexed = 0;
+		}
+		for (; numIndexed < ids.size(); numIndexed++) {
+			String found = ids.get(numIndexed);
+			if (found != null)
+				idToIndex.putIfAbsent(found, numIndexed);
+		}
+
+		Integer index = idToIndex.remove(id);
+		if (index == null)
+			return -1;
+
+		ids.set(index, null);
+		totalRemoved++;
+		return index;
+	}
+
+	/**
+	 * Creates a look up table from an image's current index to its index once removed images have been
+	 * deleted. Removed images are -1. The list isn't modified.
+	 */
+	public int[] createOldToNew() {
+		var oldToNew = new int[ids.size()];
+		int numKept = 0;
+		for (int i = 0; i < ids.size(); i++) {
+			oldToNew[i] = ids.get(i) == null ? -1 : numKept++;
+		}
+		return oldToNew;
+	}
+
+	/**
+	 * Deletes the elements of removed images, which changes the index of the images after them.
+	 *
+	 * @return Look up table from old to new index, see {@link #createOldToNew()}, or null if nothing was removed
+	 */
+	public @Nullable int[] compact() {
+		if (totalRemoved == 0)
+			return null;
+
+		int[] oldToNew = createOldToNew();
+		int numKept = 0;
+		for (int i = 0; i < ids.size(); i++) {
+			String id = ids.get(i);
+			if (id != null)
+				ids.set(numKept++, id);
+		}
+		ids.subList(numKept, ids.size()).clear();
+
+		idToIndex.clear();
+		numIndexed = 0;
+		totalRemoved = 0;
+		return oldToNew;
+	}
+
+	/**
+	 * Copies the IDs of all images which have not been removed
+	 *
+	 * @param storage (Output) Optional storage for the list. Cleared before use.
+	 * @return List of IDs
+	 */
+	public List<String> copyLive( @Nullable List<String> storage ) {
+		if (storage == null)
+			storage = new ArrayList<>();
+		else
+			storage.clear();
+
+		for (int i = 0; i < ids.size(); i++) {
+			String id = ids.get(i);
+			if (id != null)
+				storage.add(id);
+		}
+		return storage;
+	}
+}
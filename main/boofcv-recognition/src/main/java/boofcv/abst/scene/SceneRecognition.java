@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -63,6 +63,18 @@ public interface SceneRecognition<T extends ImageBase<T>> extends VerbosePrint {
 	 */
 	void addImage( String id, T image );
 
+	/**
+	 * Removes an image from the database. The model is not modified. Implementations which can't remove images
+	 * throw an exception.
+	 *
+	 * @param id The unique ID of the image
+	 * @return true if the image was found and removed
+	 * @throws UnsupportedOperationException If the implementation doesn't support removing images
+	 */
+	default boolean removeImage( String id ) {
+		throw new UnsupportedOperationException("Removing images is not supported by " + getClass().getSimpleName());
+	}
+
 	/**
 	 * Finds the best matches in the database to the query image.
 	 *
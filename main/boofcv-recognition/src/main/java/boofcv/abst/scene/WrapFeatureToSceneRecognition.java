@@ -88,6 +88,10 @@ public class WrapFeatureToSceneRecognition<Image extends ImageBase<Image>, TD ex
 		recognizer.addImage(id, wrappedDetector);
 	}
 
+	@Override public boolean removeImage( String id ) {
+		return recognizer.removeImage(id);
+	}
+
 	@Override
 	public boolean query( Image queryImage, @Nullable BoofLambdas.Filter<String> filter, int limit, DogArray<Match> matches ) {
 		detector.detect(queryImage);
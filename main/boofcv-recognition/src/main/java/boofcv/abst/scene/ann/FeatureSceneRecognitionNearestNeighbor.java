@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -19,6 +19,7 @@
 package boofcv.abst.scene.ann;
 
 import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.abst.scene.ImageIdList;
 import boofcv.abst.scene.SceneRecognition;
 import boofcv.alg.scene.ann.RecognitionNearestNeighborInvertedFile;
 import boofcv.alg.scene.bow.BowMatch;
@@ -67,8 +68,8 @@ public class FeatureSceneRecognitionNearestNeighbor<TD extends TupleDesc<TD>> im
 	/** Stores features found in one image */
 	@Getter @Setter DogArray<TD> imageFeatures;
 
-	/** List of all the images in the dataset */
-	@Getter List<String> imageIds = new ArrayList<>();
+	/** List of all the images in the dataset. The index of an image is its ID in the database. */
+	@Getter final ImageIdList imageIds = new ImageIdList();
 
 	/** Performance tuning. If less than this number of features a single thread algorithm will be used */
 	@Getter @Setter public int minimumForThread = 500; // This value has not been proven to be optimal
@@ -132,7 +133,7 @@ public class FeatureSceneRecognitionNearestNeighbor<TD extends TupleDesc<TD>> im
 	}
 
 	@Override public void clearDatabase() {
-		imageIds.clear();
+		imageIds.reset();
 		database.clearImages();
 	}
 
@@ -144,8 +145,7 @@ public class FeatureSceneRecognitionNearestNeighbor<TD extends TupleDesc<TD>> im
 		}
 
 		// Save the ID and convert into a format the database understands
-		int imageIndex = imageIds.size();
-		imageIds.add(id);
+		int imageIndex = imageIds.add(id);
 
 		if (verbose != null)
 			verbose.println("added[" + imageIndex + "].size=" + features.size() + " id=" + id);
@@ -154,14 +154,40 @@ public class FeatureSceneRecognitionNearestNeighbor<TD extends TupleDesc<TD>> im
 		database.addImage(imageIndex, imageFeatures.toList());
 	}
 
-	@Override public List<String> getImageIds( @Nullable List<String> storage ) {
-		if (storage == null)
-			storage = new ArrayList<>();
-		else
-			storage.clear();
+	@Override public boolean removeImage( String id ) {
+		// The database uses the index in imageIds as the image's ID
+		int imageIndex = imageIds.remove(id);
+		if (imageIndex == -1)
+			return false;
+
+		if (verbose != null) verbose.println("removed[" + imageIndex + "] id=" + id);
+
+		database.removeImage(imageIndex);
+		return true;
+	}
+
+	/**
+	 * Deletes removed images from {@link #imageIds} and the database. This blocks for time proportional to the
+	 * size of the database. See {@link RecognitionNearestNeighborInvertedFile#compact()}.
+	 */
+	public void compact() {
+		// Change the ID of images in the database to match their new index
+		int[] oldToNew = imageIds.compact();
+		if (oldToNew != null)
+			database.remapImageIDs(( index ) -> oldToNew[index]);
+		database.compact();
+	}
 
-		storage.addAll(imageIds);
-		return storage;
+	/**
+	 * Returns true if enough images have been removed that {@link #compact()} should be called.
+	 * See {@link RecognitionNearestNeighborInvertedFile#isCompactRecommended()}.
+	 */
+	public boolean isCompactRecommended() {
+		return database.isCompactRecommended();
+	}
+
+	@Override public List<String> getImageIds( @Nullable List<String> storage ) {
+		return imageIds.copyLive(storage);
 	}
 
 	@Override
@@ -75,6 +75,13 @@ public class ConfigRecognitionNister2006 implements Configuration {
 	 */
 	public final ConfigLength learningMinimumPointsForChildren = ConfigLength.fixed(0);
 
+	/**
+	 * When learning, if a node has more than this number of points then k-means is run on a random sample of
+	 * this size. Can greatly speed up learning when there are a very large number of points. If relative then
+	 * it's relative to the total number of points. By default all the points are used.
+	 */
+	public final ConfigLength learningMaximumPointsForKMeans = ConfigLength.relative(1.0, 0);
+
 	/**
 	 * If true then it will learn node weights. If false the all nodes but the root node will have a weight of 1.0
 	 */
@@ -116,6 +123,7 @@ public class ConfigRecognitionNister2006 implements Configuration {
 		queryMaximumImagesInNode.checkValidity();
 		learningMaximumImagesInNode.checkValidity();
 		learningMinimumPointsForChildren.checkValidity();
+		learningMaximumPointsForKMeans.checkValidity();
 	}
 
 	public ConfigRecognitionNister2006 setTo( ConfigRecognitionNister2006 src ) {
@@ -129,6 +137,7 @@ public class ConfigRecognitionNister2006 implements Configuration {
 		this.queryMaximumImagesInNode.setTo(src.queryMaximumImagesInNode);
 		this.learningMaximumImagesInNode.setTo(src.learningMaximumImagesInNode);
 		this.learningMinimumPointsForChildren.setTo(src.learningMinimumPointsForChildren);
+		this.learningMaximumPointsForKMeans.setTo(src.learningMaximumPointsForKMeans);
 		return this;
 	}
 }
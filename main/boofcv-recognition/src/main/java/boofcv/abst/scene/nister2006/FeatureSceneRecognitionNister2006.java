@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -19,12 +19,15 @@
 package boofcv.abst.scene.nister2006;
 
 import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.abst.scene.ImageIdList;
 import boofcv.abst.scene.SceneRecognition;
 import boofcv.alg.scene.bow.BowMatch;
 import boofcv.alg.scene.nister2006.LearnNodeWeights;
 import boofcv.alg.scene.nister2006.RecognitionVocabularyTreeNister2006;
 import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
 import boofcv.alg.scene.vocabtree.LearnHierarchicalTree;
+import boofcv.alg.scene.vocabtree.LearnHierarchicalTree_MT;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.struct.FactoryTupleDesc;
 import boofcv.misc.BoofLambdas;
 import boofcv.misc.BoofMiscOps;
@@ -40,7 +43,6 @@ import org.ddogleg.struct.Factory;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -64,12 +66,15 @@ public class FeatureSceneRecognitionNister2006<TD extends TupleDesc<TD>> impleme
 	/** Stores features found in one image */
 	@Getter @Setter DogArray<TD> imageFeatures;
 
-	/** List of all the images in the dataset */
-	@Getter List<String> imageIds = new ArrayList<>();
+	/** List of all the images in the dataset. The index of an image is its ID in the database. */
+	@Getter final ImageIdList imageIds = new ImageIdList();
 
 	/** Performance tuning. If less than this number of features a single thread algorithm will be used */
 	@Getter @Setter public int minimumForThread = 500; // This value has not been proven to be optimal
 
+	// Creates new instances of the feature descriptor
+	Factory<TD> factoryTuple;
+
 	// Describes how to store the feature descriptor
 	Class<TD> tupleType;
 	int tupleDOF;
@@ -84,6 +89,7 @@ public class FeatureSceneRecognitionNister2006<TD extends TupleDesc<TD>> impleme
 
 	public FeatureSceneRecognitionNister2006( ConfigRecognitionNister2006 config, Factory<TD> factory ) {
 		this.config = config;
+		this.factoryTuple = factory;
 		this.imageFeatures = new DogArray<>(factory);
 		this.database = new RecognitionVocabularyTreeNister2006<>();
 
@@ -136,9 +142,12 @@ public class FeatureSceneRecognitionNister2006<TD extends TupleDesc<TD>> impleme
 		BoofLambdas.Factory<StandardKMeans<TD>> factoryKMeans = () ->
 				FactoryTupleCluster.kmeans(config.kmeans, minimumForThread, tupleDOF, tupleType);
 
-		LearnHierarchicalTree<TD> learnTree = new LearnHierarchicalTree<>(
-				() -> FactoryTupleDesc.createPackedBig(tupleDOF, tupleType), factoryKMeans, config.randSeed);
+		BoofLambdas.Factory<PackedArray<TD>> factoryStorage = () -> FactoryTupleDesc.createPackedBig(tupleDOF, tupleType);
+		LearnHierarchicalTree<TD> learnTree = BoofConcurrency.USE_CONCURRENT ?
+				new LearnHierarchicalTree_MT<>(factoryStorage, factoryKMeans, factoryTuple::newInstance, config.randSeed) :
+				new LearnHierarchicalTree<>(factoryStorage, factoryKMeans, config.randSeed);
 		learnTree.minimumPointsForChildren.setTo(config.learningMinimumPointsForChildren);
+		learnTree.maximumPointsForKMeans.setTo(config.learningMaximumPointsForKMeans);
 		if (verbose != null)
 			BoofMiscOps.verboseChildren(verbose, null, learnTree);
 		learnTree.process(packedFeatures, tree);
@@ -187,7 +196,7 @@ public class FeatureSceneRecognitionNister2006<TD extends TupleDesc<TD>> impleme
 	}
 
 	@Override public void clearDatabase() {
-		imageIds.clear();
+		imageIds.reset();
 		database.clearImages();
 	}
 
@@ -199,8 +208,7 @@ public class FeatureSceneRecognitionNister2006<TD extends TupleDesc<TD>> impleme
 		}
 
 		// Save the ID and convert into a format the database understands
-		int imageIndex = imageIds.size();
-		imageIds.add(id);
+		int imageIndex = imageIds.add(id);
 
 		if (verbose != null)
 			verbose.println("added[" + imageIndex + "].size=" + features.size() + " id=" + id);
@@ -209,14 +217,40 @@ public class FeatureSceneRecognitionNister2006<TD extends TupleDesc<TD>> impleme
 		database.addImage(imageIndex, imageFeatures.toList());
 	}
 
-	@Override public List<String> getImageIds( @Nullable List<String> storage ) {
-		if (storage == null)
-			storage = new ArrayList<>();
-		else
-			storage.clear();
+	@Override public boolean removeImage( String id ) {
+		// The database uses the index in imageIds as the image's ID
+		int imageIndex = imageIds.remove(id);
+		if (imageIndex == -1)
+			return false;
+
+		if (verbose != null) verbose.println("removed[" + imageIndex + "] id=" + id);
 
-		storage.addAll(imageIds);
-		return storage;
+		database.removeImage(imageIndex);
+		return true;
+	}
+
+	/**
+	 * Deletes removed images from {@link #imageIds} and the database. This blocks for time proportional to the
+	 * size of the database. See {@link RecognitionVocabularyTreeNister2006#compact()}.
+	 */
+	public void compact() {
+		// Change the ID of images in the database to match their new index
+		int[] oldToNew = imageIds.compact();
+		if (oldToNew != null)
+			database.remapImageIDs(( index ) -> oldToNew[index]);
+		database.compact();
+	}
+
+	/**
+	 * Returns true if enough images have been removed that {@link #compact()} should be called.
+	 * See {@link RecognitionVocabularyTreeNister2006#isCompactRecommended()}.
+	 */
+	public boolean isCompactRecommended() {
+		return database.isCompactRecommended();
+	}
+
+	@Override public List<String> getImageIds( @Nullable List<String> storage ) {
+		return imageIds.copyLive(storage);
 	}
 
 	@Override public boolean query( Features<TD> query, @Nullable BoofLambdas.Filter<String> filter,
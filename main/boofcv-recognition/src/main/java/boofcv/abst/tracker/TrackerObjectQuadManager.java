@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import georegression.struct.shapes.Quadrilateral_F64;
+import lombok.Getter;
+import pabeles.concurrency.GrowArray;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Implementation of {@link TrackerObjectQuadMulti} which uses a separate {@link TrackerObjectQuad} for each target.
+ * Targets are updated in parallel when concurrency is enabled. Storage which is only needed while a tracker is
+ * being invoked, e.g. FFT buffers, is shared by all the trackers which are processed in the same thread. Trackers
+ * of removed targets are saved and recycled when a new target is added to avoid declaring new memory.
+ * </p>
+ *
+ * @param <W> Type of storage that's shared by trackers in the same thread
+ * @author Peter Abeles
+ */
+public class TrackerObjectQuadManager<T extends ImageBase<T>, W> implements TrackerObjectQuadMulti<T> {
+	// Creates new trackers and shared storage
+	final TrackerFactory<T, W> factory;
+
+	// The type of image being processed
+	final ImageType<T> imageType;
+
+	/** If true targets will be updated in parallel */
+	@Getter final boolean concurrent;
+
+	// Targets which are being actively tracked
+	final List<Track<T>> active = new ArrayList<>();
+	// Read only view of active targets
+	final List<Target> activeView = Collections.unmodifiableList(active);
+	// Targets which have been removed and can be recycled
+	final ArrayDeque<Track<T>> unused = new ArrayDeque<>();
+
+	// Storage that's shared between trackers in the same thread
+	final GrowArray<W> workspaces;
+	// Storage used when targets are added or processed in the main thread
+	final W workspaceMain;
+
+	// ID that will be assigned to the next target
+	long nextID = 0;
+
+	/**
+	 * @param factory Creates new trackers and shared storage
+	 * @param imageType The type of image being processed
+	 * @param concurrent If true then targets will be updated in parallel
+	 */
+	public TrackerObjectQuadManager( TrackerFactory<T, W> factory, ImageType<T> imageType, boolean concurrent ) {
+		this.factory = factory;
+		this.imageType = imageType;
+		this.concurrent = concurrent;
+		this.workspaces = new GrowArray<>(factory::newWorkspace);
+		this.workspaceMain = factory.newWorkspace();
+	}
+
+	@Override public long addTarget( T image, Quadrilateral_F64 location ) {
+		Track<T> track = unused.isEmpty() ? new Track<>(factory.newTracker()) : unused.pop();
+		factory.setWorkspace(track.tracker, workspaceMain);
+
+		if (!track.tracker.initialize(image, location)) {
+			unused.push(track);
+			return -1;
+		}
+
+		track.id = nextID++;
+		track.location.setTo(location);
+		track.visible = true;
+		active.add(track);
+		return track.id;
+	}
+
+	@Override public boolean removeTarget( long id ) {
+		for (int i = 0; i < active.size(); i++) {
+			if (active.get(i).id != id)
+				continue;
+			unused.push(active.remove(i));
+			return true;
+		}
+		return false;
+	}
+
+	@Override public void removeAllTargets() {
+		for (int i = 0; i < active.size(); i++) {
+			unused.push(active.get(i));
+		}
+		active.clear();
+	}
+
+	@Override public void process( T image ) {
+		if (concurrent) {
+			BoofConcurrency.loopBlocks(0, active.size(), workspaces, ( workspace, idx0, idx1 ) -> {
+				for (int i = idx0; i < idx1; i++) {
+					update(active.get(i), image, workspace);
+				}
+			});
+		} else {
+			for (int i = 0; i < active.size(); i++) {
+				update(active.get(i), image, workspaceMain);
+			}
+		}
+	}
+
+	/**
+	 * Updates a single target using the provided workspace
+	 */
+	void update( Track<T> track, T image, W workspace ) {
+		factory.setWorkspace(track.tracker, workspace);
+		track.visible = track.tracker.process(image, track.location);
+	}
+
+	@Override public List<Target> getTargets() {
+		return activeView;
+	}
+
+	/** Number of trackers which can be recycled */
+	public int getTotalUnused() {
+		return unused.size();
+	}
+
+	@Override public ImageType<T> getImageType() {
+		return imageType;
+	}
+
+	/**
+	 * Creates trackers and the storage they share
+	 */
+	public interface TrackerFactory<T extends ImageBase<T>, W> {
+		/** Creates a new tracker for a single target */
+		TrackerObjectQuad<T> newTracker();
+
+		/** Creates storage which can be shared by trackers in the same thread */
+		W newWorkspace();
+
+		/** Tells the tracker to use the shared storage. Called before a tracker is initialized or processed. */
+		void setWorkspace( TrackerObjectQuad<T> tracker, W workspace );
+	}
+
+	/**
+	 * Target and the tracker assigned to it
+	 */
+	static class Track<T extends ImageBase<T>> extends Target {
+		final TrackerObjectQuad<T> tracker;
+
+		public Track( TrackerObjectQuad<T> tracker ) {
+			this.tracker = tracker;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+import java.util.List;
+
+/**
+ * <p>
+ * High level interface for tracking many objects at once in a video sequence. Each object is specified using a
+ * quadrilateral, just like {@link TrackerObjectQuad}. Targets can be added and removed at any time. Implementations
+ * can share work that's common to all targets in a frame and update targets in parallel.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public interface TrackerObjectQuadMulti<T extends ImageBase<T>> {
+
+	/**
+	 * Starts tracking a new object.
+	 *
+	 * @param image The current image in the sequence
+	 * @param location Initial location of the object being tracked
+	 * @return Unique ID assigned to the target or -1 if the tracker failed to initialize.
+	 */
+	long addTarget( T image, Quadrilateral_F64 location );
+
+	/**
+	 * Stops tracking the target with the specified ID
+	 *
+	 * @return true if a target with that ID was found and removed
+	 */
+	boolean removeTarget( long id );
+
+	/**
+	 * Stops tracking all targets
+	 */
+	void removeAllTargets();
+
+	/**
+	 * Updates the location of all targets using the next image in the sequence.
+	 *
+	 * @param image (Input) The next image in the video sequence.
+	 */
+	void process( T image );
+
+	/**
+	 * Returns the targets which are being tracked and their most recent location.
+	 *
+	 * @return List of targets. WARNING: Data is modified when the tracker is called again.
+	 */
+	List<Target> getTargets();
+
+	/**
+	 * Returns information on the type of image that it can process.
+	 *
+	 * @return Image type
+	 */
+	ImageType<T> getImageType();
+
+	/**
+	 * Description of a target being tracked
+	 */
+	class Target {
+		/** Unique ID assigned to the target when it was added */
+		public long id;
+
+		/** Location of the target in the most recent image */
+		public final Quadrilateral_F64 location = new Quadrilateral_F64();
+
+		/** True if the target was found in the most recent image */
+		public boolean visible;
+	}
+}
@@ -102,7 +102,7 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 	private @Getter final DogArray<LineInfo> lines = new DogArray<>(LineInfo::new);
 
 	// data structures for nearest neighbor search
-	private final NearestNeighbor<ChessboardCorner> nn = FactoryNearestNeighbor.kdtree(new ChessboardCornerDistance());
+	final NearestNeighbor<ChessboardCorner> nn = FactoryNearestNeighbor.kdtree(new ChessboardCornerDistance());
 	private final NearestNeighbor.Search<ChessboardCorner> nnSearch = nn.createSearch();
 	private final DogArray<NnData<ChessboardCorner>> nnResults = new DogArray<>(NnData::new);
 
@@ -190,9 +190,7 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 		// Select the final 2 to 4 connections from perpendicular set
 		// each pair of adjacent perpendicular edge needs to have a matching parallel edge between them
 		// Use each perpendicular edge as a seed and select the best one
-		for (int idx = 0; idx < vertexes.size(); idx++) {
-			selectConnections(vertexes.get(idx));
-		}
+		selectAllConnections();
 		if (verbose != null) printDualGraph();
 
 		// Connects must be mutual to be accepted. Keep track of vertexes which were modified
@@ -254,12 +252,23 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 			nn.setPoints(cornersUpToLevel, true);
 
 			// Connect corners to each other based on relative distance on orientation
-			for (int i = 0; i < levelCornerIdx.size(); i++) {
-				Vertex v = vertexes.get(levelCornerIdx.get(i));
-				findVertexNeighbors(v, indexesUpToLevel, corners);
-				// Order edges by angle to simplify later processing
-				v.perpendicular.sortByAngle();
-			}
+			findLevelNeighbors(levelCornerIdx, indexesUpToLevel, corners);
+		}
+	}
+
+	/**
+	 * Finds the neighbors of every corner which first appears in the current level of the pyramid.
+	 *
+	 * @param levelCornerIdx Index of corners in this level
+	 * @param indexesUpToLevel Index of corners in the nearest neighbor search
+	 */
+	protected void findLevelNeighbors( DogArray_I32 levelCornerIdx, DogArray_I32 indexesUpToLevel,
+									   List<ChessboardCorner> corners ) {
+		for (int i = 0; i < levelCornerIdx.size(); i++) {
+			Vertex v = vertexes.get(levelCornerIdx.get(i));
+			findVertexNeighbors(v, indexesUpToLevel, corners);
+			// Order edges by angle to simplify later processing
+			v.perpendicular.sortByAngle();
 		}
 	}
 
@@ -295,6 +304,7 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 	 * Computes edge intensity and prunes connections if it's too low relative
 	 */
 	protected void pruneConnectionsByIntensity( List<ChessboardCorner> corners ) {
+		computeConnectionIntensity(corners);
 
 		for (int i = 0; i < lines.size; i++) {
 			LineInfo line = lines.get(i);
@@ -305,14 +315,6 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 			Vertex va = Objects.requireNonNull(line.endA).dst;
 			Vertex vb = Objects.requireNonNull(line.endB).dst;
 
-			ChessboardCorner ca = corners.get(va.index);
-			ChessboardCorner cb = corners.get(vb.index);
-
-			double contrast = (ca.contrast + cb.contrast)/2;
-
-			line.intensityRaw = computeConnInten.process(ca, cb, line.endA.direction);
-			line.intensity = line.intensityRaw/contrast;
-
 			if (line.intensity < thresholdEdgeIntensity) {
 				if (!va.perpendicular.remove(line))
 					throw new RuntimeException("BUG");
@@ -323,6 +325,32 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 		}
 	}
 
+	/**
+	 * Computes the edge intensity of every connected perpendicular line
+	 */
+	protected void computeConnectionIntensity( List<ChessboardCorner> corners ) {
+		for (int i = 0; i < lines.size; i++) {
+			computeLineIntensity(computeConnInten, lines.get(i), corners);
+		}
+	}
+
+	/**
+	 * Computes the edge intensity of a single line. Lines which are disconnected or parallel are skipped.
+	 */
+	void computeLineIntensity( ChessboardCornerEdgeIntensity<T> alg, LineInfo line, List<ChessboardCorner> corners ) {
+		if (line.isDisconnected() || line.parallel)
+			return;
+
+		Edge endA = Objects.requireNonNull(line.endA);
+		ChessboardCorner ca = corners.get(endA.dst.index);
+		ChessboardCorner cb = corners.get(Objects.requireNonNull(line.endB).dst.index);
+
+		double contrast = (ca.contrast + cb.contrast)/2;
+
+		line.intensityRaw = alg.process(ca, cb, endA.direction);
+		line.intensity = line.intensityRaw/contrast;
+	}
+
 	/**
 	 * Prints the graph. Used for debugging the code.
 	 */
@@ -364,10 +392,27 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 	 * perpendicular.
 	 */
 	void findVertexNeighbors( Vertex va, DogArray_I32 indexesUpToLevel, List<ChessboardCorner> corners ) {
-		ChessboardCorner targetCorner = corners.get(va.index);
+		searchNeighbors(nnSearch, corners.get(va.index), nnResults);
+		connectVertexNeighbors(va, nnResults, indexesUpToLevel, corners);
+	}
+
+	/**
+	 * Finds the nearest corners to the target corner. Each thread must use its own search.
+	 */
+	void searchNeighbors( NearestNeighbor.Search<ChessboardCorner> search, ChessboardCorner target,
+						  DogArray<NnData<ChessboardCorner>> results ) {
 		// distance is Euclidean squared
 		double maxDist = Double.MAX_VALUE == maxNeighborDistance ? maxNeighborDistance : maxNeighborDistance*maxNeighborDistance;
-		nnSearch.findNearest(corners.get(va.index), maxDist, maxNeighbors, nnResults);
+		search.findNearest(target, maxDist, maxNeighbors, results);
+	}
+
+	/**
+	 * Goes through the results of the nearest neighbor search and creates a perpendicular edge for
+	 * each valid neighbor. The order vertexes are processed in matters.
+	 */
+	void connectVertexNeighbors( Vertex va, DogArray<NnData<ChessboardCorner>> nnResults,
+								 DogArray_I32 indexesUpToLevel, List<ChessboardCorner> corners ) {
+		ChessboardCorner targetCorner = corners.get(va.index);
 
 		for (int i = 0; i < nnResults.size; i++) {
 			NnData<ChessboardCorner> rb = nnResults.get(i);
@@ -581,9 +626,18 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 		removeSet.reset();
 	}
 
+	/**
+	 * Selects the connections for every vertex. Each vertex is processed independently.
+	 */
+	protected void selectAllConnections() {
+		for (int idx = 0; idx < vertexes.size(); idx++) {
+			selectConnections(vertexes.get(idx), pairs, matched);
+		}
+	}
+
 	// TODO Comment
 	// TODO check if lines are parallel if > 2 connections
-	void selectConnections( Vertex target ) {
+	void selectConnections( Vertex target, DogArray<PairIdx> pairs, DogArray_B matched ) {
 		// TODO prefer sets of lines with similar length
 		// TODO of on other side prefer that the lines be parallel
 
@@ -1112,7 +1166,7 @@ public class ChessboardCornerClusterFinder<T extends ImageGray<T>> implements Ve
 		PERPENDICULAR, CONNECTION
 	}
 
-	private static class PairIdx {
+	static class PairIdx {
 		public int idx0;
 		public int idx1;
 		public double score;
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.calib.chess;
+
+import boofcv.alg.feature.detect.chess.ChessboardCorner;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.nn.NearestNeighbor;
+import org.ddogleg.nn.NnData;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_I32;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link ChessboardCornerClusterFinder}. The nearest-neighbor search inside the
+ * kd-tree, the edge intensity of each line, and the selection of connections at each vertex are computed in
+ * parallel. Steps which modify the graph are order dependent and are done in the same order as the single
+ * threaded version, so results are identical.
+ *
+ * @author Peter Abeles
+ */
+public class ChessboardCornerClusterFinder_MT<T extends ImageGray<T>> extends ChessboardCornerClusterFinder<T> {
+	// Nearest-neighbor search for each thread
+	final GrowArray<NearestNeighbor.Search<ChessboardCorner>> searches = new GrowArray<>(nn::createSearch);
+	// Results of the nearest-neighbor search for every corner in a level
+	final DogArray<DogArray<NnData<ChessboardCorner>>> levelResults =
+			new DogArray<>(() -> new DogArray<NnData<ChessboardCorner>>(NnData::new));
+
+	// Computes edge intensity for each thread
+	final GrowArray<ChessboardCornerEdgeIntensity<T>> intensityWork;
+
+	// Workspace for selecting connections for each thread
+	final GrowArray<SelectWork> selectWork = new GrowArray<>(SelectWork::new);
+
+	public ChessboardCornerClusterFinder_MT( Class<T> imageType ) {
+		this(new ChessboardCornerEdgeIntensity<>(imageType));
+	}
+
+	public ChessboardCornerClusterFinder_MT( ChessboardCornerEdgeIntensity<T> computeConnInten ) {
+		super(computeConnInten);
+		intensityWork = new GrowArray<>(computeConnInten::copy);
+	}
+
+	@Override protected void findLevelNeighbors( DogArray_I32 levelCornerIdx, DogArray_I32 indexesUpToLevel,
+												 List<ChessboardCorner> corners ) {
+		levelResults.resize(levelCornerIdx.size);
+
+		// Searching the kd-tree doesn't modify it and can be done in parallel
+		BoofConcurrency.loopBlocks(0, levelCornerIdx.size, searches, ( search, idx0, idx1 ) -> {
+			for (int i = idx0; i < idx1; i++) {
+				searchNeighbors(search, corners.get(levelCornerIdx.get(i)), levelResults.get(i));
+			}
+		});
+
+		// Creating edges depends on the order vertexes are processed in
+		DogArray<Vertex> vertexes = getVertexes();
+		for (int i = 0; i < levelCornerIdx.size; i++) {
+			Vertex v = vertexes.get(levelCornerIdx.get(i));
+			connectVertexNeighbors(v, levelResults.get(i), indexesUpToLevel, corners);
+			// Order edges by angle to simplify later processing
+			v.perpendicular.sortByAngle();
+		}
+	}
+
+	@Override protected void computeConnectionIntensity( List<ChessboardCorner> corners ) {
+		T image = getComputeConnInten().interpolate.getImage();
+		DogArray<LineInfo> lines = getLines();
+
+		// Each line only depends on the image and its two corners
+		BoofConcurrency.loopBlocks(0, lines.size, intensityWork, ( alg, idx0, idx1 ) -> {
+			alg.setImage(image);
+			for (int i = idx0; i < idx1; i++) {
+				computeLineIntensity(alg, lines.get(i), corners);
+			}
+		});
+	}
+
+	@Override protected void selectAllConnections() {
+		DogArray<Vertex> vertexes = getVertexes();
+
+		// Only the target vertex's connections are modified
+		BoofConcurrency.loopBlocks(0, vertexes.size, selectWork, ( work, idx0, idx1 ) -> {
+			for (int i = idx0; i < idx1; i++) {
+				selectConnections(vertexes.get(i), work.pairs, work.matched);
+			}
+		});
+	}
+
+	/**
+	 * Workspace used when selecting connections
+	 */
+	static class SelectWork {
+		final DogArray<PairIdx> pairs = new DogArray<>(PairIdx.class, PairIdx::new);
+		final DogArray_B matched = new DogArray_B();
+	}
+}
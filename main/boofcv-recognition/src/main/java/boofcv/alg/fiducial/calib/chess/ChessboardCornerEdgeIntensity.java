@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -207,6 +207,17 @@ public class ChessboardCornerEdgeIntensity<T extends ImageGray<T>> {
 			sampleValues = new float[lengthSamples];
 	}
 
+	/**
+	 * Creates a new instance with the same configuration. The image is not copied and must be set again.
+	 * Sub classes which change how intensity is computed must override this function.
+	 */
+	public ChessboardCornerEdgeIntensity<T> copy() {
+		var ret = new ChessboardCornerEdgeIntensity<>(getImageType());
+		ret.setLengthSamples(lengthSamples);
+		ret.normalDiv = normalDiv;
+		return ret;
+	}
+
 	public Class<T> getImageType() {
 		return interpolate.getImageType().getImageClass();
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,6 +21,7 @@ package boofcv.alg.fiducial.calib.chess;
 import boofcv.abst.fiducial.calib.ConfigChessboardX;
 import boofcv.alg.feature.detect.chess.DetectChessboardCornersXPyramid;
 import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterToGrid.GridInfo;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
 import lombok.Getter;
@@ -42,7 +43,8 @@ public class DetectChessboardXCornerPatterns<T extends ImageGray<T>> {
 	public DetectChessboardXCornerPatterns( ConfigChessboardX config, Class<T> imageType ) {
 
 		detector = new DetectChessboardCornersXPyramid<>(ImageType.single(imageType));
-		clusterFinder = new ChessboardCornerClusterFinder<>(imageType);
+		clusterFinder = BoofConcurrency.USE_CONCURRENT ?
+				new ChessboardCornerClusterFinder_MT<>(imageType) : new ChessboardCornerClusterFinder<>(imageType);
 
 		detector.setPyramidTopSize(config.detPyramidTopSize);
 		detector.getDetector().setNonmaxRadius(config.detNonMaxRadius);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -23,6 +23,7 @@ import boofcv.abst.fiducial.calib.ConfigChessboardX;
 import boofcv.alg.feature.detect.chess.ChessboardCorner;
 import boofcv.alg.feature.detect.chess.DetectChessboardCornersXPyramid;
 import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterFinder;
+import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterFinder_MT;
 import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterToGrid;
 import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterToGrid.GridElement;
 import boofcv.alg.fiducial.calib.chess.ChessboardCornerClusterToGrid.GridInfo;
@@ -31,6 +32,7 @@ import boofcv.alg.fiducial.qrcode.PackedBits8;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.misc.BoofMiscOps;
 import boofcv.struct.GridCoordinate;
@@ -154,7 +156,8 @@ public class ECoCheckDetector<T extends ImageGray<T>> implements VerbosePrint {
 		this.utils.checkFixate();
 
 		detector = new DetectChessboardCornersXPyramid<>(ImageType.single(imageType));
-		clusterFinder = new ChessboardCornerClusterFinder<>(imageType);
+		clusterFinder = BoofConcurrency.USE_CONCURRENT ?
+				new ChessboardCornerClusterFinder_MT<>(imageType) : new ChessboardCornerClusterFinder<>(imageType);
 
 		detector.setPyramidTopSize(config.detPyramidTopSize);
 		detector.getDetector().setNonmaxRadius(config.detNonMaxRadius);
@@ -27,6 +27,7 @@ import georegression.struct.point.Point2D_I32;
 import georegression.transform.homography.HomographyPointOps_F64;
 import lombok.Getter;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
 import org.ddogleg.struct.DogArray_F32;
 import org.ddogleg.struct.VerbosePrint;
 import org.jetbrains.annotations.Nullable;
@@ -50,6 +51,8 @@ public class MicroQrCodeDecoderImage<T extends ImageGray<T>> implements VerboseP
 	DogArray<MicroQrCode> storageQR = new DogArray<>(MicroQrCode::new, MicroQrCode::reset);
 	@Getter List<MicroQrCode> found = new ArrayList<>();
 	@Getter List<MicroQrCode> failures = new ArrayList<>();
+	// Indicates if each candidate was successfully decoded
+	DogArray_B candidateSuccess = new DogArray_B();
 
 	// storage for read in bits from the grid
 	PackedBits8 bits = new PackedBits8();
@@ -80,48 +83,74 @@ public class MicroQrCodeDecoderImage<T extends ImageGray<T>> implements VerboseP
 	 */
 	public void process( List<PositionPatternNode> pps, T gray ) {
 		gridReader.setImage(gray);
-		storageQR.reset();
-		found.clear();
-		failures.clear();
+		createCandidates(pps);
+
+		for (int i = 0; i < storageQR.size; i++) {
+			candidateSuccess.set(i, decodeCandidate(i, storageQR.get(i)));
+		}
+
+		sortCandidates();
+	}
 
+	/**
+	 * Creates a candidate marker for every position pattern. Candidates are saved in {@link #storageQR}.
+	 */
+	protected void createCandidates( List<PositionPatternNode> pps ) {
+		storageQR.reset();
 		for (int i = 0; i < pps.size(); i++) {
 			PositionPatternNode ppn = pps.get(i);
 
 			MicroQrCode qr = storageQR.grow();
 			qr.thresholdPP = ppn.grayThreshold;
 			qr.pp.setTo(ppn.square);
+		}
+		candidateSuccess.resize(storageQR.size, false);
+	}
 
-			boolean success = false;
-
-			// consider that the encoder is non-standard and rendered a transposed marker
-			escape:for (int transposed = 0; transposed < (considerTransposed ? 2 : 1); transposed++) {
-				if (transposed == 1)
-					QrCodeDecoderImage.transposeCorners(qr.pp);
-
-				// try different orientations. We don't know which one is valid
-				for (int orientation = 0; orientation < 4; orientation++) {
-					if (verbose != null) verbose.printf("idx=%d trans=%d orientation=%d pp=%s\n", i, transposed, orientation, qr.pp);
-					// Decode the entire marker now
-					if (decode(qr)) {
-						found.add(qr);
-						qr.bitsTransposed = transposed == 1;
-						success = true;
-						break escape;
-					} else if (qr.failureCause.ordinal() > QrCode.Failure.ERROR_CORRECTION.ordinal()) {
-						// If ECC was successful and it still failed, that means there's a bug in this decoder
-						// or the decoder is non-compliant / buggy
-						success = false;
-						break escape;
-					}
-
-					// Try another orientation
-					UtilPolygons2D_F64.shiftDown(qr.pp);
+	/**
+	 * Attempts to decode the candidate marker by trying every orientation and possibly transposed bits.
+	 * Only the marker and this class's internal workspace are modified.
+	 *
+	 * @param idx Index of the candidate. Only used for verbose output.
+	 * @return true if successful
+	 */
+	protected boolean decodeCandidate( int idx, MicroQrCode qr ) {
+		// consider that the encoder is non-standard and rendered a transposed marker
+		for (int transposed = 0; transposed < (considerTransposed ? 2 : 1); transposed++) {
+			if (transposed == 1)
+				QrCodeDecoderImage.transposeCorners(qr.pp);
+
+			// try different orientations. We don't know which one is valid
+			for (int orientation = 0; orientation < 4; orientation++) {
+				if (verbose != null) verbose.printf("idx=%d trans=%d orientation=%d pp=%s\n", idx, transposed, orientation, qr.pp);
+				// Decode the entire marker now
+				if (decode(qr)) {
+					qr.bitsTransposed = transposed == 1;
+					return true;
+				} else if (qr.failureCause.ordinal() > QrCode.Failure.ERROR_CORRECTION.ordinal()) {
+					// If ECC was successful and it still failed, that means there's a bug in this decoder
+					// or the decoder is non-compliant / buggy
+					return false;
 				}
-			}
 
+				// Try another orientation
+				UtilPolygons2D_F64.shiftDown(qr.pp);
+			}
+		}
+		return false;
+	}
 
-			if (!success) {
-				failures.add(qr);
+	/**
+	 * Puts every candidate into either the found or failure list, in the order they were created
+	 */
+	protected void sortCandidates() {
+		found.clear();
+		failures.clear();
+		for (int i = 0; i < storageQR.size; i++) {
+			if (candidateSuccess.get(i)) {
+				found.add(storageQR.get(i));
+			} else {
+				failures.add(storageQR.get(i));
 			}
 		}
 	}
@@ -82,9 +82,21 @@ public class QrCodeDecoderImage<T extends ImageGray<T>> {
 	 */
 	public void process( List<PositionPatternNode> pps, T gray ) {
 		gridReader.setImage(gray);
+		createCandidates(pps);
+
+		for (int i = 0; i < storageQR.size; i++) {
+			decodeCandidate(gray, storageQR.get(i));
+		}
+
+		sortCandidates();
+	}
+
+	/**
+	 * Creates a candidate marker for every corner position pattern which has position patterns on two adjacent
+	 * sides. Candidates are saved in {@link #storageQR}.
+	 */
+	protected void createCandidates( List<PositionPatternNode> pps ) {
 		storageQR.reset();
-		successes.clear();
-		failures.clear();
 
 		for (int i = 0; i < pps.size(); i++) {
 			PositionPatternNode ppn = pps.get(i);
@@ -95,38 +107,45 @@ public class QrCodeDecoderImage<T extends ImageGray<T>> {
 
 					setPositionPatterns(ppn, j, k, qr);
 					computeBoundingBox(qr);
-
-					// Decode the entire marker now
-					if (decode(gray, qr)) {
-						if (qr.failureCause == QrCode.Failure.NONE) {
-							successes.add(qr);
-						} else {
-							failures.add(qr);
-						}
-					} else {
-						// Consider the possibility that the QR code was encoded incorrectly with transposed bits
-						boolean success = false;
-						if (considerTransposed) {
-							transposePositionPatterns(qr);
-							success = decode(gray, qr);
-						}
-
-						if (success) {
-							qr.bitsTransposed = true;
-							if (qr.failureCause == QrCode.Failure.NONE) {
-								successes.add(qr);
-							} else {
-								failures.add(qr);
-							}
-						} else {
-							failures.add(qr);
-						}
-					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Attempts to decode the candidate marker. If it fails then it will try again assuming the bits are transposed.
+	 * Only the marker and this class's internal workspace are modified.
+	 */
+	protected void decodeCandidate( T gray, QrCode qr ) {
+		// Decode the entire marker now
+		if (decode(gray, qr))
+			return;
+
+		// Consider the possibility that the QR code was encoded incorrectly with transposed bits
+		if (considerTransposed) {
+			transposePositionPatterns(qr);
+			if (decode(gray, qr)) {
+				qr.bitsTransposed = true;
+			}
+		}
+	}
+
+	/**
+	 * Puts every candidate into either the success or failure list, in the order they were created
+	 */
+	protected void sortCandidates() {
+		successes.clear();
+		failures.clear();
+		for (int i = 0; i < storageQR.size; i++) {
+			QrCode qr = storageQR.get(i);
+			if (qr.failureCause == QrCode.Failure.NONE) {
+				successes.add(qr);
+			} else {
+				failures.add(qr);
+			}
+		}
+	}
+
 	/**
 	 * Transposes the orientation of position patterns. This will make it read the bits in a different order
 	 * enabling it to read QR codes which were incorrectly encoded.
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.qrcode;
+
+import boofcv.alg.distort.LensDistortionNarrowFOV;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageGray;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link QrCodeDecoderImage}. Candidate markers are decoded in parallel with each
+ * thread having its own decoder, which is used as a workspace. Results are identical to the single thread version
+ * and in the same order. Each worker is given the same lens distortion, which is the only setting of the grid reader
+ * and alignment pattern locator, and {@link #considerTransposed} as this decoder.
+ *
+ * @author Peter Abeles
+ */
+public class QrCodeDecoderImage_MT<T extends ImageGray<T>> extends QrCodeDecoderImage<T> {
+	// Decoders used by each thread as a workspace
+	final GrowArray<QrCodeDecoderImage<T>> workers;
+
+	// Lens distortion that's passed to each worker
+	int lensWidth, lensHeight;
+	@Nullable LensDistortionNarrowFOV lensModel;
+
+	/**
+	 * @param forceEncoding Force the default encoding to be this. Null for default
+	 */
+	public QrCodeDecoderImage_MT( @Nullable String forceEncoding, String defaultEncoding, Class<T> imageType ) {
+		super(forceEncoding, defaultEncoding, imageType);
+		workers = new GrowArray<>(() -> {
+			var worker = new QrCodeDecoderImage<>(forceEncoding, defaultEncoding, imageType);
+			if (lensModel != null)
+				worker.setLensDistortion(lensWidth, lensHeight, lensModel);
+			return worker;
+		});
+	}
+
+	@Override
+	public void process( List<PositionPatternNode> pps, T gray ) {
+		createCandidates(pps);
+
+		BoofConcurrency.loopBlocks(0, storageQR.size, workers, ( worker, idx0, idx1 ) -> {
+			worker.considerTransposed = considerTransposed;
+			worker.gridReader.setImage(gray);
+			for (int i = idx0; i < idx1; i++) {
+				worker.decodeCandidate(gray, storageQR.get(i));
+			}
+		});
+
+		sortCandidates();
+	}
+
+	@Override
+	public void setLensDistortion( int width, int height, @Nullable LensDistortionNarrowFOV model ) {
+		super.setLensDistortion(width, height, model);
+		this.lensWidth = width;
+		this.lensHeight = height;
+		this.lensModel = model;
+		for (int i = 0; i < workers.size(); i++) {
+			workers.get(i).setLensDistortion(width, height, model);
+		}
+	}
+}
@@ -21,7 +21,10 @@ package boofcv.alg.scene.ann;
 import boofcv.alg.scene.bow.BowDistanceTypes;
 import boofcv.alg.scene.bow.BowMatch;
 import boofcv.alg.scene.bow.BowUtils;
+import boofcv.alg.scene.bow.CompressedInvertedFiles;
+import boofcv.alg.scene.bow.ImageIndexLookup;
 import boofcv.alg.scene.bow.InvertedFile;
+import boofcv.alg.scene.bow.MappedInvertedFiles;
 import boofcv.alg.scene.nister2006.TupleMapDistanceNorm;
 import boofcv.misc.BoofLambdas;
 import lombok.Getter;
@@ -71,12 +74,41 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 	/** List of images added to the database */
 	protected @Getter final BigDogArray_I32 imagesDB = new BigDogArray_I32(100, 10_000, BigDogGrowth.GROW_FIRST);
 
+	/**
+	 * Marks images which have been removed but are still referenced by the inverted files. Indexes match
+	 * {@link #imagesDB}. Can be shorter than imagesDB, in which case missing elements have not been removed.
+	 */
+	protected @Getter final DogArray_B removedImages = new DogArray_B();
+
+	/** Number of images which have been removed but are still in the inverted files */
+	protected @Getter int totalRemoved;
+
+	/**
+	 * If the fraction of images which have been removed is more than this then {@link #isCompactRecommended()}
+	 * will return true. Compaction is never done automatically since it blocks for time proportional to the size
+	 * of the database. The owner should call {@link #compact()} when it's convenient, e.g. in a background task
+	 * while queries are paused.
+	 */
+	public double compactFraction = 0.25;
+
 	/** List of all images the query was found to be similar/matched with */
 	@Getter DogArray<BowMatch> matches = new DogArray<>(BowMatch::new, BowMatch::reset);
 
 	/** List of images in the DB that are observed by each word. One element per word. */
 	@Getter DogArray<InvertedFile> invertedFiles = new DogArray<>(InvertedFile::new, InvertedFile::reset);
 
+	/**
+	 * Optional read only inverted files which are stored outside the heap, e.g. memory mapped from disk. If not
+	 * null then each word's inverted file is the mapped file followed by the one in {@link #invertedFiles}.
+	 */
+	protected @Getter @Nullable MappedInvertedFiles mappedFiles;
+
+	/**
+	 * If not null then images are added to these compressed inverted files instead of {@link #invertedFiles}.
+	 * See {@link #compressInvertedFiles(int)}.
+	 */
+	protected @Getter @Nullable CompressedInvertedFiles compressedFiles;
+
 	//--------------------------- Internal Work Space
 
 	// Used to search for matching words
@@ -87,6 +119,12 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 	// The size of this array will be the same as the number of DB images
 	DogArray_I32 imageIdx_to_match = new DogArray_I32();
 
+	// Used when compacting to look up the new index of an image
+	DogArray_I32 oldToNewIdx = new DogArray_I32();
+
+	// Used to find the index of an image that's being removed
+	final ImageIndexLookup imageIndexLookup = new ImageIndexLookup();
+
 	// Histogram for the number of times each word appears. All values must be 0 initially
 	// One element for each word
 	DogArray_I32 wordHistogram = new DogArray_I32();
@@ -109,6 +147,12 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 		this.nearestNeighbor = nearestNeighbor;
 		invertedFiles.resize(numWords);
 		imagesDB.reset();
+		mappedFiles = null;
+		removedImages.reset();
+		totalRemoved = 0;
+		imageIndexLookup.reset();
+		if (compressedFiles != null)
+			compressedFiles.reset(numWords);
 
 		wordHistogram.reset().resize(numWords, 0);
 
@@ -120,11 +164,88 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 	 */
 	public void clearImages() {
 		imagesDB.reset();
+		mappedFiles = null;
+		removedImages.reset();
+		totalRemoved = 0;
+		imageIndexLookup.reset();
 
 		// Clear the inverted files list. This will force all elements to be reset
 		int numWords = invertedFiles.size;
 		invertedFiles.reset();
 		invertedFiles.resize(numWords);
+		if (compressedFiles != null)
+			compressedFiles.reset(numWords);
+	}
+
+	/**
+	 * Switches to compressed inverted files, which use much less memory at the cost of slightly slower queries and
+	 * quantized weights. Images which are already in {@link #invertedFiles} are moved into the compressed files,
+	 * and all images added in the future will be compressed. Memory mapped inverted files are not modified.
+	 *
+	 * @param weightBytes Number of bytes used to store each weight. 1 or 2.
+	 */
+	public void compressInvertedFiles( int weightBytes ) {
+		var compressed = new CompressedInvertedFiles(weightBytes);
+		compressed.reset(invertedFiles.size);
+		var workspace = new InvertedFile();
+		for (int word = 0; word < invertedFiles.size; word++) {
+			workspace.reset();
+			if (compressedFiles != null)
+				compressedFiles.decode(word, workspace);
+			InvertedFile heap = invertedFiles.get(word);
+			workspace.addAll(heap);
+			workspace.weights.addAll(heap.weights);
+			heap.releaseMemory();
+
+			for (int i = 0; i < workspace.size; i++) {
+				compressed.addImage(word, workspace.get(i), workspace.weights.get(i));
+			}
+		}
+		compressed.trimToSize();
+		compressedFiles = compressed;
+	}
+
+	/**
+	 * Returns the total number of images in a word's inverted file, including mapped and compressed images
+	 */
+	public int invertedFileSize( int word ) {
+		int size = invertedFiles.get(word).size;
+		if (mappedFiles != null)
+			size += mappedFiles.size(word);
+		if (compressedFiles != null)
+			size += compressedFiles.size(word);
+		return size;
+	}
+
+	/**
+	 * Copies every image in a word's inverted file into 'dst', independent of how it's stored. Mapped images
+	 * are first, then compressed images, then images in {@link #invertedFiles}.
+	 *
+	 * @param word Index of the word
+	 * @param dst (Output) Storage for the inverted file. Reset on each call.
+	 */
+	public void copyInvertedFile( int word, InvertedFile dst ) {
+		dst.reset();
+		if (mappedFiles != null)
+			mappedFiles.copyInto(word, dst);
+		if (compressedFiles != null)
+			compressedFiles.decode(word, dst);
+		InvertedFile heap = invertedFiles.get(word);
+		dst.addAll(heap);
+		dst.weights.addAll(heap.weights);
+	}
+
+	/**
+	 * Specifies inverted files which are stored outside the heap. Images added after this is called are
+	 * stored on the heap in {@link #invertedFiles}.
+	 *
+	 * @param mappedFiles The inverted files. Must have one for each word.
+	 */
+	public void setMappedFiles( @Nullable MappedInvertedFiles mappedFiles ) {
+		if (mappedFiles != null && mappedFiles.getNumFiles() != invertedFiles.size)
+			throw new IllegalArgumentException("Number of mapped inverted files doesn't match the number of words");
+		this.mappedFiles = mappedFiles;
+		imageIndexLookup.reset();
 	}
 
 	/**
@@ -146,7 +267,10 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 		// Add this image to the inverted file for each word
 		for (int i = 0; i < observedWords.size; i++) {
 			int word = observedWords.get(i);
-			invertedFiles.get(word).addImage(imageIdx, tmpDescWeights.get(i));
+			if (compressedFiles != null)
+				compressedFiles.addImage(word, imageIdx, tmpDescWeights.get(i));
+			else
+				invertedFiles.get(word).addImage(imageIdx, tmpDescWeights.get(i));
 		}
 	}
 
@@ -191,6 +315,110 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 		distanceFunction.normalize(tmpDescWeights);
 	}
 
+	/**
+	 * Removes an image from the database. The image is marked as removed and is skipped by queries, but it's only
+	 * deleted from the inverted files when {@link #compact()} is called. The database is never compacted here, so
+	 * the cost of removing an image doesn't depend on the size of the database. If multiple images have the
+	 * same ID then only the first one is removed. See {@link #isCompactRecommended()}.
+	 *
+	 * @param imageID ID of the image that's to be removed
+	 * @return true if an image with the ID was found and removed
+	 */
+	public boolean removeImage( int imageID ) {
+		while (removedImages.size < imagesDB.size) {
+			removedImages.add(false);
+		}
+
+		int imageIdx = imageIndexLookup.remove(imageID, imagesDB, removedImages);
+		if (imageIdx == -1)
+			return false;
+
+		removedImages.data[imageIdx] = true;
+		totalRemoved++;
+		return true;
+	}
+
+	/**
+	 * Returns true if enough images have been removed that {@link #compact()} should be called.
+	 * See {@link #compactFraction}.
+	 */
+	public boolean isCompactRecommended() {
+		return totalRemoved > 0 && totalRemoved > compactFraction*imagesDB.size;
+	}
+
+	/**
+	 * Deletes all the removed images from the inverted files and the image DB. The order of the remaining images
+	 * is not changed. Every inverted file is rewritten, so this blocks for time proportional to the size of the
+	 * database.
+	 *
+	 * <p>Memory mapped inverted files are read only, so their contents are copied into {@link #invertedFiles}
+	 * or the compressed files if compression is enabled. For a large mapped database this can require more
+	 * memory than is available, consider calling {@link #compressInvertedFiles} first.</p>
+	 */
+	public void compact() {
+		if (totalRemoved == 0)
+			return;
+
+		// Create a look up table from the old image index to the new image index
+		oldToNewIdx.resize(imagesDB.size);
+		int numKept = 0;
+		for (int imageIdx = 0; imageIdx < imagesDB.size; imageIdx++) {
+			if (imageIdx < removedImages.size && removedImages.data[imageIdx]) {
+				oldToNewIdx.data[imageIdx] = -1;
+				continue;
+			}
+			oldToNewIdx.data[imageIdx] = numKept;
+			imagesDB.set(numKept++, imagesDB.get(imageIdx));
+		}
+
+		CompressedInvertedFiles compressed = null;
+		if (compressedFiles != null) {
+			compressed = new CompressedInvertedFiles(compressedFiles.getWeightBytes());
+			compressed.reset(invertedFiles.size);
+		}
+
+		var workspace = new InvertedFile();
+		for (int word = 0; word < invertedFiles.size; word++) {
+			copyInvertedFile(word, workspace);
+			InvertedFile heap = invertedFiles.get(word);
+			heap.reset();
+
+			for (int i = 0; i < workspace.size; i++) {
+				int imageIdx = oldToNewIdx.get(workspace.get(i));
+				if (imageIdx == -1)
+					continue;
+				if (compressed != null)
+					compressed.addImage(word, imageIdx, workspace.weights.get(i));
+				else
+					heap.addImage(imageIdx, workspace.weights.get(i));
+			}
+		}
+		if (compressed != null)
+			compressed.trimToSize();
+
+		if (verbose != null) verbose.println("compact: images " + imagesDB.size + " -> " + numKept);
+
+		imagesDB.resize(numKept);
+		compressedFiles = compressed;
+		mappedFiles = null;
+		removedImages.reset();
+		totalRemoved = 0;
+		imageIndexLookup.reset();
+	}
+
+	/**
+	 * Changes the ID of every image in the database. Useful when IDs are indexes into another list which had
+	 * an element removed.
+	 *
+	 * @param op Converts the old ID into the new ID
+	 */
+	public void remapImageIDs( BoofLambdas.Map_I32_I32 op ) {
+		for (int i = 0; i < imagesDB.size; i++) {
+			imagesDB.set(i, op.lookup(imagesDB.get(i)));
+		}
+		imageIndexLookup.reset();
+	}
+
 	/**
 	 * Looks up the best BowMatch from the database. The list of all potential matches can be accessed by calling
 	 * {@link #getMatches()}.
@@ -248,26 +476,46 @@ public class RecognitionNearestNeighborInvertedFile<Point> implements VerbosePri
 			InvertedFile invertedFile = invertedFiles.get(word);
 
 			// Go through the inverted file list
-			final int N = invertedFile.weights.size;
-			for (int invertedIdx = 0; invertedIdx < N; invertedIdx++) {
-				int imageIdx = invertedFile.get(invertedIdx);
-
-				// See if this DB image has been seen before
-				BowMatch m;
-				int matchIdx = imageIdx_to_match.get(imageIdx);
-				if (matchIdx == -1) {
-					// It has not been seen before, create a new entry for it in the candidate list
-					imageIdx_to_match.set(imageIdx, matches.size);
-					m = matches.grow();
-					m.identification = imageIdx; // this will be converted to ID on output
-				} else {
-					m = matches.get(matchIdx);
+			if (mappedFiles != null) {
+				long last = mappedFiles.first(word + 1);
+				for (long element = mappedFiles.first(word); element < last; element++) {
+					scoreImage(mappedFiles.getImage(element), queryWordWeight, mappedFiles.getWeight(element));
 				}
+			}
 
-				// Update the score computation. See TupleMapDistanceNorm for why this is done
-				m.error += distanceFunction.distanceUpdate(queryWordWeight, invertedFile.weights.get(invertedIdx));
+			if (compressedFiles != null) {
+				compressedFiles.forEach(word, ( imageIdx, weight ) -> scoreImage(imageIdx, queryWordWeight, weight));
 			}
+
+			final int N = invertedFile.weights.size;
+			for (int invertedIdx = 0; invertedIdx < N; invertedIdx++) {
+				scoreImage(invertedFile.get(invertedIdx), queryWordWeight, invertedFile.weights.get(invertedIdx));
+			}
+		}
+	}
+
+	/**
+	 * Updates the score for an image which has a word in common with the query
+	 */
+	private void scoreImage( int imageIdx, float queryWordWeight, float imageWordWeight ) {
+		// Skip images which have been removed
+		if (imageIdx < removedImages.size && removedImages.data[imageIdx])
+			return;
+
+		// See if this DB image has been seen before
+		BowMatch m;
+		int matchIdx = imageIdx_to_match.get(imageIdx);
+		if (matchIdx == -1) {
+			// It has not been seen before, create a new entry for it in the candidate list
+			imageIdx_to_match.set(imageIdx, matches.size);
+			m = matches.grow();
+			m.identification = imageIdx; // this will be converted to ID on output
+		} else {
+			m = matches.get(matchIdx);
 		}
+
+		// Update the score computation. See TupleMapDistanceNorm for why this is done
+		m.error += distanceFunction.distanceUpdate(queryWordWeight, imageWordWeight);
 	}
 
 	/** Used to change distance function to one of the built in types */
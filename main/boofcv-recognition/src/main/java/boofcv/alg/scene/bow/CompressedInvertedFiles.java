@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import lombok.Getter;
+
+/**
+ * <p>
+ * Compact encoding of a set of {@link InvertedFile inverted files}. Image indexes are delta encoded then stored
+ * as a variable length integer, where each byte stores 7-bits and the 8th bit indicates if there are more bytes.
+ * Weights are quantized to 8 or 16 bits. Since image indexes in an inverted file are typically close to
+ * each other this reduces the memory used by each element from 8 bytes down to around 2 or 3 bytes.
+ * </p>
+ *
+ * <p>
+ * Image indexes must be added in increasing order, which is always the case when images are added to a database
+ * one at a time. Weights are assumed to be from 0 to 1, which is the case for a normalized TF-IDF descriptor.
+ * Weights outside this range are clamped.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class CompressedInvertedFiles {
+	// Used for files which are empty
+	private static final byte[] EMPTY = new byte[0];
+
+	/** Number of bytes used to store each weight. 1 or 2 */
+	@Getter final int weightBytes;
+
+	/** Number of inverted files */
+	@Getter int numFiles;
+
+	// Largest value a quantized weight can have
+	final int maxQuantized;
+	// Converts a quantized weight back into a float
+	final float dequantize;
+
+	// Encoded data for each file
+	byte[][] data = new byte[0][];
+	// Number of bytes used in each file
+	int[] lengths = new int[0];
+	// Number of elements in each file
+	int[] counts = new int[0];
+	// Last image index in each file. Needed to compute the delta when appending
+	int[] lastImage = new int[0];
+
+	/**
+	 * @param weightBytes Number of bytes used to store each weight. 1 or 2
+	 */
+	public CompressedInvertedFiles( int weightBytes ) {
+		if (weightBytes != 1 && weightBytes != 2)
+			throw new IllegalArgumentException("weightBytes must be 1 or 2");
+		this.weightBytes = weightBytes;
+		this.maxQuantized = (1 << (8*weightBytes)) - 1;
+		this.dequantize = 1.0f/maxQuantized;
+	}
+
+	/**
+	 * Discards all the data and creates the specified number of empty inverted files
+	 */
+	public void reset( int numFiles ) {
+		this.numFiles = numFiles;
+		data = new byte[numFiles][];
+		lengths = new int[numFiles];
+		counts = new int[numFiles];
+		lastImage = new int[numFiles];
+		for (int i = 0; i < numFiles; i++) {
+			data[i] = EMPTY;
+			lastImage[i] = -1;
+		}
+	}
+
+	/**
+	 * Appends an image to the end of the inverted file
+	 *
+	 * @param fileIdx Which inverted file
+	 * @param imageIdx Index of the image. Must be greater than the previous image in this file.
+	 * @param weight The image's weight. 0 to 1.
+	 */
+	public void addImage( int fileIdx, int imageIdx, float weight ) {
+		if (imageIdx <= lastImage[fileIdx])
+			throw new IllegalArgumentException("Images must be added in increasing order");
+
+		// There can be at most 5 bytes for the index
+		int length = lengths[fileIdx];
+		byte[] bytes = data[fileIdx];
+		if (length + 5 + weightBytes > bytes.length) {
+			var grown = new byte[Math.max(8, bytes.length + bytes.length/2 + 5 + weightBytes)];
+			System.arraycopy(bytes, 0, grown, 0, length);
+			data[fileIdx] = bytes = grown;
+		}
+
+		// Delta is always >= 1 so subtract one to make the values smaller
+		int delta = imageIdx - lastImage[fileIdx] - 1;
+		while ((delta & ~0x7F) != 0) {
+			bytes[length++] = (byte)((delta & 0x7F) | 0x80);
+			delta >>>= 7;
+		}
+		bytes[length++] = (byte)delta;
+
+		int quantized = (int)(weight*maxQuantized + 0.5f);
+		quantized = Math.max(0, Math.min(maxQuantized, quantized));
+		bytes[length++] = (byte)quantized;
+		if (weightBytes == 2)
+			bytes[length++] = (byte)(quantized >> 8);
+
+		lengths[fileIdx] = length;
+		lastImage[fileIdx] = imageIdx;
+		counts[fileIdx]++;
+	}
+
+	/** Number of images in the inverted file */
+	public int size( int fileIdx ) {
+		return counts[fileIdx];
+	}
+
+	/**
+	 * Decodes every image in the inverted file and passes it to 'op' in the order they were added
+	 */
+	public void forEach( int fileIdx, ProcessImage op ) {
+		final byte[] bytes = data[fileIdx];
+		final int length = lengths[fileIdx];
+		int imageIdx = -1;
+		int location = 0;
+		while (location < length) {
+			int delta = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = bytes[location++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			imageIdx += delta + 1;
+
+			int quantized = bytes[location++] & 0xFF;
+			if (weightBytes == 2)
+				quantized |= (bytes[location++] & 0xFF) << 8;
+
+			op.process(imageIdx, quantized*dequantize);
+		}
+	}
+
+	/**
+	 * Decodes the inverted file and appends the images to 'dst'
+	 */
+	public void decode( int fileIdx, InvertedFile dst ) {
+		dst.reserve(dst.size + counts[fileIdx]);
+		dst.weights.reserve(dst.size + counts[fileIdx]);
+		forEach(fileIdx, dst::addImage);
+	}
+
+	/**
+	 * Releases memory which has been allocated but isn't being used
+	 */
+	public void trimToSize() {
+		for (int i = 0; i < numFiles; i++) {
+			if (data[i].length == lengths[i])
+				continue;
+			var trimmed = lengths[i] == 0 ? EMPTY : new byte[lengths[i]];
+			System.arraycopy(data[i], 0, trimmed, 0, lengths[i]);
+			data[i] = trimmed;
+		}
+	}
+
+	/** Number of bytes used to encode all the images */
+	public long getUsedBytes() {
+		long total = 0;
+		for (int i = 0; i < numFiles; i++) {
+			total += lengths[i];
+		}
+		return total;
+	}
+
+	/** Number of bytes allocated, including book keeping for each file */
+	public long getAllocatedBytes() {
+		long total = 16L*numFiles;
+		for (int i = 0; i < numFiles; i++) {
+			total += data[i].length;
+		}
+		return total;
+	}
+
+	/**
+	 * Passed in decoded images
+	 */
+	@FunctionalInterface
+	public interface ProcessImage {
+		void process( int imageIdx, float weight );
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.ddogleg.struct.BigDogArray_I32;
+import org.ddogleg.struct.DogArray_B;
+
+/**
+ * Looks up the index of an image in an image DB from its ID, so that removing an image doesn't require
+ * searching through every image. Images which have been appended to the DB are added to the look up table the
+ * next time it's used, which spreads the cost across all the calls. Call {@link #reset()} whenever the
+ * index of an image in the DB changes, e.g. after it has been compacted.
+ *
+ * @author Peter Abeles
+ */
+public class ImageIndexLookup {
+	// ID to the index of the first image with that ID which hasn't been removed
+	final TIntIntHashMap idToIndex = new TIntIntHashMap(10, 0.5f, -1, -1);
+
+	// Number of images in the DB which have been added to the look up table
+	int numIndexed;
+
+	// True if more than one image has the same ID
+	boolean duplicateIDs;
+
+	/** Discards the look up table. It will be rebuilt the next time it's used. */
+	public void reset() {
+		idToIndex.clear();
+		numIndexed = 0;
+		duplicateIDs = false;
+	}
+
+	/**
+	 * Finds the first image with the ID which hasn't been removed and removes it from the look up table.
+	 * The caller is responsible for marking it as removed.
+	 *
+	 * @param imageID ID of the image
+	 * @param imagesDB Image ID for every image in the DB
+	 * @param removedImages Marks images which have been removed. Can be shorter than imagesDB.
+	 * @return Index of the image in the DB or -1 if there is no such image
+	 */
+	public int remove( int imageID, BigDogArray_I32 imagesDB, DogArray_B removedImages ) {
+		// The DB was modified without calling reset()
+		if (numIndexed > imagesDB.size)
+			reset();
+
+		// Add images which were appended since the last call
+		for (; numIndexed < imagesDB.size; numIndexed++) {
+			if (isRemoved(numIndexed, removedImages))
+				continue;
+			int id = imagesDB.get(numIndexed);
+			if (idToIndex.containsKey(id))
+				duplicateIDs = true;
+			else
+				idToIndex.put(id, numIndexed);
+		}
+
+		int imageIdx = idToIndex.remove(imageID);
+		if (imageIdx == -1 || !duplicateIDs)
+			return imageIdx;
+
+		// Another image with the same ID will be after this one
+		for (int i = imageIdx + 1; i < imagesDB.size; i++) {
+			if (!isRemoved(i, removedImages) && imagesDB.get(i) == imageID) {
+				idToIndex.put(imageID, i);
+				break;
+			}
+		}
+		return imageIdx;
+	}
+
+	static boolean isRemoved( int imageIdx, DogArray_B removedImages ) {
+		return imageIdx < removedImages.size && removedImages.data[imageIdx];
+	}
+}
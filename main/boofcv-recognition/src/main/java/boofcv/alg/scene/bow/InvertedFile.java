@@ -46,6 +46,16 @@ public class InvertedFile extends DogArray_I32 {
 		weights.add(weight);
 	}
 
+	/**
+	 * Removes all images and releases the memory used to store them
+	 */
+	public void releaseMemory() {
+		data = new int[1];
+		size = 0;
+		weights.data = new float[1];
+		weights.size = 0;
+	}
+
 	@Override
 	public InvertedFile reset() {
 		super.reset();
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A read only set of {@link InvertedFile inverted files} which are stored in a {@link ByteBuffer}, typically a
+ * memory mapped file. This allows a very large image database to be queried without first copying it onto the heap.
+ * Since a single ByteBuffer is limited to 2 GB the data is split into several "pages" with a size that's a power
+ * of two.
+ * </p>
+ *
+ * Layout starting at byte 'start'. All values are big endian.
+ * <pre>
+ * long[numFiles+1]   Index of the first element in each inverted file. The last value is the total.
+ * int[numElements]   Image index for every element
+ * float[numElements] Weight for every element
+ * </pre>
+ * Values are never split across two pages if 'start' is a multiple of 8 and the page size is at least 8 bytes.
+ *
+ * @author Peter Abeles
+ */
+public class MappedInvertedFiles {
+	/** Number of bits in the page size used when mapping a file */
+	public static final int DEFAULT_PAGE_BITS = 30;
+
+	// The data. Every page except for the last has a size of 2^pageBits
+	final ByteBuffer[] pages;
+	final int pageBits;
+	final long pageMask;
+
+	/** Number of inverted files */
+	@Getter final int numFiles;
+
+	/** Total number of elements across all inverted files */
+	@Getter final long numElements;
+
+	/** File the data was mapped from, if known. Used to avoid writing over a file while it's mapped. */
+	@Getter @Setter @Nullable File source;
+
+	// Location in bytes of each array
+	final long offsetsStart;
+	final long imagesStart;
+	final long weightsStart;
+
+	/**
+	 * @param pages The data split up into pages
+	 * @param pageBits Number of bits in a page's size
+	 * @param start Location of the first byte in the inverted files. Must be a multiple of 8.
+	 * @param numFiles Number of inverted files
+	 * @param numElements Total number of elements in all the inverted files.
+	 */
+	public MappedInvertedFiles( ByteBuffer[] pages, int pageBits, long start, int numFiles, long numElements ) {
+		if (start%8 != 0)
+			throw new IllegalArgumentException("start must be a multiple of 8");
+		if (pageBits < 3 || pageBits > 30)
+			throw new IllegalArgumentException("pageBits must be from 3 to 30");
+		this.pages = pages;
+		this.pageBits = pageBits;
+		this.pageMask = (1L << pageBits) - 1;
+		this.numFiles = numFiles;
+		this.numElements = numElements;
+		this.offsetsStart = start;
+		this.imagesStart = offsetsStart + 8L*(numFiles + 1);
+		this.weightsStart = imagesStart + 4L*numElements;
+
+		long available = 0;
+		for (ByteBuffer page : pages) {
+			available += page.limit();
+		}
+		if (available < getEndByte())
+			throw new IllegalArgumentException("Not enough data. Expected " + getEndByte() + " found " + available);
+	}
+
+	/**
+	 * Number of bytes needed to store the specified number of files and elements
+	 */
+	public static long computeSizeBytes( int numFiles, long numElements ) {
+		return 8L*(numFiles + 1) + 8L*numElements;
+	}
+
+	/** Location of the byte immediately after the inverted files */
+	public long getEndByte() {
+		return weightsStart + 4L*numElements;
+	}
+
+	/** Index of the first element in the specified inverted file */
+	public long first( int fileIdx ) {
+		return getLong(offsetsStart + 8L*fileIdx);
+	}
+
+	/** Number of elements in the specified inverted file */
+	public int size( int fileIdx ) {
+		return (int)(first(fileIdx + 1) - first(fileIdx));
+	}
+
+	/** Image index of an element. See {@link #first} */
+	public int getImage( long element ) {
+		return getInt(imagesStart + 4L*element);
+	}
+
+	/** Weight of an element. See {@link #first} */
+	public float getWeight( long element ) {
+		return Float.intBitsToFloat(getInt(weightsStart + 4L*element));
+	}
+
+	/**
+	 * Copies the specified inverted file onto the heap
+	 *
+	 * @param fileIdx Which inverted file
+	 * @param dst (Output) Elements are appended to it
+	 */
+	public void copyInto( int fileIdx, InvertedFile dst ) {
+		long first = first(fileIdx);
+		long last = first(fileIdx + 1);
+		dst.reserve(dst.size + (int)(last - first));
+		dst.weights.reserve(dst.size + (int)(last - first));
+		for (long element = first; element < last; element++) {
+			dst.addImage(getImage(element), getWeight(element));
+		}
+	}
+
+	private int getInt( long location ) {
+		// Absolute reads do not modify the buffer so they are thread safe
+		return pages[(int)(location >>> pageBits)].getInt((int)(location & pageMask));
+	}
+
+	private long getLong( long location ) {
+		return pages[(int)(location >>> pageBits)].getLong((int)(location & pageMask));
+	}
+}
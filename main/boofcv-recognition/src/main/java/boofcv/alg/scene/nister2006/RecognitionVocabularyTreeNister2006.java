@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,7 +21,10 @@ package boofcv.alg.scene.nister2006;
 import boofcv.alg.scene.bow.BowDistanceTypes;
 import boofcv.alg.scene.bow.BowMatch;
 import boofcv.alg.scene.bow.BowUtils;
+import boofcv.alg.scene.bow.CompressedInvertedFiles;
+import boofcv.alg.scene.bow.ImageIndexLookup;
 import boofcv.alg.scene.bow.InvertedFile;
+import boofcv.alg.scene.bow.MappedInvertedFiles;
 import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
 import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree.Node;
 import boofcv.misc.BoofLambdas;
@@ -82,9 +85,38 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 	/** User data associated with each node */
 	public final GrowArray<InvertedFile> invertedFiles = new GrowArray<>(InvertedFile::new, InvertedFile::reset);
 
+	/**
+	 * Optional read only inverted files which are stored outside the heap, e.g. memory mapped from disk. If not
+	 * null then each node's inverted file is the mapped file followed by the one in {@link #invertedFiles}.
+	 */
+	protected @Getter @Nullable MappedInvertedFiles mappedFiles;
+
+	/**
+	 * If not null then images are added to these compressed inverted files instead of {@link #invertedFiles}.
+	 * See {@link #compressInvertedFiles(int)}.
+	 */
+	protected @Getter @Nullable CompressedInvertedFiles compressedFiles;
+
 	/** List of images added to the database */
 	protected @Getter final BigDogArray_I32 imagesDB = new BigDogArray_I32(100, 10000, BigDogGrowth.GROW_FIRST);
 
+	/**
+	 * Marks images which have been removed but are still referenced by the inverted files. Indexes match
+	 * {@link #imagesDB}. Can be shorter than imagesDB, in which case missing elements have not been removed.
+	 */
+	protected @Getter final DogArray_B removedImages = new DogArray_B();
+
+	/** Number of images which have been removed but are still in the inverted files */
+	protected @Getter int totalRemoved;
+
+	/**
+	 * If the fraction of images which have been removed is more than this then {@link #isCompactRecommended()}
+	 * will return true. Compaction is never done automatically since it blocks for time proportional to the size
+	 * of the database. The owner should call {@link #compact()} when it's convenient, e.g. in a background task
+	 * while queries are paused.
+	 */
+	public double compactFraction = 0.25;
+
 	/** Scores for all candidate images which have been sorted */
 	protected @Getter final DogArray<BowMatch> matches = new DogArray<>(BowMatch::new, BowMatch::reset);
 
@@ -102,10 +134,25 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 	DogArray_I32 imageIdx_to_match = new DogArray_I32();
 	DogArray_I32 nodeIdx_to_match = new DogArray_I32();
 
+	// Used when compacting to look up the new index of an image
+	DogArray_I32 oldToNewIdx = new DogArray_I32();
+
+	// Used to find the index of an image that's being removed
+	final ImageIndexLookup imageIndexLookup = new ImageIndexLookup();
+
+	// Number of removed images in each node's inverted file. Only valid if the version matches removalVersion
+	final DogArray_I32 nodeRemovedCount = new DogArray_I32();
+	final DogArray_I32 nodeRemovedVersion = new DogArray_I32();
+	// Incremented every time an image is removed
+	int removalVersion;
+
 	// temporary storage for an image TF-IDF descriptor
 	DogArray_F32 tmpDescWeights = new DogArray_F32();
 	DogArray_I32 tmpDescWords = new DogArray_I32();
 
+	// If not null then it's used as workspace when searching the tree, which makes searching thread safe
+	@Nullable Point searchStorage;
+
 	// If not null then print verbose information here
 	@Nullable PrintStream verbose;
 
@@ -124,10 +171,146 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 	 */
 	public void clearImages() {
 		imagesDB.reset();
+		mappedFiles = null;
+		removedImages.reset();
+		totalRemoved = 0;
+		imageIndexLookup.reset();
 
 		// Removes the old leaf data and replaces it with empty structures
 		invertedFiles.reset();
 		invertedFiles.resize(tree.nodes.size);
+		if (compressedFiles != null)
+			compressedFiles.reset(tree.nodes.size);
+	}
+
+	/**
+	 * Switches to compressed inverted files, which use much less memory at the cost of slightly slower queries and
+	 * quantized weights. Images which are already in {@link #invertedFiles} are moved into the compressed files,
+	 * and all images added in the future will be compressed. Memory mapped inverted files are not modified.
+	 *
+	 * @param weightBytes Number of bytes used to store each weight. 1 or 2.
+	 */
+	public void compressInvertedFiles( int weightBytes ) {
+		var compressed = new CompressedInvertedFiles(weightBytes);
+		compressed.reset(tree.nodes.size);
+		var workspace = new InvertedFile();
+		for (int nodeIdx = 0; nodeIdx < tree.nodes.size; nodeIdx++) {
+			workspace.reset();
+			if (compressedFiles != null)
+				compressedFiles.decode(nodeIdx, workspace);
+			InvertedFile heap = invertedFiles.get(nodeIdx);
+			workspace.addAll(heap);
+			workspace.weights.addAll(heap.weights);
+			heap.releaseMemory();
+
+			for (int i = 0; i < workspace.size; i++) {
+				compressed.addImage(nodeIdx, workspace.get(i), workspace.weights.get(i));
+			}
+		}
+		compressed.trimToSize();
+		compressedFiles = compressed;
+	}
+
+	/**
+	 * Specifies inverted files which are stored outside the heap. Images added after this is called are
+	 * stored on the heap in {@link #invertedFiles}.
+	 *
+	 * @param mappedFiles The inverted files. Must have one for each node in the tree.
+	 */
+	public void setMappedFiles( @Nullable MappedInvertedFiles mappedFiles ) {
+		if (mappedFiles != null && mappedFiles.getNumFiles() != tree.nodes.size)
+			throw new IllegalArgumentException("Number of mapped inverted files doesn't match the number of nodes");
+		this.mappedFiles = mappedFiles;
+		imageIndexLookup.reset();
+	}
+
+	/**
+	 * Returns the total number of images in a node's inverted file, including mapped images
+	 */
+	public int invertedFileSize( int nodeIdx ) {
+		int size = invertedFiles.get(nodeIdx).size;
+		if (mappedFiles != null)
+			size += mappedFiles.size(nodeIdx);
+		if (compressedFiles != null)
+			size += compressedFiles.size(nodeIdx);
+		return size;
+	}
+
+	/**
+	 * Returns the number of images in a node's inverted file which have not been removed. If images have
+	 * been removed then the first call for a node after each removal needs to go through its inverted file.
+	 */
+	public int liveInvertedFileSize( int nodeIdx ) {
+		int size = invertedFileSize(nodeIdx);
+		if (totalRemoved == 0)
+			return size;
+
+		// Synchronized since the sharded database calls this from multiple threads
+		synchronized (nodeRemovedCount) {
+			if (nodeRemovedVersion.size != tree.nodes.size) {
+				nodeRemovedVersion.resize(tree.nodes.size);
+				nodeRemovedVersion.fill(-1);
+				nodeRemovedCount.resize(tree.nodes.size);
+			}
+			if (nodeRemovedVersion.data[nodeIdx] != removalVersion) {
+				nodeRemovedCount.data[nodeIdx] = countRemovedImages(nodeIdx);
+				nodeRemovedVersion.data[nodeIdx] = removalVersion;
+			}
+			return size - nodeRemovedCount.data[nodeIdx];
+		}
+	}
+
+	/**
+	 * Counts the number of removed images in the node's inverted file
+	 */
+	int countRemovedImages( int nodeIdx ) {
+		int count = 0;
+		if (mappedFiles != null) {
+			long last = mappedFiles.first(nodeIdx + 1);
+			for (long element = mappedFiles.first(nodeIdx); element < last; element++) {
+				if (isRemoved(mappedFiles.getImage(element)))
+					count++;
+			}
+		}
+
+		if (compressedFiles != null) {
+			var counter = new int[1];
+			compressedFiles.forEach(nodeIdx, ( imageIdx, weight ) -> {
+				if (isRemoved(imageIdx))
+					counter[0]++;
+			});
+			count += counter[0];
+		}
+
+		InvertedFile heap = invertedFiles.get(nodeIdx);
+		for (int i = 0; i < heap.size; i++) {
+			if (isRemoved(heap.get(i)))
+				count++;
+		}
+		return count;
+	}
+
+	/** True if the image has been removed but is still in the inverted files */
+	boolean isRemoved( int imageIdx ) {
+		return imageIdx < removedImages.size && removedImages.data[imageIdx];
+	}
+
+	/**
+	 * Copies every image in a node's inverted file into 'dst', independent of how it's stored. Mapped images
+	 * are first, then compressed images, then images in {@link #invertedFiles}.
+	 *
+	 * @param nodeIdx Index of the node
+	 * @param dst (Output) Storage for the inverted file. Reset on each call.
+	 */
+	public void copyInvertedFile( int nodeIdx, InvertedFile dst ) {
+		dst.reset();
+		if (mappedFiles != null)
+			mappedFiles.copyInto(nodeIdx, dst);
+		if (compressedFiles != null)
+			compressedFiles.decode(nodeIdx, dst);
+		InvertedFile heap = invertedFiles.get(nodeIdx);
+		dst.addAll(heap);
+		dst.weights.addAll(heap.weights);
 	}
 
 	/**
@@ -148,10 +331,118 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 
 		for (int wordIdx = 0; wordIdx < tmpDescWords.size; wordIdx++) {
 			int word = tmpDescWords.get(wordIdx);
-			invertedFiles.get(word).addImage(imageIdx, tmpDescWeights.get(wordIdx));
+			if (compressedFiles != null)
+				compressedFiles.addImage(word, imageIdx, tmpDescWeights.get(wordIdx));
+			else
+				invertedFiles.get(word).addImage(imageIdx, tmpDescWeights.get(wordIdx));
 		}
 	}
 
+	/**
+	 * Removes an image from the database. The image is marked as removed and is skipped by queries, but it's only
+	 * deleted from the inverted files when {@link #compact()} is called. The database is never compacted here, so
+	 * the cost of removing an image doesn't depend on the size of the database. If multiple images have the
+	 * same ID then only the first one is removed. See {@link #isCompactRecommended()}.
+	 *
+	 * @param imageID ID of the image that's to be removed
+	 * @return true if an image with the ID was found and removed
+	 */
+	public boolean removeImage( int imageID ) {
+		while (removedImages.size < imagesDB.size) {
+			removedImages.add(false);
+		}
+
+		int imageIdx = imageIndexLookup.remove(imageID, imagesDB, removedImages);
+		if (imageIdx == -1)
+			return false;
+
+		removedImages.data[imageIdx] = true;
+		totalRemoved++;
+		removalVersion++;
+		return true;
+	}
+
+	/**
+	 * Returns true if enough images have been removed that {@link #compact()} should be called.
+	 * See {@link #compactFraction}.
+	 */
+	public boolean isCompactRecommended() {
+		return totalRemoved > 0 && totalRemoved > compactFraction*imagesDB.size;
+	}
+
+	/**
+	 * Deletes all the removed images from the inverted files and the image DB. The order of the remaining images
+	 * is not changed. Every inverted file is rewritten, so this blocks for time proportional to the size of the
+	 * database.
+	 *
+	 * <p>Memory mapped inverted files are read only, so their contents are copied into {@link #invertedFiles}
+	 * or the compressed files if compression is enabled. For a large mapped database this can require more
+	 * memory than is available, consider calling {@link #compressInvertedFiles} first.</p>
+	 */
+	public void compact() {
+		if (totalRemoved == 0)
+			return;
+
+		// Create a look up table from the old image index to the new image index
+		oldToNewIdx.resize(imagesDB.size);
+		int numKept = 0;
+		for (int imageIdx = 0; imageIdx < imagesDB.size; imageIdx++) {
+			if (imageIdx < removedImages.size && removedImages.data[imageIdx]) {
+				oldToNewIdx.data[imageIdx] = -1;
+				continue;
+			}
+			oldToNewIdx.data[imageIdx] = numKept;
+			imagesDB.set(numKept++, imagesDB.get(imageIdx));
+		}
+
+		CompressedInvertedFiles compressed = null;
+		if (compressedFiles != null) {
+			compressed = new CompressedInvertedFiles(compressedFiles.getWeightBytes());
+			compressed.reset(tree.nodes.size);
+		}
+
+		var workspace = new InvertedFile();
+		for (int nodeIdx = 0; nodeIdx < tree.nodes.size; nodeIdx++) {
+			copyInvertedFile(nodeIdx, workspace);
+			InvertedFile heap = invertedFiles.get(nodeIdx);
+			heap.reset();
+
+			for (int i = 0; i < workspace.size; i++) {
+				int imageIdx = oldToNewIdx.get(workspace.get(i));
+				if (imageIdx == -1)
+					continue;
+				if (compressed != null)
+					compressed.addImage(nodeIdx, imageIdx, workspace.weights.get(i));
+				else
+					heap.addImage(imageIdx, workspace.weights.get(i));
+			}
+		}
+		if (compressed != null)
+			compressed.trimToSize();
+
+		if (verbose != null) verbose.println("compact: images " + imagesDB.size + " -> " + numKept);
+
+		imagesDB.resize(numKept);
+		compressedFiles = compressed;
+		mappedFiles = null;
+		removedImages.reset();
+		totalRemoved = 0;
+		imageIndexLookup.reset();
+	}
+
+	/**
+	 * Changes the ID of every image in the database. Useful when IDs are indexes into another list which had
+	 * an element removed.
+	 *
+	 * @param op Converts the old ID into the new ID
+	 */
+	public void remapImageIDs( BoofLambdas.Map_I32_I32 op ) {
+		for (int i = 0; i < imagesDB.size; i++) {
+			imagesDB.set(i, op.lookup(imagesDB.get(i)));
+		}
+		imageIndexLookup.reset();
+	}
+
 	/**
 	 * Looks up the best BowMatch from the database. The list of all potential matches can be accessed by calling
 	 * {@link #getMatches()}.
@@ -169,7 +460,27 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 			return false;
 		}
 
-		findAndScoreMatches(queryImage);
+		// Create a description of this image
+		describe(queryImage, tmpDescWeights, tmpDescWords);
+
+		return query(tmpDescWeights, tmpDescWords, filter, limit);
+	}
+
+	/**
+	 * Same as {@link #query(List, BoofLambdas.FilterInt, int)} but with a TF-IDF descriptor that has already
+	 * been computed. This allows the same descriptor to be used with multiple databases that share a tree.
+	 *
+	 * @param descWeights Weights for non-zero word in TD-IDF descriptor of the query image
+	 * @param descWords Word index for non-zero word in TD-IDF descriptor of the query image
+	 * @param filter Filter which can be used to reject matches that the user doesn't want returned. False = reject.
+	 * @param limit Maximum number of matches it will return.
+	 * @return The best matching image with score from the database
+	 */
+	public boolean query( DogArray_F32 descWeights, DogArray_I32 descWords,
+						  @Nullable BoofLambdas.FilterInt filter, int limit ) {
+		matches.reset();
+
+		findAndScoreMatches(descWeights, descWords);
 
 		if (matches.isEmpty())
 			return false;
@@ -195,49 +506,69 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 	 * Uses the inverted file for each word to create a list of potential matches while scoring the matches
 	 * efficiently
 	 */
-	protected void findAndScoreMatches( List<Point> queryImage ) {
+	protected void findAndScoreMatches( DogArray_F32 descWeights, DogArray_I32 descWords ) {
 		// Don't use a node if it will degrade the runtime performance too much by considering too many images
 		// This will also degrade the quality of query results
-		int maximumInvertedFileLength = maximumQueryImagesInNode.computeI(imagesDB.size);
-
-		// Create a description of this image and collect potential matches from leaves
-		describe(queryImage, tmpDescWeights, tmpDescWords);
+		// Removed images are excluded from both sides so that results are the same as a compacted database
+		int maximumInvertedFileLength = maximumQueryImagesInNode.computeI(imagesDB.size - totalRemoved);
 
 		// NOTE: It's assumed imageIdx_to_match is full of -1
 		imageIdx_to_match.resize(imagesDB.size, -1);
 
 		// Find and score all the images that could possible be matched with the query
-		for (int wordIdx = 0; wordIdx < tmpDescWords.size; wordIdx++) {
-			float queryWordWeight = tmpDescWeights.get(wordIdx);
-			HierarchicalVocabularyTree.Node node = tree.nodes.get(tmpDescWords.get(wordIdx));
+		for (int wordIdx = 0; wordIdx < descWords.size; wordIdx++) {
+			float queryWordWeight = descWeights.get(wordIdx);
+			HierarchicalVocabularyTree.Node node = tree.nodes.get(descWords.get(wordIdx));
 
 			InvertedFile invertedFile = invertedFiles.get(node.index);
 
-			// See above
-			if (invertedFile.size > maximumInvertedFileLength)
+			// See above. The live size is only computed if needed since it can be expensive
+			if (invertedFileSize(node.index) > maximumInvertedFileLength &&
+					liveInvertedFileSize(node.index) > maximumInvertedFileLength)
 				continue;
 
-			for (int i = 0; i < invertedFile.size; i++) {
-				// Get the list of images in the database which have this particular word using
-				// the inverted file list
-				int imageIdx = invertedFile.get(i);
-
-				BowMatch m;
-				if (imageIdx_to_match.get(imageIdx) == -1) {
-					imageIdx_to_match.set(imageIdx, matches.size);
-					m = matches.grow();
-					m.identification = imageIdx; // this will be converted to ID on output
-				} else {
-					m = matches.get(imageIdx_to_match.get(imageIdx));
+			// Get the list of images in the database which have this particular word using
+			// the inverted file list
+			if (mappedFiles != null) {
+				long last = mappedFiles.first(node.index + 1);
+				for (long element = mappedFiles.first(node.index); element < last; element++) {
+					scoreImage(mappedFiles.getImage(element), queryWordWeight, mappedFiles.getWeight(element));
 				}
+			}
 
-				// Update the score computation. See TupleMapDistanceNorm for why this is done
-				m.error += distanceFunction.distanceUpdate(queryWordWeight, invertedFile.weights.get(i));
-				// NOTE: An earlier version created a list of common word weights. That took 5x longer
+			if (compressedFiles != null) {
+				compressedFiles.forEach(node.index, ( imageIdx, weight ) ->
+						scoreImage(imageIdx, queryWordWeight, weight));
+			}
+
+			for (int i = 0; i < invertedFile.size; i++) {
+				scoreImage(invertedFile.get(i), queryWordWeight, invertedFile.weights.get(i));
 			}
 		}
 	}
 
+	/**
+	 * Updates the score for an image which has a word in common with the query
+	 */
+	private void scoreImage( int imageIdx, float queryWordWeight, float imageWordWeight ) {
+		// Skip images which have been removed
+		if (isRemoved(imageIdx))
+			return;
+
+		BowMatch m;
+		if (imageIdx_to_match.get(imageIdx) == -1) {
+			imageIdx_to_match.set(imageIdx, matches.size);
+			m = matches.grow();
+			m.identification = imageIdx; // this will be converted to ID on output
+		} else {
+			m = matches.get(imageIdx_to_match.get(imageIdx));
+		}
+
+		// Update the score computation. See TupleMapDistanceNorm for why this is done
+		m.error += distanceFunction.distanceUpdate(queryWordWeight, imageWordWeight);
+		// NOTE: An earlier version created a list of common word weights. That took 5x longer
+	}
+
 	/**
 	 * Given the image features, compute a sparse descriptor for the image and pass in leaf nodes to 'op' for each
 	 * image feature.
@@ -257,7 +588,7 @@ public class RecognitionVocabularyTreeNister2006<Point> implements VerbosePrint
 		featureIdxToLeafID.resize(imageFeatures.size());
 
 		for (int featureIdx = 0; featureIdx < imageFeatures.size(); featureIdx++) {
-			int leafID = tree.searchPathToLeaf(imageFeatures.get(featureIdx), ( depth, node ) -> {
+			int leafID = tree.searchPathToLeaf(imageFeatures.get(featureIdx), searchStorage, ( depth, node ) -> {
 				if (depth < minimumDepthFromRoot || node.weight <= 0.0f)
 					return;
 
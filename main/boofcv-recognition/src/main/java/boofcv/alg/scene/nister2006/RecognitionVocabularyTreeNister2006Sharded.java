@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.nister2006;
+
+import boofcv.alg.scene.bow.BowDistanceTypes;
+import boofcv.alg.scene.bow.BowMatch;
+import boofcv.alg.scene.bow.BowUtils;
+import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.ConfigLength;
+import lombok.Getter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_F32;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.VerbosePrint;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * Variant of {@link RecognitionVocabularyTreeNister2006} where the images are partitioned into several shards.
+ * Each shard has its own inverted files and the shards are scored in parallel when a query is made. The best
+ * matches from each shard are then merged together. All shards share the same tree and the query image's
+ * TF-IDF descriptor is only computed once. Results are identical to a single database which contains
+ * all the images, independent of the number of shards or threads.
+ * </p>
+ *
+ * <p>
+ * A batch query is also provided. Descriptors for all the query images are computed in parallel and then each
+ * shard scores every query image, allowing many images to be looked up with only one parallel dispatch.
+ * </p>
+ *
+ * <p>
+ * NOTE: Filters passed into a query can be called by multiple threads at the same time.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+@SuppressWarnings({"NullAway.Init"})
+public class RecognitionVocabularyTreeNister2006Sharded<Point> implements VerbosePrint {
+	/** Vocabulary Tree */
+	@Getter HierarchicalVocabularyTree<Point> tree;
+
+	/** A node can be part of the descriptor if it's at least this far from the root node */
+	public int minimumDepthFromRoot = 0;
+
+	/** See {@link RecognitionVocabularyTreeNister2006#maximumQueryImagesInNode}. Applies to all shards together. */
+	public ConfigLength maximumQueryImagesInNode = ConfigLength.relative(1.0, 1);
+
+	/** Each shard contains a subset of the images */
+	@Getter final List<RecognitionVocabularyTreeNister2006<Point>> shards = new ArrayList<>();
+
+	/** Scores for all candidate images from the most recent call to {@link #query} */
+	@Getter final DogArray<BowMatch> matches = new DogArray<>(BowMatch::new, BowMatch::reset);
+
+	/** Matches for each query image from the most recent call to {@link #queryBatch} */
+	@Getter final DogArray<DogArray<BowMatch>> batchMatches =
+			new DogArray<>(() -> new DogArray<>(BowMatch::new, BowMatch::reset), DogArray::reset);
+
+	/** Total number of images across all shards */
+	@Getter int totalImages;
+
+	// Computes the description of query images. One for each thread
+	final GrowArray<RecognitionVocabularyTreeNister2006<Point>> describers;
+
+	// Description of each query image
+	final DogArray<Description> descriptions = new DogArray<>(Description::new, Description::reset);
+
+	// Matches from each shard for all the query images
+	final List<ShardMatches> shardMatches = new ArrayList<>();
+
+	// Distance between two TF-IDF descriptors
+	TupleMapDistanceNorm distanceFunction = new TupleMapDistanceNorm.L2();
+
+	@Nullable PrintStream verbose;
+
+	/**
+	 * @param numShards Number of shards the images are partitioned into
+	 * @param factoryPoint Creates a new point. Used as workspace when searching the tree in multiple threads.
+	 */
+	public RecognitionVocabularyTreeNister2006Sharded( int numShards, BoofLambdas.Factory<Point> factoryPoint ) {
+		BoofMiscOps.checkTrue(numShards >= 1, "Must have at least one shard");
+		for (int i = 0; i < numShards; i++) {
+			shards.add(new RecognitionVocabularyTreeNister2006<>());
+			shardMatches.add(new ShardMatches());
+		}
+		describers = new GrowArray<>(() -> {
+			var describer = new RecognitionVocabularyTreeNister2006<Point>();
+			describer.searchStorage = factoryPoint.newInstance();
+			return describer;
+		});
+		setDistanceType(BowDistanceTypes.L2);
+	}
+
+	/**
+	 * Specifies the tree and removes all images
+	 *
+	 * @param tree Three which is to be used as the database. Saved internally.
+	 */
+	public void initializeTree( HierarchicalVocabularyTree<Point> tree ) {
+		this.tree = tree;
+		for (int i = 0; i < shards.size(); i++) {
+			shards.get(i).initializeTree(tree);
+		}
+		totalImages = 0;
+	}
+
+	/**
+	 * Removes all images from the database.
+	 */
+	public void clearImages() {
+		for (int i = 0; i < shards.size(); i++) {
+			shards.get(i).clearImages();
+		}
+		totalImages = 0;
+	}
+
+	/**
+	 * Removes an image from whichever shard it's in. See {@link RecognitionVocabularyTreeNister2006#removeImage}.
+	 *
+	 * @param imageID ID of the image that's to be removed
+	 * @return true if an image with the ID was found and removed
+	 */
+	public boolean removeImage( int imageID ) {
+		for (int i = 0; i < shards.size(); i++) {
+			if (shards.get(i).removeImage(imageID)) {
+				totalImages--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compacts every shard. See {@link RecognitionVocabularyTreeNister2006#compact()}.
+	 */
+	public void compact() {
+		for (int i = 0; i < shards.size(); i++) {
+			shards.get(i).compact();
+		}
+	}
+
+	/**
+	 * Returns true if any shard should be compacted. See {@link RecognitionVocabularyTreeNister2006#isCompactRecommended()}.
+	 */
+	public boolean isCompactRecommended() {
+		for (int i = 0; i < shards.size(); i++) {
+			if (shards.get(i).isCompactRecommended())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Compresses the inverted files in every shard.
+	 * See {@link RecognitionVocabularyTreeNister2006#compressInvertedFiles(int)}.
+	 */
+	public void compressInvertedFiles( int weightBytes ) {
+		for (int i = 0; i < shards.size(); i++) {
+			shards.get(i).compressInvertedFiles(weightBytes);
+		}
+	}
+
+	/**
+	 * Adds a new image to the database. Images are assigned to shards in a round-robin fashion so that they
+	 * have about the same number of images.
+	 *
+	 * @param imageID The image's unique ID for later reference
+	 * @param imageFeatures Feature descriptors from an image
+	 */
+	public void addImage( int imageID, List<Point> imageFeatures ) {
+		if (imageFeatures.isEmpty())
+			return;
+
+		RecognitionVocabularyTreeNister2006<Point> shard = shards.get(totalImages%shards.size());
+		shard.minimumDepthFromRoot = minimumDepthFromRoot;
+		shard.addImage(imageID, imageFeatures);
+		totalImages++;
+	}
+
+	/**
+	 * Looks up the best matches from the database. See {@link RecognitionVocabularyTreeNister2006#query}.
+	 *
+	 * @param queryImage Set of feature descriptors from the query image
+	 * @param filter Filter which can be used to reject matches that the user doesn't want returned. False = reject.
+	 * @param limit Maximum number of matches it will return.
+	 * @return true if there was at least one match
+	 */
+	public boolean query( List<Point> queryImage, @Nullable BoofLambdas.FilterInt filter, int limit ) {
+		matches.reset();
+		if (queryImage.isEmpty())
+			return false;
+
+		// Compute the descriptor once for all the shards
+		descriptions.reset();
+		descriptions.grow();
+		describers.reset();
+		describeRange(describers.grow(), List.of(queryImage), 0, 1);
+
+		// Find the best matches inside each shard
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopFor(0, shards.size(), shardIdx -> scoreShard(shardIdx, 0, 1, filter, limit));
+		} else {
+			for (int shardIdx = 0; shardIdx < shards.size(); shardIdx++) {
+				scoreShard(shardIdx, 0, 1, filter, limit);
+			}
+		}
+
+		mergeShards(0, matches, limit);
+		if (verbose != null) verbose.println("matches.size=" + matches.size);
+		return matches.size > 0;
+	}
+
+	/**
+	 * Looks up the best matches for several query images at once. Results are stored in {@link #getBatchMatches()}
+	 * with one element for each query image, in the same order.
+	 *
+	 * @param queryImages List of query images. Each query image is a set of feature descriptors
+	 * @param filter Filter which can be used to reject matches that the user doesn't want returned. False = reject.
+	 * @param limit Maximum number of matches it will return for each query image.
+	 */
+	public void queryBatch( List<List<Point>> queryImages, @Nullable BoofLambdas.FilterInt filter, int limit ) {
+		int numQueries = queryImages.size();
+		batchMatches.reset();
+		descriptions.reset();
+		descriptions.resize(numQueries);
+
+		// Compute the descriptor for all the query images
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, numQueries, describers, ( describer, idx0, idx1 ) ->
+					describeRange(describer, queryImages, idx0, idx1));
+		} else {
+			describers.reset();
+			describeRange(describers.grow(), queryImages, 0, numQueries);
+		}
+
+		// Score all the query images in each shard
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopFor(0, shards.size(), shardIdx -> scoreShard(shardIdx, 0, numQueries, filter, limit));
+		} else {
+			for (int shardIdx = 0; shardIdx < shards.size(); shardIdx++) {
+				scoreShard(shardIdx, 0, numQueries, filter, limit);
+			}
+		}
+
+		// Merge the results from each shard together
+		batchMatches.resize(numQueries);
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopFor(0, numQueries, queryIdx -> mergeShards(queryIdx, batchMatches.get(queryIdx), limit));
+		} else {
+			for (int queryIdx = 0; queryIdx < numQueries; queryIdx++) {
+				mergeShards(queryIdx, batchMatches.get(queryIdx), limit);
+			}
+		}
+	}
+
+	/**
+	 * Computes the descriptor for query images in the specified range
+	 */
+	void describeRange( RecognitionVocabularyTreeNister2006<Point> describer,
+						List<List<Point>> queryImages, int idx0, int idx1 ) {
+		// Make sure it's configured the same way the shards are
+		describer.tree = tree;
+		describer.minimumDepthFromRoot = minimumDepthFromRoot;
+		if (describer.getDistanceFunction().getClass() != distanceFunction.getClass())
+			describer.setDistanceFunction(distanceFunction.newInstanceThread());
+
+		for (int queryIdx = idx0; queryIdx < idx1; queryIdx++) {
+			Description desc = descriptions.get(queryIdx);
+			desc.reset();
+			List<Point> queryImage = queryImages.get(queryIdx);
+			if (queryImage.isEmpty())
+				continue;
+			describer.describe(queryImage, desc.weights, desc.words);
+			removePopularWords(desc);
+		}
+	}
+
+	/**
+	 * Removes words from the descriptor which have too many images. This is equivalent to how
+	 * {@link RecognitionVocabularyTreeNister2006} skips them, but considers images across all shards.
+	 */
+	void removePopularWords( Description desc ) {
+		// Removed images are excluded from both sides so that results are the same as a compacted database
+		int maximumInvertedFileLength = maximumQueryImagesInNode.computeI(totalImages);
+
+		int count = 0;
+		for (int wordIdx = 0; wordIdx < desc.words.size; wordIdx++) {
+			int word = desc.words.get(wordIdx);
+			if (isPopular(word, maximumInvertedFileLength))
+				continue;
+			desc.words.data[count] = word;
+			desc.weights.data[count] = desc.weights.data[wordIdx];
+			count++;
+		}
+		desc.words.size = count;
+		desc.weights.size = count;
+	}
+
+	/**
+	 * Returns true if the word has too many images. The live size, which excludes removed images, is only
+	 * computed if needed since it can be expensive.
+	 */
+	boolean isPopular( int word, int maximumInvertedFileLength ) {
+		int total = 0;
+		for (int shardIdx = 0; shardIdx < shards.size(); shardIdx++) {
+			total += shards.get(shardIdx).invertedFileSize(word);
+		}
+		if (total <= maximumInvertedFileLength)
+			return false;
+
+		total = 0;
+		for (int shardIdx = 0; shardIdx < shards.size(); shardIdx++) {
+			total += shards.get(shardIdx).liveInvertedFileSize(word);
+		}
+		return total > maximumInvertedFileLength;
+	}
+
+	/**
+	 * Scores the query images in the specified shard and saves the best matches
+	 */
+	void scoreShard( int shardIdx, int query0, int query1, @Nullable BoofLambdas.FilterInt filter, int limit ) {
+		RecognitionVocabularyTreeNister2006<Point> shard = shards.get(shardIdx);
+		ShardMatches results = shardMatches.get(shardIdx);
+		results.reset();
+
+		for (int queryIdx = query0; queryIdx < query1; queryIdx++) {
+			results.start.add(results.matches.size);
+			Description desc = descriptions.get(queryIdx);
+			if (desc.words.size == 0)
+				continue;
+
+			// Words with too many images were already removed
+			shard.maximumQueryImagesInNode.setRelative(1.0, 1);
+			shard.query(desc.weights, desc.words, filter, limit);
+
+			DogArray<BowMatch> found = shard.getMatches();
+			for (int i = 0; i < found.size; i++) {
+				BowMatch m = results.matches.grow();
+				m.identification = found.get(i).identification;
+				m.error = found.get(i).error;
+			}
+		}
+		results.start.add(results.matches.size);
+	}
+
+	/**
+	 * Combines the best matches for a query image from every shard
+	 */
+	void mergeShards( int queryIdx, DogArray<BowMatch> merged, int limit ) {
+		merged.reset();
+		for (int shardIdx = 0; shardIdx < shards.size(); shardIdx++) {
+			ShardMatches results = shardMatches.get(shardIdx);
+			int idx0 = results.start.get(queryIdx);
+			int idx1 = results.start.get(queryIdx + 1);
+			for (int i = idx0; i < idx1; i++) {
+				BowMatch src = results.matches.get(i);
+				BowMatch dst = merged.grow();
+				dst.identification = src.identification;
+				dst.error = src.error;
+			}
+		}
+		// The filter has already been applied in each shard
+		BowUtils.filterAndSortMatches(merged, null, limit);
+	}
+
+	/** Used to change distance function to one of the built in types */
+	public void setDistanceType( BowDistanceTypes type ) {
+		for (int i = 0; i < shards.size(); i++) {
+			shards.get(i).setDistanceType(type);
+		}
+		distanceFunction = shards.get(0).getDistanceFunction();
+	}
+
+	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> settings ) {
+		this.verbose = out;
+	}
+
+	/** TF-IDF descriptor for a query image */
+	static class Description {
+		final DogArray_F32 weights = new DogArray_F32();
+		final DogArray_I32 words = new DogArray_I32();
+
+		public void reset() {
+			weights.reset();
+			words.reset();
+		}
+	}
+
+	/** Best matches found inside a shard for each query image */
+	static class ShardMatches {
+		final DogArray<BowMatch> matches = new DogArray<>(BowMatch::new, BowMatch::reset);
+		// Index of the first match for each query image. Has an extra element at the end.
+		final DogArray_I32 start = new DogArray_I32();
+
+		public void reset() {
+			matches.reset();
+			start.reset();
+		}
+	}
+}
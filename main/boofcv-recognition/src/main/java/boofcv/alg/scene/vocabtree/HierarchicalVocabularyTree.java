@@ -25,6 +25,7 @@ import org.ddogleg.clustering.PointDistance;
 import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.FastArray;
+import org.jetbrains.annotations.Nullable;
 
 import static boofcv.misc.BoofMiscOps.checkTrue;
 
@@ -92,6 +93,20 @@ public class HierarchicalVocabularyTree<Point> {
 	 * @return index of the leaf node
 	 */
 	public int searchPathToLeaf( Point point, BoofLambdas.ProcessIndex<Node> op ) {
+		return searchPathToLeaf(point, null, op);
+	}
+
+	/**
+	 * Same as {@link #searchPathToLeaf(Object, BoofLambdas.ProcessIndex)} but if 'storage' is not null then
+	 * descriptions are copied into it instead of using internal workspace. This allows multiple threads to
+	 * search the tree at the same time.
+	 *
+	 * @param point (Input) Point
+	 * @param storage (Workspace) Used to store node descriptions. If null then internal workspace is used.
+	 * @param op Traversed nodes are passed to this function from level 0 to the leaf
+	 * @return index of the leaf node
+	 */
+	public int searchPathToLeaf( Point point, @Nullable Point storage, BoofLambdas.ProcessIndex<Node> op ) {
 		Node parent = nodes.get(0);
 
 		if (parent.isLeaf()) {
@@ -107,7 +122,13 @@ public class HierarchicalVocabularyTree<Point> {
 			for (int childIdx = 0; childIdx < parent.childrenIndexes.size; childIdx++) {
 				int nodeIdx = parent.childrenIndexes.get(childIdx);
 
-				Point desc = descriptions.getTemp(nodes.get(nodeIdx).descIdx);
+				Point desc;
+				if (storage == null) {
+					desc = descriptions.getTemp(nodes.get(nodeIdx).descIdx);
+				} else {
+					descriptions.getCopy(nodes.get(nodeIdx).descIdx, storage);
+					desc = storage;
+				}
 				double distance = distanceFunction.distance(point, desc);
 				if (distance >= bestDistance)
 					continue;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -23,21 +23,45 @@ import boofcv.misc.BoofLambdas;
 import boofcv.misc.BoofMiscOps;
 import boofcv.struct.ConfigLength;
 import boofcv.struct.PackedArray;
+import org.ddogleg.clustering.PointDistance;
 import org.ddogleg.clustering.kmeans.StandardKMeans;
 import org.ddogleg.struct.DogArray;
-import org.ddogleg.struct.DogArray_F64;
 import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.VerbosePrint;
 import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 /**
  * The graph is constructed using a depth first search. Each level has its own k-means algorithm. Labeling results
  * are used to segment points for each branch before going to the next level.
  *
+ * <p>
+ * After the root node has been clustered, each of its children is an independent subtree. Each subtree is learned
+ * separately, with k-means seeded by the branch, and then merged into the final tree in order. This allows
+ * subtrees to be learned in parallel, see {@link LearnHierarchicalTree_MT}, while producing the same tree.
+ * </p>
+ *
+ * <p>
+ * To reduce the cost of clustering nodes with a very large number of points, k-means can be run on a random
+ * sample of the points, see {@link #maximumPointsForKMeans}. All the points are then assigned to the closest
+ * cluster. Points can also be streamed, e.g. read from disk, by calling {@link #process(Iterable, HierarchicalVocabularyTree)},
+ * which only loads the points for one subtree at a time into memory. When streaming, {@link #maximumPointsForKMeans}
+ * must be a fixed size since it bounds how many points are loaded when clustering the root node.
+ * </p>
+ *
+ * <p>
+ * NOTE: Each subtree's k-means is seeded with {@code randomSeed + 1 + label}. Before subtrees were learned
+ * independently a single random sequence was shared across the whole tree, so trees learned with the same seed
+ * will differ from those created by older versions.
+ * </p>
+ *
  * @author Peter Abeles
  **/
 public class LearnHierarchicalTree<Point> implements VerbosePrint {
@@ -47,21 +71,42 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 	 */
 	public ConfigLength minimumPointsForChildren = ConfigLength.fixed(0);
 
-	// Stores points for a branch at each level in DFS
-	protected final DogArray<PackedArray<Point>> listPoints;
-	// k-means instance for each level in tree
-	protected final DogArray<StandardKMeans<Point>> listKMeans;
-	// Storage for weights
-	protected final DogArray<DogArray_F64> listWeights = new DogArray<>(DogArray_F64::new);
+	/**
+	 * If a node has more than this number of points then k-means is run on a random sample of this size and all
+	 * the points are then assigned to the closest cluster. If relative then it will be relative to the total
+	 * number of points. By default all points are used. Must be fixed when points are streamed.
+	 */
+	public ConfigLength maximumPointsForKMeans = ConfigLength.relative(1.0, 0);
+
+	// Seed used to initialize random number generators
+	protected final long randomSeed;
+
+	// Factory for point storage
+	protected final BoofLambdas.Factory<PackedArray<Point>> factoryStorage;
+
+	// Workspace for learning a subtree. One for each thread
+	protected final GrowArray<Workspace> workspace;
+
+	// The tree learned for each child of the root node. Merged into the output tree after they are all learned
+	protected final List<HierarchicalVocabularyTree<Point>> subtrees = new ArrayList<>();
+
+	// Which child of the root each point belongs to
+	protected final DogArray_I32 rootAssignments = new DogArray_I32();
 
 	//---------- Workspace variables
 
 	// Dynamically computed. The actual threshold for adding children nodes based on the number of points
 	protected int pointsRequiredForChildren;
 
+	// Dynamically computed. If more points than this then k-means is applied to a sample
+	protected int pointsForKMeans;
+
 	// Total points in the input list/dataset
 	protected int totalPoints;
 
+	// Look up table from a node in a subtree to the node in the output tree
+	protected final DogArray_I32 subtreeToTree = new DogArray_I32();
+
 	// If not null then verbose debug information is printed
 	protected @Nullable PrintStream verbose;
 
@@ -76,11 +121,21 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 	public LearnHierarchicalTree( BoofLambdas.Factory<PackedArray<Point>> factoryStorage,
 								  BoofLambdas.Factory<StandardKMeans<Point>> factoryKMeans,
 								  long randomSeed ) {
-		this.listPoints = new DogArray<>(factoryStorage::newInstance, PackedArray::reset);
+		this(factoryStorage, factoryKMeans, null, randomSeed);
+	}
 
-		// Start with an internal array size of zero so that the passed in initializer will take affect
-		this.listKMeans = new DogArray<>(0, factoryKMeans::newInstance);
-		this.listKMeans.setInitialize(( kmeans ) -> kmeans.initialize(randomSeed));
+	/**
+	 * @param factoryPoint If not null then it's used to create workspace which allows points to be read by
+	 * multiple threads at once.
+	 */
+	protected LearnHierarchicalTree( BoofLambdas.Factory<PackedArray<Point>> factoryStorage,
+									 BoofLambdas.Factory<StandardKMeans<Point>> factoryKMeans,
+									 @Nullable BoofLambdas.Factory<Point> factoryPoint,
+									 long randomSeed ) {
+		this.factoryStorage = factoryStorage;
+		this.randomSeed = randomSeed;
+		this.workspace = new GrowArray<>(() -> new Workspace(factoryKMeans,
+				factoryPoint == null ? null : factoryPoint.newInstance()));
 	}
 
 	/**
@@ -90,34 +145,205 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 	 * @param tree (Output) generated tree
 	 */
 	public void process( PackedArray<Point> points, HierarchicalVocabularyTree<Point> tree ) {
-		// Initialize data structures
+		if (!initialize(points.size(), tree))
+			return;
+
+		// Cluster the root node
+		workspace.reset();
+		Workspace root = workspace.grow();
+		root.initialize(tree, randomSeed);
+		if (!clusterNode(root, points, tree, 0, 0))
+			return;
+		rootAssignments.setTo(root.listAssignments.get(0));
+
+		// Learn each child of the root then combine them together
+		createSubtrees(tree);
+		processSubtrees(points);
+		mergeSubtrees(tree);
+	}
+
+	/**
+	 * Same as {@link #process(PackedArray, HierarchicalVocabularyTree)} but the points are streamed instead of all
+	 * being in memory at once. Only points which belong to the subtree being learned are saved in memory. The
+	 * points are iterated through several times, once to count, once to sample the root node's points, once to
+	 * assign points to the root's children, and once for each of root's children. The iterator can recycle
+	 * the points it returns.
+	 *
+	 * <p>{@link #maximumPointsForKMeans} must be a fixed size, otherwise every point would be loaded into memory
+	 * when clustering the root node.</p>
+	 *
+	 * @param points (Input) points which are to be segmented into the hierarchical tree
+	 * @param tree (Output) generated tree
+	 */
+	public void process( Iterable<Point> points, HierarchicalVocabularyTree<Point> tree ) {
+		if (maximumPointsForKMeans.isRelative())
+			throw new IllegalArgumentException("maximumPointsForKMeans must be fixed when streaming points");
+
+		int count = 0;
+		for (Iterator<Point> iter = points.iterator(); iter.hasNext(); iter.next()) {
+			count++;
+		}
+		if (!initialize(count, tree))
+			return;
+
+		workspace.reset();
+		Workspace root = workspace.grow();
+		root.initialize(tree, randomSeed);
+
+		// Only load the points which will be clustered into memory
+		PackedArray<Point> rootPoints = root.listPoints.get(0);
+		rootPoints.reset();
+		int sampleSize = Math.min(count, pointsForKMeans);
+		int remaining = sampleSize;
+		int index = 0;
+		for (Point p : points) {
+			if (root.rand.nextInt(count - index++) < remaining) {
+				rootPoints.append(p);
+				remaining--;
+			}
+		}
+
+		// Cluster the root node
+		if (!clusterNode(root, rootPoints, tree, 0, 0))
+			return;
+
+		// Assign every point to one of the root's children
+		List<Point> clusterMeans = root.listKMeans.get(0).getBestClusters().toList();
+		rootAssignments.reset();
+		rootAssignments.reserve(count);
+		for (Point p : points) {
+			rootAssignments.add(findClosest(root.distance, p, clusterMeans));
+		}
+
+		// Learn one subtree at a time so that only its points are in memory
+		createSubtrees(tree);
+		for (int label = 0; label < subtrees.size(); label++) {
+			PackedArray<Point> pointsInBranch = root.listPoints.get(0);
+			pointsInBranch.reset();
+			index = 0;
+			for (Point p : points) {
+				if (rootAssignments.get(index++) == label)
+					pointsInBranch.append(p);
+			}
+			root.initialize(subtrees.get(label), randomSeed + 1 + label);
+			processSubtree(root, pointsInBranch, label);
+		}
+		mergeSubtrees(tree);
+	}
+
+	/**
+	 * Initializes data structures and returns false if there are no points
+	 */
+	protected boolean initialize( int numPoints, HierarchicalVocabularyTree<Point> tree ) {
 		tree.checkConfig();
 		tree.reset();
-		this.totalPoints = points.size();
+		this.totalPoints = numPoints;
 
 		// Abort if it can't do anything
-		if (points.size() == 0) {
+		if (numPoints == 0) {
 			if (verbose != null) verbose.println("No points to process!");
-			return;
+			return false;
 		}
 
-		// first level is provided by points
-		listPoints.resize(tree.maximumLevel);
-		// each level has it's own k-means instance
-		listKMeans.resize(tree.maximumLevel);
-		listWeights.resize(tree.maximumLevel);
-
 		// Computes how many points a node needs to create children. It clearly needs at least 1.
 		// The user can configure it to require more
 		// Minus one below because the check below is <= (inclusive) while the parameter is exclusive
-		pointsRequiredForChildren = Math.max(1, minimumPointsForChildren.computeI(points.size())-1);
+		pointsRequiredForChildren = Math.max(1, minimumPointsForChildren.computeI(numPoints) - 1);
+
+		// k-means needs enough points to create all the clusters
+		pointsForKMeans = Math.max(tree.branchFactor, maximumPointsForKMeans.computeI(numPoints));
+
+		if (verbose != null)
+			verbose.println("pointsRequiredForChildren=" + pointsRequiredForChildren +
+					" pointsForKMeans=" + pointsForKMeans + " points.size=" + numPoints);
+		return true;
+	}
+
+	/**
+	 * Creates storage for the subtree of each child in the root node
+	 */
+	protected void createSubtrees( HierarchicalVocabularyTree<Point> tree ) {
+		int numChildren = tree.nodes.get(0).childrenIndexes.size;
+		while (subtrees.size() < numChildren) {
+			subtrees.add(new HierarchicalVocabularyTree<>(tree.distanceFunction.newInstanceThread(),
+					factoryStorage.newInstance()));
+		}
+		for (int label = 0; label < numChildren; label++) {
+			HierarchicalVocabularyTree<Point> subtree = subtrees.get(label);
+			subtree.branchFactor = tree.branchFactor;
+			subtree.maximumLevel = tree.maximumLevel;
+			subtree.reset();
+		}
+		while (subtrees.size() > numChildren) {
+			subtrees.remove(subtrees.size() - 1);
+		}
+	}
+
+	/**
+	 * Learns the subtree for every child of the root node. Override to learn them in parallel.
+	 *
+	 * @param points All the points
+	 */
+	protected void processSubtrees( PackedArray<Point> points ) {
+		Workspace work = workspace.get(0);
+		for (int label = 0; label < subtrees.size(); label++) {
+			work.initialize(subtrees.get(label), randomSeed + 1 + label);
+			copyPointsInBranch(work, points, label, work.listPoints.get(0));
+			processSubtree(work, work.listPoints.get(0), label);
+		}
+	}
 
-		if (verbose!=null)
-			verbose.println("pointsRequiredForChildren="+pointsRequiredForChildren+" points.size="+points.size());
+	/**
+	 * Copies points which are assigned to the specified child of the root
+	 */
+	protected void copyPointsInBranch( Workspace work, PackedArray<Point> points, int label,
+									   PackedArray<Point> pointsInBranch ) {
+		pointsInBranch.reset();
+		for (int pointIdx = 0; pointIdx < points.size(); pointIdx++) {
+			if (rootAssignments.get(pointIdx) != label)
+				continue;
+			if (work.point == null) {
+				pointsInBranch.append(points.getTemp(pointIdx));
+			} else {
+				// getTemp() is not thread safe
+				points.getCopy(pointIdx, work.point);
+				pointsInBranch.append(work.point);
+			}
+		}
+	}
+
+	/**
+	 * Learns the subtree for a child of the root node. The subtree's root is the child.
+	 *
+	 * @param work Workspace. Must have been initialized for this subtree.
+	 * @param pointsInBranch Points which belong to the child
+	 * @param label Which child in the root node
+	 */
+	protected void processSubtree( Workspace work, PackedArray<Point> pointsInBranch, int label ) {
+		if (verbose != null)
+			verbose.println("level=0 branch=" + label + " points.size=" + pointsInBranch.size());
 
+		processLevel(work, pointsInBranch, subtrees.get(label), 1, 0);
+	}
 
-		// Construct the tree
-		processLevel(points, tree, 0, 0);
+	/**
+	 * Adds the subtrees to the output tree. They are added in order to the node indexes are the same as a depth
+	 * first search
+	 */
+	protected void mergeSubtrees( HierarchicalVocabularyTree<Point> tree ) {
+		Node root = tree.nodes.get(0);
+		for (int label = 0; label < subtrees.size(); label++) {
+			HierarchicalVocabularyTree<Point> subtree = subtrees.get(label);
+			subtreeToTree.resize(subtree.nodes.size);
+			subtreeToTree.set(0, root.childrenIndexes.get(label));
+			for (int nodeIdx = 1; nodeIdx < subtree.nodes.size; nodeIdx++) {
+				Node n = subtree.nodes.get(nodeIdx);
+				subtreeToTree.data[nodeIdx] = tree.addNode(subtreeToTree.get(n.parent), n.branch,
+						subtree.descriptions.getTemp(n.descIdx));
+			}
+			// Free up memory
+			subtree.reset();
+		}
 	}
 
 	/**
@@ -128,20 +354,51 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 	 * @param level Level in the HierarchicalVocabularyTree
 	 * @param parentNodeIdx Array index for the parent node
 	 */
-	private void processLevel( PackedArray<Point> pointsInParent,
+	private void processLevel( Workspace work, PackedArray<Point> pointsInParent,
 							   HierarchicalVocabularyTree<Point> tree,
 							   int level, int parentNodeIdx ) {
+		if (!clusterNode(work, pointsInParent, tree, level, parentNodeIdx))
+			return;
+
+		// Create pyramid nodes from the children
+		PackedArray<Point> pointsInBranch = work.listPoints.get(level);
+		pointsInBranch.reserve(pointsInParent.size()/(tree.branchFactor - 1));
+		processChildren(work, tree, level, tree.nodes.get(parentNodeIdx), pointsInParent, pointsInBranch);
+	}
+
+	/**
+	 * Clusters the points in a node and creates its children
+	 *
+	 * @return true if children were created
+	 */
+	protected boolean clusterNode( Workspace work, PackedArray<Point> pointsInParent,
+								   HierarchicalVocabularyTree<Point> tree,
+								   int level, int parentNodeIdx ) {
 		// Stop here if we are at the maximum number of levels or there are too few points
 		if (level >= tree.maximumLevel || pointsInParent.size() <= pointsRequiredForChildren)
-			return;
+			return false;
 
 		// Get k-means for this level
-		StandardKMeans<Point> kmeans = listKMeans.get(level);
+		StandardKMeans<Point> kmeans = work.listKMeans.get(level);
+		DogArray_I32 assignments = work.listAssignments.get(level);
+
+		List<Point> clusterMeans;
+		if (pointsInParent.size() > pointsForKMeans) {
+			// Cluster a random sample then assign all the points to the closest cluster
+			selectSample(work, pointsInParent);
+			kmeans.process(work.sample, tree.branchFactor);
+			clusterMeans = kmeans.getBestClusters().toList();
 
-		// Cluster the input points
-		kmeans.process(pointsInParent, tree.branchFactor);
-		DogArray_I32 assignments = kmeans.getAssignments();
-		List<Point> clusterMeans = kmeans.getBestClusters().toList();
+			assignments.resize(pointsInParent.size());
+			for (int pointIdx = 0; pointIdx < pointsInParent.size(); pointIdx++) {
+				assignments.data[pointIdx] = findClosest(work.distance, pointsInParent.getTemp(pointIdx), clusterMeans);
+			}
+		} else {
+			// Cluster the input points
+			kmeans.process(pointsInParent, tree.branchFactor);
+			clusterMeans = kmeans.getBestClusters().toList();
+			assignments.setTo(kmeans.getAssignments());
+		}
 
 		// Create the children nodes all at once. As a result the region descriptions will be close in memory
 		// and this "might" reduce cache misses in searching
@@ -150,30 +407,56 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 		}
 
 		if (verbose != null) verbose.println("level=" + level + " kmeans.score=" + kmeans.getBestClusterScore());
+		return true;
+	}
 
-		// Load the points that are in the child sub region
-		Node parent = tree.nodes.get(parentNodeIdx);
+	/**
+	 * Randomly selects points without replacement, while preserving their order
+	 */
+	private void selectSample( Workspace work, PackedArray<Point> points ) {
+		work.sample.reset();
+		work.sample.reserve(pointsForKMeans);
+		int remaining = pointsForKMeans;
+		for (int pointIdx = 0; pointIdx < points.size() && remaining > 0; pointIdx++) {
+			if (work.rand.nextInt(points.size() - pointIdx) >= remaining)
+				continue;
+			work.sample.append(points.getTemp(pointIdx));
+			remaining--;
+		}
+	}
 
-		// Create pyramid nodes from the children
-		PackedArray<Point> pointsInBranch = listPoints.get(level);
-		pointsInBranch.reserve(pointsInParent.size()/(tree.branchFactor - 1));
-		processChildren(tree, level, parent, pointsInParent, clusterMeans, assignments, pointsInBranch);
+	/**
+	 * Returns the index of the cluster which is closest to the point
+	 */
+	private static <Point> int findClosest( PointDistance<Point> distance, Point point, List<Point> clusters ) {
+		int bestIdx = -1;
+		double bestDistance = Double.MAX_VALUE;
+		for (int i = 0; i < clusters.size(); i++) {
+			double d = distance.distance(point, clusters.get(i));
+			if (d < bestDistance) {
+				bestDistance = d;
+				bestIdx = i;
+			}
+		}
+		return bestIdx;
 	}
 
 	/**
 	 * Goes through each child/branch one at a time splits the points into a subset for each child's region.
 	 * Then processes the next level in the pyramid for each branch.
 	 */
-	private void processChildren( HierarchicalVocabularyTree<Point> tree,
+	private void processChildren( Workspace work,
+								  HierarchicalVocabularyTree<Point> tree,
 								  int level,
 								  Node parent, PackedArray<Point> pointsInParent,
-								  List<Point> clusterMeans, DogArray_I32 assignments,
 								  PackedArray<Point> pointsInBranch ) {
 		// Sanity check to see if the sum of segmented points equals the original list size
 		int sumLabeledPoints = 0;
 
+		DogArray_I32 assignments = work.listAssignments.get(level);
+
 		// Go through all the (just created) children in the parent
-		for (int label = 0; label < clusterMeans.size(); label++) {
+		for (int label = 0; label < parent.childrenIndexes.size; label++) {
 			// Get the index of the child node
 			int nodeIdx = parent.childrenIndexes.get(label);
 
@@ -190,7 +473,7 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 				verbose.println("level=" + level + " branch=" + label + " points.size=" + pointsInBranch.size());
 
 			// Next level in depth first search
-			processLevel(pointsInBranch, tree, level + 1, nodeIdx);
+			processLevel(work, pointsInBranch, tree, level + 1, nodeIdx);
 		}
 
 		// This better match or else something is wrong with the labels!
@@ -200,4 +483,47 @@ public class LearnHierarchicalTree<Point> implements VerbosePrint {
 	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> set ) {
 		this.verbose = BoofMiscOps.addPrefix(this, out);
 	}
+
+	/**
+	 * Everything needed to learn a subtree. Storage and k-means are provided for each level in the tree.
+	 */
+	@SuppressWarnings({"NullAway.Init"})
+	protected class Workspace {
+		// Stores points for a branch at each level in DFS
+		protected final DogArray<PackedArray<Point>> listPoints;
+		// k-means instance for each level in tree
+		protected final DogArray<StandardKMeans<Point>> listKMeans;
+		// Which cluster each point was assigned to at each level
+		protected final DogArray<DogArray_I32> listAssignments = new DogArray<>(DogArray_I32::new);
+		// Storage for points which have been sampled
+		protected final PackedArray<Point> sample;
+		// Used to select random samples
+		protected final Random rand = new Random();
+		// Distance between two points
+		protected PointDistance<Point> distance;
+		// If not null then points are copied into this, instead of using getTemp()
+		protected final @Nullable Point point;
+
+		protected Workspace( BoofLambdas.Factory<StandardKMeans<Point>> factoryKMeans, @Nullable Point point ) {
+			this.listPoints = new DogArray<>(factoryStorage::newInstance, PackedArray::reset);
+			this.listKMeans = new DogArray<>(factoryKMeans::newInstance);
+			this.sample = factoryStorage.newInstance();
+			this.point = point;
+		}
+
+		/**
+		 * Prepares it for learning a new tree. Random number generators are seeded so that results
+		 * do not depend on which thread the workspace is used by.
+		 */
+		protected void initialize( HierarchicalVocabularyTree<Point> tree, long seed ) {
+			listPoints.resize(tree.maximumLevel);
+			listKMeans.resize(tree.maximumLevel);
+			listAssignments.resize(tree.maximumLevel);
+			for (int level = 0; level < listKMeans.size; level++) {
+				listKMeans.get(level).initialize(seed);
+			}
+			rand.setSeed(seed);
+			distance = tree.distanceFunction.newInstanceThread();
+		}
+	}
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.vocabtree;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.PackedArray;
+import org.ddogleg.clustering.kmeans.StandardKMeans;
+
+/**
+ * Concurrent implementation of {@link LearnHierarchicalTree}. The subtree for each child of the root node is learned
+ * in a different thread. The learned tree is identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ **/
+public class LearnHierarchicalTree_MT<Point> extends LearnHierarchicalTree<Point> {
+	/**
+	 * @param factoryStorage Factory for point storage
+	 * @param factoryKMeans Factory for new K-Means instances
+	 * @param factoryPoint Factory for new points. Used as workspace for reading points in multiple threads
+	 * @param randomSeed Seed used in random number generators
+	 */
+	public LearnHierarchicalTree_MT( BoofLambdas.Factory<PackedArray<Point>> factoryStorage,
+									 BoofLambdas.Factory<StandardKMeans<Point>> factoryKMeans,
+									 BoofLambdas.Factory<Point> factoryPoint,
+									 long randomSeed ) {
+		super(factoryStorage, factoryKMeans, factoryPoint, randomSeed);
+	}
+
+	@Override protected void processSubtrees( PackedArray<Point> points ) {
+		BoofConcurrency.loopBlocks(0, subtrees.size(), workspace, ( work, idx0, idx1 ) -> {
+			for (int label = idx0; label < idx1; label++) {
+				work.initialize(subtrees.get(label), randomSeed + 1 + label);
+				PackedArray<Point> pointsInBranch = work.listPoints.get(0);
+				copyPointsInBranch(work, points, label, pointsInBranch);
+				processSubtree(work, pointsInBranch, label);
+			}
+		});
+	}
+}
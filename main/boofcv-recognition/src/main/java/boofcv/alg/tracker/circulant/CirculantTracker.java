@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -87,8 +87,8 @@ public class CirculantTracker<T extends ImageGray<T>> {
 	// Input image width and height
 	private int imageWidth, imageHeight;
 
-	// computes the FFT
-	private final DiscreteFourierTransform<GrayF64, InterleavedF64> fft = DiscreteFourierTransformOps.createTransformF64();
+	// FFT and storage for intermediate results. Can be shared with other trackers
+	private Workspace work = new Workspace();
 
 	// storage for subimage of input image
 	protected GrayF64 templateNew = new GrayF64(1, 1);
@@ -98,13 +98,8 @@ public class CirculantTracker<T extends ImageGray<T>> {
 	// cosine window used to reduce artifacts from FFT
 	protected GrayF64 cosine = new GrayF64(1, 1);
 
-	// Storage for the kernel's response
-	private final GrayF64 k = new GrayF64(1, 1);
-	private final InterleavedF64 kf = new InterleavedF64(1, 1, 2);
-
 	// Learn values. used to compute weight in linear classifier
 	private final InterleavedF64 alphaf = new InterleavedF64(1, 1, 2);
-	private final InterleavedF64 newAlphaf = new InterleavedF64(1, 1, 2);
 
 	// location of target
 	protected RectangleLength2D_F32 regionTrack = new RectangleLength2D_F32();
@@ -117,14 +112,6 @@ public class CirculantTracker<T extends ImageGray<T>> {
 	// detector response
 	private final GrayF64 response = new GrayF64(1, 1);
 
-	// storage for storing temporary results
-	private final GrayF64 tmpReal0 = new GrayF64(1, 1);
-	private final GrayF64 tmpReal1 = new GrayF64(1, 1);
-
-	private final InterleavedF64 tmpFourier0 = new InterleavedF64(1, 1, 2);
-	private final InterleavedF64 tmpFourier1 = new InterleavedF64(1, 1, 2);
-	private final InterleavedF64 tmpFourier2 = new InterleavedF64(1, 1, 2);
-
 	// interpolation used when sampling input image into work space
 	private final InterpolatePixelS<T> interp;
 
@@ -241,11 +228,11 @@ public class CirculantTracker<T extends ImageGray<T>> {
 
 		// Kernel Regularized Least-Squares, calculate alphas (in Fourier domain)
 		//	k = dense_gauss_kernel(sigma, x);
-		dense_gauss_kernel(sigma, template, template, k);
-		fft.forward(k, kf);
+		dense_gauss_kernel(sigma, template, template, work.k);
+		work.fft.forward(work.k, work.kf);
 
 		// new_alphaf = yf ./ (fft2(k) + lambda);   %(Eq. 7)
-		computeAlphas(gaussianWeightDFT, kf, lambda, alphaf);
+		computeAlphas(gaussianWeightDFT, work.kf, lambda, alphaf);
 	}
 
 	/**
@@ -292,23 +279,16 @@ public class CirculantTracker<T extends ImageGray<T>> {
 			}
 		}
 
-		fft.forward(gaussianWeight, gaussianWeightDFT);
+		work.fft.forward(gaussianWeight, gaussianWeightDFT);
 	}
 
 	protected void resizeImages( int workRegionSize ) {
 		templateNew.reshape(workRegionSize, workRegionSize);
 		template.reshape(workRegionSize, workRegionSize);
 		cosine.reshape(workRegionSize, workRegionSize);
-		k.reshape(workRegionSize, workRegionSize);
-		kf.reshape(workRegionSize, workRegionSize);
 		alphaf.reshape(workRegionSize, workRegionSize);
-		newAlphaf.reshape(workRegionSize, workRegionSize);
 		response.reshape(workRegionSize, workRegionSize);
-		tmpReal0.reshape(workRegionSize, workRegionSize);
-		tmpReal1.reshape(workRegionSize, workRegionSize);
-		tmpFourier0.reshape(workRegionSize, workRegionSize);
-		tmpFourier1.reshape(workRegionSize, workRegionSize);
-		tmpFourier2.reshape(workRegionSize, workRegionSize);
+		work.reshape(workRegionSize);
 		gaussianWeight.reshape(workRegionSize, workRegionSize);
 		gaussianWeightDFT.reshape(workRegionSize, workRegionSize);
 	}
@@ -335,13 +315,13 @@ public class CirculantTracker<T extends ImageGray<T>> {
 
 		// calculate response of the classifier at all locations
 		// matlab: k = dense_gauss_kernel(sigma, x, z);
-		dense_gauss_kernel(sigma, templateNew, template, k);
+		dense_gauss_kernel(sigma, templateNew, template, work.k);
 
-		fft.forward(k, kf);
+		work.fft.forward(work.k, work.kf);
 
 		// response = real(ifft2(alphaf .* fft2(k)));   %(Eq. 9)
-		DiscreteFourierTransformOps.multiplyComplex(alphaf, kf, tmpFourier0);
-		fft.inverse(tmpFourier0, response);
+		DiscreteFourierTransformOps.multiplyComplex(alphaf, work.kf, work.tmpFourier0);
+		work.fft.inverse(work.tmpFourier0, response);
 
 		// find the pixel with the largest response
 		int N = response.width*response.height;
@@ -402,11 +382,12 @@ public class CirculantTracker<T extends ImageGray<T>> {
 
 		// Kernel Regularized Least-Squares, calculate alphas (in Fourier domain)
 		//	k = dense_gauss_kernel(sigma, x);
-		dense_gauss_kernel(sigma, templateNew, templateNew, k);
-		fft.forward(k, kf);
+		dense_gauss_kernel(sigma, templateNew, templateNew, work.k);
+		work.fft.forward(work.k, work.kf);
 
 		// new_alphaf = yf ./ (fft2(k) + lambda);   %(Eq. 7)
-		computeAlphas(gaussianWeightDFT, kf, lambda, newAlphaf);
+		InterleavedF64 newAlphaf = work.newAlphaf;
+		computeAlphas(gaussianWeightDFT, work.kf, lambda, newAlphaf);
 
 		// subsequent frames, interpolate model
 		// alphaf = (1 - interp_factor) * alphaf + interp_factor * new_alphaf;
@@ -437,18 +418,18 @@ public class CirculantTracker<T extends ImageGray<T>> {
 	 */
 	public void dense_gauss_kernel( double sigma, GrayF64 x, GrayF64 y, GrayF64 k ) {
 
-		InterleavedF64 xf = tmpFourier0, yf, xyf = tmpFourier2;
-		GrayF64 xy = tmpReal0;
+		InterleavedF64 xf = work.tmpFourier0, yf, xyf = work.tmpFourier2;
+		GrayF64 xy = work.tmpReal0;
 		double yy;
 
 		// find x in Fourier domain
-		fft.forward(x, xf);
+		work.fft.forward(x, xf);
 		double xx = imageDotProduct(x);
 
 		if (x != y) {
 			// general case, x and y are different
-			yf = tmpFourier1;
-			fft.forward(y, yf);
+			yf = work.tmpFourier1;
+			work.fft.forward(y, yf);
 			yy = imageDotProduct(y);
 		} else {
 			// auto-correlation of x, avoid repeating a few operations
@@ -460,11 +441,11 @@ public class CirculantTracker<T extends ImageGray<T>> {
 		// cross-correlation term in Fourier domain
 		elementMultConjB(xf, yf, xyf);
 		// convert to spatial domain
-		fft.inverse(xyf, xy);
-		circshift(xy, tmpReal1);
+		work.fft.inverse(xyf, xy);
+		circshift(xy, work.tmpReal1);
 
 		// calculate gaussian response for all positions
-		gaussianKernel(xx, yy, tmpReal1, sigma, k);
+		gaussianKernel(xx, yy, work.tmpReal1, sigma, k);
 	}
 
 	public static void circshift( GrayF64 a, GrayF64 b ) {
@@ -605,6 +586,20 @@ public class CirculantTracker<T extends ImageGray<T>> {
 		PixelMath.multiply(output, cosine, output);
 	}
 
+	/**
+	 * Specifies the storage for the FFT and intermediate results. The workspace only needs to remain unmodified
+	 * while a function of this tracker is being invoked, which allows many trackers in the same thread to share
+	 * a single workspace.
+	 */
+	public void setWorkspace( Workspace work ) {
+		work.reshape(workRegionSize);
+		this.work = work;
+	}
+
+	public Workspace getWorkspace() {
+		return work;
+	}
+
 	/**
 	 * The location of the target in the image
 	 */
@@ -622,4 +617,38 @@ public class CirculantTracker<T extends ImageGray<T>> {
 	public GrayF64 getResponse() {
 		return response;
 	}
+
+	/**
+	 * FFT and storage for intermediate results. Nothing is saved in here between calls to the tracker.
+	 */
+	public static class Workspace {
+		// computes the FFT
+		final DiscreteFourierTransform<GrayF64, InterleavedF64> fft = DiscreteFourierTransformOps.createTransformF64();
+
+		// Storage for the kernel's response
+		final GrayF64 k = new GrayF64(1, 1);
+		final InterleavedF64 kf = new InterleavedF64(1, 1, 2);
+
+		// Learned values for the most recent frame
+		final InterleavedF64 newAlphaf = new InterleavedF64(1, 1, 2);
+
+		// storage for storing temporary results
+		final GrayF64 tmpReal0 = new GrayF64(1, 1);
+		final GrayF64 tmpReal1 = new GrayF64(1, 1);
+
+		final InterleavedF64 tmpFourier0 = new InterleavedF64(1, 1, 2);
+		final InterleavedF64 tmpFourier1 = new InterleavedF64(1, 1, 2);
+		final InterleavedF64 tmpFourier2 = new InterleavedF64(1, 1, 2);
+
+		public void reshape( int workRegionSize ) {
+			k.reshape(workRegionSize, workRegionSize);
+			kf.reshape(workRegionSize, workRegionSize);
+			newAlphaf.reshape(workRegionSize, workRegionSize);
+			tmpReal0.reshape(workRegionSize, workRegionSize);
+			tmpReal1.reshape(workRegionSize, workRegionSize);
+			tmpFourier0.reshape(workRegionSize, workRegionSize);
+			tmpFourier1.reshape(workRegionSize, workRegionSize);
+			tmpFourier2.reshape(workRegionSize, workRegionSize);
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -40,11 +40,11 @@ import java.util.List;
 public class TldDetection<T extends ImageGray<T>> {
 
 	// Detects rectangles: Removes candidates don't match the fern descriptors
-	private TldFernClassifier<T> fern;
+	protected TldFernClassifier<T> fern;
 	// Detects rectangles: Removes candidates don't match NCC descriptors
 	protected TldTemplateMatching<T> template;
 	// Detects rectangles: Removes candidates which lack texture
-	private TldVarianceFilter<T> variance;
+	protected TldVarianceFilter<T> variance;
 
 	// Storage for results of the fern test on individual regions
 	protected DogArray<TldRegionFernInfo> fernInfo = new DogArray<>(TldRegionFernInfo::new);
@@ -110,28 +110,16 @@ public class TldDetection<T extends ImageGray<T>> {
 
 		fernInfo.reset();
 
-		int totalP = 0;
-		int totalN = 0;
-
 		// Run through all candidate regions, ignore ones without enough variance, compute
 		// the fern for each one
-		TldRegionFernInfo info = fernInfo.grow();
-		for (int i = 0; i < cascadeRegions.size; i++) {
-			ImageRectangle region = cascadeRegions.get(i);
-
-			if (!variance.checkVariance(region)) {
-				continue;
-			}
+		computeFernInfo(cascadeRegions);
 
-			info.r = region;
-
-			if (fern.lookupFernPN(info)) {
-				totalP += info.sumP;
-				totalN += info.sumN;
-				info = fernInfo.grow();
-			}
+		int totalP = 0;
+		int totalN = 0;
+		for (int i = 0; i < fernInfo.size; i++) {
+			totalP += fernInfo.get(i).sumP;
+			totalN += fernInfo.get(i).sumN;
 		}
-		fernInfo.removeTail();
 
 		// avoid overflow errors in the future by re-normalizing the Fern detector
 		if (totalP > 0x0fffffff)
@@ -160,6 +148,28 @@ public class TldDetection<T extends ImageGray<T>> {
 		}
 	}
 
+	/**
+	 * Applies the variance and fern test to each region. Regions which pass both are added to fernInfo in the
+	 * same order they appear in the input list.
+	 */
+	protected void computeFernInfo( DogArray<ImageRectangle> cascadeRegions ) {
+		TldRegionFernInfo info = fernInfo.grow();
+		for (int i = 0; i < cascadeRegions.size; i++) {
+			ImageRectangle region = cascadeRegions.get(i);
+
+			if (!variance.checkVariance(region)) {
+				continue;
+			}
+
+			info.r = region;
+
+			if (fern.lookupFernPN(info)) {
+				info = fernInfo.grow();
+			}
+		}
+		fernInfo.removeTail();
+	}
+
 	/**
 	 * Computes the confidence for all the regions which pass the fern test
 	 */
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.feature.NccFeature;
+import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link TldDetection}. The variance and fern tests are applied to cascade regions
+ * in parallel, as is template matching on the regions which survive. Each thread samples the image using its own
+ * interpolation instance and descriptor storage. Results are combined in the original region order so the output
+ * is identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class TldDetection_MT<T extends ImageGray<T>> extends TldDetection<T> {
+
+	// Fern results for every cascade region and if it passed the variance and fern tests
+	private final DogArray<TldRegionFernInfo> regionInfo = new DogArray<>(TldRegionFernInfo::new);
+	private final DogArray_B regionPassed = new DogArray_B();
+
+	// Template confidence for each region which passed the fern test
+	private final DogArray_F64 confidences = new DogArray_F64();
+
+	// Workspace for each thread
+	private final GrowArray<Workspace<T>> workspaces;
+
+	public TldDetection_MT( TldFernClassifier<T> fern, TldTemplateMatching<T> template,
+							TldVarianceFilter<T> variance, ConfigTld config ) {
+		super(fern, template, variance, config);
+		workspaces = new GrowArray<>(() -> new Workspace<>(
+				fern.getInterpolate().copy(), template.getInterpolate().copy()));
+	}
+
+	@Override protected void computeFernInfo( DogArray<ImageRectangle> cascadeRegions ) {
+		regionInfo.resize(cascadeRegions.size);
+		regionPassed.resize(cascadeRegions.size);
+
+		BoofConcurrency.loopBlocks(0, cascadeRegions.size, workspaces, ( work, idx0, idx1 ) -> {
+			work.interpFern.setImage(fern.getInterpolate().getImage());
+
+			for (int i = idx0; i < idx1; i++) {
+				ImageRectangle region = cascadeRegions.get(i);
+				TldRegionFernInfo info = regionInfo.get(i);
+				info.r = region;
+				regionPassed.data[i] = variance.checkVariance(region) && fern.lookupFernPN(info, work.interpFern);
+			}
+		});
+
+		// Add the results in the same order as the single threaded version
+		fernInfo.reset();
+		for (int i = 0; i < cascadeRegions.size; i++) {
+			if (!regionPassed.data[i])
+				continue;
+			TldRegionFernInfo src = regionInfo.get(i);
+			TldRegionFernInfo dst = fernInfo.grow();
+			dst.r = src.r;
+			dst.sumP = src.sumP;
+			dst.sumN = src.sumN;
+		}
+	}
+
+	@Override protected void computeTemplateConfidence() {
+		confidences.resize(fernRegions.size());
+
+		BoofConcurrency.loopBlocks(0, fernRegions.size(), workspaces, ( work, idx0, idx1 ) -> {
+			work.interpTemplate.setImage(template.getInterpolate().getImage());
+
+			for (int i = idx0; i < idx1; i++) {
+				confidences.data[i] = template.computeConfidence(fernRegions.get(i), work.observed, work.interpTemplate);
+			}
+		});
+
+		for (int i = 0; i < fernRegions.size(); i++) {
+			double confidence = confidences.data[i];
+			if (confidence < config.confidenceThresholdUpper)
+				continue;
+			TldRegion r = candidateDetections.grow();
+			r.connections = 0;
+			r.rect.setTo(fernRegions.get(i));
+			r.confidence = confidence;
+		}
+	}
+
+	/**
+	 * Storage used by a single thread
+	 */
+	private static class Workspace<T extends ImageGray<T>> {
+		final InterpolatePixelS<T> interpFern;
+		final InterpolatePixelS<T> interpTemplate;
+		final NccFeature observed = new NccFeature(15*15);
+
+		public Workspace( InterpolatePixelS<T> interpFern, InterpolatePixelS<T> interpTemplate ) {
+			this.interpFern = interpFern;
+			this.interpTemplate = interpTemplate;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -171,6 +171,15 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 	 * @return true if a known value for any of the ferns was observed in this region
 	 */
 	public boolean lookupFernPN( TldRegionFernInfo info ) {
+		return lookupFernPN(info, interpolate);
+	}
+
+	/**
+	 * Same as {@link #lookupFernPN(TldRegionFernInfo)} but the image is sampled using the provided interpolation.
+	 * Fern probabilities are only read, so this can be called by multiple threads at once if each thread has
+	 * its own interpolation instance.
+	 */
+	public boolean lookupFernPN( TldRegionFernInfo info, InterpolatePixelS<T> interpolate ) {
 
 		ImageRectangle r = info.r;
 
@@ -186,7 +195,7 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 		for (int i = 0; i < ferns.length; i++) {
 			TldFernDescription fern = ferns[i];
 
-			int value = computeFernValue(c_x, c_y, rectWidth, rectHeight, fern);
+			int value = computeFernValue(interpolate, c_x, c_y, rectWidth, rectHeight, fern);
 
 			TldFernFeature f = managers[i].table[value];
 			if (f != null) {
@@ -205,6 +214,15 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 	 * Computes the value of the specified fern at the specified location in the image.
 	 */
 	protected int computeFernValue( float c_x, float c_y, float rectWidth, float rectHeight, TldFernDescription fern ) {
+		return computeFernValue(interpolate, c_x, c_y, rectWidth, rectHeight, fern);
+	}
+
+	/**
+	 * Computes the value of the specified fern at the specified location in the image using the provided interpolation.
+	 */
+	protected static <T extends ImageGray<T>>
+	int computeFernValue( InterpolatePixelS<T> interpolate,
+						  float c_x, float c_y, float rectWidth, float rectHeight, TldFernDescription fern ) {
 
 		rectWidth -= 1;
 		rectHeight -= 1;
@@ -292,6 +310,10 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 		maxN = targetMax;
 	}
 
+	public InterpolatePixelS<T> getInterpolate() {
+		return interpolate;
+	}
+
 	public int getMaxP() {
 		return maxP;
 	}
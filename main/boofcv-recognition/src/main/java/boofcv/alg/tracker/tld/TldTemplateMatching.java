@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -126,6 +126,14 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 	 * Computes the NCC descriptor by sample points at evenly spaced distances inside the rectangle
 	 */
 	public void computeNccDescriptor( NccFeature f, float x0, float y0, float x1, float y1 ) {
+		computeNccDescriptor(interpolate, f, x0, y0, x1, y1);
+	}
+
+	/**
+	 * Computes the NCC descriptor using the provided interpolation to sample the image
+	 */
+	public static <T extends ImageGray<T>>
+	void computeNccDescriptor( InterpolatePixelS<T> interpolate, NccFeature f, float x0, float y0, float x1, float y1 ) {
 		double mean = 0;
 		float widthStep = (x1 - x0)/15.0f;
 		float heightStep = (y1 - y0)/15.0f;
@@ -179,6 +187,23 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 
 		computeNccDescriptor(observed, x0, y0, x1, y1);
 
+		return computeConfidence(observed);
+	}
+
+	/**
+	 * Same as {@link #computeConfidence(ImageRectangle)} but with the provided storage for the region's descriptor
+	 * and interpolation. Templates are only read, so this can be called by multiple threads at once if each thread
+	 * has its own storage and interpolation instance.
+	 */
+	public double computeConfidence( ImageRectangle r, NccFeature observed, InterpolatePixelS<T> interpolate ) {
+		computeNccDescriptor(interpolate, observed, r.x0, r.y0, r.x1, r.y1);
+		return computeConfidence(observed);
+	}
+
+	/**
+	 * Computes the confidence for a region which has already been described
+	 */
+	protected double computeConfidence( NccFeature observed ) {
 		// distance from each set of templates
 		if (templateNegative.size() > 0 && templatePositive.size() > 0) {
 			double distancePositive = distance(observed, templatePositive);
@@ -221,6 +246,10 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 		return 1 - 0.5*(maximum + 1);
 	}
 
+	public InterpolatePixelS<T> getInterpolate() {
+		return interpolate;
+	}
+
 	public List<NccFeature> getTemplatePositive() {
 		return templatePositive;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -122,6 +122,18 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 	public TldTracker( ConfigTld config,
 					   InterpolatePixelS<T> interpolate, ImageGradient<T, D> gradient,
 					   Class<T> imageType, Class<D> derivType ) {
+		this(config, interpolate, gradient, imageType, derivType, false);
+	}
+
+	/**
+	 * Configures the TLD tracker
+	 *
+	 * @param config Configuration class which specifies the tracker's behavior
+	 * @param concurrent If true the detection cascade will be run using multiple threads
+	 */
+	public TldTracker( ConfigTld config,
+					   InterpolatePixelS<T> interpolate, ImageGradient<T, D> gradient,
+					   Class<T> imageType, Class<D> derivType, boolean concurrent ) {
 		this.config = config;
 
 		Random rand = new Random(config.randomSeed);
@@ -136,7 +148,10 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 		fern = new TldFernClassifier<>(
 				rand, config.numFerns, config.fernSize, 20, 0.5f, interpolate);
 
-		detection = new TldDetection<>(fern, template, variance, config);
+		if (concurrent)
+			detection = new TldDetection_MT<>(fern, template, variance, config);
+		else
+			detection = new TldDetection<>(fern, template, variance, config);
 		learning = new TldLearning<>(rand, config, template, variance, fern, detection);
 	}
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.factory.fiducial;
+
+import boofcv.struct.ConfigLength;
+import boofcv.struct.Configuration;
+
+/**
+ * Configuration for {@link boofcv.abst.fiducial.QrCodeTrackingDetector}
+ *
+ * @author Peter Abeles
+ */
+public class ConfigQrCodeTracking implements Configuration {
+	/** Configuration for the detector which is applied to the full image and to each region of interest */
+	public ConfigQrCode detector = new ConfigQrCode();
+
+	/**
+	 * A full image scan is done once every this many frames. New QR codes will only be found on these frames.
+	 * If 1 then every frame is a full scan.
+	 */
+	public int fullScanPeriod = 10;
+
+	/**
+	 * How much the predicted bounding box of a QR code is expanded on each side to create the region of interest.
+	 * Relative values are relative to the largest side of the bounding box.
+	 */
+	public ConfigLength padding = ConfigLength.relative(0.5, 10);
+
+	public ConfigQrCodeTracking setTo( ConfigQrCodeTracking src ) {
+		this.detector.setTo(src.detector);
+		this.fullScanPeriod = src.fullScanPeriod;
+		this.padding.setTo(src.padding);
+		return this;
+	}
+
+	@Override public void checkValidity() {
+		detector.checkValidity();
+		padding.checkValidity();
+		if (fullScanPeriod < 1)
+			throw new IllegalArgumentException("fullScanPeriod must be at least 1");
+	}
+}
@@ -35,6 +35,7 @@ import boofcv.alg.fiducial.square.DetectFiducialSquareImage;
 import boofcv.alg.shapes.ellipse.BinaryEllipseDetectorPixel;
 import boofcv.alg.shapes.ellipse.EdgeIntensityEllipse;
 import boofcv.alg.shapes.polygon.DetectPolygonBinaryGrayRefine;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.filter.binary.ConfigThreshold;
 import boofcv.factory.filter.binary.FactoryThresholdBinary;
 import boofcv.factory.filter.binary.ThresholdType;
@@ -226,13 +227,39 @@ public class FactoryFiducial {
 		DetectPolygonBinaryGrayRefine<T> squareDetector = FactoryShapeDetector.polygon(config.polygon, imageType);
 		var detectPositionPatterns = new QrCodePositionPatternDetector<>(squareDetector);
 
-		var detector = new QrCodePreciseDetector<>(inputToBinary, detectPositionPatterns,
-				config.forceEncoding, config.defaultEncoding, false, imageType);
+		QrCodePreciseDetector<T> detector;
+		if (BoofConcurrency.USE_CONCURRENT) {
+			detector = new QrCodePreciseDetector_MT<>(inputToBinary, detectPositionPatterns,
+					config.forceEncoding, config.defaultEncoding, false, imageType);
+		} else {
+			detector = new QrCodePreciseDetector<>(inputToBinary, detectPositionPatterns,
+					config.forceEncoding, config.defaultEncoding, false, imageType);
+		}
 		detector.getGraphPositionPatterns().setMaxVersionQR(config.versionMaximum);
 		detector.getDecoder().considerTransposed = config.considerTransposed;
 		return detector;
 	}
 
+	/**
+	 * Returns a QR Code detector for video sequences. Codes found in the previous frame are only searched for
+	 * inside a region around their predicted location, with a full image scan being done periodically.
+	 *
+	 * @param config Configuration
+	 * @param imageType type of input image
+	 * @return the detector
+	 * @see QrCodeTrackingDetector
+	 */
+	public static <T extends ImageGray<T>>
+	QrCodeTrackingDetector<T> qrcodeTracking( @Nullable ConfigQrCodeTracking config, Class<T> imageType ) {
+		if (config == null)
+			config = new ConfigQrCodeTracking();
+
+		config.checkValidity();
+
+		QrCodePreciseDetector<T> detector = qrcode(config.detector, imageType);
+		return new QrCodeTrackingDetector<>(detector, config.fullScanPeriod, config.padding);
+	}
+
 	/**
 	 * Returns an {@link AztecCode Aztec Code} detector
 	 *
@@ -250,7 +277,9 @@ public class FactoryFiducial {
 		InputToBinary<T> inputToBinary = FactoryThresholdBinary.threshold(config.threshold, imageType);
 
 		DetectPolygonBinaryGrayRefine<T> squareDetector = FactoryShapeDetector.polygon(config.polygon, imageType);
-		var detector = new AztecCodePreciseDetector<>(inputToBinary, squareDetector, imageType);
+		AztecCodePreciseDetector<T> detector = BoofConcurrency.USE_CONCURRENT ?
+				new AztecCodePreciseDetector_MT<>(inputToBinary, squareDetector, imageType) :
+				new AztecCodePreciseDetector<>(inputToBinary, squareDetector, imageType);
 		detector.getDecoder().considerTransposed = config.considerTransposed;
 		detector.getDecoder().maxOrientationError = config.maxOrientationError;
 		return detector;
@@ -274,8 +303,14 @@ public class FactoryFiducial {
 
 		DetectPolygonBinaryGrayRefine<T> squareDetector = FactoryShapeDetector.polygon(config.polygon, imageType);
 		var detectPositionPatterns = new QrCodePositionPatternDetector<>(squareDetector);
-		var detector = new MicroQrCodePreciseDetector<>(inputToBinary, detectPositionPatterns,
-				config.forceEncoding, config.defaultEncoding, false, imageType);
+		MicroQrCodePreciseDetector<T> detector;
+		if (BoofConcurrency.USE_CONCURRENT) {
+			detector = new MicroQrCodePreciseDetector_MT<>(inputToBinary, detectPositionPatterns,
+					config.forceEncoding, config.defaultEncoding, false, imageType);
+		} else {
+			detector = new MicroQrCodePreciseDetector<>(inputToBinary, detectPositionPatterns,
+					config.forceEncoding, config.defaultEncoding, false, imageType);
+		}
 		detector.getDecoder().considerTransposed = config.considerTransposed;
 		return detector;
 	}
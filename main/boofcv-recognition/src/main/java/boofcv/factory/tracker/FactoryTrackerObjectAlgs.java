@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -29,6 +29,7 @@ import boofcv.alg.tracker.sfot.ConfigSfot;
 import boofcv.alg.tracker.sfot.SparseFlowObjectTracker;
 import boofcv.alg.tracker.tld.ConfigTld;
 import boofcv.alg.tracker.tld.TldTracker;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.border.BorderType;
 import boofcv.struct.image.*;
@@ -46,7 +47,7 @@ public class FactoryTrackerObjectAlgs {
 	TldTracker<T,D> createTLD( ConfigTld config ,
 							   InterpolatePixelS<T> interpolate , ImageGradient<T,D> gradient ,
 							   Class<T> imageType , Class<D> derivType ) {
-		return new TldTracker<>(config, interpolate, gradient, imageType, derivType);
+		return new TldTracker<>(config, interpolate, gradient, imageType, derivType, BoofConcurrency.USE_CONCURRENT);
 	}
 
 	public static <T extends ImageGray<T>,D extends ImageGray<D>>
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -29,6 +29,7 @@ import boofcv.alg.tracker.meanshift.TrackerMeanShiftLikelihood;
 import boofcv.alg.tracker.sfot.ConfigSfot;
 import boofcv.alg.tracker.sfot.SparseFlowObjectTracker;
 import boofcv.alg.tracker.tld.TldTracker;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.filter.derivative.FactoryDerivative;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.border.BorderType;
@@ -65,7 +66,8 @@ public class FactoryTrackerObjectQuad {
 		InterpolatePixelS<T> interpolate = FactoryInterpolation.bilinearPixelS(imageType, BorderType.EXTENDED);
 		ImageGradient<T, D> gradient = FactoryDerivative.sobel(imageType, derivType);
 
-		TldTracker<T, D> tracker = new TldTracker<>(config.parameters, interpolate, gradient, imageType, derivType);
+		TldTracker<T, D> tracker = new TldTracker<>(config.parameters, interpolate, gradient,
+				imageType, derivType, BoofConcurrency.USE_CONCURRENT);
 
 		return new Tld_to_TrackerObjectQuad<>(tracker, imageType);
 	}
@@ -167,4 +169,51 @@ public class FactoryTrackerObjectQuad {
 
 		return new Circulant_to_TrackerObjectQuad<>(alg, ImageType.single(imageType));
 	}
+
+	/**
+	 * Tracks multiple targets at once using {@link #meanShiftComaniciu2003}. Each target is updated in parallel
+	 * if concurrency is turned on and trackers are recycled when targets are removed.
+	 *
+	 * @param config Tracker configuration
+	 * @param <T> Image type
+	 * @return TrackerObjectQuadMulti based on Comaniciu2003
+	 * @see TrackerMeanShiftComaniciu2003
+	 */
+	public static <T extends ImageBase<T>>
+	TrackerObjectQuadMulti<T> meanShiftComaniciu2003Multi( ConfigComaniciu2003 config, ImageType<T> imageType ) {
+		var factory = new TrackerObjectQuadManager.TrackerFactory<T, Object>() {
+			@Override public TrackerObjectQuad<T> newTracker() {return meanShiftComaniciu2003(config, imageType);}
+
+			// Each tracker has its own histograms, nothing is shared
+			@Override public Object newWorkspace() {return new Object();}
+
+			@Override public void setWorkspace( TrackerObjectQuad<T> tracker, Object workspace ) {}
+		};
+
+		return new TrackerObjectQuadManager<>(factory, imageType, BoofConcurrency.USE_CONCURRENT);
+	}
+
+	/**
+	 * Tracks multiple targets at once using {@link #circulant}. Trackers which are updated in the same thread
+	 * share FFT and intermediate storage, targets are updated in parallel if concurrency is turned on, and trackers
+	 * are recycled when targets are removed.
+	 *
+	 * @param config Configuration
+	 * @return TrackerObjectQuadMulti based on CirculantTracker
+	 * @see CirculantTracker
+	 */
+	public static <T extends ImageGray<T>>
+	TrackerObjectQuadMulti<T> circulantMulti( ConfigCirculantTracker config, Class<T> imageType ) {
+		var factory = new TrackerObjectQuadManager.TrackerFactory<T, CirculantTracker.Workspace>() {
+			@Override public TrackerObjectQuad<T> newTracker() {return circulant(config, imageType);}
+
+			@Override public CirculantTracker.Workspace newWorkspace() {return new CirculantTracker.Workspace();}
+
+			@Override public void setWorkspace( TrackerObjectQuad<T> tracker, CirculantTracker.Workspace workspace ) {
+				((Circulant_to_TrackerObjectQuad<T>)tracker).getLowLevelTracker().setWorkspace(workspace);
+			}
+		};
+
+		return new TrackerObjectQuadManager<>(factory, ImageType.single(imageType), BoofConcurrency.USE_CONCURRENT);
+	}
 }
@@ -21,6 +21,7 @@ package boofcv.abst.fiducial;
 import boofcv.alg.fiducial.aztec.AztecCode;
 import boofcv.alg.fiducial.aztec.AztecEncoder;
 import boofcv.alg.fiducial.aztec.AztecGenerator;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.core.image.ConvertImage;
 import boofcv.gui.image.ShowImages;
 import boofcv.io.calibration.CalibrationIO;
@@ -164,7 +165,25 @@ public abstract class GenericAztecCodeDetectorChecks extends BoofStandardJUnit {
 		assertEquals(2, detections.size());
 	}
 
-	private GrayF32 generateMarker() {
+	/**
+	 * Renders a grid of markers onto a single image with white space around each marker
+	 */
+	protected GrayF32 renderGrid( int rows, int cols ) {
+		GrayF32 marker = generateMarker();
+		int space = marker.width/2;
+		var image = new GrayF32(cols*(marker.width + space) + space, rows*(marker.height + space) + space);
+		ImageMiscOps.fill(image, 255);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int x0 = space + col*(marker.width + space);
+				int y0 = space + row*(marker.height + space);
+				ImageMiscOps.copy(0, 0, x0, y0, marker.width, marker.height, marker, image);
+			}
+		}
+		return image;
+	}
+
+	protected GrayF32 generateMarker() {
 		GrayU8 gray = AztecGenerator.renderImage(4,1,expected);
 		return ConvertImage.convert(gray, (GrayF32)null);
 	}
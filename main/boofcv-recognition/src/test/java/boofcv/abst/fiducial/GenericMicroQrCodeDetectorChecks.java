@@ -23,6 +23,7 @@ import boofcv.alg.fiducial.microqr.MicroQrCode;
 import boofcv.alg.fiducial.microqr.MicroQrCodeEncoder;
 import boofcv.alg.fiducial.microqr.MicroQrCodeGenerator;
 import boofcv.alg.fiducial.microqr.MicroQrCodeMaskPattern;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.gui.image.ShowImages;
 import boofcv.io.calibration.CalibrationIO;
 import boofcv.io.image.UtilImageIO;
@@ -166,7 +167,25 @@ public abstract class GenericMicroQrCodeDetectorChecks extends BoofStandardJUnit
 		assertEquals(2, detections.size());
 	}
 
-	private GrayF32 generateMarker() {
+	/**
+	 * Renders a grid of markers onto a single image with white space around each marker
+	 */
+	protected GrayF32 renderGrid( int rows, int cols ) {
+		GrayF32 marker = generateMarker();
+		int space = marker.width/2;
+		var image = new GrayF32(cols*(marker.width + space) + space, rows*(marker.height + space) + space);
+		ImageMiscOps.fill(image, 255);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int x0 = space + col*(marker.width + space);
+				int y0 = space + row*(marker.height + space);
+				ImageMiscOps.copy(0, 0, x0, y0, marker.width, marker.height, marker, image);
+			}
+		}
+		return image;
+	}
+
+	protected GrayF32 generateMarker() {
 		int width = MicroQrCode.totalModules(expected.version)*4;
 		var engine = new FiducialImageEngine();
 		engine.configure(10, width);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -22,6 +22,7 @@ import boofcv.alg.fiducial.qrcode.QrCode;
 import boofcv.alg.fiducial.qrcode.QrCodeEncoder;
 import boofcv.alg.fiducial.qrcode.QrCodeGeneratorImage;
 import boofcv.alg.fiducial.qrcode.QrCodeMaskPattern;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.core.image.ConvertImage;
 import boofcv.gui.image.ShowImages;
 import boofcv.io.calibration.CalibrationIO;
@@ -168,7 +169,25 @@ public abstract class GenericQrCodeDetectorChecks extends BoofStandardJUnit {
 		assertEquals(2,detections.size());
 	}
 
-	private GrayF32 generateMarker() {
+	/**
+	 * Renders a grid of markers onto a single image with white space around each marker
+	 */
+	protected GrayF32 renderGrid( int rows, int cols ) {
+		GrayF32 marker = generateMarker();
+		int space = marker.width/2;
+		var image = new GrayF32(cols*(marker.width + space) + space, rows*(marker.height + space) + space);
+		ImageMiscOps.fill(image, 255);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int x0 = space + col*(marker.width + space);
+				int y0 = space + row*(marker.height + space);
+				ImageMiscOps.copy(0, 0, x0, y0, marker.width, marker.height, marker, image);
+			}
+		}
+		return image;
+	}
+
+	protected GrayF32 generateMarker() {
 		QrCodeGeneratorImage generator = new QrCodeGeneratorImage(4);
 //		generator.renderData = false;
 		generator.render(expected);
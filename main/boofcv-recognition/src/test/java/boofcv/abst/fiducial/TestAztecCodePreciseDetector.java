@@ -18,6 +18,7 @@
 
 package boofcv.abst.fiducial;
 
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.fiducial.ConfigAztecCode;
 import boofcv.factory.fiducial.FactoryFiducial;
 import boofcv.struct.image.GrayF32;
@@ -29,7 +30,9 @@ public class TestAztecCodePreciseDetector extends GenericAztecCodeDetectorChecks
 
 	@Override protected AztecCodePreciseDetector<GrayF32> createDetector() {
 		var config = new ConfigAztecCode();
+		BoofConcurrency.USE_CONCURRENT = false;
 		var foo = FactoryFiducial.aztec(config, GrayF32.class);
+		BoofConcurrency.USE_CONCURRENT = true;
 //		foo.setVerbose(System.out, BoofMiscOps.hashSet(BoofVerbose.RECURSIVE));
 		return foo;
 	}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.alg.fiducial.aztec.AztecCode;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.fiducial.ConfigAztecCode;
+import boofcv.factory.fiducial.FactoryFiducial;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAztecCodePreciseDetector_MT extends GenericAztecCodeDetectorChecks {
+	@Override protected AztecCodeDetector<GrayF32> createDetector() {
+		BoofConcurrency.USE_CONCURRENT = true;
+		AztecCodeDetector<GrayF32> detector = FactoryFiducial.aztec(new ConfigAztecCode(), GrayF32.class);
+		assertTrue(detector instanceof AztecCodePreciseDetector_MT);
+		return detector;
+	}
+
+	/**
+	 * Results should be identical to the single thread version and in the same order
+	 */
+	@Test void compareToSingle() {
+		GrayF32 image = renderGrid(3, 3);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		AztecCodeDetector<GrayF32> single = FactoryFiducial.aztec(new ConfigAztecCode(), GrayF32.class);
+		AztecCodeDetector<GrayF32> alg = createDetector();
+
+		single.process(image);
+		alg.process(image);
+
+		assertTrue(single.getDetections().size() > 0);
+		compare(single.getDetections(), alg.getDetections());
+		compare(single.getFailures(), alg.getFailures());
+	}
+
+	private void compare( List<AztecCode> expected, List<AztecCode> found ) {
+		assertEquals(expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).message, found.get(i).message);
+			assertEquals(expected.get(i).failure, found.get(i).failure);
+			assertTrue(expected.get(i).bounds.isIdentical(found.get(i).bounds, 0.0));
+		}
+	}
+}
@@ -18,6 +18,7 @@
 
 package boofcv.abst.fiducial;
 
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.fiducial.ConfigMicroQrCode;
 import boofcv.factory.fiducial.FactoryFiducial;
 import boofcv.struct.image.GrayF32;
@@ -25,6 +26,9 @@ import boofcv.struct.image.GrayF32;
 public class TestMicroQrCodePreciseDetector extends GenericMicroQrCodeDetectorChecks {
 	@Override protected MicroQrCodeDetector<GrayF32> createDetector() {
 		var config = new ConfigMicroQrCode();
-		return FactoryFiducial.microqr(config, GrayF32.class);
+		BoofConcurrency.USE_CONCURRENT = false;
+		MicroQrCodeDetector<GrayF32> detector = FactoryFiducial.microqr(config, GrayF32.class);
+		BoofConcurrency.USE_CONCURRENT = true;
+		return detector;
 	}
 }
@@ -18,6 +18,7 @@
 
 package boofcv.abst.fiducial;
 
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.fiducial.ConfigQrCode;
 import boofcv.factory.fiducial.FactoryFiducial;
 import boofcv.struct.image.GrayF32;
@@ -25,6 +26,9 @@ import boofcv.struct.image.GrayF32;
 public class TestQrCodePreciseDetector extends GenericQrCodeDetectorChecks {
 	@Override protected QrCodeDetector<GrayF32> createDetector() {
 		var config = new ConfigQrCode();
-		return FactoryFiducial.qrcode(config,GrayF32.class);
+		BoofConcurrency.USE_CONCURRENT = false;
+		QrCodeDetector<GrayF32> detector = FactoryFiducial.qrcode(config,GrayF32.class);
+		BoofConcurrency.USE_CONCURRENT = true;
+		return detector;
 	}
 }
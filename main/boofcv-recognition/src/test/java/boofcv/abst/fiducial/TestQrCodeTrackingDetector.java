@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.alg.distort.LensDistortionNarrowFOV;
+import boofcv.alg.distort.brown.LensDistortionBrown;
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.fiducial.ConfigQrCodeTracking;
+import boofcv.factory.fiducial.FactoryFiducial;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.struct.distort.Point2Transform2_F64;
+import boofcv.struct.image.GrayF32;
+import georegression.struct.homography.Homography2D_F64;
+import georegression.struct.point.Point2D_F64;
+import georegression.transform.homography.HomographyPointOps_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestQrCodeTrackingDetector extends GenericQrCodeDetectorChecks {
+	@Override protected QrCodeDetector<GrayF32> createDetector() {
+		var config = new ConfigQrCodeTracking();
+		config.fullScanPeriod = 5;
+		return FactoryFiducial.qrcodeTracking(config, GrayF32.class);
+	}
+
+	/**
+	 * Marker moves across the image. It should only be found using a full scan in the first frame and the
+	 * location should be the same as when the whole image is processed.
+	 */
+	@Test void movingMarker() {
+		var config = new ConfigQrCodeTracking();
+		config.fullScanPeriod = 100;
+		QrCodeTrackingDetector<GrayF32> alg = FactoryFiducial.qrcodeTracking(config, GrayF32.class);
+		QrCodePreciseDetector<GrayF32> full = FactoryFiducial.qrcode(config.detector, GrayF32.class);
+
+		GrayF32 marker = generateMarker();
+		var image = new GrayF32(marker.width*4, marker.height*3);
+
+		for (int frame = 0; frame < 8; frame++) {
+			renderMarkers(marker, image, 20 + frame*7, 30 + frame*3);
+
+			alg.process(image);
+			assertEquals(frame == 0, alg.isFullScan());
+			assertEquals(1, alg.getTotalTracks());
+
+			full.process(image);
+			List<QrCode> expected = full.getDetections();
+			List<QrCode> found = alg.getDetections();
+			assertEquals(1, found.size());
+			assertEquals(message, found.get(0).message);
+			for (int i = 0; i < 4; i++) {
+				assertTrue(expected.get(0).bounds.get(i).distance(found.get(0).bounds.get(i)) < 1.0);
+			}
+		}
+	}
+
+	/**
+	 * New markers should only be found when a full scan is done
+	 */
+	@Test void newMarkerFoundOnFullScan() {
+		var config = new ConfigQrCodeTracking();
+		config.fullScanPeriod = 3;
+		QrCodeTrackingDetector<GrayF32> alg = FactoryFiducial.qrcodeTracking(config, GrayF32.class);
+
+		GrayF32 marker = generateMarker();
+		var image = new GrayF32(marker.width*4, marker.height*2);
+
+		renderMarkers(marker, image, 20, 20);
+		alg.process(image);
+		assertTrue(alg.isFullScan());
+		assertEquals(1, alg.getDetections().size());
+
+		renderMarkers(marker, image, 20, 20, marker.width*2 + 40, 20);
+		for (int frame = 1; frame < 3; frame++) {
+			alg.process(image);
+			assertFalse(alg.isFullScan());
+			assertEquals(1, alg.getDetections().size());
+		}
+
+		alg.process(image);
+		assertTrue(alg.isFullScan());
+		assertEquals(2, alg.getDetections().size());
+	}
+
+	/**
+	 * After reset it should do a full scan
+	 */
+	@Test void reset() {
+		QrCodeTrackingDetector<GrayF32> alg = FactoryFiducial.qrcodeTracking(null, GrayF32.class);
+
+		GrayF32 marker = generateMarker();
+		var image = new GrayF32(marker.width*3, marker.height*2);
+		renderMarkers(marker, image, 20, 20);
+
+		alg.process(image);
+		alg.process(image);
+		assertFalse(alg.isFullScan());
+
+		alg.reset();
+		alg.process(image);
+		assertTrue(alg.isFullScan());
+		assertEquals(1, alg.getDetections().size());
+	}
+
+	/**
+	 * Every pixel coordinate, including the homography, should be translated
+	 */
+	@Test void translate() {
+		var qr = new QrCode();
+		qr.Hinv.setTo(new Homography2D_F64(2, 0.1, 5, -0.2, 1.5, 7, 0.01, 0.02, 1));
+		qr.bounds.get(2).setTo(3, 4);
+		qr.ppRight.get(1).setTo(1, 2);
+		qr.alignment.grow().pixel.setTo(9, 8);
+
+		var grid = new Point2D_F64(3, 4);
+		var before = new Point2D_F64();
+		var after = new Point2D_F64();
+		HomographyPointOps_F64.transform(qr.Hinv, grid, before);
+
+		QrCodeTrackingDetector.translate(qr, 10, -2);
+
+		HomographyPointOps_F64.transform(qr.Hinv, grid, after);
+		assertEquals(before.x + 10, after.x, 1e-8);
+		assertEquals(before.y - 2, after.y, 1e-8);
+		assertEquals(13, qr.bounds.get(2).x, 1e-8);
+		assertEquals(2, qr.bounds.get(2).y, 1e-8);
+		assertEquals(11, qr.ppRight.get(1).x, 1e-8);
+		assertEquals(0, qr.ppRight.get(1).y, 1e-8);
+		assertEquals(19, qr.alignment.get(0).pixel.x, 1e-8);
+		assertEquals(6, qr.alignment.get(0).pixel.y, 1e-8);
+	}
+
+	/**
+	 * Applying the distortion model inside a region of interest should be the same as applying it in the input
+	 * image and translating the pixels
+	 */
+	@Test void roiLensDistortion() {
+		var intrinsic = new CameraPinholeBrown(400, 410, 0, 320, 240, 640, 480).fsetRadial(0.05, -0.01);
+		LensDistortionNarrowFOV model = new LensDistortionBrown(intrinsic);
+		var alg = new QrCodeTrackingDetector.RoiLensDistortion(model);
+		alg.offsetX = 100;
+		alg.offsetY = 50;
+
+		var expected = new Point2D_F64();
+		var found = new Point2D_F64();
+
+		// pixel to pixel
+		model.undistort_F64(true, true).compute(130, 70, expected);
+		alg.undistort_F64(true, true).compute(30, 20, found);
+		assertEquals(expected.x - 100, found.x, 1e-8);
+		assertEquals(expected.y - 50, found.y, 1e-8);
+
+		// pixel to normalized
+		model.undistort_F64(true, false).compute(130, 70, expected);
+		alg.normalized_F64().compute(30, 20, found);
+		assertEquals(0.0, expected.distance(found), 1e-8);
+
+		// normalized to pixel
+		model.distort_F64(false, true).compute(0.1, -0.05, expected);
+		Point2Transform2_F64 distort = alg.distort_F64(false, true).copyConcurrent();
+		distort.compute(0.1, -0.05, found);
+		assertEquals(expected.x - 100, found.x, 1e-8);
+		assertEquals(expected.y - 50, found.y, 1e-8);
+
+		// Changing the offset should be seen by transforms which have already been created
+		alg.offsetX = 0;
+		alg.offsetY = 0;
+		distort.compute(0.1, -0.05, found);
+		assertEquals(0.0, expected.distance(found), 1e-8);
+	}
+
+	/**
+	 * Renders markers onto a white background with their top-left corner at the specified coordinates
+	 */
+	private static void renderMarkers( GrayF32 marker, GrayF32 image, int... corners ) {
+		ImageMiscOps.fill(image, 255);
+		for (int i = 0; i < corners.length; i += 2) {
+			ImageMiscOps.copy(0, 0, corners[i], corners[i + 1], marker.width, marker.height, marker, image);
+		}
+	}
+}
@@ -125,6 +125,55 @@ public abstract class GenericFeatureSceneRecognitionChecks<TD extends TupleDesc<
 		assertFalse(alg.query(getFeatures(1, images), ( id ) -> true, 3, matches));
 	}
 
+	/**
+	 * Removes images from the database and makes sure they are no longer returned
+	 */
+	@Test void removeImage() {
+		List<List<TD>> images = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			List<TD> descriptions = new ArrayList<>();
+			for (int j = 0; j < 10 + i; j++) {
+				descriptions.add(createDescriptor(i + j));
+			}
+			images.add(descriptions);
+		}
+
+		FeatureSceneRecognition<TD> alg = createAlg();
+		alg.learnModel(new Iterator<>() {
+			int index = 0;
+
+			@Override public boolean hasNext() {return index < images.size();}
+
+			@Override public FeatureSceneRecognition.Features<TD> next() {return getFeatures(index++, images);}
+		});
+		for (int imageIdx = 0; imageIdx < images.size(); imageIdx++) {
+			alg.addImage("" + imageIdx, getFeatures(imageIdx, images));
+		}
+
+		assertTrue(alg.removeImage("2"));
+		assertFalse(alg.removeImage("2"));
+		assertFalse(alg.removeImage("foo"));
+		assertTrue(alg.removeImage("0"));
+
+		List<String> ids = alg.getImageIds(null);
+		assertEquals(images.size() - 2, ids.size());
+		assertFalse(ids.contains("0"));
+		assertFalse(ids.contains("2"));
+
+		// Removed images should never be returned
+		var matches = new DogArray<>(SceneRecognition.Match::new);
+		for (int imageIdx = 0; imageIdx < images.size(); imageIdx++) {
+			alg.query(getFeatures(imageIdx, images), null, 0, matches);
+			matches.forEach(m -> assertTrue(ids.contains(m.id)));
+		}
+
+		// Adding an image after removing should work
+		alg.addImage("2", getFeatures(2, images));
+		assertEquals(images.size() - 1, alg.getImageIds(null).size());
+		alg.query(getFeatures(3, images), null, 0, matches);
+		matches.forEach(m -> assertNotEquals("0", m.id));
+	}
+
 	private FeatureSceneRecognition.Features<TD> getFeatures( int imageIdx, List<List<TD>> images ) {
 		return new FeatureSceneRecognition.Features<>() {
 			@Override public Point2D_F64 getPixel( int index ) {
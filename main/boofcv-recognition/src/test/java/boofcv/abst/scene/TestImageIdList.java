@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.scene;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestImageIdList extends BoofStandardJUnit {
+	@Test void add_remove() {
+		var alg = new ImageIdList();
+		assertEquals(0, alg.add("a"));
+		assertEquals(1, alg.add("b"));
+		assertEquals(2, alg.add("c"));
+
+		assertEquals(1, alg.remove("b"));
+		assertEquals(-1, alg.remove("b"));
+		assertEquals(-1, alg.remove("d"));
+
+		// The index of other images should not change
+		assertEquals(3, alg.getIds().size());
+		assertNull(alg.getIds().get(1));
+		assertEquals("c", alg.get(2));
+		assertEquals(1, alg.getTotalRemoved());
+		assertEquals(List.of("a", "c"), alg.copyLive(null));
+	}
+
+	/**
+	 * Images which are added directly to the list, e.g. when loading, should be found
+	 */
+	@Test void remove_addedDirectly() {
+		var alg = new ImageIdList();
+		alg.add("a");
+		assertEquals(0, alg.remove("a"));
+		alg.getIds().addAll(List.of("b", "c"));
+		assertEquals(2, alg.remove("c"));
+
+		// If the list is shrunk the look up table needs to be rebuilt
+		alg.getIds().clear();
+		alg.getIds().add("c");
+		assertEquals(0, alg.remove("c"));
+	}
+
+	@Test void compact() {
+		var alg = new ImageIdList();
+		assertNull(alg.compact());
+		for (String id : new String[]{"a", "b", "c", "d"}) {
+			alg.add(id);
+		}
+		alg.remove("a");
+		alg.remove("c");
+
+		// Nothing should be modified
+		assertArrayEquals(new int[]{-1, 0, -1, 1}, alg.createOldToNew());
+		assertEquals(4, alg.getIds().size());
+
+		assertArrayEquals(new int[]{-1, 0, -1, 1}, alg.compact());
+		assertEquals(List.of("b", "d"), alg.getIds());
+		assertEquals(0, alg.getTotalRemoved());
+
+		// Look up table needs to be rebuilt for the new indexes
+		assertEquals(1, alg.remove("d"));
+	}
+
+	@Test void reset() {
+		var alg = new ImageIdList();
+		alg.add("a");
+		alg.add("b");
+		alg.remove("a");
+		alg.reset();
+
+		assertEquals(0, alg.getIds().size());
+		assertEquals(0, alg.getTotalRemoved());
+		assertEquals(-1, alg.remove("b"));
+	}
+}
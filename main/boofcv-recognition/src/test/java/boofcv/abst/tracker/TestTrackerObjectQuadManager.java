@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.tracker.FactoryTrackerObjectQuad;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.Planar;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.shapes.Quadrilateral_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestTrackerObjectQuadManager extends BoofStandardJUnit {
+
+	GrayU8 background = new GrayU8(200, 160);
+	GrayU8 image = new GrayU8(200, 160);
+
+	TestTrackerObjectQuadManager() {
+		ImageMiscOps.fillUniform(background, rand, 0, 255);
+		image.setTo(background);
+	}
+
+	/**
+	 * Targets tracked by the manager should have the same results as tracking them individually, even when
+	 * the workspace is shared
+	 */
+	@Test void compareToIndividual_circulant() {
+		var config = new ConfigCirculantTracker();
+
+		for (boolean concurrent : new boolean[]{false, true}) {
+			BoofConcurrency.USE_CONCURRENT = concurrent;
+			TrackerObjectQuadMulti<GrayU8> alg = FactoryTrackerObjectQuad.circulantMulti(config, GrayU8.class);
+			assertEquals(concurrent, ((TrackerObjectQuadManager<?, ?>)alg).isConcurrent());
+
+			image.setTo(background);
+			List<TrackerObjectQuad<GrayU8>> individual = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				var location = new Quadrilateral_F64(20 + i*40, 30, 50 + i*40, 30, 50 + i*40, 60, 20 + i*40, 60);
+				TrackerObjectQuad<GrayU8> tracker = FactoryTrackerObjectQuad.circulant(config, GrayU8.class);
+				assertTrue(tracker.initialize(image, location));
+				individual.add(tracker);
+				assertEquals(i, alg.addTarget(image, location));
+			}
+
+			var expected = new Quadrilateral_F64();
+			for (int frame = 1; frame < 5; frame++) {
+				ImageMiscOps.fill(image, 0);
+				ImageMiscOps.copy(0, 0, frame, 2*frame, image.width - frame, image.height - 2*frame, background, image);
+
+				alg.process(image);
+				List<TrackerObjectQuadMulti.Target> targets = alg.getTargets();
+				assertEquals(individual.size(), targets.size());
+				for (int i = 0; i < individual.size(); i++) {
+					assertEquals(individual.get(i).process(image, expected), targets.get(i).visible);
+					assertEquals(i, targets.get(i).id);
+					assertIdentical(expected, targets.get(i).location);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Smoke test to make sure it can track a color image
+	 */
+	@Test void meanShift() {
+		var color = new Planar<>(GrayU8.class, background.width, background.height, 3);
+		GImageMiscOps.fillUniform(color, rand, 0, 255);
+
+		TrackerObjectQuadMulti<Planar<GrayU8>> alg = FactoryTrackerObjectQuad.meanShiftComaniciu2003Multi(
+				new ConfigComaniciu2003(), ImageType.pl(3, GrayU8.class));
+
+		var location = new Quadrilateral_F64(20, 30, 50, 30, 50, 60, 20, 60);
+		assertEquals(0, alg.addTarget(color, location));
+		assertEquals(1, alg.addTarget(color, location));
+		alg.process(color);
+		assertEquals(2, alg.getTargets().size());
+		for (TrackerObjectQuadMulti.Target target : alg.getTargets()) {
+			assertTrue(target.visible);
+		}
+	}
+
+	/**
+	 * Trackers of removed targets should be recycled and IDs should never be reused
+	 */
+	@Test void removeAndRecycle() {
+		var alg = (TrackerObjectQuadManager<GrayU8, ?>)FactoryTrackerObjectQuad.circulantMulti(
+				new ConfigCirculantTracker(), GrayU8.class);
+
+		var location = new Quadrilateral_F64(20, 30, 50, 30, 50, 60, 20, 60);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i, alg.addTarget(image, location));
+		}
+
+		assertFalse(alg.removeTarget(10));
+		assertTrue(alg.removeTarget(1));
+		assertEquals(2, alg.getTargets().size());
+		assertEquals(0, alg.getTargets().get(0).id);
+		assertEquals(2, alg.getTargets().get(1).id);
+		assertEquals(1, alg.getTotalUnused());
+
+		assertEquals(3, alg.addTarget(image, location));
+		assertEquals(0, alg.getTotalUnused());
+
+		alg.removeAllTargets();
+		assertEquals(0, alg.getTargets().size());
+		assertEquals(3, alg.getTotalUnused());
+	}
+
+	private void assertIdentical( Quadrilateral_F64 expected, Quadrilateral_F64 found ) {
+		assertEquals(0.0, expected.a.distance(found.a));
+		assertEquals(0.0, expected.b.distance(found.b));
+		assertEquals(0.0, expected.c.distance(found.c));
+		assertEquals(0.0, expected.d.distance(found.d));
+	}
+}
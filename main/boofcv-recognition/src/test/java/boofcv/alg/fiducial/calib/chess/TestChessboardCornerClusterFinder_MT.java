@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.calib.chess;
+
+import boofcv.abst.distort.FDistort;
+import boofcv.alg.feature.detect.chess.ChessboardCorner;
+import boofcv.alg.feature.detect.chess.DetectChessboardCornersXPyramid;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.gui.RenderCalibrationTargetsGraphics2D;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofStandardJUnit;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestChessboardCornerClusterFinder_MT extends BoofStandardJUnit {
+	/**
+	 * Corners are found in rendered images with noise. Both implementations should produce identical graphs
+	 */
+	@Test void compareToSingle() {
+		var renderer = new RenderCalibrationTargetsGraphics2D(40, 1);
+		renderer.chessboard(6, 7, 40);
+
+		GrayF32 original = renderer.getGrayF32();
+		GrayF32 input = original.createSameShape();
+
+		var detector = new DetectChessboardCornersXPyramid<GrayF32>(ImageType.SB_F32);
+		var single = new ChessboardCornerClusterFinder<>(GrayF32.class);
+		var multi = new ChessboardCornerClusterFinder_MT<>(GrayF32.class);
+
+		for (int trial = 0; trial < 4; trial++) {
+			new FDistort(original, input).affine(1.0, 0.1*trial, -0.05*trial, 1.0, 0, 0).apply();
+			ImageMiscOps.addUniform(input, rand, -15, 15);
+
+			detector.process(input);
+			List<ChessboardCorner> corners = detector.getCorners().toList();
+			single.process(input, corners, detector.getNumberOfLevels());
+			multi.process(input, corners, detector.getNumberOfLevels());
+
+			DogArray<ChessboardCornerGraph> expected = single.getOutputClusters();
+			DogArray<ChessboardCornerGraph> found = multi.getOutputClusters();
+			assertTrue(expected.size > 0);
+			assertEquals(expected.size, found.size);
+			for (int i = 0; i < expected.size; i++) {
+				compare(expected.get(i), found.get(i));
+			}
+		}
+	}
+
+	private void compare( ChessboardCornerGraph expected, ChessboardCornerGraph found ) {
+		assertEquals(expected.corners.size, found.corners.size);
+		for (int i = 0; i < expected.corners.size; i++) {
+			ChessboardCornerGraph.Node e = expected.corners.get(i);
+			ChessboardCornerGraph.Node f = found.corners.get(i);
+			assertEquals(e.index, f.index);
+			assertTrue(e.corner == f.corner);
+			for (int j = 0; j < 4; j++) {
+				if (e.edges[j] == null) {
+					assertTrue(f.edges[j] == null);
+				} else {
+					assertEquals(e.edges[j].index, f.edges[j].index);
+				}
+			}
+		}
+	}
+}
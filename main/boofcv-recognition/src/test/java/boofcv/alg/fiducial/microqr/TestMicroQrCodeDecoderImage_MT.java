@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.microqr;
+
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestMicroQrCodeDecoderImage_MT extends BoofStandardJUnit {
+	/**
+	 * Verbose output should be passed to workers created before and after it was set
+	 */
+	@Test void workersCopyVerbose() {
+		var alg = new MicroQrCodeDecoderImage_MT<>(null, "", GrayU8.class);
+		MicroQrCodeDecoderImage<GrayU8> before = alg.workers.grow();
+		assertNull(before.verbose);
+
+		alg.setVerbose(System.out, null);
+		MicroQrCodeDecoderImage<GrayU8> after = alg.workers.grow();
+		assertNotNull(before.verbose);
+		assertNotNull(after.verbose);
+
+		alg.setVerbose(null, null);
+		assertNull(before.verbose);
+		assertNull(after.verbose);
+	}
+}
@@ -75,6 +75,99 @@ class TestRecognitionNearestNeighborInvertedFile extends BoofStandardJUnit {
 		assertFalse(alg.query(images.get(5), null, 3));
 	}
 
+	/**
+	 * Queries with compressed inverted files should be almost identical to uncompressed
+	 */
+	@Test void compressInvertedFiles() {
+		List<Point2D_F64> words = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			words.add(new Point2D_F64(rand.nextDouble()*2, rand.nextDouble()*2));
+		}
+		var nn = FactoryNearestNeighbor.exhaustive(new KdTreePoint2D_F64());
+		nn.setPoints(words, true);
+
+		var expected = new RecognitionNearestNeighborInvertedFile<Point2D_F64>();
+		var alg = new RecognitionNearestNeighborInvertedFile<Point2D_F64>();
+		expected.initialize(nn, words.size());
+		alg.initialize(nn, words.size());
+
+		List<List<Point2D_F64>> images = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			var image = new ArrayList<Point2D_F64>();
+			int N = rand.nextInt(20) + 20;
+			for (int j = 0; j < N; j++) {
+				image.add(words.get(rand.nextInt(words.size())));
+			}
+			images.add(image);
+			expected.addImage(i, image);
+			alg.addImage(i, image);
+			if (i == 9)
+				alg.compressInvertedFiles(2);
+		}
+
+		for (int word = 0; word < words.size(); word++) {
+			assertEquals(0, alg.getInvertedFiles().get(word).size);
+			assertEquals(expected.invertedFileSize(word), alg.invertedFileSize(word));
+		}
+
+		for (int i = 0; i < images.size(); i++) {
+			assertTrue(expected.query(images.get(i), null, 4));
+			assertTrue(alg.query(images.get(i), null, 4));
+			assertEquals(expected.getMatches().size, alg.getMatches().size);
+			for (int j = 0; j < expected.getMatches().size; j++) {
+				assertEquals(expected.getMatches().get(j).error, alg.getMatches().get(j).error, 1e-3);
+			}
+		}
+	}
+
+	/**
+	 * Removed images should not be returned. After compacting images should be renumbered
+	 */
+	@Test void removeImage_compact() {
+		List<Point2D_F64> words = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			words.add(new Point2D_F64(rand.nextDouble()*2, rand.nextDouble()*2));
+		}
+		var nn = FactoryNearestNeighbor.exhaustive(new KdTreePoint2D_F64());
+		nn.setPoints(words, true);
+
+		var alg = new RecognitionNearestNeighborInvertedFile<Point2D_F64>();
+		alg.initialize(nn, words.size());
+
+		List<List<Point2D_F64>> images = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			var image = new ArrayList<Point2D_F64>();
+			for (int j = 0; j < 30; j++) {
+				image.add(words.get(rand.nextInt(words.size())));
+			}
+			images.add(image);
+			alg.addImage(i*10, image);
+		}
+
+		assertTrue(alg.removeImage(30));
+		assertTrue(alg.removeImage(70));
+		assertFalse(alg.removeImage(31));
+
+		for (int trial = 0; trial < 2; trial++) {
+			for (int i = 0; i < images.size(); i++) {
+				alg.query(images.get(i), null, 0);
+				for (int j = 0; j < alg.getMatches().size; j++) {
+					int id = alg.getMatches().get(j).identification;
+					assertTrue(id != 30 && id != 70);
+				}
+				if (i != 3 && i != 7)
+					assertEquals(i*10, alg.getMatches().get(0).identification);
+			}
+			alg.compact();
+			assertEquals(8, alg.getImagesDB().size);
+		}
+
+		// Change the IDs and see if that's what's returned
+		alg.remapImageIDs(( id ) -> id + 1);
+		assertTrue(alg.query(images.get(0), null, 1));
+		assertEquals(1, alg.getMatches().get(0).identification);
+	}
+
 	@Test void computeWordHistogram() {
 		List<Point2D_F64> words = new ArrayList<>();
 		words.add(new Point2D_F64(10, 20));
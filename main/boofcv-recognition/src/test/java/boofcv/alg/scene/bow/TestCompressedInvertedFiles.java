@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCompressedInvertedFiles extends BoofStandardJUnit {
+	/**
+	 * Encode then decode random inverted files. Includes large gaps between image indexes
+	 */
+	@Test void encodeDecode() {
+		for (int weightBytes : new int[]{1, 2}) {
+			List<InvertedFile> expected = createRandom(12);
+			CompressedInvertedFiles alg = encode(expected, weightBytes);
+
+			float tol = 0.5f/((1 << (8*weightBytes)) - 1) + 1e-6f;
+			for (int fileIdx = 0; fileIdx < expected.size(); fileIdx++) {
+				InvertedFile e = expected.get(fileIdx);
+				assertEquals(e.size, alg.size(fileIdx));
+
+				// decode should append to the end
+				var found = new InvertedFile();
+				found.addImage(-1, -1.0f);
+				alg.decode(fileIdx, found);
+				assertEquals(e.size + 1, found.size);
+				for (int i = 0; i < e.size; i++) {
+					assertEquals(e.get(i), found.get(i + 1));
+					assertEquals(e.weights.get(i), found.weights.get(i + 1), tol);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Weights outside of 0 to 1 should be clamped
+	 */
+	@Test void clampWeights() {
+		var alg = new CompressedInvertedFiles(1);
+		alg.reset(1);
+		alg.addImage(0, 2, -0.5f);
+		alg.addImage(0, 3, 1.5f);
+
+		var found = new InvertedFile();
+		alg.decode(0, found);
+		assertEquals(0.0f, found.weights.get(0));
+		assertEquals(1.0f, found.weights.get(1));
+	}
+
+	@Test void addImage_mustIncrease() {
+		var alg = new CompressedInvertedFiles(2);
+		alg.reset(2);
+		alg.addImage(0, 5, 0.1f);
+		alg.addImage(1, 2, 0.1f);
+		assertThrows(IllegalArgumentException.class, () -> alg.addImage(0, 5, 0.1f));
+		assertThrows(IllegalArgumentException.class, () -> alg.addImage(0, 4, 0.1f));
+	}
+
+	/**
+	 * Trimming should reduce the allocated memory without changing the contents
+	 */
+	@Test void trimToSize() {
+		List<InvertedFile> expected = createRandom(5);
+		CompressedInvertedFiles alg = encode(expected, 2);
+
+		long before = alg.getAllocatedBytes();
+		alg.trimToSize();
+		assertTrue(alg.getAllocatedBytes() <= before);
+		assertEquals(alg.getUsedBytes() + 16L*alg.getNumFiles(), alg.getAllocatedBytes());
+
+		for (int fileIdx = 0; fileIdx < expected.size(); fileIdx++) {
+			var found = new InvertedFile();
+			alg.decode(fileIdx, found);
+			assertEquals(expected.get(fileIdx).size, found.size);
+		}
+
+		// Adding after trimming should work
+		alg.addImage(0, Integer.MAX_VALUE, 0.5f);
+		assertEquals(expected.get(0).size + 1, alg.size(0));
+	}
+
+	/**
+	 * Images which are close together should use much less memory than an uncompressed inverted file
+	 */
+	@Test void compression() {
+		var alg = new CompressedInvertedFiles(1);
+		alg.reset(1);
+		for (int i = 0; i < 1000; i++) {
+			alg.addImage(0, i*3, 0.2f);
+		}
+		assertEquals(2000, alg.getUsedBytes());
+	}
+
+	List<InvertedFile> createRandom( int numFiles ) {
+		List<InvertedFile> files = new ArrayList<>();
+		for (int fileIdx = 0; fileIdx < numFiles; fileIdx++) {
+			var inv = new InvertedFile();
+			int N = rand.nextInt(40);
+			int imageIdx = -1;
+			for (int j = 0; j < N; j++) {
+				// Every once in a while there's a very large gap
+				imageIdx += 1 + (rand.nextInt(10) == 0 ? rand.nextInt(50_000_000) : rand.nextInt(20));
+				inv.addImage(imageIdx, rand.nextFloat());
+			}
+			files.add(inv);
+		}
+		return files;
+	}
+
+	static CompressedInvertedFiles encode( List<InvertedFile> files, int weightBytes ) {
+		var alg = new CompressedInvertedFiles(weightBytes);
+		alg.reset(files.size());
+		for (int fileIdx = 0; fileIdx < files.size(); fileIdx++) {
+			InvertedFile inv = files.get(fileIdx);
+			for (int i = 0; i < inv.size; i++) {
+				alg.addImage(fileIdx, inv.get(i), inv.weights.get(i));
+			}
+		}
+		return alg;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.ddogleg.struct.BigDogArray_I32;
+import org.ddogleg.struct.BigDogGrowth;
+import org.ddogleg.struct.DogArray_B;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestImageIndexLookup extends BoofStandardJUnit {
+	BigDogArray_I32 imagesDB = new BigDogArray_I32(10, 100, BigDogGrowth.GROW_FIRST);
+	DogArray_B removed = new DogArray_B();
+
+	/**
+	 * Remove images, including ones which were added after the first call
+	 */
+	@Test void remove() {
+		var alg = new ImageIndexLookup();
+		add(4, 9, 2);
+
+		assertEquals(1, remove(alg, 9));
+		assertEquals(-1, remove(alg, 9));
+		assertEquals(-1, remove(alg, 100));
+
+		add(9, 7);
+		assertEquals(3, remove(alg, 9));
+		assertEquals(4, remove(alg, 7));
+		assertEquals(0, remove(alg, 4));
+	}
+
+	/**
+	 * The first image which hasn't been removed should be returned when there are duplicate IDs
+	 */
+	@Test void remove_duplicates() {
+		var alg = new ImageIndexLookup();
+		add(3, 5, 3, 3);
+
+		assertEquals(0, remove(alg, 3));
+		assertEquals(2, remove(alg, 3));
+		add(3);
+		assertEquals(3, remove(alg, 3));
+		assertEquals(4, remove(alg, 3));
+		assertEquals(-1, remove(alg, 3));
+		assertEquals(1, remove(alg, 5));
+	}
+
+	/**
+	 * After a reset the table is rebuilt and should skip images which have been removed
+	 */
+	@Test void reset() {
+		var alg = new ImageIndexLookup();
+		add(1, 2, 3);
+		assertEquals(1, remove(alg, 2));
+
+		// Simulate compacting the DB
+		imagesDB.set(1, 3);
+		imagesDB.resize(2);
+		removed.reset();
+		alg.reset();
+
+		assertEquals(-1, remove(alg, 2));
+		assertEquals(1, remove(alg, 3));
+	}
+
+	void add( int... ids ) {
+		for (int id : ids) {
+			imagesDB.append(id);
+		}
+	}
+
+	/** Removes the image and marks it as removed, like the DB would */
+	int remove( ImageIndexLookup alg, int imageID ) {
+		int imageIdx = alg.remove(imageID, imagesDB, removed);
+		if (imageIdx == -1)
+			return -1;
+		while (removed.size < imagesDB.size) {
+			removed.add(false);
+		}
+		removed.data[imageIdx] = true;
+		return imageIdx;
+	}
+}
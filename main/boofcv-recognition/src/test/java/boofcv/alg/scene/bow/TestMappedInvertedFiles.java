@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.bow;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TestMappedInvertedFiles extends BoofStandardJUnit {
+	/**
+	 * Encode inverted files into very small pages and see if they are read correctly
+	 */
+	@Test void readAcrossPages() {
+		List<InvertedFile> expected = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			var inv = new InvertedFile();
+			int N = rand.nextInt(6);
+			for (int j = 0; j < N; j++) {
+				inv.addImage(rand.nextInt(1000), rand.nextFloat());
+			}
+			expected.add(inv);
+		}
+
+		for (int pageBits : new int[]{3, 4, 6}) {
+			MappedInvertedFiles alg = encode(expected, 16, pageBits);
+
+			assertEquals(expected.size(), alg.getNumFiles());
+			long total = 0;
+			for (int fileIdx = 0; fileIdx < expected.size(); fileIdx++) {
+				InvertedFile e = expected.get(fileIdx);
+				assertEquals(total, alg.first(fileIdx));
+				assertEquals(e.size, alg.size(fileIdx));
+				for (int i = 0; i < e.size; i++) {
+					assertEquals(e.get(i), alg.getImage(total + i));
+					assertEquals(e.weights.get(i), alg.getWeight(total + i));
+				}
+
+				// copyInto should append to the end
+				var found = new InvertedFile();
+				found.addImage(-1, -1.0f);
+				alg.copyInto(fileIdx, found);
+				assertEquals(e.size + 1, found.size);
+				for (int i = 0; i < e.size; i++) {
+					assertEquals(e.get(i), found.get(i + 1));
+					assertEquals(e.weights.get(i), found.weights.get(i + 1));
+				}
+				total += e.size;
+			}
+			assertEquals(total, alg.getNumElements());
+		}
+	}
+
+	@Test void notEnoughData() {
+		var pages = new ByteBuffer[]{ByteBuffer.allocate(16)};
+		assertThrows(IllegalArgumentException.class, () -> new MappedInvertedFiles(pages, 4, 0, 1, 1));
+	}
+
+	/**
+	 * Writes the inverted files into pages with the specified number of bits
+	 */
+	static MappedInvertedFiles encode( List<InvertedFile> files, int start, int pageBits ) {
+		long total = 0;
+		for (InvertedFile inv : files) {
+			total += inv.size;
+		}
+
+		ByteBuffer all = ByteBuffer.allocate(start + (int)MappedInvertedFiles.computeSizeBytes(files.size(), total));
+		all.position(start);
+		long first = 0;
+		for (InvertedFile inv : files) {
+			all.putLong(first);
+			first += inv.size;
+		}
+		all.putLong(first);
+		for (InvertedFile inv : files) {
+			for (int i = 0; i < inv.size; i++) {
+				all.putInt(inv.get(i));
+			}
+		}
+		for (InvertedFile inv : files) {
+			for (int i = 0; i < inv.size; i++) {
+				all.putFloat(inv.weights.get(i));
+			}
+		}
+
+		// Split it up into pages
+		int pageSize = 1 << pageBits;
+		var pages = new ByteBuffer[(all.capacity() + pageSize - 1)/pageSize];
+		for (int i = 0; i < pages.length; i++) {
+			int length = Math.min(pageSize, all.capacity() - i*pageSize);
+			pages[i] = ByteBuffer.wrap(all.array(), i*pageSize, length).slice();
+		}
+		return new MappedInvertedFiles(pages, pageBits, start, files.size(), total);
+	}
+}
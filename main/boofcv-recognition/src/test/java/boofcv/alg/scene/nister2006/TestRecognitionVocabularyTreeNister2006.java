@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -19,6 +19,7 @@
 package boofcv.alg.scene.nister2006;
 
 import boofcv.alg.scene.bow.BowMatch;
+import boofcv.alg.scene.bow.InvertedFile;
 import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point2D_F64;
@@ -32,6 +33,7 @@ import java.util.List;
 
 import static boofcv.alg.scene.vocabtree.TestHierarchicalVocabularyTree.createTree;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings("ConstantConditions")
@@ -61,6 +63,198 @@ class TestRecognitionVocabularyTreeNister2006 extends BoofStandardJUnit {
 		}
 	}
 
+	/**
+	 * Compress the inverted files part way through adding images. Queries should produce almost the same results
+	 */
+	@Test void compressInvertedFiles() {
+		HierarchicalVocabularyTree<Point2D_F64> tree = create2x2Tree();
+		var expected = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		var alg = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		expected.initializeTree(tree);
+		alg.initializeTree(tree);
+
+		List<List<Point2D_F64>> images = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			images.add(createRandomImage());
+			expected.addImage(i, images.get(i));
+			alg.addImage(i, images.get(i));
+			if (i == 9)
+				alg.compressInvertedFiles(2);
+		}
+
+		// All the images should have been moved out of the heap
+		var found = new InvertedFile();
+		for (int nodeIdx = 0; nodeIdx < tree.nodes.size; nodeIdx++) {
+			assertEquals(0, alg.invertedFiles.get(nodeIdx).size);
+			assertEquals(expected.invertedFileSize(nodeIdx), alg.invertedFileSize(nodeIdx));
+
+			alg.copyInvertedFile(nodeIdx, found);
+			InvertedFile e = expected.invertedFiles.get(nodeIdx);
+			assertEquals(e.size, found.size);
+			for (int i = 0; i < e.size; i++) {
+				assertEquals(e.get(i), found.get(i));
+				assertEquals(e.weights.get(i), found.weights.get(i), 1e-4f);
+			}
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertTrue(expected.query(images.get(i), null, 5));
+			assertTrue(alg.query(images.get(i), null, 5));
+			assertEquals(expected.getMatches().size, alg.getMatches().size);
+			for (int j = 0; j < expected.getMatches().size; j++) {
+				assertEquals(expected.getMatches().get(j).error, alg.getMatches().get(j).error, 1e-3);
+			}
+		}
+
+		// The compressed files should be empty but still be used after clearing
+		alg.clearImages();
+		assertEquals(0, alg.getCompressedFiles().getUsedBytes());
+		alg.addImage(0, images.get(0));
+		assertEquals(0, alg.invertedFiles.get(1).size);
+		assertTrue(alg.query(images.get(0), null, 5));
+		assertEquals(0, alg.getMatches().get(0).identification);
+	}
+
+	/**
+	 * Remove images then compare results against a database that never had those images
+	 */
+	@Test void removeImage_compact() {
+		for (boolean compressed : new boolean[]{false, true}) {
+			HierarchicalVocabularyTree<Point2D_F64> tree = create2x2Tree();
+			var expected = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+			var alg = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+			expected.initializeTree(tree);
+			alg.initializeTree(tree);
+			if (compressed)
+				alg.compressInvertedFiles(2);
+
+			List<List<Point2D_F64>> images = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				images.add(createRandomImage());
+				alg.addImage(i, images.get(i));
+				if (i%3 != 0)
+					expected.addImage(i, images.get(i));
+			}
+
+			for (int i = 0; i < 20; i += 3) {
+				assertTrue(alg.removeImage(i));
+			}
+			assertFalse(alg.removeImage(0));
+			assertEquals(7, alg.getTotalRemoved());
+
+			// Results should be the same before and after compacting
+			for (int trial = 0; trial < 2; trial++) {
+				for (int i = 0; i < 20; i++) {
+					assertTrue(expected.query(images.get(i), null, 5));
+					assertTrue(alg.query(images.get(i), null, 5));
+					assertEquals(expected.getMatches().size, alg.getMatches().size);
+					for (int j = 0; j < expected.getMatches().size; j++) {
+						assertEquals(expected.getMatches().get(j).error, alg.getMatches().get(j).error, 1e-3);
+						assertTrue(alg.getMatches().get(j).identification%3 != 0);
+					}
+				}
+				alg.compact();
+				assertEquals(0, alg.getTotalRemoved());
+				assertEquals(expected.getImagesDB().size, alg.getImagesDB().size);
+				for (int nodeIdx = 0; nodeIdx < tree.nodes.size; nodeIdx++) {
+					assertEquals(expected.invertedFileSize(nodeIdx), alg.invertedFileSize(nodeIdx));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Words with too many images are skipped. Removed images should not be counted, so results need to be
+	 * the same as a database which was built without them
+	 */
+	@Test void removeImage_maximumQueryImagesInNode() {
+		HierarchicalVocabularyTree<Point2D_F64> tree = create2x2Tree();
+		var expected = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		var alg = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		expected.initializeTree(tree);
+		alg.initializeTree(tree);
+
+		List<List<Point2D_F64>> images = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			images.add(createRandomImage());
+			alg.addImage(i, images.get(i));
+			if (i%3 != 0)
+				expected.addImage(i, images.get(i));
+		}
+		for (int i = 0; i < 30; i += 3) {
+			assertTrue(alg.removeImage(i));
+		}
+
+		for (double fraction : new double[]{1.0, 0.6, 0.3}) {
+			expected.maximumQueryImagesInNode.setRelative(fraction, 1);
+			alg.maximumQueryImagesInNode.setRelative(fraction, 1);
+
+			for (int i = 0; i < images.size(); i++) {
+				boolean found = expected.query(images.get(i), null, 30);
+				assertEquals(found, alg.query(images.get(i), null, 30));
+				assertEquals(expected.getMatches().size, alg.getMatches().size);
+				for (int j = 0; j < expected.getMatches().size; j++) {
+					assertEquals(expected.getMatches().get(j).error, alg.getMatches().get(j).error, 1e-4);
+				}
+			}
+		}
+
+		// The live size should match the size in a database without the removed images
+		for (int nodeIdx = 0; nodeIdx < tree.nodes.size; nodeIdx++) {
+			assertEquals(expected.invertedFileSize(nodeIdx), alg.liveInvertedFileSize(nodeIdx));
+		}
+	}
+
+	/**
+	 * If multiple images have the same ID they should be removed in the order they were added
+	 */
+	@Test void removeImage_duplicateIDs() {
+		var alg = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		alg.initializeTree(create2x2Tree());
+		for (int id : new int[]{5, 6, 5, 7}) {
+			alg.addImage(id, createRandomImage());
+		}
+
+		assertTrue(alg.removeImage(5));
+		assertTrue(alg.removedImages.get(0));
+		assertTrue(alg.removeImage(5));
+		assertTrue(alg.removedImages.get(2));
+		assertFalse(alg.removeImage(5));
+
+		// Images added after an image is removed should be found
+		alg.addImage(5, createRandomImage());
+		assertTrue(alg.removeImage(5));
+		assertTrue(alg.removedImages.get(4));
+		assertTrue(alg.removeImage(7));
+		assertEquals(4, alg.getTotalRemoved());
+	}
+
+	/**
+	 * Removing images should never compact the database, it should only recommend it
+	 */
+	@Test void isCompactRecommended() {
+		var alg = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		alg.initializeTree(create2x2Tree());
+		alg.compactFraction = 0.25;
+		for (int i = 0; i < 8; i++) {
+			alg.addImage(i, createRandomImage());
+		}
+		assertFalse(alg.isCompactRecommended());
+		assertTrue(alg.removeImage(1));
+		assertTrue(alg.removeImage(2));
+		assertFalse(alg.isCompactRecommended());
+		// This will push it over the threshold
+		assertTrue(alg.removeImage(3));
+		assertTrue(alg.isCompactRecommended());
+		assertEquals(3, alg.getTotalRemoved());
+		assertEquals(8, alg.getImagesDB().size);
+
+		alg.compact();
+		assertFalse(alg.isCompactRecommended());
+		assertEquals(5, alg.getImagesDB().size);
+		assertEquals(4, alg.getImagesDB().get(1));
+	}
+
 	/**
 	 * Creates a set of random features that are close to the means in the generated tree
 	 */
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.nister2006;
+
+import boofcv.alg.scene.bow.BowMatch;
+import boofcv.alg.scene.vocabtree.HierarchicalVocabularyTree;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static boofcv.alg.scene.nister2006.TestRecognitionVocabularyTreeNister2006.create2x2Tree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestRecognitionVocabularyTreeNister2006Sharded extends BoofStandardJUnit {
+	HierarchicalVocabularyTree<Point2D_F64> tree = create2x2Tree();
+	List<List<Point2D_F64>> images = new ArrayList<>();
+
+	TestRecognitionVocabularyTreeNister2006Sharded() {
+		for (int i = 0; i < 30; i++) {
+			images.add(createRandomImage());
+		}
+	}
+
+	/**
+	 * Results should be identical to a database which isn't sharded
+	 */
+	@Test void query_compareToSingle() {
+		RecognitionVocabularyTreeNister2006<Point2D_F64> single = createSingle();
+
+		for (int numShards : new int[]{1, 3}) {
+			for (boolean concurrent : new boolean[]{false, true}) {
+				BoofConcurrency.USE_CONCURRENT = concurrent;
+				RecognitionVocabularyTreeNister2006Sharded<Point2D_F64> alg = createSharded(numShards);
+				assertEquals(images.size(), alg.getTotalImages());
+
+				for (int i = 0; i < 10; i++) {
+					List<Point2D_F64> query = createRandomImage();
+					assertTrue(single.query(query, ( id ) -> id%4 != 0, 8));
+					assertTrue(alg.query(query, ( id ) -> id%4 != 0, 8));
+					compare(single.getMatches(), alg.getMatches());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Popular words need to be skipped using the total number of images in all shards
+	 */
+	@Test void query_maximumQueryImagesInNode() {
+		RecognitionVocabularyTreeNister2006<Point2D_F64> single = createSingle();
+		single.maximumQueryImagesInNode.setRelative(0.3, 1);
+
+		RecognitionVocabularyTreeNister2006Sharded<Point2D_F64> alg = createSharded(3);
+		alg.maximumQueryImagesInNode.setRelative(0.3, 1);
+
+		for (int i = 0; i < 10; i++) {
+			List<Point2D_F64> query = createRandomImage();
+			boolean found = single.query(query, null, 30);
+			assertEquals(found, alg.query(query, null, 30));
+			compare(single.getMatches(), alg.getMatches());
+		}
+	}
+
+	/**
+	 * Removed images should not count towards the number of images in a node, so results need to be the same as
+	 * a database which never had them
+	 */
+	@Test void removeImage_compareToRebuilt() {
+		var single = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		single.initializeTree(tree);
+		single.maximumQueryImagesInNode.setRelative(0.4, 1);
+		for (int i = 0; i < images.size(); i++) {
+			if (i%3 != 0)
+				single.addImage(i, images.get(i));
+		}
+
+		RecognitionVocabularyTreeNister2006Sharded<Point2D_F64> alg = createSharded(3);
+		alg.maximumQueryImagesInNode.setRelative(0.4, 1);
+		for (int i = 0; i < images.size(); i += 3) {
+			assertTrue(alg.removeImage(i));
+		}
+		assertEquals(single.getImagesDB().size, alg.getTotalImages());
+
+		for (int i = 0; i < 10; i++) {
+			List<Point2D_F64> query = createRandomImage();
+			boolean found = single.query(query, null, 30);
+			assertEquals(found, alg.query(query, null, 30));
+			compare(single.getMatches(), alg.getMatches());
+		}
+	}
+
+	/**
+	 * Batch query should produce the same results as querying one at a time
+	 */
+	@Test void queryBatch() {
+		RecognitionVocabularyTreeNister2006Sharded<Point2D_F64> alg = createSharded(3);
+
+		List<List<Point2D_F64>> queries = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			queries.add(createRandomImage());
+		}
+		// Empty images should not cause problems
+		queries.add(new ArrayList<>());
+
+		for (boolean concurrent : new boolean[]{false, true}) {
+			BoofConcurrency.USE_CONCURRENT = concurrent;
+			alg.queryBatch(queries, null, 5);
+			assertEquals(queries.size(), alg.getBatchMatches().size);
+
+			// Make a copy since query() might modify the batch results
+			List<DogArray<BowMatch>> batch = new ArrayList<>();
+			for (int i = 0; i < queries.size(); i++) {
+				var copy = new DogArray<>(BowMatch::new, BowMatch::reset);
+				alg.getBatchMatches().get(i).forEach(m -> {
+					BowMatch c = copy.grow();
+					c.identification = m.identification;
+					c.error = m.error;
+				});
+				batch.add(copy);
+			}
+
+			for (int i = 0; i < queries.size(); i++) {
+				alg.query(queries.get(i), null, 5);
+				compare(alg.getMatches(), batch.get(i));
+			}
+			assertEquals(0, batch.get(queries.size() - 1).size);
+		}
+	}
+
+	RecognitionVocabularyTreeNister2006<Point2D_F64> createSingle() {
+		var single = new RecognitionVocabularyTreeNister2006<Point2D_F64>();
+		single.initializeTree(tree);
+		for (int i = 0; i < images.size(); i++) {
+			single.addImage(i, images.get(i));
+		}
+		return single;
+	}
+
+	RecognitionVocabularyTreeNister2006Sharded<Point2D_F64> createSharded( int numShards ) {
+		var alg = new RecognitionVocabularyTreeNister2006Sharded<>(numShards, Point2D_F64::new);
+		alg.initializeTree(tree);
+		for (int i = 0; i < images.size(); i++) {
+			alg.addImage(i, images.get(i));
+		}
+		return alg;
+	}
+
+	void compare( DogArray<BowMatch> expected, DogArray<BowMatch> found ) {
+		assertEquals(expected.size, found.size);
+		for (int i = 0; i < expected.size; i++) {
+			assertEquals(expected.get(i).error, found.get(i).error);
+			// If the error is the same the order is ambiguous, as is which ones are selected at the limit
+			if (expected.get(i).error == expected.get(expected.size - 1).error)
+				continue;
+			if (i + 1 < expected.size && expected.get(i).error == expected.get(i + 1).error)
+				continue;
+			if (i > 0 && expected.get(i).error == expected.get(i - 1).error)
+				continue;
+			assertEquals(expected.get(i).identification, found.get(i).identification);
+		}
+	}
+
+	List<Point2D_F64> createRandomImage() {
+		var ret = new ArrayList<Point2D_F64>();
+		int N = 5 + rand.nextInt(10);
+		for (int i = 0; i < N; i++) {
+			ret.add(new Point2D_F64(rand.nextDouble()*12 - 6, rand.nextDouble()*3 - 1.5));
+		}
+		return ret;
+	}
+}
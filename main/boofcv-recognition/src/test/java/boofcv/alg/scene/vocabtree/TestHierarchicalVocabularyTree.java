@@ -57,6 +57,14 @@ public class TestHierarchicalVocabularyTree extends BoofStandardJUnit {
 		assertEquals(2, found.size());
 		assertEquals(0.0, tree.descriptions.getTemp(found.get(0).descIdx).distance(5,  0), UtilEjml.TEST_F64);
 		assertEquals(0.0, tree.descriptions.getTemp(found.get(1).descIdx).distance(5, -1), UtilEjml.TEST_F64);
+
+		// Providing storage should produce the same results
+		var storage = new Point2D_F64();
+		for (int i = 0; i < 20; i++) {
+			var p = new Point2D_F64(rand.nextGaussian()*6, rand.nextGaussian()*2);
+			assertEquals(tree.searchPathToLeaf(p, ( depth, node ) -> {}),
+					tree.searchPathToLeaf(p, storage, ( depth, node ) -> {}));
+		}
 	}
 
 	@Test void traverseGraphDepthFirst() {
@@ -33,6 +33,7 @@ import java.util.List;
 
 import static boofcv.alg.scene.vocabtree.TestHierarchicalVocabularyTree.createTree;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TestLearnHierarchicalTree extends BoofStandardJUnit {
@@ -113,6 +114,75 @@ class TestLearnHierarchicalTree extends BoofStandardJUnit {
 		assertEquals((int)Math.pow(tree.branchFactor, tree.maximumLevel), countLeaves(tree));
 	}
 
+	/**
+	 * K-means is applied to a sample of the points. The solution should still be found for well defined clusters
+	 */
+	@Test void maximumPointsForKMeans() {
+		var points = new Packed2D();
+		addCluster(30, -3, 0, points.list);
+		addCluster(30, -2, 0, points.list);
+		addCluster(30, 2, 0, points.list);
+		addCluster(30, 3, 0, points.list);
+
+		HierarchicalVocabularyTree<Point2D_F64> tree = createTree();
+		tree.branchFactor = 2;
+		tree.maximumLevel = 2;
+		LearnHierarchicalTree<Point2D_F64> alg = createAlg();
+		alg.maximumPointsForKMeans.setFixed(20);
+		alg.process(points, tree);
+
+		assertEquals(7, tree.nodes.size);
+		sanityCheckNodes(tree);
+		findNodeAt(tree, -3, 0, true);
+		findNodeAt(tree, -2, 0, true);
+		findNodeAt(tree, 2, 0, true);
+		findNodeAt(tree, 3, 0, true);
+	}
+
+	/**
+	 * Streaming the points should produce the same tree as when they are all in memory
+	 */
+	@Test void process_stream() {
+		var points = new Packed2D();
+		addCluster(10, -3, 0, points.list);
+		addCluster(10, -2, 0, points.list);
+		addCluster(10, 2, 0, points.list);
+		addCluster(10, 3, 0, points.list);
+
+		HierarchicalVocabularyTree<Point2D_F64> expected = createTree();
+		expected.branchFactor = 2;
+		expected.maximumLevel = 2;
+		createAlg().process(points, expected);
+
+		HierarchicalVocabularyTree<Point2D_F64> found = createTree();
+		found.branchFactor = 2;
+		found.maximumLevel = 2;
+		// Pass in an Iterable so that it will be streamed. Sample size is larger than the number of points
+		Iterable<Point2D_F64> stream = points.list::iterator;
+		LearnHierarchicalTree<Point2D_F64> alg = createAlg();
+		alg.maximumPointsForKMeans.setFixed(1000);
+		alg.process(stream, found);
+
+		assertEquals(expected.nodes.size, found.nodes.size);
+		for (int i = 0; i < expected.descriptions.size(); i++) {
+			assertEquals(0.0, expected.descriptions.getTemp(i).distance(found.descriptions.getTemp(i)), 1e-8);
+		}
+	}
+
+	/**
+	 * A relative sample size would require all the points to be loaded into memory
+	 */
+	@Test void process_stream_relativeSample() {
+		var points = new Packed2D();
+		addCluster(10, -3, 0, points.list);
+
+		HierarchicalVocabularyTree<Point2D_F64> tree = createTree();
+		Iterable<Point2D_F64> stream = points.list::iterator;
+		LearnHierarchicalTree<Point2D_F64> alg = createAlg();
+		alg.maximumPointsForKMeans.setRelative(0.5, 0);
+		assertThrows(IllegalArgumentException.class, () -> alg.process(stream, tree));
+	}
+
 	private static int countLeaves( HierarchicalVocabularyTree<?> tree ) {
 		int total = 0;
 		for (int i = 0; i < tree.nodes.size; i++) {
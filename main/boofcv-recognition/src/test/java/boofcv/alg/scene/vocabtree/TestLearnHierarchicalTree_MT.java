@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene.vocabtree;
+
+import boofcv.alg.scene.vocabtree.TestHierarchicalVocabularyTree.Packed2D;
+import boofcv.alg.scene.vocabtree.TestHierarchicalVocabularyTree.PointDistance2D;
+import boofcv.alg.scene.vocabtree.TestLearnHierarchicalTree.MeanPoint2D;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.clustering.FactoryClustering;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.scene.vocabtree.TestHierarchicalVocabularyTree.createTree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestLearnHierarchicalTree_MT extends BoofStandardJUnit {
+	/**
+	 * Compare to the single threaded version. Results should be identical
+	 */
+	@Test void compare() {
+		var points = new Packed2D();
+		for (int i = 0; i < 600; i++) {
+			points.list.add(new Point2D_F64(rand.nextGaussian()*2, rand.nextGaussian()*2));
+		}
+
+		for (int sampleSize : new int[]{0, 50}) {
+			HierarchicalVocabularyTree<Point2D_F64> expected = createTree();
+			expected.branchFactor = 3;
+			expected.maximumLevel = 4;
+			var single = new LearnHierarchicalTree<>(Packed2D::new,
+					() -> FactoryClustering.kMeans(null, new MeanPoint2D(), new PointDistance2D(), Point2D_F64::new),
+					0xBEEF);
+			if (sampleSize > 0)
+				single.maximumPointsForKMeans.setFixed(sampleSize);
+			single.process(points, expected);
+
+			HierarchicalVocabularyTree<Point2D_F64> found = createTree();
+			found.branchFactor = 3;
+			found.maximumLevel = 4;
+			var alg = new LearnHierarchicalTree_MT<>(Packed2D::new,
+					() -> FactoryClustering.kMeans(null, new MeanPoint2D(), new PointDistance2D(), Point2D_F64::new),
+					Point2D_F64::new, 0xBEEF);
+			if (sampleSize > 0)
+				alg.maximumPointsForKMeans.setFixed(sampleSize);
+			alg.process(points, found);
+
+			assertEquals(expected.nodes.size, found.nodes.size);
+			for (int i = 0; i < expected.nodes.size; i++) {
+				HierarchicalVocabularyTree.Node e = expected.nodes.get(i);
+				HierarchicalVocabularyTree.Node f = found.nodes.get(i);
+				assertEquals(e.parent, f.parent);
+				assertEquals(e.branch, f.branch);
+				assertEquals(e.descIdx, f.descIdx);
+			}
+			for (int i = 0; i < expected.descriptions.size(); i++) {
+				assertEquals(0.0, expected.descriptions.getTemp(i).distance(found.descriptions.getTemp(i)));
+			}
+		}
+	}
+}
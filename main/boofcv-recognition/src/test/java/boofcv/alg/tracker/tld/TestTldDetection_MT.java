@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.filter.derivative.FactoryDerivative;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayS16;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofStandardJUnit;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestTldDetection_MT extends BoofStandardJUnit {
+	/**
+	 * Track a moving textured image and see if the detection cascade produces identical results
+	 */
+	@Test void compareToSingle() {
+		var config = new ConfigTld();
+		TldTracker<GrayU8, GrayS16> single = createTracker(config, false);
+		TldTracker<GrayU8, GrayS16> alg = createTracker(config, true);
+		assertTrue(alg.getDetection() instanceof TldDetection_MT);
+
+		var background = new GrayU8(320, 240);
+		ImageMiscOps.fillUniform(background, rand, 0, 200);
+		var image = new GrayU8(background.width, background.height);
+		image.setTo(background);
+
+		single.initialize(image, 100, 80, 160, 140);
+		alg.initialize(image, 100, 80, 160, 140);
+
+		for (int frame = 1; frame < 6; frame++) {
+			int offset = frame*2;
+			ImageMiscOps.fill(image, 0);
+			ImageMiscOps.copy(0, 0, offset, offset, image.width - offset, image.height - offset, background, image);
+
+			assertEquals(single.track(image), alg.track(image));
+			assertEquals(single.getTargetRegion().p0.x, alg.getTargetRegion().p0.x);
+			assertEquals(single.getTargetRegion().p0.y, alg.getTargetRegion().p0.y);
+			assertEquals(single.getTargetRegion().p1.x, alg.getTargetRegion().p1.x);
+			assertEquals(single.getTargetRegion().p1.y, alg.getTargetRegion().p1.y);
+
+			TldDetection<GrayU8> expected = single.getDetection();
+			TldDetection<GrayU8> found = alg.getDetection();
+
+			DogArray<TldRegionFernInfo> expectedInfo = expected.getFernInfo();
+			DogArray<TldRegionFernInfo> foundInfo = found.getFernInfo();
+			assertTrue(expectedInfo.size > 0);
+			assertEquals(expectedInfo.size, foundInfo.size);
+			for (int i = 0; i < expectedInfo.size; i++) {
+				assertEquals(expectedInfo.get(i).sumP, foundInfo.get(i).sumP);
+				assertEquals(expectedInfo.get(i).sumN, foundInfo.get(i).sumN);
+				assertSameRect(expectedInfo.get(i).r, foundInfo.get(i).r);
+			}
+
+			DogArray<TldRegion> expectedCandidates = expected.getCandidateDetections();
+			DogArray<TldRegion> foundCandidates = found.getCandidateDetections();
+			assertEquals(expectedCandidates.size, foundCandidates.size);
+			for (int i = 0; i < expectedCandidates.size; i++) {
+				assertEquals(expectedCandidates.get(i).confidence, foundCandidates.get(i).confidence);
+				assertSameRect(expectedCandidates.get(i).rect, foundCandidates.get(i).rect);
+			}
+			assertEquals(expected.isSuccess(), found.isSuccess());
+		}
+	}
+
+	private void assertSameRect( ImageRectangle expected, ImageRectangle found ) {
+		assertEquals(expected.x0, found.x0);
+		assertEquals(expected.y0, found.y0);
+		assertEquals(expected.x1, found.x1);
+		assertEquals(expected.y1, found.y1);
+	}
+
+	private TldTracker<GrayU8, GrayS16> createTracker( ConfigTld config, boolean concurrent ) {
+		return new TldTracker<>(config,
+				FactoryInterpolation.bilinearPixelS(GrayU8.class, BorderType.EXTENDED),
+				FactoryDerivative.sobel(GrayU8.class, GrayS16.class),
+				GrayU8.class, GrayS16.class, concurrent);
+	}
+}
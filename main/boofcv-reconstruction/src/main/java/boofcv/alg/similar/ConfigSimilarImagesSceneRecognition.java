@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -53,6 +53,13 @@ public class ConfigSimilarImagesSceneRecognition implements Configuration {
 	/** Feature association */
 	public final ConfigAssociate associate = new ConfigAssociate();
 
+	/**
+	 * If true then image feature descriptions are stored in a temporary file instead of on the heap. This allows
+	 * very large datasets to be processed at the cost of speed. The file is created in "java.io.tmpdir" and is
+	 * deleted when the owner is closed, e.g. {@link SimilarImagesSceneRecognition#close()}, or the JVM exits.
+	 */
+	public boolean descriptionsOnDisk = false;
+
 	{
 		recognizeNister2006.learningMinimumPointsForChildren.setFixed(20);
 
@@ -120,6 +127,7 @@ public class ConfigSimilarImagesSceneRecognition implements Configuration {
 		this.features.setTo(src.features);
 		this.recognizeNister2006.setTo(src.recognizeNister2006);
 		this.associate.setTo(src.associate);
+		this.descriptionsOnDisk = src.descriptionsOnDisk;
 		return this;
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -69,6 +69,9 @@ public class ConfigSimilarImagesTrackThenMatch implements Configuration {
 	/** Feature association */
 	public final ConfigAssociate associate = new ConfigAssociate();
 
+	/** See {@link ConfigSimilarImagesSceneRecognition#descriptionsOnDisk} */
+	public boolean descriptionsOnDisk = false;
+
 	{
 		recognizeNister2006.learningMinimumPointsForChildren.setFixed(20);
 
@@ -97,6 +100,7 @@ public class ConfigSimilarImagesTrackThenMatch implements Configuration {
 		this.descriptions.setTo(src.descriptions);
 		this.recognizeNister2006.setTo(src.recognizeNister2006);
 		this.associate.setTo(src.associate);
+		this.descriptionsOnDisk = src.descriptionsOnDisk;
 		return this;
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -27,6 +27,7 @@ import boofcv.misc.BoofLambdas;
 import boofcv.misc.BoofMiscOps;
 import boofcv.struct.PackedArray;
 import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.PackedTupleDiskArray;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.packed.PackedArrayPoint2D_F64;
@@ -42,6 +43,7 @@ import org.ddogleg.struct.FastAccess;
 import org.ddogleg.struct.VerbosePrint;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
 import java.io.PrintStream;
 import java.util.*;
 
@@ -59,11 +61,13 @@ import java.util.*;
  * considering every possible image pair and trying to match them. The main down side is that it will not be
  * 100% reliable.
  *
+ * If descriptions are stored on disk then {@link #close()} should be called when finished to release the file.
+ *
  * @author Peter Abeles
  */
 @SuppressWarnings({"NullAway.Init"})
 public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD extends TupleDesc<TD>>
-		implements LookUpSimilarImages, VerbosePrint {
+		implements LookUpSimilarImages, VerbosePrint, Closeable {
 	/** Detects image features */
 	@Getter @Setter DetectDescribePoint<Image, TD> detector;
 
@@ -152,17 +156,11 @@ public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD ex
 	 * @param image The image
 	 */
 	public void addImage( String id, Image image ) {
-		imageToIndex.put(id, imageIDs.size());
-		imageIDs.add(id);
-
 		// Detect the point features
 		detector.detect(image);
 
 		int N = detector.getNumberOfFeatures();
-
-		// Record the first index and the number of features
-		imageFeatureStartIndexes.add(descriptions.size());
-		imageFeatureStartIndexes.add(N);
+		startImage(id, N);
 
 		// NOTE: Intentionally not pre-allocating and letting the data structure manage its memory
 		//       This is to avoid needing to constantly increase the array size
@@ -172,6 +170,33 @@ public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD ex
 		}
 	}
 
+	/**
+	 * Adds multiple images. Images are added in the same order as the list. Equivalent to calling
+	 * {@link #addImage} for each image.
+	 *
+	 * @param ids Unique ID for each image
+	 * @param loadImage Loads the image with the specified ID
+	 */
+	public void addImages( List<String> ids, BoofLambdas.ConvertOut<String, Image> loadImage ) {
+		for (int i = 0; i < ids.size(); i++) {
+			String id = ids.get(i);
+			addImage(id, loadImage.process(id));
+		}
+	}
+
+	/**
+	 * Records the image's ID and where its features are stored. The image's features must be appended
+	 * immediately after this is called.
+	 */
+	protected void startImage( String id, int numFeatures ) {
+		imageToIndex.put(id, imageIDs.size());
+		imageIDs.add(id);
+
+		// Record the first index and the number of features
+		imageFeatureStartIndexes.add(descriptions.size());
+		imageFeatureStartIndexes.add(numFeatures);
+	}
+
 	/**
 	 * After all the images you wish to look up have been added call this function. If you add more images after
 	 * calling fixate you will need to call it again.
@@ -226,10 +251,6 @@ public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD ex
 		viewId_to_info.clear();
 		pairInfo.reset();
 
-		// Get the location of this image's features
-		int targetFeatureOffset = imageFeatureStartIndexes.get(imageIndex*2);
-		int targetFeatureSize = imageFeatureStartIndexes.get(imageIndex*2 + 1);
-
 		// Look up similar images
 		if (!recognizer.query(createFeaturesLambda(imageIndex), filter, limitMatchesConsider, sceneMatches)) {
 			if (verbose != null) verbose.printf("image[%d] cbir found no matches\n", imageIndex);
@@ -238,6 +259,21 @@ public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD ex
 
 		if (verbose != null) verbose.printf("image[%d].cbir_matches.size=%d\n", imageIndex, sceneMatches.size);
 
+		associateMatches(imageIndex, similarImages);
+	}
+
+	/**
+	 * Associates features in the target image against features in each image found by the recognizer. If the
+	 * images pass the similarity test they are added to the list and the associated pairs are saved.
+	 *
+	 * @param imageIndex Index of the target image
+	 * @param similarImages (Output) IDs of images which are similar
+	 */
+	protected void associateMatches( int imageIndex, List<String> similarImages ) {
+		// Get the location of this image's features
+		int targetFeatureOffset = imageFeatureStartIndexes.get(imageIndex*2);
+		int targetFeatureSize = imageFeatureStartIndexes.get(imageIndex*2 + 1);
+
 		// Initialize association
 		asscociator.initialize(recognizer.getTotalWords());
 
@@ -377,6 +413,15 @@ public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD ex
 		};
 	}
 
+	/**
+	 * Releases resources used to store image feature descriptions, e.g. the file used by a
+	 * {@link PackedTupleDiskArray}. This instance can't be used after this has been called.
+	 */
+	@Override public void close() {
+		if (descriptions instanceof PackedTupleDiskArray<?> disk)
+			disk.close();
+	}
+
 	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> options ) {
 		this.verbose = BoofMiscOps.addPrefix(this, out);
 		BoofMiscOps.verboseChildren(verbose, options, recognizer);
@@ -396,7 +441,7 @@ public class SimilarImagesSceneRecognition<Image extends ImageBase<Image>, TD ex
 
 	/**
 	 * Contains logic for deciding if two images are similar or not from associated features and their image
-	 * coordinates.
+	 * coordinates. Must be thread safe if used with {@link SimilarImagesSceneRecognition_MT}.
 	 */
 	public interface SimilarityTest {
 		boolean isSimilar( FastAccess<Point2D_F64> srcPixels,
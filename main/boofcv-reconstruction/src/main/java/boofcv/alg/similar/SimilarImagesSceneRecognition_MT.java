@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.similar;
+
+import boofcv.abst.feature.associate.AssociateDescriptionHashSets;
+import boofcv.abst.feature.detdesc.DetectDescribePoint;
+import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.abst.scene.SceneRecognition;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.PackedArray;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.image.ImageBase;
+import georegression.struct.point.Point2D_F64;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.FastAccess;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * <p>Concurrent implementation of {@link SimilarImagesSceneRecognition}. When adding multiple images with
+ * {@link #addImages} they are loaded and described in parallel in batches, then their features are added
+ * in the same order as the input list. When looking up similar images the recognizer is queried in a single
+ * thread, then features in the target image are associated against each candidate image in parallel.
+ * The output is identical to the single threaded algorithm.</p>
+ *
+ * <p>{@link FeatureSceneRecognition} is not thread safe. The word each image feature belongs to is
+ * looked up once when {@link #fixate()} is called and saved so that it can be used when associating in
+ * parallel.</p>
+ *
+ * @author Peter Abeles
+ */
+public class SimilarImagesSceneRecognition_MT<Image extends ImageBase<Image>, TD extends TupleDesc<TD>>
+		extends SimilarImagesSceneRecognition<Image, TD> {
+	/**
+	 * Number of images which are loaded and described at once. Limits how much memory is used to store images
+	 * and features before they are added.
+	 */
+	@Getter @Setter int batchSize = 50;
+
+	// Creates the associators used by each thread
+	BoofLambdas.Factory<AssociateDescriptionHashSets<TD>> factoryAssociator;
+
+	// Word for every feature in every image. Same order as the packed arrays
+	final DogArray_I32 featureWords = new DogArray_I32();
+
+	// Storage for features found in a batch of images
+	final DogArray<ImageFeatures> batchFeatures = new DogArray<>(ImageFeatures::new, ImageFeatures::reset);
+
+	// Images found by the recognizer which will be associated
+	final DogArray<Candidate> candidates = new DogArray<>(Candidate::new, Candidate::reset);
+
+	// Words for each feature in the target image
+	final DogArray_I32 sourceWords = new DogArray_I32();
+
+	// Workspace for each thread
+	final GrowArray<DetectDescribePoint<Image, TD>> detectors;
+	final GrowArray<AssociateWork> workspace = new GrowArray<>(AssociateWork::new);
+
+	/**
+	 * @param factoryDetector Creates new instances of the detector
+	 * @param factoryAssociator Creates new instances of the associator
+	 * @param recognizer Looks up similar images and provides words for each image feature
+	 * @param factoryPackedDesc Creates the array which stores all the image feature descriptions
+	 */
+	public SimilarImagesSceneRecognition_MT( BoofLambdas.Factory<DetectDescribePoint<Image, TD>> factoryDetector,
+											 BoofLambdas.Factory<AssociateDescriptionHashSets<TD>> factoryAssociator,
+											 FeatureSceneRecognition<TD> recognizer,
+											 BoofLambdas.Factory<PackedArray<TD>> factoryPackedDesc ) {
+		super(factoryDetector.newInstance(), factoryAssociator.newInstance(), recognizer, factoryPackedDesc);
+		this.factoryAssociator = factoryAssociator;
+		this.detectors = new GrowArray<>(factoryDetector::newInstance);
+	}
+
+	/**
+	 * Loads and describes the images in parallel. The image loader must be thread safe.
+	 *
+	 * @param ids Unique ID for each image
+	 * @param loadImage Loads the image with the specified ID. Called from multiple threads.
+	 */
+	@Override public void addImages( List<String> ids, BoofLambdas.ConvertOut<String, Image> loadImage ) {
+		for (int batch0 = 0; batch0 < ids.size(); batch0 += batchSize) {
+			final int offset = batch0;
+			batchFeatures.resize(Math.min(batchSize, ids.size() - batch0));
+
+			BoofConcurrency.loopBlocks(0, batchFeatures.size, detectors, ( detector, idx0, idx1 ) -> {
+				for (int i = idx0; i < idx1; i++) {
+					detector.detect(loadImage.process(ids.get(offset + i)));
+					batchFeatures.get(i).setTo(detector);
+				}
+			});
+
+			// Add the features in the same order as the images so that the result doesn't depend on threads
+			for (int i = 0; i < batchFeatures.size; i++) {
+				ImageFeatures features = batchFeatures.get(i);
+				startImage(ids.get(offset + i), features.pixels.size);
+				for (int featIdx = 0; featIdx < features.pixels.size; featIdx++) {
+					descriptions.append(features.descriptions.get(featIdx));
+					pixels.append(features.pixels.get(featIdx));
+				}
+			}
+		}
+		batchFeatures.reset();
+	}
+
+	@Override public void fixate() {
+		super.fixate();
+		lookupFeatureWords();
+	}
+
+	/**
+	 * Looks up the word for every image feature. Recognizers are not thread safe so this is done in one thread.
+	 */
+	void lookupFeatureWords() {
+		featureWords.resize(descriptions.size());
+		for (int i = 0; i < featureWords.size; i++) {
+			featureWords.data[i] = recognizer.lookupWord(descriptions.getTemp(i));
+		}
+	}
+
+	@Override protected void associateMatches( int imageIndex, List<String> similarImages ) {
+		// Features were added without calling fixate()
+		if (featureWords.size != descriptions.size())
+			lookupFeatureWords();
+
+		int targetFeatureOffset = imageFeatureStartIndexes.get(imageIndex*2);
+		int targetFeatureSize = imageFeatureStartIndexes.get(imageIndex*2 + 1);
+		int totalWords = recognizer.getTotalWords();
+
+		// Words in the query can differ from the saved words and are only available from the recognizer
+		sourceWords.resize(targetFeatureSize);
+		for (int i = 0; i < targetFeatureSize; i++) {
+			sourceWords.data[i] = recognizer.getQueryWord(i);
+		}
+
+		candidates.reset();
+		for (int matchIndex = 0; matchIndex < sceneMatches.size; matchIndex++) {
+			SceneRecognition.Match match = sceneMatches.get(matchIndex);
+			int imageIndexMatch = imageToIndex.get(match.id);
+			if (imageIndex == imageIndexMatch)
+				continue;
+			Candidate c = candidates.grow();
+			c.id = match.id;
+			c.imageIndex = imageIndexMatch;
+		}
+
+		BoofConcurrency.loopBlocks(0, candidates.size, workspace, ( work, idx0, idx1 ) -> {
+			work.loadSource(targetFeatureOffset, targetFeatureSize, totalWords);
+			for (int i = idx0; i < idx1; i++) {
+				work.associate(candidates.get(i));
+			}
+		});
+
+		// Save the results in the same order as the single threaded algorithm
+		for (int i = 0; i < candidates.size; i++) {
+			Candidate c = candidates.get(i);
+
+			if (verbose != null) {
+				verbose.printf("_ dst.size=%d associated[%d].size=%d",
+						c.numFeatures, c.imageIndex, c.associated.size);
+			}
+
+			if (!c.similar) {
+				if (verbose != null) verbose.println();
+				continue;
+			}
+
+			similarImages.add(c.id);
+
+			PairInfo info = pairInfo.grow();
+			info.associated.copyAll(c.associated.toList(), ( original, copy ) -> copy.setTo(original));
+			viewId_to_info.put(c.id, info);
+
+			if (verbose != null) verbose.println(" accepted");
+		}
+	}
+
+	/** Image features copied from a detector */
+	class ImageFeatures {
+		final DogArray<TD> descriptions = new DogArray<>(tempDescription::newInstance);
+		final DogArray<Point2D_F64> pixels = new DogArray<>(Point2D_F64::new);
+
+		public void setTo( DetectDescribePoint<Image, TD> detector ) {
+			int N = detector.getNumberOfFeatures();
+			descriptions.resize(N);
+			pixels.resize(N);
+			for (int i = 0; i < N; i++) {
+				descriptions.get(i).setTo(detector.getDescription(i));
+				pixels.get(i).setTo(detector.getLocation(i));
+			}
+		}
+
+		public void reset() {
+			descriptions.reset();
+			pixels.reset();
+		}
+	}
+
+	/** An image found by the recognizer and the results of associating it with the target */
+	static class Candidate {
+		String id = "";
+		int imageIndex;
+		// Number of features in the candidate image
+		int numFeatures;
+		// If it passed the similarity test
+		boolean similar;
+		final DogArray<AssociatedIndex> associated = new DogArray<>(AssociatedIndex::new);
+
+		public void reset() {
+			id = "";
+			imageIndex = -1;
+			numFeatures = 0;
+			similar = false;
+			associated.reset();
+		}
+	}
+
+	/** Storage for associating the target with candidates in a single thread */
+	class AssociateWork {
+		final AssociateDescriptionHashSets<TD> associator = factoryAssociator.newInstance();
+
+		final DogArray<TD> srcDescriptions = new DogArray<>(tempDescription::newInstance);
+		final DogArray<Point2D_F64> srcPixels = new DogArray<>(Point2D_F64::new);
+		final DogArray<TD> dstDescriptions = new DogArray<>(tempDescription::newInstance);
+		final DogArray<Point2D_F64> dstPixels = new DogArray<>(Point2D_F64::new);
+
+		AssociateWork() {
+			// Same settings as the associator in the single threaded algorithm
+			associator.createNewSetsFromSource = true;
+			associator.createNewSetsFromDestination = false;
+		}
+
+		void loadSource( int offset, int size, int totalWords ) {
+			associator.initialize(totalWords);
+
+			srcDescriptions.reset();
+			srcPixels.reset();
+			for (int i = 0; i < size; i++) {
+				TD desc = srcDescriptions.grow();
+				descriptions.getCopy(offset + i, desc);
+				pixels.getCopy(offset + i, srcPixels.grow());
+				associator.addSource(desc, sourceWords.get(i));
+			}
+		}
+
+		void associate( Candidate c ) {
+			int offset = imageFeatureStartIndexes.get(c.imageIndex*2);
+			int size = imageFeatureStartIndexes.get(c.imageIndex*2 + 1);
+
+			associator.clearDestination();
+			dstDescriptions.reset();
+			dstPixels.reset();
+			for (int i = 0; i < size; i++) {
+				TD desc = dstDescriptions.grow();
+				descriptions.getCopy(offset + i, desc);
+				pixels.getCopy(offset + i, dstPixels.grow());
+				associator.addDestination(desc, featureWords.get(offset + i));
+			}
+			associator.associate();
+
+			FastAccess<AssociatedIndex> matches = associator.getMatches();
+			c.numFeatures = size;
+			c.similar = similarityTest.isSimilar(srcPixels, dstPixels, matches);
+			c.associated.resize(matches.size);
+			for (int i = 0; i < matches.size; i++) {
+				c.associated.get(i).setTo(matches.get(i));
+			}
+		}
+	}
+}
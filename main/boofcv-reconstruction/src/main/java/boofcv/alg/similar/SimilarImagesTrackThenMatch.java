@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -27,6 +27,7 @@ import boofcv.misc.BoofLambdas;
 import boofcv.misc.BoofMiscOps;
 import boofcv.struct.PackedArray;
 import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.PackedTupleDiskArray;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.image.ImageBase;
 import georegression.struct.point.Point2D_F64;
@@ -38,6 +39,7 @@ import org.ddogleg.struct.FastAccess;
 import org.ddogleg.struct.VerbosePrint;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
 import java.io.PrintStream;
 import java.util.*;
 
@@ -46,11 +48,13 @@ import java.util.*;
  * loops. Association results are saved and memory usage will grow approximately linearly with the number of
  * images.
  *
+ * If descriptions are stored on disk then {@link #close()} should be called when finished to release the file.
+ *
  * @author Peter Abeles
  */
 @SuppressWarnings({"NullAway.Init"})
 public class SimilarImagesTrackThenMatch<Image extends ImageBase<Image>, TD extends TupleDesc<TD>>
-		extends SimilarImagesFromTracks<PointTrack> implements VerbosePrint {
+		extends SimilarImagesFromTracks<PointTrack> implements VerbosePrint, Closeable {
 
 	// TODO if matched frames have common tracks save those in the associations
 	// TODO cache association results from recognition
@@ -423,6 +427,15 @@ public class SimilarImagesTrackThenMatch<Image extends ImageBase<Image>, TD exte
 		return Integer.parseInt(id);
 	}
 
+	/**
+	 * Releases resources used to store image feature descriptions, e.g. the file used by a
+	 * {@link PackedTupleDiskArray}. This instance can't be used after this has been called.
+	 */
+	@Override public void close() {
+		if (descriptions instanceof PackedTupleDiskArray<?> disk)
+			disk.close();
+	}
+
 	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> options ) {
 		this.verbose = BoofMiscOps.addPrefix(this, out);
 		BoofMiscOps.verboseChildren(out, options, recognizer);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -25,6 +25,7 @@ import boofcv.struct.geo.AssociatedPair;
 import georegression.struct.point.Point2D_F64;
 import lombok.Getter;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_F64;
 import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.VerbosePrint;
 import org.ejml.data.DMatrixRMaj;
@@ -50,7 +51,10 @@ public class GeneratePairwiseImageGraph implements VerbosePrint {
 	/** Used to score if the two views have a 3D relationship or not */
 	public final @Getter EpipolarScore3D epipolarScore;
 
-	private @Nullable PrintStream verbose;
+	/** Time in milliseconds it took to score each edge. Same order as the edges in the graph */
+	public final @Getter DogArray_F64 edgeTimeMS = new DogArray_F64();
+
+	protected @Nullable PrintStream verbose;
 
 	//--------- Internal Workspace
 
@@ -79,6 +83,7 @@ public class GeneratePairwiseImageGraph implements VerbosePrint {
 	public void process( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCams ) {
 		this.imageIds = dbSimilar.getImageIDs();
 		this.graph.reset();
+		this.edgeTimeMS.reset();
 
 		List<String> similar = new ArrayList<>();
 		matches.reset();
@@ -158,18 +163,40 @@ public class GeneratePairwiseImageGraph implements VerbosePrint {
 		dbCams.lookupCalibration(dst, priorB);
 		boolean sameCamera = dbCams.viewToCamera(src) == dbCams.viewToCamera(dst);
 
-		if (verbose != null)
-			verbose.printf("_ createEdge['%s'] -> '%s', prior: src={fx=%.1f cx=%.1f cy=%.1f}  dst={fx=%.1f cx=%.1f cy=%.1f} \n",
-					src, dst, priorA.fx, priorA.cx, priorA.cy, priorB.fx, priorB.cx, priorB.cy);
+		printPriors(src, dst, priorA, priorB);
 
 		// Pass in null if it's the same camera so that score algorithm will know it's dealing with a single camera
+		long time0 = System.nanoTime();
 		epipolarScore.process(priorA, sameCamera ? null : priorB,
 				srcFeats.size, dstFeats.size,
 				pairs.toList(), fundamental, inlierIdx);
+		long time1 = System.nanoTime();
+
+		addEdge(src, dst, epipolarScore.is3D(), epipolarScore.getScore(), inlierIdx, matches, (time1 - time0)*1e-6);
+	}
+
+	/**
+	 * Adds an edge to the graph which connects the two views
+	 *
+	 * @param src ID of src image
+	 * @param dst ID of dst image
+	 * @param is3D If the two views have a 3D relationship
+	 * @param score3D Score for how 3D the relationship is
+	 * @param inlierIdx Which matches are inliers
+	 * @param matches Associated features feature indexes
+	 * @param timeMS How long it took to score the pair
+	 */
+	protected void addEdge( String src, String dst, boolean is3D, double score3D,
+							DogArray_I32 inlierIdx, DogArray<AssociatedIndex> matches, double timeMS ) {
+		if (verbose != null)
+			verbose.printf("_ edge['%s'] -> '%s', is3D=%s score=%.2f inliers=%d time=%.1f (ms)\n",
+					src, dst, is3D, score3D, inlierIdx.size, timeMS);
+
+		edgeTimeMS.add(timeMS);
 
 		PairwiseImageGraph.Motion edge = graph.edges.grow();
-		edge.is3D = epipolarScore.is3D();
-		edge.score3D = epipolarScore.getScore();
+		edge.is3D = is3D;
+		edge.score3D = score3D;
 		edge.index = graph.edges.size - 1;
 		edge.src = graph.lookupNode(src);
 		edge.dst = graph.lookupNode(dst);
@@ -183,6 +210,12 @@ public class GeneratePairwiseImageGraph implements VerbosePrint {
 		}
 	}
 
+	protected void printPriors( String src, String dst, CameraPinholeBrown priorA, CameraPinholeBrown priorB ) {
+		if (verbose != null)
+			verbose.printf("_ createEdge['%s'] -> '%s', prior: src={fx=%.1f cx=%.1f cy=%.1f}  dst={fx=%.1f cx=%.1f cy=%.1f} \n",
+					src, dst, priorA.fx, priorA.cx, priorA.cy, priorB.fx, priorB.cx, priorB.cy);
+	}
+
 	@Override
 	public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
 		this.verbose = BoofMiscOps.addPrefix(this, out);
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.geo.AssociatedPair;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Concurrent implementation of {@link GeneratePairwiseImageGraph}. Similar images and their associated
+ * features are looked up in a single thread, since {@link LookUpSimilarImages} is not thread safe, and
+ * copied into a batch. Once the batch is full every image pair in it is scored in parallel.</p>
+ *
+ * <p>Each {@link EpipolarScore3D} has internal state, e.g. the RANSAC random number generator. To make the
+ * results independent of the number of threads, image pairs are assigned to scorers in a round robin fashion
+ * and each scorer processes its image pairs in the same order as the single threaded algorithm. Edges are
+ * added to the graph in the same order too. With one scorer the output is identical to
+ * {@link GeneratePairwiseImageGraph}. Since scorers can't be reseeded, pairs are not dynamically load balanced,
+ * as that would make the graph depend on timing, and a slow pair will delay the other pairs of its scorer.
+ * See {@link boofcv.factory.structure.ConfigGeneratePairwiseImageGraph#concurrentScorers}.</p>
+ *
+ * @author Peter Abeles
+ */
+public class GeneratePairwiseImageGraph_MT extends GeneratePairwiseImageGraph {
+	/** Number of image pairs which are collected before they are scored */
+	@Getter @Setter int batchSize = 200;
+
+	// Scorer for each lane. The first one is the same instance as the one in the parent
+	final List<EpipolarScore3D> scorers = new ArrayList<>();
+
+	// Image pairs which are waiting to be scored
+	final DogArray<PairWork> batch = new DogArray<>(PairWork::new);
+
+	// Number of image pairs which have been assigned to a scorer
+	int totalPairs;
+
+	/**
+	 * @param factory Creates new instances of the scorer
+	 * @param numScorers Number of scorers. The graph depends on this value but not on the number of threads.
+	 */
+	public GeneratePairwiseImageGraph_MT( BoofLambdas.Factory<EpipolarScore3D> factory, int numScorers ) {
+		super(factory.newInstance());
+		if (numScorers <= 0)
+			throw new IllegalArgumentException("Must have at least one scorer");
+		scorers.add(epipolarScore);
+		for (int i = 1; i < numScorers; i++) {
+			scorers.add(factory.newInstance());
+		}
+	}
+
+	@Override
+	public void process( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCams ) {
+		batch.reset();
+		totalPairs = 0;
+		super.process(dbSimilar, dbCams);
+		scoreBatch();
+	}
+
+	/**
+	 * Copies everything that's needed to score the image pair into the batch. Once the batch is full
+	 * it's scored and the edges are created.
+	 */
+	@Override
+	protected void createEdge( LookUpCameraInfo dbCams,
+							   String src, String dst,
+							   DogArray<AssociatedPair> pairs, DogArray<AssociatedIndex> matches ) {
+		PairWork work = batch.grow();
+		work.scorer = totalPairs++%scorers.size();
+		work.src = src;
+		work.dst = dst;
+		dbCams.lookupCalibration(src, work.priorA);
+		dbCams.lookupCalibration(dst, work.priorB);
+		work.sameCamera = dbCams.viewToCamera(src) == dbCams.viewToCamera(dst);
+		work.featuresA = srcFeats.size;
+		work.featuresB = dstFeats.size;
+
+		work.pairs.reset();
+		for (int i = 0; i < pairs.size; i++) {
+			work.pairs.grow().setTo(pairs.get(i));
+		}
+		work.matches.reset();
+		for (int i = 0; i < matches.size; i++) {
+			work.matches.grow().setTo(matches.get(i));
+		}
+
+		printPriors(src, dst, work.priorA, work.priorB);
+
+		if (batch.size >= batchSize)
+			scoreBatch();
+	}
+
+	/**
+	 * Scores all the image pairs in the batch then adds them to the graph in the order they were found
+	 */
+	void scoreBatch() {
+		BoofConcurrency.loopFor(0, scorers.size(), scorerIdx -> {
+			EpipolarScore3D scorer = scorers.get(scorerIdx);
+			for (int i = 0; i < batch.size; i++) {
+				PairWork work = batch.get(i);
+				if (work.scorer != scorerIdx)
+					continue;
+
+				long time0 = System.nanoTime();
+				scorer.process(work.priorA, work.sameCamera ? null : work.priorB,
+						work.featuresA, work.featuresB, work.pairs.toList(), work.fundamental, work.inlierIdx);
+				long time1 = System.nanoTime();
+
+				work.is3D = scorer.is3D();
+				work.score3D = scorer.getScore();
+				work.timeMS = (time1 - time0)*1e-6;
+			}
+		});
+
+		for (int i = 0; i < batch.size; i++) {
+			PairWork work = batch.get(i);
+			addEdge(work.src, work.dst, work.is3D, work.score3D, work.inlierIdx, work.matches, work.timeMS);
+		}
+		batch.reset();
+	}
+
+	/** Storage for an image pair which is waiting to be scored */
+	static class PairWork {
+		// Which scorer will process this pair
+		int scorer;
+		String src = "";
+		String dst = "";
+
+		final CameraPinholeBrown priorA = new CameraPinholeBrown(2);
+		final CameraPinholeBrown priorB = new CameraPinholeBrown(2);
+		boolean sameCamera;
+		int featuresA, featuresB;
+
+		final DogArray<AssociatedPair> pairs = new DogArray<>(AssociatedPair::new);
+		final DogArray<AssociatedIndex> matches = new DogArray<>(AssociatedIndex::new);
+
+		// Output of the scorer
+		final DMatrixRMaj fundamental = new DMatrixRMaj(3, 3);
+		final DogArray_I32 inlierIdx = new DogArray_I32();
+		boolean is3D;
+		double score3D;
+		double timeMS;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -59,6 +59,13 @@ public class SparseSceneToDenseCloud<T extends ImageGray<T>> {
 		mvs = new MultiViewStereoFromKnownSceneStructure<>(ImageType.single(imageType));
 	}
 
+	/**
+	 * @param mvs The MVS algorithm used to compute the dense cloud
+	 */
+	public SparseSceneToDenseCloud( MultiViewStereoFromKnownSceneStructure<T> mvs ) {
+		this.mvs = mvs;
+	}
+
 	/**
 	 * Uses the given sparse scene to compute a dense 3D cloud
 	 *
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -18,6 +18,7 @@
 
 package boofcv.factory.structure;
 
+import boofcv.misc.BoofMiscOps;
 import boofcv.struct.Configuration;
 
 /**
@@ -29,12 +30,22 @@ public class ConfigGeneratePairwiseImageGraph implements Configuration {
 	/** Configuration for how quality of 3D information between two views is scored */
 	public final ConfigEpipolarScore3D score = new ConfigEpipolarScore3D();
 
+	/**
+	 * Number of image pairs which are scored in parallel when concurrency is turned on. Image pairs are assigned
+	 * to scorers in a round robin fashion, so the graph depends on this value but not on the number of threads.
+	 * Each scorer has its own RANSAC random number generator, so if this is more than 1 the graph will differ from
+	 * the single threaded version. The default of 1 disables concurrent scoring.
+	 */
+	public int concurrentScorers = 1;
+
 	@Override public void checkValidity() {
 		score.checkValidity();
+		BoofMiscOps.checkTrue(concurrentScorers > 0);
 	}
 
 	public ConfigGeneratePairwiseImageGraph setTo( ConfigGeneratePairwiseImageGraph src ) {
 		this.score.setTo(src.score);
+		this.concurrentScorers = src.concurrentScorers;
 		return this;
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,19 +21,23 @@ package boofcv.factory.structure;
 import boofcv.abst.feature.associate.AssociateDescriptionHashSets;
 import boofcv.abst.feature.describe.DescribePoint;
 import boofcv.abst.feature.describe.DescribePointRadiusAngle;
+import boofcv.abst.feature.describe.DescriptorInfo;
 import boofcv.abst.feature.detdesc.DetectDescribePoint;
 import boofcv.abst.geo.bundle.MetricBundleAdjustmentUtils;
 import boofcv.abst.scene.FeatureSceneRecognition;
 import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure;
+import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure_MT;
 import boofcv.alg.similar.*;
 import boofcv.alg.structure.EpipolarScore3D;
 import boofcv.alg.structure.GeneratePairwiseImageGraph;
+import boofcv.alg.structure.GeneratePairwiseImageGraph_MT;
 import boofcv.alg.structure.GenerateStereoPairGraphFromScene;
 import boofcv.alg.structure.SparseSceneToDenseCloud;
 import boofcv.alg.structure.score3d.ScoreFundamentalHomographyCompatibility;
 import boofcv.alg.structure.score3d.ScoreFundamentalVsRotation;
 import boofcv.alg.structure.score3d.ScoreRatioFundamentalHomography;
 import boofcv.alg.video.SelectFramesForReconstruction3D;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.disparity.FactoryStereoDisparity;
 import boofcv.factory.feature.associate.FactoryAssociation;
 import boofcv.factory.feature.describe.FactoryDescribePoint;
@@ -44,6 +48,8 @@ import boofcv.factory.scene.FactorySceneRecognition;
 import boofcv.factory.sfm.ConfigBundleUtils;
 import boofcv.factory.struct.FactoryTupleDesc;
 import boofcv.factory.tracker.FactoryPointTracker;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.PackedArray;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.feature.TupleDesc_F64;
 import boofcv.struct.geo.AssociatedPair;
@@ -79,12 +85,19 @@ public class FactorySceneReconstruction {
 	}
 
 	/**
-	 * Creates {@link GeneratePairwiseImageGraph}
+	 * Creates {@link GeneratePairwiseImageGraph}. If concurrency is turned on and
+	 * {@link ConfigGeneratePairwiseImageGraph#concurrentScorers} is more than 1 then
+	 * {@link GeneratePairwiseImageGraph_MT} is returned, which produces a different graph.
 	 */
 	public static GeneratePairwiseImageGraph generatePairwise( @Nullable ConfigGeneratePairwiseImageGraph config ) {
 		if (config == null)
 			config = new ConfigGeneratePairwiseImageGraph();
 
+		if (BoofConcurrency.USE_CONCURRENT && config.concurrentScorers > 1) {
+			ConfigEpipolarScore3D configScore = config.score;
+			return new GeneratePairwiseImageGraph_MT(() -> epipolarScore3D(configScore), config.concurrentScorers);
+		}
+
 		EpipolarScore3D scorer = epipolarScore3D(config.score);
 
 		return new GeneratePairwiseImageGraph(scorer);
@@ -142,18 +155,30 @@ public class FactorySceneReconstruction {
 
 		Class<T> grayType = imageType.getImageClass();
 
-		SparseSceneToDenseCloud<T> s2c = new SparseSceneToDenseCloud<>(grayType);
-		MultiViewStereoFromKnownSceneStructure<T> mvs = s2c.getMultiViewStereo();
+		MultiViewStereoFromKnownSceneStructure<T> mvs;
+		if (BoofConcurrency.USE_CONCURRENT) {
+			// Each thread needs its own stereo algorithm
+			ConfigSparseToDenseCloud _config = config;
+			var mvsMT = new MultiViewStereoFromKnownSceneStructure_MT<>(ImageType.single(grayType),
+					() -> FactoryStereoDisparity.generic(_config.disparity, grayType, GrayF32.class),
+					() -> FactoryStereoDisparity.removeSpeckle(_config.smoother, GrayF32.class));
+			mvsMT.maxMemoryBytes = config.mvs.maxConcurrentMemoryMB*1024L*1024L;
+			mvsMT.getImageCache().setMaxBytes(config.mvs.imageCacheMB*1024L*1024L);
+			mvs = mvsMT;
+		} else {
+			mvs = new MultiViewStereoFromKnownSceneStructure<>(ImageType.single(grayType));
+			mvs.setStereoDisparity(FactoryStereoDisparity.generic(
+					config.disparity, grayType, GrayF32.class));
+			mvs.getComputeFused().setDisparitySmoother(
+					FactoryStereoDisparity.removeSpeckle(config.smoother, GrayF32.class));
+		}
+
+		SparseSceneToDenseCloud<T> s2c = new SparseSceneToDenseCloud<>(mvs);
 
 		mvs.minimumQuality3D = config.mvs.minimumQuality3D;
 		mvs.maximumCenterOverlap = config.mvs.maximumCenterOverlap;
 		mvs.maxCombinePairs = config.mvs.maxCombinePairs;
 
-		mvs.setStereoDisparity(FactoryStereoDisparity.generic(
-				config.disparity, grayType, GrayF32.class));
-		mvs.getComputeFused().setDisparitySmoother(
-				FactoryStereoDisparity.removeSpeckle(config.smoother, GrayF32.class));
-
 		GenerateStereoPairGraphFromScene generateGraph = s2c.getGenerateGraph();
 
 		generateGraph.targetDisparity = config.graph.targetDisparity;
@@ -178,11 +203,21 @@ public class FactorySceneReconstruction {
 		FeatureSceneRecognition<TD> recognitizer =
 				FactorySceneRecognition.createSceneNister2006(config.recognizeNister2006, detector::createDescription);
 
-		AssociateDescriptionHashSets<TD> associator = new AssociateDescriptionHashSets<>(
-				FactoryAssociation.generic(config.associate, detector));
+		BoofLambdas.Factory<PackedArray<TD>> factoryPackedDesc = createPackedDescriptions(config.descriptionsOnDisk, detector);
+
+		SimilarImagesSceneRecognition<Image, TD> similar;
+		if (BoofConcurrency.USE_CONCURRENT) {
+			ConfigSimilarImagesSceneRecognition _config = config;
+			similar = new SimilarImagesSceneRecognition_MT<>(
+					() -> FactoryDetectDescribe.generic(_config.features, imageType.getImageClass()),
+					() -> new AssociateDescriptionHashSets<>(FactoryAssociation.generic(_config.associate, detector)),
+					recognitizer, factoryPackedDesc);
+		} else {
+			AssociateDescriptionHashSets<TD> associator = new AssociateDescriptionHashSets<>(
+					FactoryAssociation.generic(config.associate, detector));
 
-		var similar = new SimilarImagesSceneRecognition<>(detector, associator, recognitizer,
-				() -> FactoryTupleDesc.createPacked(detector));
+			similar = new SimilarImagesSceneRecognition<>(detector, associator, recognitizer, factoryPackedDesc);
+		}
 
 		similar.setSimilarityTest(new ImageSimilarityAssociatedRatio(config.minimumSimilar));
 		similar.setLimitMatchesConsider(config.limitMatchesConsider);
@@ -208,7 +243,7 @@ public class FactorySceneReconstruction {
 				FactoryAssociation.generic(config.associate, detector));
 
 		var similar = new SimilarImagesTrackThenMatch<>(detector, associator, recognitizer,
-				() -> FactoryTupleDesc.createPacked(detector));
+				createPackedDescriptions(config.descriptionsOnDisk, detector));
 
 		similar.setSimilarityTest(new ImageSimilarityAssociatedRatio(config.minimumSimilar));
 		similar.setLimitQuery(config.limitQuery);
@@ -219,6 +254,18 @@ public class FactorySceneReconstruction {
 		return similar;
 	}
 
+	/**
+	 * Creates the array used to store all image feature descriptions
+	 *
+	 * @param onDisk If true the descriptions are stored in a temporary file instead of on the heap
+	 */
+	private static <TD extends TupleDesc<TD>> BoofLambdas.Factory<PackedArray<TD>>
+	createPackedDescriptions( boolean onDisk, DescriptorInfo<TD> info ) {
+		if (onDisk)
+			return () -> FactoryTupleDesc.createPackedDisk(info, null);
+		return () -> FactoryTupleDesc.createPacked(info);
+	}
+
 	/**
 	 * Creates {@link SelectFramesForReconstruction3D} which is used for down sampling frames in image sequences
 	 * to select for ones which have significant 3D information
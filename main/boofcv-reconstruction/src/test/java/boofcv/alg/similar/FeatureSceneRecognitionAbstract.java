@@ -41,6 +41,7 @@ public class FeatureSceneRecognitionAbstract<TD extends TupleDesc<TD>> implement
 	@Override public void learnModel( Iterator<Features<TD>> images ) {}
 	@Override public void clearDatabase() {}
 	@Override public void addImage( String id, Features<TD> features ) {}
+	@Override public boolean removeImage( String id ) {return false;}
 	@Override public List<String> getImageIds( @Nullable List<String> storage ) {return null;}
 	@Override public boolean query( Features<TD> query, BoofLambdas.Filter<String> filter,
 									int limit, DogArray<SceneRecognition.Match> matches ) {return false;}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -24,9 +24,11 @@ import boofcv.abst.feature.detdesc.DetectDescribePointAbstract;
 import boofcv.abst.scene.SceneRecognition;
 import boofcv.alg.structure.GenericLookUpSimilarImagesChecks;
 import boofcv.alg.structure.LookUpSimilarImages;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.structure.FactorySceneReconstruction;
 import boofcv.misc.BoofLambdas;
 import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.PackedTupleDiskArray;
 import boofcv.struct.feature.TupleDesc_F32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageType;
@@ -41,6 +43,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -60,8 +63,7 @@ public class TestSimilarImagesSceneRecognition extends GenericLookUpSimilarImage
 		config.minimumSimilar.setRelative(0.1, 0.0);
 
 		// Create the algorithm from a factory since it's so much easier
-		SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32> alg =
-				FactorySceneReconstruction.createSimilarImages(config, ImageType.SB_U8);
+		SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32> alg = createAlgorithm(config);
 
 		alg.recognizer = new HelperRecognizer(numViews);
 		alg.asscociator = new AssociateDescriptionHashSets<>(new HelperAssociate(numFeaturesPerView));
@@ -85,6 +87,15 @@ public class TestSimilarImagesSceneRecognition extends GenericLookUpSimilarImage
 		return (T)alg;
 	}
 
+	/**
+	 * Creates the implementation being tested
+	 */
+	protected SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32>
+	createAlgorithm( ConfigSimilarImagesSceneRecognition config ) {
+		BoofConcurrency.USE_CONCURRENT = false;
+		return FactorySceneReconstruction.createSimilarImages(config, ImageType.SB_U8);
+	}
+
 	/**
 	 * Simple scenario which exercises everything all at once
 	 */
@@ -94,8 +105,7 @@ public class TestSimilarImagesSceneRecognition extends GenericLookUpSimilarImage
 		config.minimumSimilar.setRelative(0.1, 0.0);
 		config.recognizeNister2006.minimumDepthFromRoot = 0;
 
-		SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32> alg =
-				FactorySceneReconstruction.createSimilarImages(config, ImageType.SB_U8);
+		SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32> alg = createAlgorithm(config);
 
 		alg.detector = new HelperDetector();
 
@@ -144,6 +154,23 @@ public class TestSimilarImagesSceneRecognition extends GenericLookUpSimilarImage
 		}
 	}
 
+	/**
+	 * When descriptions are stored on disk, closing should delete the file
+	 */
+	@Test void close_descriptionsOnDisk() {
+		var config = new ConfigSimilarImagesSceneRecognition();
+		config.descriptionsOnDisk = true;
+
+		SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32> alg = createAlgorithm(config);
+		alg.detector = new HelperDetector();
+		alg.addImage("0", new GrayU8(50, 10));
+
+		var disk = (PackedTupleDiskArray<?>)alg.descriptions;
+		assertTrue(disk.getFile().exists());
+		alg.close();
+		assertFalse(disk.getFile().exists());
+	}
+
 	/**
 	 * Simulates image feature detections to run much faster
 	 */
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.similar;
+
+import boofcv.abst.feature.associate.AssociateDescriptionHashSets;
+import boofcv.abst.feature.detdesc.DetectDescribePointAbstract;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.structure.LookUpSimilarImages;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.feature.associate.FactoryAssociation;
+import boofcv.factory.scene.FactorySceneRecognition;
+import boofcv.factory.struct.FactoryTupleDesc;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_F32;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSimilarImagesSceneRecognition_MT extends TestSimilarImagesSceneRecognition {
+	@Override protected SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32>
+	createAlgorithm( ConfigSimilarImagesSceneRecognition config ) {
+		BoofConcurrency.USE_CONCURRENT = true;
+		SimilarImagesSceneRecognition<GrayU8, TupleDesc_F32> alg = super.createAlgorithm(config);
+		BoofConcurrency.USE_CONCURRENT = true;
+		assertTrue(alg instanceof SimilarImagesSceneRecognition_MT);
+		return alg;
+	}
+
+	@Override public <T extends LookUpSimilarImages> T createFullyLoaded() {
+		SimilarImagesSceneRecognition_MT<GrayU8, TupleDesc_F32> alg = super.createFullyLoaded();
+		alg.factoryAssociator = () -> new AssociateDescriptionHashSets<>(new HelperAssociate(numFeaturesPerView));
+		return (T)alg;
+	}
+
+	/**
+	 * Adds images and looks up similar images. Results should be identical to the single threaded version
+	 */
+	@Test void compareToSingleThread() {
+		BoofConcurrency.USE_CONCURRENT = true;
+
+		// Create images from a few different scenes
+		List<GrayU8> scenes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			var scene = new GrayU8(40, 8);
+			ImageMiscOps.fillUniform(scene, rand, 0, 256);
+			scenes.add(scene);
+		}
+		List<String> ids = new ArrayList<>();
+		List<GrayU8> images = new ArrayList<>();
+		for (int i = 0; i < 15; i++) {
+			GrayU8 image = scenes.get(i%scenes.size()).clone();
+			for (int j = 0; j < 5; j++) {
+				image.set(rand.nextInt(image.width), rand.nextInt(image.height), rand.nextInt(256));
+			}
+			ids.add("" + i);
+			images.add(image);
+		}
+
+		var config = new ConfigSimilarImagesSceneRecognition();
+		config.minimumSimilar.setRelative(0.1, 0.0);
+		config.recognizeNister2006.minimumDepthFromRoot = 0;
+
+		var single = new SimilarImagesSceneRecognition<>(new ImageDetector(),
+				new AssociateDescriptionHashSets<>(FactoryAssociation.generic(config.associate, new ImageDetector())),
+				FactorySceneRecognition.createSceneNister2006(config.recognizeNister2006, () -> new TupleDesc_F32(64)),
+				() -> FactoryTupleDesc.createPacked(64, TupleDesc_F32.class));
+		var alg = new SimilarImagesSceneRecognition_MT<>(ImageDetector::new,
+				() -> new AssociateDescriptionHashSets<>(FactoryAssociation.generic(config.associate, new ImageDetector())),
+				FactorySceneRecognition.createSceneNister2006(config.recognizeNister2006, () -> new TupleDesc_F32(64)),
+				() -> FactoryTupleDesc.createPacked(64, TupleDesc_F32.class));
+		single.setSimilarityTest(new ImageSimilarityAssociatedRatio(config.minimumSimilar));
+		alg.setSimilarityTest(new ImageSimilarityAssociatedRatio(config.minimumSimilar));
+
+		// Make sure more than one batch is processed
+		alg.setBatchSize(4);
+
+		single.addImages(ids, ( id ) -> images.get(Integer.parseInt(id)));
+		alg.addImages(ids, ( id ) -> images.get(Integer.parseInt(id)));
+		single.fixate();
+		alg.fixate();
+
+		assertEquals(single.getImageIDs(), alg.getImageIDs());
+		assertEquals(single.descriptions.size(), alg.descriptions.size());
+
+		List<String> expected = new ArrayList<>();
+		List<String> found = new ArrayList<>();
+		var expectedPairs = new DogArray<>(AssociatedIndex::new);
+		var foundPairs = new DogArray<>(AssociatedIndex::new);
+		int totalSimilar = 0;
+		for (String id : ids) {
+			single.findSimilar(id, null, expected);
+			alg.findSimilar(id, null, found);
+			assertEquals(expected, found);
+			totalSimilar += found.size();
+
+			for (String similar : expected) {
+				single.lookupAssociated(similar, expectedPairs);
+				alg.lookupAssociated(similar, foundPairs);
+				assertEquals(expectedPairs.size, foundPairs.size);
+				for (int i = 0; i < expectedPairs.size; i++) {
+					assertEquals(expectedPairs.get(i).src, foundPairs.get(i).src);
+					assertEquals(expectedPairs.get(i).dst, foundPairs.get(i).dst);
+				}
+			}
+		}
+		// Sanity check to make sure the test isn't trivial
+		assertTrue(totalSimilar > 0);
+	}
+
+	/**
+	 * Creates features from the image's columns so that the output only depends on the input image
+	 */
+	static class ImageDetector extends DetectDescribePointAbstract<GrayU8, TupleDesc_F32> {
+		GrayU8 image;
+
+		@Override public void detect( GrayU8 input ) {image = input;}
+
+		@Override public int getNumberOfFeatures() {return image.width;}
+
+		@Override public TupleDesc_F32 getDescription( int index ) {
+			TupleDesc_F32 desc = createDescription();
+			for (int i = 0; i < desc.size(); i++) {
+				desc.data[i] = image.get(index, i%image.height);
+			}
+			return desc;
+		}
+
+		@Override public Point2D_F64 getLocation( int featureIndex ) {
+			return new Point2D_F64(featureIndex, image.get(featureIndex, 0));
+		}
+
+		@Override public TupleDesc_F32 createDescription() {return new TupleDesc_F32(64);}
+
+		@Override public Class<TupleDesc_F32> getDescriptionType() {return TupleDesc_F32.class;}
+	}
+}
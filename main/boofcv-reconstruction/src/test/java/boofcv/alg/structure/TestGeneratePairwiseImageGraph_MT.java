@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.structure.ConfigEpipolarScore3D;
+import boofcv.factory.structure.FactorySceneReconstruction;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestGeneratePairwiseImageGraph_MT extends BoofStandardJUnit {
+	ConfigEpipolarScore3D config = new ConfigEpipolarScore3D();
+
+	/**
+	 * With a single scorer the results should be identical to the single threaded algorithm
+	 */
+	@Test void compareToSingleThread() {
+		var single = new GeneratePairwiseImageGraph(FactorySceneReconstruction.epipolarScore3D(config));
+		var alg = new GeneratePairwiseImageGraph_MT(() -> FactorySceneReconstruction.epipolarScore3D(config), 1);
+		alg.setBatchSize(4);
+
+		var dbSimilar = new MockLookupSimilarImages(5, 123123);
+		var dbCams = new MockLookUpCameraInfo(400, 300);
+		single.process(dbSimilar, dbCams);
+		alg.process(dbSimilar, dbCams);
+
+		compare(single.getGraph(), alg.getGraph());
+		assertEquals(alg.getGraph().edges.size, alg.getEdgeTimeMS().size);
+	}
+
+	/**
+	 * The graph should only depend on the number of scorers and not the number of threads or the batch size
+	 */
+	@Test void independentOfThreads() {
+		var dbSimilar = new MockLookupSimilarImages(5, 123123);
+		var dbCams = new MockLookUpCameraInfo(400, 300);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		var expected = new GeneratePairwiseImageGraph_MT(() -> FactorySceneReconstruction.epipolarScore3D(config), 3);
+		expected.process(dbSimilar, dbCams);
+
+		BoofConcurrency.USE_CONCURRENT = true;
+		for (int batchSize : new int[]{1, 4, 100}) {
+			var alg = new GeneratePairwiseImageGraph_MT(() -> FactorySceneReconstruction.epipolarScore3D(config), 3);
+			alg.setBatchSize(batchSize);
+			alg.process(dbSimilar, dbCams);
+			compare(expected.getGraph(), alg.getGraph());
+		}
+	}
+
+	void compare( PairwiseImageGraph expected, PairwiseImageGraph found ) {
+		assertEquals(expected.nodes.size, found.nodes.size);
+		for (int i = 0; i < expected.nodes.size; i++) {
+			PairwiseImageGraph.View e = expected.nodes.get(i);
+			PairwiseImageGraph.View f = found.nodes.get(i);
+			assertEquals(e.id, f.id);
+			assertEquals(e.totalObservations, f.totalObservations);
+			assertEquals(e.connections.size, f.connections.size);
+		}
+
+		assertEquals(expected.edges.size, found.edges.size);
+		for (int i = 0; i < expected.edges.size; i++) {
+			PairwiseImageGraph.Motion e = expected.edges.get(i);
+			PairwiseImageGraph.Motion f = found.edges.get(i);
+			assertEquals(e.index, f.index);
+			assertEquals(e.src.id, f.src.id);
+			assertEquals(e.dst.id, f.dst.id);
+			assertEquals(e.is3D, f.is3D);
+			assertEquals(e.score3D, f.score3D);
+			assertEquals(e.inliers.size, f.inliers.size);
+			for (int j = 0; j < e.inliers.size; j++) {
+				assertEquals(e.inliers.get(j).src, f.inliers.get(j).src);
+				assertEquals(e.inliers.get(j).dst, f.inliers.get(j).dst);
+			}
+		}
+	}
+}
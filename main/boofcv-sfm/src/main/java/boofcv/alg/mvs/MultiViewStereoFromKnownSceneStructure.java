@@ -179,6 +179,14 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		// Prune centers with redundant information
 		pruneViewsThatAreSimilarByNeighbors(scene);
 
+		computeCenterViews(scene, pairs);
+	}
+
+	/**
+	 * Goes through the sorted list of views and uses unused views as center views. For each center a fused
+	 * disparity image is computed and added to the point cloud.
+	 */
+	protected void computeCenterViews( SceneStructureMetric scene, StereoPairGraph pairs ) {
 		// Go through the list of views and use unused views as center views when computing the overall 3D cloud
 		for (int index = 0; index < arrayScores.size; index++) {
 			ViewInfo center = arrayScores.get(index);
@@ -220,7 +228,7 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	/**
 	 * Sets up the listener for individual stereo pairs
 	 */
-	void initializeListener() {
+	protected void initializeListener() {
 		Objects.requireNonNull(computeFused.getStereoDisparity(), "Must call setStereoDisparity() first");
 
 		if (listener != null) {
@@ -401,15 +409,23 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 			return false;
 		}
 
+		addFusedDisparityToCloud(scene, center, computeFused.fusedDisparity, computeFused.fusedParam);
+		return true;
+	}
+
+	/**
+	 * Adds the fused disparity image for the center view to the point cloud
+	 */
+	protected void addFusedDisparityToCloud( SceneStructureMetric scene, ViewInfo center,
+											 GrayF32 disparity, DisparityParameters param ) {
 		// The fused disparity doesn't compute a mask since all invalid pixels are marked as invalid using
 		// the disparity value
-		GrayF32 disparity = computeFused.fusedDisparity;
 		dummyMask.reshape(disparity);
 		ImageMiscOps.fill(dummyMask, 0);
 
 		// Pass along results to the listener
 		if (listener != null) {
-			listener.handleFusedDisparity(center.relations.id, disparity, dummyMask, computeFused.fusedParam);
+			listener.handleFusedDisparity(center.relations.id, disparity, dummyMask, param);
 		}
 
 		// Convert data structures into a format which is understood by disparity to cloud
@@ -423,10 +439,8 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 
 		// Use the computed disparity to add to the common point cloud while not adding points already in
 		// the cloud
-		disparityCloud.addDisparity(disparity, dummyMask, world_to_view1, computeFused.fusedParam,
+		disparityCloud.addDisparity(disparity, dummyMask, world_to_view1, param,
 				norm_to_pixel, new PointToPixelTransform_F64(pixel_to_norm));
-
-		return true;
 	}
 
 	/**
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.mvs;
+
+import boofcv.abst.disparity.DisparitySmoother;
+import boofcv.abst.disparity.StereoDisparity;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.LookUpImages;
+import boofcv.misc.LookUpImagesCache;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link MultiViewStereoFromKnownSceneStructure}. Which views are used as centers,
+ * and which views they are paired with, doesn't depend on the computed disparity. All the centers are selected
+ * first and then the fused disparity for several centers is computed at the same time. Each thread has its own
+ * {@link MultiBaselineStereoIndependent} and stereo algorithm, created using the provided factories.
+ * </p>
+ *
+ * <p>
+ * Disparity images are memory intensive. The number of centers processed at the same time is limited so that
+ * their estimated memory plus the size of {@link #imageCache} doesn't exceed {@link #maxMemoryBytes}. Results are added to the point cloud in the
+ * same order as the single threaded implementation, so the cloud is identical. Images are loaded through
+ * a {@link LookUpImagesCache} since the same view is typically paired with multiple centers.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+@SuppressWarnings({"NullAway.Init"})
+public class MultiViewStereoFromKnownSceneStructure_MT<T extends ImageGray<T>>
+		extends MultiViewStereoFromKnownSceneStructure<T> {
+	/**
+	 * Maximum number of bytes the centers which are processed at the same time and the image cache can use.
+	 * At least one center is always processed.
+	 *
+	 * @see #estimateMemoryBytes
+	 */
+	public @Getter @Setter long maxMemoryBytes = 2048L*1024L*1024L;
+
+	/**
+	 * Caches loaded images so that views which are shared by multiple centers are only loaded once. Its
+	 * maximum size is part of {@link #maxMemoryBytes}.
+	 */
+	final @Getter LookUpImagesCache imageCache = new LookUpImagesCache(512L*1024L*1024L);
+
+	// Used to create the stereo algorithms for each thread. If null then centers are processed one at a time.
+	@Nullable BoofLambdas.Factory<StereoDisparity<T, GrayF32>> factoryStereo;
+	final @Nullable BoofLambdas.Factory<DisparitySmoother<T, GrayF32>> factorySmoother;
+
+	// Computes the fused disparity for each center in a batch. The first one is the same instance as computeFused
+	final List<MultiBaselineStereoIndependent<T>> workers = new ArrayList<>();
+
+	// The selected centers, in the order of their rank
+	final DogArray<CenterJob> jobs = new DogArray<>(CenterJob::new, CenterJob::reset);
+
+	// Listener callbacks from different threads are not allowed to overlap
+	final Object listenerLock = new Object();
+
+	/**
+	 * @param imageLookUp Used to load images
+	 * @param imageType Type of gray image
+	 * @param factoryStereo Creates the stereo disparity algorithm used by each thread
+	 * @param factorySmoother Creates the optional disparity smoother used by each thread. Can be null.
+	 */
+	public MultiViewStereoFromKnownSceneStructure_MT( LookUpImages imageLookUp, ImageType<T> imageType,
+													  BoofLambdas.Factory<StereoDisparity<T, GrayF32>> factoryStereo,
+													  @Nullable BoofLambdas.Factory<DisparitySmoother<T, GrayF32>> factorySmoother ) {
+		this(imageType, factoryStereo, factorySmoother);
+		setImageLookUp(imageLookUp);
+	}
+
+	public MultiViewStereoFromKnownSceneStructure_MT( ImageType<T> imageType,
+													  BoofLambdas.Factory<StereoDisparity<T, GrayF32>> factoryStereo,
+													  @Nullable BoofLambdas.Factory<DisparitySmoother<T, GrayF32>> factorySmoother ) {
+		super(imageType);
+		this.factoryStereo = factoryStereo;
+		this.factorySmoother = factorySmoother;
+		configureWorker(computeFused);
+		workers.add(computeFused);
+	}
+
+	@Override protected void initializeListener() {
+		// Each worker is given a listener when it's assigned a center
+	}
+
+	@Override protected void computeCenterViews( SceneStructureMetric scene, StereoPairGraph pairs ) {
+		selectCenters(pairs);
+
+		// A single stereo algorithm can't be shared between threads
+		int maxConcurrent = factoryStereo == null ? 1 : Math.max(1, BoofConcurrency.getActivePool().getParallelism());
+
+		for (int batchStart = 0; batchStart < jobs.size; ) {
+			int batchEnd = selectBatchEnd(batchStart, maxConcurrent);
+			declareWorkers(batchEnd - batchStart);
+
+			if (verbose != null) verbose.println("Batch centers=[" + batchStart + ", " + batchEnd + ")");
+
+			final int _batchStart = batchStart;
+			BoofConcurrency.loopFor(0, batchEnd - batchStart, i ->
+					computeFusedDisparity(scene, jobs.get(_batchStart + i), workers.get(i)));
+
+			// Add to the cloud in order of rank so that the results are the same as the single threaded version
+			for (int jobIdx = batchStart; jobIdx < batchEnd; jobIdx++) {
+				CenterJob job = jobs.get(jobIdx);
+				if (!job.success) {
+					if (verbose != null) verbose.println("FAILED: fused disparity. center.index=" + job.center.index);
+					continue;
+				}
+				MultiBaselineStereoIndependent<T> worker = workers.get(jobIdx - batchStart);
+				listCenters.add(job.center);
+				addFusedDisparityToCloud(scene, job.center, worker.fusedDisparity, worker.fusedParam);
+			}
+
+			batchStart = batchEnd;
+		}
+	}
+
+	/**
+	 * Goes through the sorted list of views and selects the centers and the views they are paired with
+	 */
+	void selectCenters( StereoPairGraph pairs ) {
+		jobs.reset();
+		for (int index = 0; index < arrayScores.size; index++) {
+			ViewInfo center = arrayScores.get(index);
+			// if already processed skip over
+			if (center.used)
+				continue;
+
+			if (verbose != null) verbose.println("Center[" + index + "] View='" + center.relations.id + "'");
+
+			selectAndLoadConnectedImages(pairs, center.relations);
+
+			// If none of the connected views had enough quality abort
+			if (imagePairIndexesSba.size() < 1) {
+				if (verbose != null) verbose.println("_ too few connections to use as a center");
+				continue;
+			}
+
+			CenterJob job = jobs.grow();
+			job.center = center;
+			job.pairIndexesSba.setTo(imagePairIndexesSba);
+			job.indexSbaToViewID.putAll(indexSbaToViewID);
+			job.indexSbaToViewID.put(center.relations.indexSba, center.relations.id);
+			job.estimatedBytes = estimateMemoryBytes(center, imagePairIndexesSba.size);
+		}
+	}
+
+	/**
+	 * Selects the centers which are processed at the same time, starting at 'batchStart', while staying inside
+	 * the memory limit. Memory used by the image cache is subtracted from the limit.
+	 *
+	 * @return Index of the last center in the batch, exclusive.
+	 */
+	int selectBatchEnd( int batchStart, int maxConcurrent ) {
+		long availableBytes = maxMemoryBytes - imageCache.getMaxBytes();
+		long totalBytes = jobs.get(batchStart).estimatedBytes;
+		int batchEnd = batchStart + 1;
+		while (batchEnd < jobs.size && batchEnd - batchStart < maxConcurrent) {
+			totalBytes += jobs.get(batchEnd).estimatedBytes;
+			if (totalBytes > availableBytes)
+				break;
+			batchEnd++;
+		}
+		return batchEnd;
+	}
+
+	/**
+	 * Estimates how many bytes are needed to compute the fused disparity image for a center. Paired images are
+	 * assumed to have the same shape as the center. Workspace internal to the stereo algorithm is not included.
+	 *
+	 * @param center The center view
+	 * @param numPairs Number of views it's paired with
+	 */
+	protected long estimateMemoryBytes( ViewInfo center, int numPairs ) {
+		long pixels = (long)center.dimension.width*center.dimension.height;
+		int bytesPerPixel = Math.max(1, imageType.getDataType().getNumBits()/8);
+
+		// Original and rectified images for both views in a stereo pair
+		long bytes = 4L*pixels*bytesPerPixel;
+		// Rectified disparity and mask, plus the fused disparity
+		bytes += pixels*(4 + 1 + 4);
+		// Fusion keeps the disparity and mask from every pair and the disparity values for every pixel
+		bytes += pixels*numPairs*(4 + 1 + 4);
+		return bytes;
+	}
+
+	/**
+	 * Makes sure there is a worker for each center in the batch. Workers which are no longer needed are
+	 * discarded so that their memory can be reclaimed.
+	 */
+	void declareWorkers( int count ) {
+		while (workers.size() > Math.max(1, count)) {
+			workers.remove(workers.size() - 1);
+		}
+		while (workers.size() < count) {
+			var worker = new MultiBaselineStereoIndependent<>(imageCache, imageType);
+			configureWorker(worker);
+			workers.add(worker);
+		}
+	}
+
+	void configureWorker( MultiBaselineStereoIndependent<T> worker ) {
+		worker.setStereoDisparity(Objects.requireNonNull(factoryStereo).newInstance());
+		if (factorySmoother != null)
+			worker.setDisparitySmoother(factorySmoother.newInstance());
+	}
+
+	/**
+	 * Computes the fused disparity for a single center using the worker. Called from multiple threads.
+	 */
+	void computeFusedDisparity( SceneStructureMetric scene, CenterJob job, MultiBaselineStereoIndependent<T> worker ) {
+		worker.setListener(createPairListener(job.indexSbaToViewID));
+		job.success = worker.process(scene, job.center.relations.indexSba,
+				job.pairIndexesSba, job.indexSbaToViewID::get);
+	}
+
+	/**
+	 * Creates a listener for a worker which passes stereo pair results to {@link #listener} one at a time
+	 */
+	@Nullable MultiBaselineStereoIndependent.Listener<T> createPairListener( TIntObjectMap<String> indexSbaToViewID ) {
+		if (listener == null)
+			return null;
+
+		Listener<T> _listener = this.listener;
+		return ( left, right, rectLeft, rectRight, disparity, mask, parameters, rect ) -> {
+			synchronized (listenerLock) {
+				_listener.handlePairDisparity(indexSbaToViewID.get(left), indexSbaToViewID.get(right),
+						rectLeft, rectRight, disparity, mask, parameters);
+			}
+		};
+	}
+
+	/**
+	 * Specifies a single stereo disparity algorithm. Since it can't be shared between threads, centers will be
+	 * processed one at a time until {@link #setFactoryStereo} is called.
+	 */
+	@Override public void setStereoDisparity( StereoDisparity<T, GrayF32> stereoDisparity ) {
+		super.setStereoDisparity(stereoDisparity);
+		this.factoryStereo = null;
+		declareWorkers(1);
+	}
+
+	/**
+	 * Specifies how the stereo disparity algorithm used by each thread is created
+	 */
+	public void setFactoryStereo( BoofLambdas.Factory<StereoDisparity<T, GrayF32>> factoryStereo ) {
+		this.factoryStereo = factoryStereo;
+		computeFused.setStereoDisparity(factoryStereo.newInstance());
+		declareWorkers(1);
+	}
+
+	/**
+	 * Images are loaded through {@link #imageCache}, which uses the passed in images as its source
+	 */
+	@Override public void setImageLookUp( LookUpImages imageLookUp ) {
+		imageCache.setSource(imageLookUp);
+		super.setImageLookUp(imageCache);
+		for (int i = 0; i < workers.size(); i++) {
+			workers.get(i).setLookUpImages(imageCache);
+		}
+	}
+
+	/** A center view and the views it's paired with */
+	@SuppressWarnings({"NullAway.Init"})
+	static class CenterJob {
+		ViewInfo center;
+		// SBA index of views paired with the center
+		final DogArray_I32 pairIndexesSba = new DogArray_I32();
+		// Look up view ID from SBA index. Includes the center
+		final TIntObjectMap<String> indexSbaToViewID = new TIntObjectHashMap<>();
+		// Estimated memory needed to compute the fused disparity
+		long estimatedBytes;
+		// If the fused disparity was computed
+		boolean success;
+
+		@SuppressWarnings({"NullAway"})
+		void reset() {
+			center = null;
+			pairIndexesSba.reset();
+			indexSbaToViewID.clear();
+			estimatedBytes = 0;
+			success = false;
+		}
+	}
+}
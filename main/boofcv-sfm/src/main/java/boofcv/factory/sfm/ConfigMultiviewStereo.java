@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -36,15 +36,31 @@ public class ConfigMultiviewStereo implements Configuration {
 	/** {@link boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure#maxCombinePairs} */
 	public int maxCombinePairs = 10;
 
+	/**
+	 * {@link boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure_MT#maxMemoryBytes} in megabytes. Includes
+	 * {@link #imageCacheMB}. Only used when concurrency is enabled.
+	 */
+	public int maxConcurrentMemoryMB = 2048;
+
+	/**
+	 * Maximum size of {@link boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure_MT#imageCache} in megabytes.
+	 * Only used when concurrency is enabled.
+	 */
+	public int imageCacheMB = 512;
+
 	@Override public void checkValidity() {
 		BoofMiscOps.checkTrue(minimumQuality3D >= 0.0);
 		BoofMiscOps.checkTrue(maximumCenterOverlap >= 0.0 && maximumCenterOverlap <= 1.0);
+		BoofMiscOps.checkTrue(maxConcurrentMemoryMB >= 0);
+		BoofMiscOps.checkTrue(imageCacheMB >= 0);
 	}
 
 	public ConfigMultiviewStereo setTo( ConfigMultiviewStereo src ) {
 		this.minimumQuality3D = src.minimumQuality3D;
 		this.maximumCenterOverlap = src.maximumCenterOverlap;
 		this.maxCombinePairs = src.maxCombinePairs;
+		this.maxConcurrentMemoryMB = src.maxConcurrentMemoryMB;
+		this.imageCacheMB = src.imageCacheMB;
 		return this;
 	}
 }
@@ -18,6 +18,7 @@
 
 package boofcv.alg.mvs;
 
+import boofcv.abst.disparity.StereoDisparity;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.geo.bundle.BundleAdjustmentOps;
 import boofcv.alg.geo.bundle.cameras.BundlePinhole;
@@ -248,7 +249,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		assertEquals(1, totalUnused);
 	}
 
-	private void createScene( int numViews ) {
+	void createScene( int numViews ) {
 		scene = new SceneStructureMetric(true);
 		scene.initialize(numViews, numViews, 0);
 		pairs = new StereoPairGraph();
@@ -332,10 +333,13 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		assertEquals(1.5, y1, 0.3);
 	}
 
-	private MultiViewStereoFromKnownSceneStructure<GrayF32> createAlg() {
-
+	protected MultiViewStereoFromKnownSceneStructure<GrayF32> createAlg() {
 		var alg = new MultiViewStereoFromKnownSceneStructure<>(new SimulatedLookUp(), ImageType.SB_F32);
+		alg.setStereoDisparity(createStereoDisparity());
+		return alg;
+	}
 
+	StereoDisparity<GrayF32, GrayF32> createStereoDisparity() {
 		// It would be very difficult to mock the disparity for each view so we just use real disparity
 		var configDisp = new ConfigDisparityBM();
 		configDisp.errorType = DisparityError.CENSUS;
@@ -347,9 +351,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		configDisp.regionRadiusX = 3;
 		configDisp.regionRadiusY = 3;
 		configDisp.border = BorderType.EXTENDED;
-		alg.setStereoDisparity(FactoryStereoDisparity.blockMatch(configDisp, GrayF32.class, GrayF32.class));
-
-		return alg;
+		return FactoryStereoDisparity.blockMatch(configDisp, GrayF32.class, GrayF32.class);
 	}
 
 	private class DummyLookUp implements LookUpImages {
@@ -372,7 +374,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 	/**
 	 * Renders images as requested with a simulated target
 	 */
-	private class SimulatedLookUp implements LookUpImages {
+	class SimulatedLookUp implements LookUpImages {
 		SimulatePlanarWorld sim = new SimulatePlanarWorld();
 
 		public SimulatedLookUp() {
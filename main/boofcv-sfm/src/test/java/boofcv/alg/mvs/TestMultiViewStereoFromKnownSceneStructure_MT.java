@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.mvs;
+
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import georegression.struct.point.Point3D_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs all the single threaded tests against the concurrent implementation
+ *
+ * @author Peter Abeles
+ */
+public class TestMultiViewStereoFromKnownSceneStructure_MT extends TestMultiViewStereoFromKnownSceneStructure {
+	@Override protected MultiViewStereoFromKnownSceneStructure<GrayF32> createAlg() {
+		return new MultiViewStereoFromKnownSceneStructure_MT<>(new SimulatedLookUp(), ImageType.SB_F32,
+				this::createStereoDisparity, null);
+	}
+
+	/**
+	 * The cloud should be identical to the single threaded version, even if the memory limit forces
+	 * one center to be processed at a time
+	 */
+	@Test void compareToSingleThread() {
+		createScene(4);
+		prunePairs(pairs.vertexes.get("id=0").pairs, 0, 1);
+		prunePairs(pairs.vertexes.get("id=1").pairs, 0, 1);
+		prunePairs(pairs.vertexes.get("id=2").pairs, 2, 3);
+		prunePairs(pairs.vertexes.get("id=3").pairs, 2, 3);
+
+		var single = new MultiViewStereoFromKnownSceneStructure<>(new SimulatedLookUp(), ImageType.SB_F32);
+		single.setStereoDisparity(createStereoDisparity());
+		single.process(scene, pairs);
+
+		for (long maxMemoryBytes : new long[]{1, Long.MAX_VALUE}) {
+			var alg = (MultiViewStereoFromKnownSceneStructure_MT<GrayF32>)createAlg();
+			alg.maxMemoryBytes = maxMemoryBytes;
+			alg.process(scene, pairs);
+
+			assertEquals(single.getListCenters().size(), alg.getListCenters().size());
+			for (int i = 0; i < single.getListCenters().size(); i++) {
+				assertEquals(single.getListCenters().get(i).relations.id, alg.getListCenters().get(i).relations.id);
+			}
+
+			CreateCloudFromDisparityImages expected = single.getDisparityCloud();
+			CreateCloudFromDisparityImages found = alg.getDisparityCloud();
+			assertEquals(expected.viewPointIdx.size, found.viewPointIdx.size);
+			for (int i = 0; i < expected.viewPointIdx.size; i++) {
+				assertEquals(expected.viewPointIdx.get(i), found.viewPointIdx.get(i));
+			}
+
+			List<Point3D_F64> cloudExpected = single.getCloud();
+			List<Point3D_F64> cloudFound = alg.getCloud();
+			assertEquals(cloudExpected.size(), cloudFound.size());
+			for (int i = 0; i < cloudExpected.size(); i++) {
+				assertEquals(0.0, cloudExpected.get(i).distance(cloudFound.get(i)));
+			}
+		}
+	}
+
+	/**
+	 * Centers should be grouped until the memory limit is exceeded, but there's always at least one
+	 */
+	@Test void selectBatchEnd() {
+		var alg = (MultiViewStereoFromKnownSceneStructure_MT<GrayF32>)createAlg();
+		alg.imageCache.setMaxBytes(0);
+		for (int i = 0; i < 5; i++) {
+			alg.jobs.grow().estimatedBytes = 10;
+		}
+
+		alg.maxMemoryBytes = 5;
+		assertEquals(1, alg.selectBatchEnd(0, 10));
+		alg.maxMemoryBytes = 25;
+		assertEquals(3, alg.selectBatchEnd(1, 10));
+		alg.maxMemoryBytes = 1000;
+		assertEquals(5, alg.selectBatchEnd(0, 10));
+		assertEquals(4, alg.selectBatchEnd(1, 3));
+
+		// The image cache is part of the memory limit
+		alg.imageCache.setMaxBytes(20);
+		alg.maxMemoryBytes = 45;
+		assertEquals(3, alg.selectBatchEnd(1, 10));
+		alg.maxMemoryBytes = 20;
+		assertEquals(1, alg.selectBatchEnd(0, 10));
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -19,10 +19,29 @@
 package boofcv.concurrency;
 
 import pabeles.concurrency.ConcurrencyOps;
+import pabeles.concurrency.GrowArray;
+import pabeles.concurrency.IntRangeConsumer;
+import pabeles.concurrency.IntRangeObjectConsumer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Central class for controlling concurrency in BoofCV.
  *
+ * <p>
+ * By default all concurrent code shares a single global thread pool. A different pool can be assigned to
+ * a block of code using {@link #runUsing(ForkJoinPool, Runnable)}. All loops started inside that block, including
+ * loops nested inside of other loops, will then run on the assigned pool. This allows independent processing
+ * pipelines to be isolated from each other. Pools can be created with {@link #newThreadPool(String, int, int)}.
+ * </p>
+ *
  * @author Peter Abeles
  */
 @SuppressWarnings({"CatchAndPrintStackTrace"})
@@ -32,6 +51,9 @@ public class BoofConcurrency extends ConcurrencyOps {
 	/** f set to true it will use a concurrent algorithm */
 	public static boolean USE_CONCURRENT = true;
 
+	/** Thread pool assigned to the current thread. If null then the pool is selected automatically */
+	private static final ThreadLocal<ForkJoinPool> localPool = new ThreadLocal<>();
+
 	/**
 	 * Sets the maximum number of threads available in the thread pool and adjusts USE_CONCURRENT. If
 	 * the number of threads is less than 2 then USE_CONCURRENT will be set to false and the single thread
@@ -54,7 +76,249 @@ public class BoofConcurrency extends ConcurrencyOps {
 	 */
 	public static int getEffectiveActiveThreads() {
 		if (USE_CONCURRENT)
-			return getThreadPool().getActiveThreadCount();
+			return getActivePool().getActiveThreadCount();
 		return 1;
 	}
+
+	/**
+	 * Runs the task with all concurrent code called from inside of it using the specified thread pool
+	 * instead of the global pool. Calls can be nested and the previous pool is restored when it returns.
+	 *
+	 * @param pool Thread pool which concurrent code inside the task will use
+	 * @param task The task which is to be run in the calling thread
+	 */
+	public static void runUsing( ForkJoinPool pool, Runnable task ) {
+		ForkJoinPool previous = localPool.get();
+		localPool.set(pool);
+		try {
+			task.run();
+		} finally {
+			restoreLocalPool(previous);
+		}
+	}
+
+	/**
+	 * Same as {@link #runUsing(ForkJoinPool, Runnable)} but the task returns a value.
+	 */
+	public static <T> T callUsing( ForkJoinPool pool, Callable<T> task ) throws Exception {
+		ForkJoinPool previous = localPool.get();
+		localPool.set(pool);
+		try {
+			return task.call();
+		} finally {
+			restoreLocalPool(previous);
+		}
+	}
+
+	private static void restoreLocalPool( ForkJoinPool previous ) {
+		if (previous == null)
+			localPool.remove();
+		else
+			localPool.set(previous);
+	}
+
+	/**
+	 * Returns the thread pool which concurrent code called from the current thread will use. If one was
+	 * assigned with {@link #runUsing} then that's returned. If the current thread is a worker inside a pool
+	 * other than the JDK's common pool, then that pool is used so that nested loops stay inside the pool. Otherwise
+	 * the global pool is returned.
+	 */
+	public static ForkJoinPool getActivePool() {
+		ForkJoinPool pool = localPool.get();
+		if (pool != null)
+			return pool;
+		pool = ForkJoinTask.getPool();
+		if (pool != null && pool != ForkJoinPool.commonPool())
+			return pool;
+		return getThreadPool();
+	}
+
+	/**
+	 * Creates a new thread pool which can be assigned to a block of code using {@link #runUsing}. Threads are
+	 * daemon threads and are named after the pool, which makes them easy to identify when profiling.
+	 *
+	 * @param name Name of the pool. Used as a prefix in thread names.
+	 * @param maxThreads Maximum number of threads in the pool. Must be &ge; 1.
+	 * @param priority Priority of threads in the pool. See {@link Thread#setPriority(int)}.
+	 * @return A new thread pool
+	 */
+	public static ForkJoinPool newThreadPool( String name, int maxThreads, int priority ) {
+		if (maxThreads < 1)
+			throw new IllegalArgumentException("maxThreads must be at least 1");
+		if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY)
+			throw new IllegalArgumentException("Invalid thread priority " + priority);
+
+		final AtomicInteger count = new AtomicInteger();
+		ForkJoinPool.ForkJoinWorkerThreadFactory factory = ( p ) -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			thread.setName(name + "-" + count.getAndIncrement());
+			thread.setPriority(priority);
+			thread.setDaemon(true);
+			return thread;
+		};
+		return new ForkJoinPool(maxThreads, factory, null, false);
+	}
+
+	/**
+	 * Creates a pool intended for stages which spend most of their time blocked on I/O, e.g. reading and decoding
+	 * images from disk. The pool is over subscribed by the specified factor relative to the number of processors
+	 * so that blocked threads don't leave cores idle.
+	 *
+	 * @param name Name of the pool. Used as a prefix in thread names.
+	 * @param oversubscribe Number of threads per processor. Must be &ge; 1.
+	 * @return A new thread pool
+	 */
+	public static ForkJoinPool newBlockingThreadPool( String name, int oversubscribe ) {
+		if (oversubscribe < 1)
+			throw new IllegalArgumentException("oversubscribe must be at least 1");
+		int threads = oversubscribe*Runtime.getRuntime().availableProcessors();
+		return newThreadPool(name, threads, Thread.NORM_PRIORITY);
+	}
+
+	/**
+	 * Concurrent for loop which runs on the {@link #getActivePool() active pool}.
+	 *
+	 * @see ConcurrencyOps#loopFor(int, int, IntConsumer)
+	 */
+	public static void loopFor( int start, int endExclusive, IntConsumer consumer ) {
+		ForkJoinPool pool = getActivePool();
+		if (pool == getThreadPool()) {
+			ConcurrencyOps.loopFor(start, endExclusive, consumer);
+			return;
+		}
+		runInPool(pool, () -> IntStream.range(start, endExclusive).parallel().forEach(consumer));
+	}
+
+	/**
+	 * Concurrent for loop with a step size which runs on the {@link #getActivePool() active pool}.
+	 *
+	 * @see ConcurrencyOps#loopFor(int, int, int, IntConsumer)
+	 */
+	public static void loopFor( int start, int endExclusive, int step, IntConsumer consumer ) {
+		if (step <= 0)
+			throw new IllegalArgumentException("Step must be a positive number.");
+		ForkJoinPool pool = getActivePool();
+		if (pool == getThreadPool()) {
+			ConcurrencyOps.loopFor(start, endExclusive, step, consumer);
+			return;
+		}
+		if (start >= endExclusive)
+			return;
+		int range = endExclusive - start;
+		int iterations = range/step + ((range%step == 0) ? 0 : 1);
+		runInPool(pool, () -> IntStream.range(0, iterations).parallel().forEach(i -> consumer.accept(start + i*step)));
+	}
+
+	/**
+	 * Splits the range into blocks which are processed concurrently on the {@link #getActivePool() active pool}.
+	 *
+	 * @see ConcurrencyOps#loopBlocks(int, int, int, IntRangeConsumer)
+	 */
+	public static void loopBlocks( int start, int endExclusive, int minBlock, IntRangeConsumer consumer ) {
+		ForkJoinPool pool = getActivePool();
+		if (pool == getThreadPool()) {
+			ConcurrencyOps.loopBlocks(start, endExclusive, minBlock, consumer);
+			return;
+		}
+		int range = checkRange(start, endExclusive);
+		if (range == 0)
+			return;
+		int block = computeBlockSize(range, minBlock, pool.getParallelism());
+		int numBlocks = range/block;
+		runInPool(pool, () -> IntStream.range(0, numBlocks).parallel().forEach(i -> {
+			int idx0 = start + i*block;
+			int idx1 = i == numBlocks - 1 ? endExclusive : idx0 + block;
+			consumer.accept(idx0, idx1);
+		}));
+	}
+
+	/**
+	 * Splits the range into blocks which are processed concurrently on the {@link #getActivePool() active pool}.
+	 *
+	 * @see ConcurrencyOps#loopBlocks(int, int, IntRangeConsumer)
+	 */
+	public static void loopBlocks( int start, int endExclusive, IntRangeConsumer consumer ) {
+		loopBlocks(start, endExclusive, 1, consumer);
+	}
+
+	/**
+	 * Splits the range into blocks which are processed concurrently on the {@link #getActivePool() active pool}.
+	 * Each block is given its own element from the workspace.
+	 *
+	 * @see ConcurrencyOps#loopBlocks(int, int, int, GrowArray, IntRangeObjectConsumer)
+	 */
+	public static <T> void loopBlocks( int start, int endExclusive, int minBlock,
+									   GrowArray<T> workspace, IntRangeObjectConsumer<T> consumer ) {
+		ForkJoinPool pool = getActivePool();
+		if (pool == getThreadPool()) {
+			ConcurrencyOps.loopBlocks(start, endExclusive, minBlock, workspace, consumer);
+			return;
+		}
+		int range = checkRange(start, endExclusive);
+		if (range == 0)
+			return;
+		int block = computeBlockSize(range, minBlock, pool.getParallelism());
+		int numBlocks = range/block;
+
+		// declare the workspace for each block before any threads are started
+		workspace.reset();
+		for (int i = 0; i < numBlocks; i++) {
+			workspace.grow();
+		}
+
+		runInPool(pool, () -> IntStream.range(0, numBlocks).parallel().forEach(i -> {
+			int idx0 = start + i*block;
+			int idx1 = i == numBlocks - 1 ? endExclusive : idx0 + block;
+			consumer.accept(workspace.get(i), idx0, idx1);
+		}));
+	}
+
+	/**
+	 * Splits the range into blocks which are processed concurrently on the {@link #getActivePool() active pool}.
+	 * Each block is given its own element from the workspace.
+	 *
+	 * @see ConcurrencyOps#loopBlocks(int, int, GrowArray, IntRangeObjectConsumer)
+	 */
+	public static <T> void loopBlocks( int start, int endExclusive,
+									   GrowArray<T> workspace, IntRangeObjectConsumer<T> consumer ) {
+		loopBlocks(start, endExclusive, 1, workspace, consumer);
+	}
+
+	private static int checkRange( int start, int endExclusive ) {
+		int range = endExclusive - start;
+		if (range < 0)
+			throw new IllegalArgumentException("end must be more than start. " + start + " -> " + endExclusive);
+		return range;
+	}
+
+	/**
+	 * Selects the size of a block so that there are about as many blocks as threads, but no block is
+	 * smaller than minBlock unless the total amount of work is smaller.
+	 */
+	static int computeBlockSize( int totalWork, int minBlock, int numThreads ) {
+		int block = Math.max(1, Math.max(minBlock, totalWork/numThreads));
+		int numBlocks = Math.max(1, totalWork/block);
+		return totalWork/numBlocks;
+	}
+
+	/**
+	 * Runs the task inside the pool and waits for it to finish. If already inside the pool it's run directly
+	 * to avoid blocking a worker while waiting on itself.
+	 */
+	private static void runInPool( ForkJoinPool pool, Runnable task ) {
+		if (ForkJoinTask.getPool() == pool) {
+			task.run();
+			return;
+		}
+		try {
+			pool.submit(task).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.misc;
+
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageDimension;
+import boofcv.struct.image.ImageType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Thread safe {@link LookUpImages} which keeps a copy of recently loaded images in memory. When computing dense
+ * stereo from many views the same image is loaded once as a "center" and again for every stereo pair it's in, and
+ * decoding an image from disk can be as expensive as the stereo calculation itself. Images are looked up by their
+ * name and image type, and a copy is returned so the caller is free to modify it.
+ * </p>
+ *
+ * <p>
+ * Memory is bounded by discarding the least recently used images once the total size exceeds {@link #maxBytes}.
+ * Calls to the wrapped {@link LookUpImages} are serialized, so it does not need to be thread safe, while images
+ * which are already in the cache can be copied by other threads at the same time.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+@SuppressWarnings({"NullAway.Init"})
+public class LookUpImagesCache implements LookUpImages {
+	/** Maximum number of bytes used by all the images. The most recently used image is always kept. */
+	@Getter @Setter long maxBytes;
+
+	/** Source of images which are not in the cache */
+	@Getter LookUpImages source;
+
+	// Images ordered from least to most recently accessed
+	final LinkedHashMap<String, ImageBase<?>> images = new LinkedHashMap<>(16, 0.75f, true);
+
+	// Number of bytes used by all the images
+	long usedBytes;
+
+	// Used to serialize calls to the source
+	final Object sourceLock = new Object();
+
+	/**
+	 * @param source Source of images which are not in the cache
+	 * @param maxBytes Maximum number of bytes used by all the images.
+	 */
+	public LookUpImagesCache( LookUpImages source, long maxBytes ) {
+		this.source = source;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Creates a cache without a source. {@link #setSource} must be called before it's used.
+	 *
+	 * @param maxBytes Maximum number of bytes used by all the images.
+	 */
+	public LookUpImagesCache( long maxBytes ) {
+		this.maxBytes = maxBytes;
+	}
+
+	@Override public boolean loadShape( String name, ImageDimension shape ) {
+		synchronized (sourceLock) {
+			return source.loadShape(name, shape);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override public <LT extends ImageBase<LT>> boolean loadImage( String name, LT output ) {
+		String key = createKey(name, output.getImageType());
+		ImageBase<?> cached;
+		synchronized (images) {
+			cached = images.get(key);
+		}
+
+		// Cached images are never modified so it's safe to copy outside the lock, even if it gets discarded
+		if (cached != null) {
+			output.setTo((LT)cached);
+			return true;
+		}
+
+		synchronized (sourceLock) {
+			if (!source.loadImage(name, output))
+				return false;
+		}
+
+		LT copy = output.clone();
+		synchronized (images) {
+			// Another thread might have loaded the same image while this one was
+			if (!images.containsKey(key)) {
+				images.put(key, copy);
+				usedBytes += computeBytes(copy);
+				discardOldImages();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Changes the source of images and discards all the cached images
+	 */
+	public void setSource( LookUpImages source ) {
+		synchronized (sourceLock) {
+			this.source = source;
+		}
+		clear();
+	}
+
+	/** Number of bytes used by all the images */
+	public long getUsedBytes() {
+		synchronized (images) {
+			return usedBytes;
+		}
+	}
+
+	/** Number of images in the cache */
+	public int size() {
+		synchronized (images) {
+			return images.size();
+		}
+	}
+
+	/** Removes all the images from the cache */
+	public void clear() {
+		synchronized (images) {
+			images.clear();
+			usedBytes = 0;
+		}
+	}
+
+	/**
+	 * Removes the least recently used images until the memory budget is satisfied
+	 */
+	void discardOldImages() {
+		Iterator<Map.Entry<String, ImageBase<?>>> iter = images.entrySet().iterator();
+		while (usedBytes > maxBytes && images.size() > 1) {
+			ImageBase<?> image = iter.next().getValue();
+			iter.remove();
+			usedBytes -= computeBytes(image);
+		}
+	}
+
+	/** Images are looked up by name and type since the same image could be loaded as gray or color */
+	String createKey( String name, ImageType<?> type ) {
+		return name + "|" + type;
+	}
+
+	/** Number of bytes used to store the image's pixels */
+	static long computeBytes( ImageBase<?> image ) {
+		ImageType<?> type = image.getImageType();
+		return (long)image.width*image.height*type.getNumBands()*Math.max(1, type.getDataType().getNumBits()/8);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.concurrency;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+import pabeles.concurrency.GrowArray;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestBoofConcurrency extends BoofStandardJUnit {
+	/**
+	 * Loops inside of runUsing() should run on the assigned pool and nested loops should stay in it
+	 */
+	@Test void runUsing_loopFor() {
+		ForkJoinPool pool = BoofConcurrency.newThreadPool("scoped", 2, Thread.NORM_PRIORITY);
+		var outside = new AtomicInteger();
+		var total = new AtomicInteger();
+
+		BoofConcurrency.runUsing(pool, () -> {
+			assertSame(pool, BoofConcurrency.getActivePool());
+			BoofConcurrency.loopFor(0, 20, i -> {
+				if (!Thread.currentThread().getName().startsWith("scoped"))
+					outside.incrementAndGet();
+				BoofConcurrency.loopFor(0, 5, j -> {
+					if (!Thread.currentThread().getName().startsWith("scoped"))
+						outside.incrementAndGet();
+					total.incrementAndGet();
+				});
+			});
+		});
+
+		assertEquals(0, outside.get());
+		assertEquals(100, total.get());
+
+		// the previous pool should be restored
+		assertNotSame(pool, BoofConcurrency.getActivePool());
+		pool.shutdown();
+	}
+
+	@Test void runUsing_loopFor_step() {
+		ForkJoinPool pool = BoofConcurrency.newThreadPool("scoped", 2, Thread.NORM_PRIORITY);
+		var sum = new AtomicInteger();
+		BoofConcurrency.runUsing(pool, () -> BoofConcurrency.loopFor(1, 10, 3, sum::addAndGet));
+		assertEquals(1 + 4 + 7, sum.get());
+		pool.shutdown();
+	}
+
+	/**
+	 * Makes sure every element is processed exactly once and that workspaces are assigned one per block
+	 */
+	@Test void runUsing_loopBlocks() {
+		ForkJoinPool pool = BoofConcurrency.newThreadPool("scoped", 3, Thread.NORM_PRIORITY);
+		int[] counts = new int[103];
+		var workspace = new GrowArray<>(AtomicInteger::new);
+
+		BoofConcurrency.runUsing(pool, () -> {
+			BoofConcurrency.loopBlocks(2, 101, 10, ( idx0, idx1 ) -> {
+				for (int i = idx0; i < idx1; i++) {
+					counts[i]++;
+				}
+			});
+			BoofConcurrency.loopBlocks(2, 101, 10, workspace, ( work, idx0, idx1 ) -> {
+				work.addAndGet(idx1 - idx0);
+				for (int i = idx0; i < idx1; i++) {
+					counts[i]++;
+				}
+			});
+		});
+
+		for (int i = 0; i < counts.length; i++) {
+			assertEquals(i >= 2 && i < 101 ? 2 : 0, counts[i]);
+		}
+
+		int total = 0;
+		for (int i = 0; i < workspace.size(); i++) {
+			total += workspace.get(i).get();
+		}
+		assertEquals(99, total);
+		pool.shutdown();
+	}
+
+	@Test void callUsing() throws Exception {
+		ForkJoinPool pool = BoofConcurrency.newThreadPool("scoped", 1, Thread.MIN_PRIORITY);
+		ForkJoinPool found = BoofConcurrency.callUsing(pool, BoofConcurrency::getActivePool);
+		assertSame(pool, found);
+		pool.shutdown();
+	}
+
+	/**
+	 * Exceptions thrown inside a loop should be passed to the caller
+	 */
+	@Test void runUsing_exception() {
+		ForkJoinPool pool = BoofConcurrency.newThreadPool("scoped", 2, Thread.NORM_PRIORITY);
+		assertThrows(IllegalStateException.class, () -> BoofConcurrency.runUsing(pool, () ->
+				BoofConcurrency.loopFor(0, 10, i -> {
+					throw new IllegalStateException("Test");
+				})));
+		pool.shutdown();
+	}
+
+	@Test void computeBlockSize() {
+		assertEquals(25, BoofConcurrency.computeBlockSize(100, 10, 4));
+		assertEquals(33, BoofConcurrency.computeBlockSize(100, 30, 4));
+		assertEquals(5, BoofConcurrency.computeBlockSize(5, 10, 4));
+	}
+}
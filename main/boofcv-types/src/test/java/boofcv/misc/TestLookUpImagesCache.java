@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2022, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.misc;
+
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageDimension;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestLookUpImagesCache extends BoofStandardJUnit {
+	/**
+	 * Images should only be loaded from the source once and a copy returned
+	 */
+	@Test void loadImage_cached() {
+		var source = new DummyLookUp();
+		var alg = new LookUpImagesCache(source, 1000);
+
+		var image = new GrayU8(1, 1);
+		assertTrue(alg.loadImage("2", image));
+		assertEquals(10, image.width);
+		assertEquals(2, image.get(1, 1));
+
+		// Modifying the output should not modify the cache
+		image.set(1, 1, 100);
+		assertTrue(alg.loadImage("2", image));
+		assertEquals(2, image.get(1, 1));
+		assertEquals(1, source.requests.size());
+		assertEquals(100, alg.getUsedBytes());
+
+		// A different image type is a different image
+		var imageF = new GrayF32(1, 1);
+		assertTrue(alg.loadImage("2", imageF));
+		assertEquals(2.0f, imageF.get(1, 1));
+		assertEquals(2, source.requests.size());
+		assertEquals(500, alg.getUsedBytes());
+	}
+
+	/**
+	 * Least recently used images are discarded first and the most recent is always kept
+	 */
+	@Test void discardOldImages() {
+		var source = new DummyLookUp();
+		var alg = new LookUpImagesCache(source, 250);
+
+		var image = new GrayU8(1, 1);
+		alg.loadImage("1", image);
+		alg.loadImage("2", image);
+		alg.loadImage("1", image);
+		alg.loadImage("3", image);
+		assertEquals(2, alg.size());
+		assertEquals(3, source.requests.size());
+
+		// "2" was the least recently used
+		alg.loadImage("1", image);
+		assertEquals(3, source.requests.size());
+		alg.loadImage("2", image);
+		assertEquals(4, source.requests.size());
+
+		// Too big to fit but it's still kept
+		alg.setMaxBytes(10);
+		alg.loadImage("4", image);
+		assertEquals(1, alg.size());
+		alg.loadImage("4", image);
+		assertEquals(5, source.requests.size());
+	}
+
+	@Test void loadImage_missing() {
+		var alg = new LookUpImagesCache(new DummyLookUp(), 1000);
+		assertFalse(alg.loadImage("missing", new GrayU8(1, 1)));
+		assertEquals(0, alg.size());
+	}
+
+	@Test void setSource() {
+		var alg = new LookUpImagesCache(new DummyLookUp(), 1000);
+		alg.loadImage("1", new GrayU8(1, 1));
+		assertEquals(1, alg.size());
+
+		var source = new DummyLookUp();
+		alg.setSource(source);
+		assertEquals(0, alg.size());
+		assertEquals(0, alg.getUsedBytes());
+
+		var shape = new ImageDimension();
+		assertTrue(alg.loadShape("1", shape));
+		assertEquals(10, shape.width);
+		assertEquals(10, shape.height);
+	}
+
+	/** Creates a 10x10 image filled with the value in its name */
+	static class DummyLookUp implements LookUpImages {
+		final List<String> requests = new ArrayList<>();
+
+		@Override public boolean loadShape( String name, ImageDimension shape ) {
+			shape.setTo(10, 10);
+			return true;
+		}
+
+		@Override public <LT extends ImageBase<LT>> boolean loadImage( String name, LT output ) {
+			if (name.equals("missing"))
+				return false;
+			requests.add(name);
+			output.reshape(10, 10);
+			int value = Integer.parseInt(name);
+			if (output instanceof GrayU8)
+				Arrays.fill(((GrayU8)output).data, 0, 100, (byte)value);
+			else
+				Arrays.fill(((GrayF32)output).data, 0, 100, value);
+			return true;
+		}
+	}
+}